@@ -0,0 +1,51 @@
+package co.istad.api.composite.product;
+
+import co.istad.api.exception.InvalidInputException;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Optional parts of a {@link ProductAggregate}, selected with the {@code include} request
+ * parameter, e.g. {@code include=reviews}. The base product is always included.
+ */
+public enum AggregatePart {
+
+	RECOMMENDATIONS,
+	REVIEWS;
+
+	private static final String PRODUCT = "product";
+
+	/**
+	 * @param include names of the parts, {@code null} for all parts, {@code product} for the base product
+	 * @throws InvalidInputException on unknown names
+	 */
+	public static Set<AggregatePart> parse(List<String> include) {
+		if (include == null) {
+			return EnumSet.allOf(AggregatePart.class);
+		}
+
+		Set<AggregatePart> parts = EnumSet.noneOf(AggregatePart.class);
+		for (String name : include) {
+			String part = name.trim().toLowerCase(Locale.ROOT);
+			if (part.isEmpty() || part.equals(PRODUCT)) {
+				continue;
+			}
+			parts.add(Arrays.stream(values())
+					.filter(value -> value.paramName().equals(part))
+					.findFirst()
+					.orElseThrow(() -> new InvalidInputException("Invalid include: " + name + ", must be one of "
+							+ PRODUCT + ", " + Arrays.stream(values()).map(AggregatePart::paramName).collect(Collectors.joining(", ")))));
+		}
+		return parts;
+	}
+
+	public String paramName() {
+		return name().toLowerCase(Locale.ROOT);
+	}
+
+}
@@ -1,19 +1,25 @@
 package co.istad.api.composite.product;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import java.util.List;
 
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Getter
 @Setter
 public class ProductAggregate {
 	private Long productId;
 	private String name;
 	private Integer weight;
+	// Parts left out by the include parameter, see AggregatePart, are null and not serialized
+	@JsonInclude(JsonInclude.Include.NON_NULL)
 	private List<RecommendationSummary> recommendations;
+	private String recommendationsNext;
+	@JsonInclude(JsonInclude.Include.NON_NULL)
 	private List<ReviewSummary> reviews;
+	private String reviewsNext;
 	private ServiceAddresses serviceAddresses;
 }
@@ -6,6 +6,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
 
 @Tag(name = "ProductComposite", description = "REST API for composite product information.")
 public interface ProductCompositeService {
@@ -29,12 +33,13 @@ public interface ProductCompositeService {
 	@PostMapping(
 			value    = "/product-composite",
 			consumes = "application/json")
-	void createProduct(@RequestBody ProductAggregate body);
+	Mono<Void> createProduct(@RequestBody ProductAggregate body);
 
 	/**
-	 * Sample usage: "curl $HOST:$PORT/product-composite/1".
+	 * Sample usage: "curl $HOST:$PORT/product-composite/1?include=reviews".
 	 *
 	 * @param productId ID of the product
+	 * @param include parts of the aggregate to fetch next to the base product, see {@link AggregatePart}, all parts if not given
 	 * @return the composite product info, if found, else null
 	 */
 	@Operation(
@@ -47,7 +52,29 @@ public interface ProductCompositeService {
 			@ApiResponse(responseCode = "422", description = "${api.responseCodes.unprocessableEntity.description}")
 	})
 	@GetMapping(value = "/product-composite/{productId}", produces = MediaType.APPLICATION_JSON_VALUE)
-	ProductAggregate getProduct(@PathVariable Long productId);
+	Mono<ProductAggregate> getProduct(
+			@PathVariable Long productId,
+			@RequestParam(value = "include", required = false) List<String> include);
+
+	/**
+	 * Sample usage: "curl $HOST:$PORT/product-composite?ids=1,2,3".
+	 *
+	 * @param ids IDs of the products
+	 * @param include parts of the aggregates to fetch next to the base products, see {@link AggregatePart}, all parts if not given
+	 * @return the composite product info of the products found, in the requested order
+	 */
+	@Operation(
+			summary = "${api.product-composite.get-composite-products.description}",
+			description = "${api.product-composite.get-composite-products.notes}")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "${api.responseCodes.ok.description}"),
+			@ApiResponse(responseCode = "400", description = "${api.responseCodes.badRequest.description}"),
+			@ApiResponse(responseCode = "422", description = "${api.responseCodes.unprocessableEntity.description}")
+	})
+	@GetMapping(value = "/product-composite", produces = MediaType.APPLICATION_JSON_VALUE)
+	Flux<ProductAggregate> getProducts(
+			@RequestParam(value = "ids") List<Long> ids,
+			@RequestParam(value = "include", required = false) List<String> include);
 
 	/**
 	 * Sample usage: "curl -X DELETE $HOST:$PORT/product-composite/1".
@@ -62,5 +89,5 @@ public interface ProductCompositeService {
 			@ApiResponse(responseCode = "422", description = "${api.responseCodes.unprocessableEntity.description}")
 	})
 	@DeleteMapping(value = "/product-composite/{productId}")
-	void deleteProduct(@PathVariable Long productId);
+	Mono<Void> deleteProduct(@PathVariable Long productId);
 }
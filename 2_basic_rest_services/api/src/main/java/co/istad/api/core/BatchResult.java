@@ -0,0 +1,30 @@
+package co.istad.api.core;
+
+import co.istad.api.exception.InvalidInputException;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch write. Items that could not be written are reported by
+ * their index in the request body, the others are written regardless.
+ */
+public record BatchResult(
+		int created,
+		List<ItemError> errors
+) {
+
+	public static final int MAX_ITEMS = 1000;
+
+	public static void validateSize(List<?> items) {
+		if (items.size() > MAX_ITEMS) {
+			throw new InvalidInputException("At most " + MAX_ITEMS + " items can be written per request, got: " + items.size());
+		}
+	}
+
+	public record ItemError(
+			int index,
+			String message
+	) {
+	}
+
+}
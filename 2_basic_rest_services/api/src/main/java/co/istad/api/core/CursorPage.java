@@ -0,0 +1,65 @@
+package co.istad.api.core;
+
+import co.istad.api.exception.InvalidInputException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing.
+ * <p>
+ * {@code next} is an opaque cursor to pass back to get the following page, it is
+ * {@code null} on the last page. The cursor encodes the productId and the last id of
+ * the page, so the following page is read with an index seek, whatever its position.
+ */
+public record CursorPage<T>(
+		List<T> items,
+		String next
+) {
+
+	public static final int MAX_LIMIT = 100;
+
+	/**
+	 * Creates a page from rows read in id order, with up to {@code limit + 1} rows
+	 * read to find out if there is a following page.
+	 */
+	public static <T> CursorPage<T> fromRows(List<T> rows, int limit, Long productId, Function<T, Long> id) {
+		if (rows.size() <= limit) {
+			return new CursorPage<>(rows, null);
+		}
+		List<T> items = rows.subList(0, limit);
+		return new CursorPage<>(List.copyOf(items), encodeCursor(productId, id.apply(items.get(limit - 1))));
+	}
+
+	public static void validateLimit(int limit) {
+		if (limit < 1 || limit > MAX_LIMIT) {
+			throw new InvalidInputException("Invalid limit: " + limit + ", must be between 1 and " + MAX_LIMIT);
+		}
+	}
+
+	public static String encodeCursor(Long productId, Long lastId) {
+		String key = productId + ":" + lastId;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return the last id of the previous page, or {@link Long#MIN_VALUE} for the first page, i.e. a {@code null} cursor
+	 */
+	public static Long decodeCursor(String cursor, Long productId) {
+		if (cursor == null || cursor.isEmpty()) {
+			return Long.MIN_VALUE;
+		}
+		try {
+			String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+			if (key.length == 2 && Long.parseLong(key[0]) == productId) {
+				return Long.parseLong(key[1]);
+			}
+		} catch (IllegalArgumentException e) {
+			// Falls through, NumberFormatException is an IllegalArgumentException too
+		}
+		throw new InvalidInputException("Invalid cursor: " + cursor);
+	}
+
+}
@@ -0,0 +1,84 @@
+package co.istad.api.core.grpc;
+
+import co.istad.api.core.product.ProductDto;
+import co.istad.api.core.recommendation.RecommendationDto;
+import co.istad.api.core.review.ReviewDto;
+
+import java.util.function.Consumer;
+
+/**
+ * Maps between the DTOs of the REST API and the messages of the internal gRPC API, see
+ * {@code core.proto}. Nullable fields are optional in the messages, so {@code null} and
+ * empty values survive the round trip.
+ */
+public final class ProtoMapper {
+
+	private ProtoMapper() {
+	}
+
+	public static Product toProto(ProductDto dto) {
+		Product.Builder builder = Product.newBuilder()
+				.setProductId(dto.productId());
+		setIfPresent(dto.name(), builder::setName);
+		setIfPresent(dto.weight(), builder::setWeight);
+		setIfPresent(dto.serviceAddress(), builder::setServiceAddress);
+		return builder.build();
+	}
+
+	public static ProductDto toDto(Product proto) {
+		return new ProductDto(
+				proto.getProductId(),
+				proto.hasName() ? proto.getName() : null,
+				proto.hasWeight() ? proto.getWeight() : null,
+				proto.hasServiceAddress() ? proto.getServiceAddress() : null);
+	}
+
+	public static Recommendation toProto(RecommendationDto dto) {
+		Recommendation.Builder builder = Recommendation.newBuilder()
+				.setProductId(dto.productId())
+				.setRecommendationId(dto.recommendationId());
+		setIfPresent(dto.author(), builder::setAuthor);
+		setIfPresent(dto.rate(), builder::setRate);
+		setIfPresent(dto.content(), builder::setContent);
+		setIfPresent(dto.serviceAddress(), builder::setServiceAddress);
+		return builder.build();
+	}
+
+	public static RecommendationDto toDto(Recommendation proto) {
+		return new RecommendationDto(
+				proto.getProductId(),
+				proto.getRecommendationId(),
+				proto.hasAuthor() ? proto.getAuthor() : null,
+				proto.hasRate() ? proto.getRate() : null,
+				proto.hasContent() ? proto.getContent() : null,
+				proto.hasServiceAddress() ? proto.getServiceAddress() : null);
+	}
+
+	public static Review toProto(ReviewDto dto) {
+		Review.Builder builder = Review.newBuilder()
+				.setProductId(dto.productId())
+				.setReviewId(dto.reviewId());
+		setIfPresent(dto.author(), builder::setAuthor);
+		setIfPresent(dto.subject(), builder::setSubject);
+		setIfPresent(dto.content(), builder::setContent);
+		setIfPresent(dto.serviceAddress(), builder::setServiceAddress);
+		return builder.build();
+	}
+
+	public static ReviewDto toDto(Review proto) {
+		return new ReviewDto(
+				proto.getProductId(),
+				proto.getReviewId(),
+				proto.hasAuthor() ? proto.getAuthor() : null,
+				proto.hasSubject() ? proto.getSubject() : null,
+				proto.hasContent() ? proto.getContent() : null,
+				proto.hasServiceAddress() ? proto.getServiceAddress() : null);
+	}
+
+	private static <T> void setIfPresent(T value, Consumer<T> setter) {
+		if (value != null) {
+			setter.accept(value);
+		}
+	}
+
+}
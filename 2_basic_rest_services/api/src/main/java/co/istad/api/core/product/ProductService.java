@@ -3,6 +3,8 @@ package co.istad.api.core.product;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 public interface ProductService {
 
 	/**
@@ -30,6 +32,15 @@ public interface ProductService {
 	@GetMapping(value = "/products/{productId}", produces = MediaType.APPLICATION_JSON_VALUE)
 	ProductDto findProductById(@PathVariable Long productId);
 
+	/**
+	 * Sample usage: "curl $HOST:$PORT/products?ids=1,2,3".
+	 *
+	 * @param ids IDs of the products
+	 * @return the products found, unknown ids are left out
+	 */
+	@GetMapping(value = "/products", produces = MediaType.APPLICATION_JSON_VALUE)
+	List<ProductDto> findProductsByIds(@RequestParam(value = "ids") List<Long> ids);
+
 	/**
 	 * Sample usage: "curl -X DELETE $HOST:$PORT/products/1".
 	 *
@@ -0,0 +1,58 @@
+package co.istad.api.core.product;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link ProductService}, exposing the same
+ * endpoints with {@link Mono}/{@link Flux} results.
+ */
+public interface ReactiveProductService {
+
+	/**
+	 * Sample usage, see below.
+	 *
+	 * curl -X POST $HOST:$PORT/products \
+	 *   -H "Content-Type: application/json" --data \
+	 *   '{"productId":123,"name":"product 123","weight":123}'
+	 *
+	 * @param body A JSON representation of the new product
+	 * @return A JSON representation of the newly created product
+	 */
+	@PostMapping(
+			value    = "/products",
+			consumes = "application/json",
+			produces = "application/json")
+	Mono<ProductDto> createProduct(@RequestBody ProductDto body);
+
+	/**
+	 * Sample usage: "curl $HOST:$PORT/products/1".
+	 *
+	 * @param productId ID of the product
+	 * @return the product, if found, else empty
+	 */
+	@GetMapping(value = "/products/{productId}", produces = MediaType.APPLICATION_JSON_VALUE)
+	Mono<ProductDto> findProductById(@PathVariable Long productId);
+
+	/**
+	 * Sample usage: "curl $HOST:$PORT/products?ids=1,2,3".
+	 *
+	 * @param ids IDs of the products
+	 * @return the products found, unknown ids are left out
+	 */
+	@GetMapping(value = "/products", produces = MediaType.APPLICATION_JSON_VALUE)
+	Flux<ProductDto> findProductsByIds(@RequestParam(value = "ids") List<Long> ids);
+
+	/**
+	 * Sample usage: "curl -X DELETE $HOST:$PORT/products/1".
+	 *
+	 * @param productId ID of the product
+	 */
+	@DeleteMapping(value = "/products/{productId}")
+	Mono<Void> deleteProduct(@PathVariable Long productId);
+
+}
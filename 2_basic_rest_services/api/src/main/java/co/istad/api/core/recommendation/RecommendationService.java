@@ -1,5 +1,7 @@
 package co.istad.api.core.recommendation;
 
+import co.istad.api.core.BatchResult;
+import co.istad.api.core.CursorPage;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -22,12 +24,63 @@ public interface RecommendationService {
 			produces = "application/json")
 	RecommendationDto createRecommendation(@RequestBody RecommendationDto body);
 
+	/**
+	 * Sample usage, see below.
+	 *
+	 * curl -X POST $HOST:$PORT/recommendations/batch \
+	 *   -H "Content-Type: application/json" --data \
+	 *   '[{"productId":123,"recommendationId":456,"author":"me","rate":5,"content":"yada, yada, yada"}]'
+	 *
+	 * @param body A JSON array of the new recommendations
+	 * @return the number of recommendations created and the items rejected as duplicates
+	 */
+	@PostMapping(
+			value    = "/recommendations/batch",
+			consumes = "application/json",
+			produces = "application/json")
+	BatchResult createRecommendations(@RequestBody List<RecommendationDto> body);
+
 	@GetMapping(
 			value = "/recommendations",
 			produces = "application/json")
 	List<RecommendationDto> getRecommendations(
 			@RequestParam(value = "productId") Long productId);
 
+	/**
+	 * Sample usage: "curl $HOST:$PORT/recommendations?productId=1&limit=20", pass the returned
+	 * next cursor as "&cursor=..." to get the following page.
+	 *
+	 * @param productId ID of the product
+	 * @param limit maximum number of recommendations in the page, at most {@value CursorPage#MAX_LIMIT}
+	 * @param cursor the next cursor of the previous page, none for the first page
+	 * @return a page of recommendations ordered by recommendationId
+	 */
+	@GetMapping(
+			value = "/recommendations",
+			params = "limit",
+			produces = "application/json")
+	CursorPage<RecommendationDto> getRecommendationsPage(
+			@RequestParam(value = "productId") Long productId,
+			@RequestParam(value = "limit") int limit,
+			@RequestParam(value = "cursor", required = false) String cursor);
+
+	/**
+	 * Sample usage: "curl $HOST:$PORT/recommendations?productIds=1,2,3&limitPerProduct=20".
+	 *
+	 * @param productIds IDs of the products
+	 * @param limitPerProduct if given, only the first page of each product is read: its first
+	 *                        limitPerProduct recommendations by recommendationId, at most {@value CursorPage#MAX_LIMIT},
+	 *                        plus one more if there is a following page
+	 * @return the recommendations of all the given products, ordered by productId and recommendationId if limitPerProduct is given
+	 */
+	@GetMapping(
+			value = "/recommendations",
+			params = "productIds",
+			produces = "application/json")
+	List<RecommendationDto> getRecommendationsByProductIds(
+			@RequestParam(value = "productIds") List<Long> productIds,
+			@RequestParam(value = "limitPerProduct", required = false) Integer limitPerProduct);
+
 	/**
 	 * Sample usage: "curl -X DELETE $HOST:$PORT/recommendations?productId=1".
 	 *
@@ -0,0 +1,97 @@
+package co.istad.api.core.review;
+
+import co.istad.api.core.BatchResult;
+import co.istad.api.core.CursorPage;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link ReviewService}, exposing the same
+ * endpoints with {@link Mono}/{@link Flux} results.
+ */
+public interface ReactiveReviewService {
+
+	/**
+	 * Sample usage, see below.
+	 *
+	 * curl -X POST $HOST:$PORT/reviews \
+	 *   -H "Content-Type: application/json" --data \
+	 *   '{"productId":123,"reviewId":456,"author":"me","subject":"yada, yada, yada","content":"yada, yada, yada"}'
+	 *
+	 * @param body A JSON representation of the new review
+	 * @return A JSON representation of the newly created review
+	 */
+	@PostMapping(
+			value    = "/reviews",
+			consumes = "application/json",
+			produces = "application/json")
+	Mono<ReviewDto> createReview(@RequestBody ReviewDto body);
+
+	/**
+	 * Sample usage, see below.
+	 *
+	 * curl -X POST $HOST:$PORT/reviews/batch \
+	 *   -H "Content-Type: application/json" --data \
+	 *   '[{"productId":123,"reviewId":456,"author":"me","subject":"yada, yada, yada","content":"yada, yada, yada"}]'
+	 *
+	 * @param body A JSON array of the new reviews, at most {@value BatchResult#MAX_ITEMS}
+	 * @return the number of reviews created and the items rejected as duplicates or for invalid ids
+	 */
+	@PostMapping(
+			value    = "/reviews/batch",
+			consumes = "application/json",
+			produces = "application/json")
+	Mono<BatchResult> createReviews(@RequestBody List<ReviewDto> body);
+
+	@GetMapping(
+			value = "/reviews",
+			produces = "application/json")
+	Flux<ReviewDto> getReviews(@RequestParam(value = "productId") Long productId);
+
+	/**
+	 * Sample usage: "curl $HOST:$PORT/reviews?productId=1&limit=20", pass the returned
+	 * next cursor as "&cursor=..." to get the following page.
+	 *
+	 * @param productId ID of the product
+	 * @param limit maximum number of reviews in the page, at most {@value CursorPage#MAX_LIMIT}
+	 * @param cursor the next cursor of the previous page, none for the first page
+	 * @return a page of reviews ordered by reviewId
+	 */
+	@GetMapping(
+			value = "/reviews",
+			params = "limit",
+			produces = "application/json")
+	Mono<CursorPage<ReviewDto>> getReviewsPage(
+			@RequestParam(value = "productId") Long productId,
+			@RequestParam(value = "limit") int limit,
+			@RequestParam(value = "cursor", required = false) String cursor);
+
+	/**
+	 * Sample usage: "curl $HOST:$PORT/reviews?productIds=1,2,3&limitPerProduct=20".
+	 *
+	 * @param productIds IDs of the products
+	 * @param limitPerProduct if given, only the first page of each product is read: its first
+	 *                        limitPerProduct reviews by reviewId, at most {@value CursorPage#MAX_LIMIT},
+	 *                        plus one more if there is a following page
+	 * @return the reviews of all the given products, ordered by productId and reviewId if limitPerProduct is given
+	 */
+	@GetMapping(
+			value = "/reviews",
+			params = "productIds",
+			produces = "application/json")
+	Flux<ReviewDto> getReviewsByProductIds(
+			@RequestParam(value = "productIds") List<Long> productIds,
+			@RequestParam(value = "limitPerProduct", required = false) Integer limitPerProduct);
+
+	/**
+	 * Sample usage: "curl -X DELETE $HOST:$PORT/reviews?productId=1".
+	 *
+	 * @param productId ID of the product
+	 */
+	@DeleteMapping(value = "/reviews")
+	Mono<Void> deleteReviews(@RequestParam(value = "productId")  Long productId);
+
+}
@@ -0,0 +1,148 @@
+package co.istad.composite.product;
+
+import co.istad.api.core.grpc.ListRequest;
+import co.istad.api.core.grpc.ProtoMapper;
+import co.istad.api.core.grpc.ReviewItem;
+import co.istad.api.core.grpc.ReviewsGrpc;
+import co.istad.api.core.review.ReviewDto;
+import co.istad.util.grpc.GrpcStreams;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Compares reading the reviews of a product over the REST API, as JSON, with reading them
+ * over the internal gRPC API, as a stream of protobuf messages.
+ * <p>
+ * The {@code *RoundTrip} benchmarks call stub servers on the loopback interface through the
+ * clients of {@link ServiceClientFactory}, encoding the reviews per call. The {@code *Codec}
+ * benchmarks encode and decode the reviews without any I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransportBenchmark {
+
+	private static final String SERVICE = ProductCompositeIntegration.REVIEW_SERVICE;
+
+	@Param({"1", "20", "100"})
+	private int reviews;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private List<ReviewDto> reviewDtos;
+	private DisposableServer httpServer;
+	private Server grpcServer;
+	private ServiceClientFactory clientFactory;
+	private WebClient webClient;
+	private String url;
+	private ReviewsGrpc.ReviewsStub reviewStub;
+	private ListRequest request;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		reviewDtos = LongStream.rangeClosed(1, reviews)
+				.mapToObj(reviewId -> new ReviewDto(1L, reviewId, "Author " + reviewId, "Subject " + reviewId,
+						"Content of review " + reviewId + " of the product", "review-service/10.0.0.1:7003"))
+				.toList();
+
+		httpServer = HttpServer.create()
+				.port(0)
+				.route(routes -> routes.get("/reviews", (req, res) -> res
+						.header("Content-Type", "application/json")
+						.sendByteArray(Mono.fromCallable(() -> mapper.writeValueAsBytes(reviewDtos)))))
+				.bindNow();
+
+		grpcServer = ServerBuilder.forPort(0)
+				.addService(new ReviewsGrpc.ReviewsImplBase() {
+					@Override
+					public void listReviews(ListRequest listRequest, StreamObserver<ReviewItem> responseObserver) {
+						reviewDtos.forEach(review -> responseObserver.onNext(ReviewItem.newBuilder().setReview(ProtoMapper.toProto(review)).build()));
+						responseObserver.onCompleted();
+					}
+				})
+				.build()
+				.start();
+
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("app." + SERVICE + ".port", String.valueOf(httpServer.port()))
+				.withProperty("app." + SERVICE + ".grpc-port", String.valueOf(grpcServer.getPort()));
+		clientFactory = new ServiceClientFactory(WebClient.builder(), environment);
+
+		webClient = clientFactory.webClient(SERVICE);
+		url = clientFactory.baseUrl(SERVICE) + "/reviews?productId=1";
+		reviewStub = ReviewsGrpc.newStub(clientFactory.grpcChannel(SERVICE));
+		request = ListRequest.newBuilder().setProductId(1).build();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		clientFactory.dispose();
+		httpServer.disposeNow();
+		grpcServer.shutdownNow();
+	}
+
+	@Benchmark
+	public List<ReviewDto> jsonRoundTrip() {
+		return webClient.get().uri(url)
+				.retrieve()
+				.bodyToFlux(ReviewDto.class)
+				.collectList()
+				.block();
+	}
+
+	@Benchmark
+	public List<ReviewDto> grpcRoundTrip() {
+		return GrpcStreams.call(reviewStub, ReviewsGrpc.ReviewsStub::listReviews, request)
+				.map(item -> ProtoMapper.toDto(item.getReview()))
+				.collectList()
+				.block();
+	}
+
+	@Benchmark
+	public List<ReviewDto> jsonCodec() {
+		try {
+			return mapper.readValue(mapper.writeValueAsBytes(reviewDtos), new TypeReference<List<ReviewDto>>() {});
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	@Benchmark
+	public List<ReviewDto> protobufCodec() {
+		return reviewDtos.stream()
+				.map(review -> ReviewItem.newBuilder().setReview(ProtoMapper.toProto(review)).build().toByteArray())
+				.map(bytes -> {
+					try {
+						return ProtoMapper.toDto(ReviewItem.parseFrom(bytes).getReview());
+					} catch (IOException ex) {
+						throw new UncheckedIOException(ex);
+					}
+				})
+				.toList();
+	}
+
+}
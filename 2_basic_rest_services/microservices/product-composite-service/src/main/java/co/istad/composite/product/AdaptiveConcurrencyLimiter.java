@@ -0,0 +1,130 @@
+package co.istad.composite.product;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the number of composite requests in flight, adapting the limit to the measured latency.
+ * <p>
+ * Gradient algorithm: a long-term average of the latency serves as the no-load baseline, and
+ * the limit shrinks as recent latency grows above it (queueing) and grows while latency stays
+ * close to it. A margin of the square root of the limit lets it probe for more capacity. Samples
+ * taken while less than half the limit is in use say nothing about capacity and are ignored,
+ * failed requests shrink the limit.
+ * <p>
+ * Published as the {@code composite.concurrency.limit} and {@code composite.concurrency.inflight}
+ * gauges and the {@code composite.concurrency.rejected} counter.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+	private static final double SMOOTHING = 0.2;
+	private static final double TOLERANCE = 1.5;
+	private static final double LONG_WINDOW = 600;
+	private static final double DROP_BACKOFF = 0.9;
+
+	private final int minLimit;
+	private final int maxLimit;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final Counter rejected;
+
+	private volatile double limit;
+	private double longRttNanos;
+
+	public AdaptiveConcurrencyLimiter(
+			@Value("${app.composite.concurrency-limit.initial:20}") int initialLimit,
+			@Value("${app.composite.concurrency-limit.min:4}") int minLimit,
+			@Value("${app.composite.concurrency-limit.max:500}") int maxLimit,
+			MeterRegistry meterRegistry) {
+
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.limit = initialLimit;
+
+		Gauge.builder("composite.concurrency.limit", () -> (int) limit)
+				.description("Current adaptive limit of composite requests in flight")
+				.register(meterRegistry);
+		Gauge.builder("composite.concurrency.inflight", inFlight::get)
+				.description("Composite requests in flight")
+				.register(meterRegistry);
+		rejected = Counter.builder("composite.concurrency.rejected")
+				.description("Composite requests rejected by the concurrency limit")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * @return the number of requests in flight when acquired, including this one,
+	 *         or -1 if the limit is reached. An acquired permit must be released.
+	 */
+	public int tryAcquire() {
+		int current;
+		do {
+			current = inFlight.get();
+			if (current >= (int) limit) {
+				rejected.increment();
+				return -1;
+			}
+		} while (!inFlight.compareAndSet(current, current + 1));
+		return current + 1;
+	}
+
+	/**
+	 * Releases a permit without a latency sample, e.g. for cancelled requests.
+	 */
+	public void release() {
+		inFlight.decrementAndGet();
+	}
+
+	/**
+	 * Releases a permit and adapts the limit to the latency of the request.
+	 *
+	 * @param inFlightWhenAcquired as returned by {@link #tryAcquire()}
+	 * @param failed the request failed, e.g. on a downstream timeout
+	 */
+	public void release(long rttNanos, int inFlightWhenAcquired, boolean failed) {
+		inFlight.decrementAndGet();
+		update(rttNanos, inFlightWhenAcquired, failed);
+	}
+
+	public int getLimit() {
+		return (int) limit;
+	}
+
+	private synchronized void update(long rttNanos, int inFlightWhenAcquired, boolean failed) {
+		double current = limit;
+		rttNanos = Math.max(1, rttNanos);
+
+		if (failed) {
+			limit = Math.max(minLimit, current * DROP_BACKOFF);
+			return;
+		}
+
+		if (longRttNanos == 0) {
+			longRttNanos = rttNanos;
+		} else {
+			longRttNanos += (rttNanos - longRttNanos) * 2 / (LONG_WINDOW + 1);
+		}
+
+		if (inFlightWhenAcquired < current / 2) {
+			return;
+		}
+
+		// Let the baseline follow a lasting drop in latency quickly
+		if (longRttNanos / rttNanos > 2) {
+			longRttNanos *= 0.95;
+		}
+
+		double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / rttNanos));
+		double target = current * gradient + Math.sqrt(current);
+		double next = current * (1 - SMOOTHING) + target * SMOOTHING;
+
+		limit = Math.max(minLimit, Math.min(maxLimit, next));
+	}
+
+}
@@ -0,0 +1,162 @@
+package co.istad.composite.product;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Caps the calls in flight to one downstream service, so a slow service can't tie up the
+ * capacity needed to call the others.
+ * <p>
+ * Calls beyond {@code maxInFlight} wait in a short queue, without blocking any thread, and
+ * calls beyond that fail at once with a {@link RejectedExecutionException}.
+ * <p>
+ * Published as the {@code composite.bulkhead.inflight} and {@code composite.bulkhead.queued}
+ * gauges and the {@code composite.bulkhead.rejected} counter, tagged with the name of the service.
+ */
+class Bulkhead {
+
+	private final String service;
+	private final int maxInFlight;
+	private final int maxQueued;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger queued = new AtomicInteger();
+	private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+	private final Counter rejected;
+
+	Bulkhead(String service, int maxInFlight, int maxQueued, MeterRegistry meterRegistry) {
+		this.service = service;
+		this.maxInFlight = maxInFlight;
+		this.maxQueued = maxQueued;
+
+		Gauge.builder("composite.bulkhead.inflight", inFlight::get)
+				.description("Calls in flight to the downstream service")
+				.tag("service", service)
+				.register(meterRegistry);
+		Gauge.builder("composite.bulkhead.queued", queued::get)
+				.description("Calls waiting for the bulkhead of the downstream service")
+				.tag("service", service)
+				.register(meterRegistry);
+		rejected = Counter.builder("composite.bulkhead.rejected")
+				.description("Calls rejected by the bulkhead of the downstream service")
+				.tag("service", service)
+				.register(meterRegistry);
+	}
+
+	<T> Mono<T> execute(Supplier<Mono<T>> call) {
+		return Mono.defer(() -> {
+			if (tryAcquire()) {
+				return run(call);
+			}
+			if (!tryEnqueue()) {
+				rejected.increment();
+				return Mono.error(new RejectedExecutionException("Too many concurrent calls to " + service));
+			}
+			Waiter waiter = new Waiter();
+			return Mono.<Boolean>create(sink -> {
+						waiter.sink = sink;
+						sink.onCancel(waiter::cancel);
+						waiters.add(waiter);
+						drain();
+					})
+					.flatMap(permit -> waiter.run() ? run(call) : Mono.<T>empty());
+		});
+	}
+
+	private <T> Mono<T> run(Supplier<Mono<T>> call) {
+		return Mono.defer(call).doFinally(signal -> release());
+	}
+
+	private void release() {
+		inFlight.decrementAndGet();
+		drain();
+	}
+
+	/**
+	 * Hands free permits to waiters. Runs after every enqueue as well as every release, so a
+	 * waiter added while a permit was released can't be missed.
+	 */
+	private void drain() {
+		while (!waiters.isEmpty() && tryAcquire()) {
+			Waiter waiter = waiters.poll();
+			if (waiter == null || !waiter.start()) {
+				inFlight.decrementAndGet();
+			}
+		}
+	}
+
+	private boolean tryAcquire() {
+		int current;
+		do {
+			current = inFlight.get();
+			if (current >= maxInFlight) {
+				return false;
+			}
+		} while (!inFlight.compareAndSet(current, current + 1));
+		return true;
+	}
+
+	private boolean tryEnqueue() {
+		int current;
+		do {
+			current = queued.get();
+			if (current >= maxQueued) {
+				return false;
+			}
+		} while (!queued.compareAndSet(current, current + 1));
+		return true;
+	}
+
+	private class Waiter {
+
+		private static final int WAITING = 0;
+		private static final int STARTED = 1;
+		private static final int RUNNING = 2;
+		private static final int CANCELLED = 3;
+
+		private final AtomicInteger state = new AtomicInteger(WAITING);
+		private MonoSink<Boolean> sink;
+
+		/**
+		 * Hands a permit to the waiter.
+		 *
+		 * @return false if the waiter was cancelled, and the permit isn't used
+		 */
+		boolean start() {
+			if (!state.compareAndSet(WAITING, STARTED)) {
+				return false;
+			}
+			queued.decrementAndGet();
+			sink.success(true);
+			return true;
+		}
+
+		/**
+		 * @return false if the waiter was cancelled after it got its permit, which is released
+		 */
+		boolean run() {
+			return state.compareAndSet(STARTED, RUNNING);
+		}
+
+		void cancel() {
+			if (state.compareAndSet(WAITING, CANCELLED)) {
+				queued.decrementAndGet();
+				waiters.remove(this);
+			} else if (state.compareAndSet(STARTED, CANCELLED)) {
+				release();
+			}
+		}
+
+	}
+
+}
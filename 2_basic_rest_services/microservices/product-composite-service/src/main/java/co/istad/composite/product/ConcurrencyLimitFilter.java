@@ -0,0 +1,82 @@
+package co.istad.composite.product;
+
+import co.istad.util.http.HttpErrorInfo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+
+/**
+ * Sheds composite requests beyond the limit of {@link AdaptiveConcurrencyLimiter}, with a
+ * {@code 503} and a {@code Retry-After} header, before any work is done for them.
+ */
+@Component
+public class ConcurrencyLimitFilter implements WebFilter {
+
+	private static final String PATH_PREFIX = "/product-composite";
+
+	private final AdaptiveConcurrencyLimiter limiter;
+	private final ObjectMapper mapper;
+	private final Duration retryAfter;
+
+	public ConcurrencyLimitFilter(
+			AdaptiveConcurrencyLimiter limiter,
+			ObjectMapper mapper,
+			@Value("${app.composite.concurrency-limit.retry-after:1s}") Duration retryAfter) {
+		this.limiter = limiter;
+		this.mapper = mapper;
+		this.retryAfter = retryAfter;
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		String path = exchange.getRequest().getPath().pathWithinApplication().value();
+		if (!path.startsWith(PATH_PREFIX)) {
+			return chain.filter(exchange);
+		}
+
+		int inFlight = limiter.tryAcquire();
+		if (inFlight < 0) {
+			return reject(exchange.getResponse(), path);
+		}
+
+		long start = System.nanoTime();
+		return chain.filter(exchange)
+				.doFinally(signal -> {
+					if (signal == SignalType.CANCEL) {
+						limiter.release();
+						return;
+					}
+					HttpStatusCode status = exchange.getResponse().getStatusCode();
+					boolean failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+					limiter.release(System.nanoTime() - start, inFlight, failed);
+				});
+	}
+
+	private Mono<Void> reject(ServerHttpResponse response, String path) {
+		response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+		response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.toSeconds())));
+		response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+		HttpErrorInfo errorInfo = new HttpErrorInfo(HttpStatus.SERVICE_UNAVAILABLE, path,
+				"Too many concurrent requests, limit: " + limiter.getLimit());
+		try {
+			return response.writeWith(Mono.just(response.bufferFactory().wrap(mapper.writeValueAsBytes(errorInfo))));
+		} catch (JsonProcessingException e) {
+			return response.setComplete();
+		}
+	}
+
+}
@@ -0,0 +1,104 @@
+package co.istad.composite.product;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebClient filter revalidating the GET responses of one service instead of reading them again.
+ * <p>
+ * Successful responses carrying an {@code ETag} are kept with their body, by URL, in a Caffeine
+ * cache bounded by {@code maxSize} bytes of bodies. The next GET of the URL sends the tag in
+ * {@code If-None-Match}, and a {@code 304 Not Modified} is answered with the kept body as a
+ * {@code 200}, so callers can't tell the difference. Any other response replaces or drops the
+ * kept one. It sits before the {@link LoadBalancer}, so the URLs are those of the service,
+ * not of an instance, and a tag from one instance is revalidated by any other.
+ * <p>
+ * As tags are weak, and ignore the {@code serviceAddress} in the bodies, a replayed body
+ * carries the address of the instance that first served it, not of the one that revalidated it.
+ */
+class ConditionalRequests implements ExchangeFilterFunction {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ConditionalRequests.class);
+
+	private final String service;
+	private final Cache<String, Validated> responses;
+
+	ConditionalRequests(String service, DataSize maxSize) {
+		this.service = service;
+		this.responses = Caffeine.newBuilder()
+				.maximumWeight(maxSize.toBytes())
+				.weigher((String url, Validated response) -> url.length() + response.body().length)
+				.build();
+	}
+
+	@Override
+	public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		if (request.method() != HttpMethod.GET) {
+			return next.exchange(request);
+		}
+
+		String url = request.url().toString();
+		Validated cached = responses.getIfPresent(url);
+		ClientRequest conditional = cached == null
+				? request
+				: ClientRequest.from(request).headers(headers -> headers.setIfNoneMatch(cached.etag())).build();
+
+		return next.exchange(conditional).map(response -> {
+			if (cached != null && response.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+				LOG.debug("Revalidated {} response for {}", service, url);
+				return cached.replay(response);
+			}
+
+			String etag = response.headers().asHttpHeaders().getETag();
+			if (!response.statusCode().is2xxSuccessful() || etag == null) {
+				responses.invalidate(url);
+				return response;
+			}
+			MediaType contentType = response.headers().contentType().orElse(null);
+			return response.mutate()
+					.body(body -> DataBufferUtils.join(body)
+							.<DataBuffer>map(buffer -> {
+								byte[] bytes = new byte[buffer.readableByteCount()];
+								buffer.read(bytes);
+								DataBufferUtils.release(buffer);
+								responses.put(url, new Validated(etag, contentType, bytes));
+								return DefaultDataBufferFactory.sharedInstance.wrap(bytes);
+							})
+							.flux())
+					.build();
+		});
+	}
+
+	private record Validated(String etag, MediaType contentType, byte[] body) {
+
+		ClientResponse replay(ClientResponse notModified) {
+			return notModified.mutate()
+					.statusCode(HttpStatus.OK)
+					.headers(headers -> {
+						headers.setETag(etag);
+						headers.setContentType(contentType);
+						headers.setContentLength(body.length);
+					})
+					// Replaces, and releases, the empty body of the 304
+					.body(Flux.defer(() -> Flux.<DataBuffer>just(DefaultDataBufferFactory.sharedInstance.wrap(body))))
+					.build();
+		}
+
+	}
+
+}
@@ -0,0 +1,138 @@
+package co.istad.composite.product;
+
+import co.istad.api.core.CursorPage;
+import co.istad.api.core.grpc.GetProductRequest;
+import co.istad.api.core.grpc.ListRequest;
+import co.istad.api.core.grpc.ProductsGrpc;
+import co.istad.api.core.grpc.ProtoMapper;
+import co.istad.api.core.grpc.RecommendationItem;
+import co.istad.api.core.grpc.RecommendationsGrpc;
+import co.istad.api.core.grpc.ReviewItem;
+import co.istad.api.core.grpc.ReviewsGrpc;
+import co.istad.api.core.product.ProductDto;
+import co.istad.api.core.recommendation.RecommendationDto;
+import co.istad.api.core.review.ReviewDto;
+import co.istad.util.grpc.GrpcStreams;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Reads products, recommendations and reviews over the internal gRPC API of the core
+ * services, see {@code core.proto}, instead of their REST APIs. Selected with
+ * {@code app.composite.transport=grpc}, the core services must run with {@code app.grpc.enabled=true}.
+ * <p>
+ * Reads are guarded, coalesced and hedged like over REST, and carry the deadline of the
+ * incoming request as their gRPC deadline. Recommendations and reviews are streamed, a
+ * page ends with its cursor, if more pages follow. Writes and batch reads still use REST.
+ */
+@Component
+@ConditionalOnProperty(name = "app.composite.transport", havingValue = "grpc")
+public class GrpcProductCompositeIntegration extends ProductCompositeIntegration {
+
+	private static final Logger LOG = LoggerFactory.getLogger(GrpcProductCompositeIntegration.class);
+
+	private final ProductsGrpc.ProductsStub productStub;
+	private final RecommendationsGrpc.RecommendationsStub recommendationStub;
+	private final ReviewsGrpc.ReviewsStub reviewStub;
+
+	public GrpcProductCompositeIntegration(
+			ServiceClientFactory clientFactory,
+			ObjectMapper mapper,
+			MeterRegistry meterRegistry,
+			@Value("${app.composite.hedging.percentile:0.95}") double hedgingPercentile,
+			@Value("${app.composite.hedging.min-delay:10ms}") Duration hedgingMinDelay,
+			@Value("${app.composite.hedging.budget:0.05}") double hedgingBudget,
+			CircuitBreakerRegistry circuitBreakerRegistry,
+			TimeLimiterRegistry timeLimiterRegistry) {
+		super(clientFactory, mapper, meterRegistry, hedgingPercentile, hedgingMinDelay, hedgingBudget,
+				circuitBreakerRegistry, timeLimiterRegistry);
+
+		productStub = ProductsGrpc.newStub(clientFactory.grpcChannel(PRODUCT_SERVICE));
+		recommendationStub = RecommendationsGrpc.newStub(clientFactory.grpcChannel(RECOMMENDATION_SERVICE));
+		reviewStub = ReviewsGrpc.newStub(clientFactory.grpcChannel(REVIEW_SERVICE));
+	}
+
+	@Override
+	public Mono<ProductDto> findProductById(Long productId) {
+		LOG.debug("Will call GetProduct over gRPC for productId: {}", productId);
+		GetProductRequest request = GetProductRequest.newBuilder().setProductId(productId).build();
+
+		return read(PRODUCT_SERVICE, () -> GrpcStreams.call(productStub, ProductsGrpc.ProductsStub::getProduct, request)
+				.map(ProtoMapper::toDto)
+				.single(), "product", productId);
+	}
+
+	@Override
+	public Flux<ReviewDto> getReviews(Long productId) {
+		LOG.debug("Will call ListReviews over gRPC for productId: {}", productId);
+		ListRequest request = ListRequest.newBuilder().setProductId(productId).build();
+
+		return read(REVIEW_SERVICE, () -> GrpcStreams.call(reviewStub, ReviewsGrpc.ReviewsStub::listReviews, request)
+				.map(item -> ProtoMapper.toDto(item.getReview()))
+				.collectList(), "reviews", productId)
+				.flatMapIterable(list -> list);
+	}
+
+	@Override
+	public Mono<CursorPage<ReviewDto>> getReviewsPage(Long productId, int limit, String cursor) {
+		LOG.debug("Will call ListReviews over gRPC for productId: {}, limit: {}", productId, limit);
+
+		return read(REVIEW_SERVICE, () -> {
+			// Checked here, a limit of 0 would list all reviews without paging, as getReviews does
+			CursorPage.validateLimit(limit);
+			return GrpcStreams.call(reviewStub, ReviewsGrpc.ReviewsStub::listReviews, listRequest(productId, limit, cursor))
+					.collectList()
+					.map(items -> new CursorPage<>(
+							items.stream().filter(ReviewItem::hasReview).map(item -> ProtoMapper.toDto(item.getReview())).toList(),
+							items.stream().filter(ReviewItem::hasNextCursor).map(ReviewItem::getNextCursor).findFirst().orElse(null)));
+		}, "reviews-page", productId, limit, cursor);
+	}
+
+	@Override
+	public Flux<RecommendationDto> getRecommendations(Long productId) {
+		LOG.debug("Will call ListRecommendations over gRPC for productId: {}", productId);
+		ListRequest request = ListRequest.newBuilder().setProductId(productId).build();
+
+		return read(RECOMMENDATION_SERVICE, () -> GrpcStreams.call(recommendationStub, RecommendationsGrpc.RecommendationsStub::listRecommendations, request)
+				.map(item -> ProtoMapper.toDto(item.getRecommendation()))
+				.collectList(), "recommendations", productId)
+				.flatMapIterable(list -> list);
+	}
+
+	@Override
+	public Mono<CursorPage<RecommendationDto>> getRecommendationsPage(Long productId, int limit, String cursor) {
+		LOG.debug("Will call ListRecommendations over gRPC for productId: {}, limit: {}", productId, limit);
+
+		return read(RECOMMENDATION_SERVICE, () -> {
+			// Checked here, a limit of 0 would list all recommendations without paging, as getRecommendations does
+			CursorPage.validateLimit(limit);
+			return GrpcStreams.call(recommendationStub, RecommendationsGrpc.RecommendationsStub::listRecommendations, listRequest(productId, limit, cursor))
+					.collectList()
+					.map(items -> new CursorPage<>(
+							items.stream().filter(RecommendationItem::hasRecommendation).map(item -> ProtoMapper.toDto(item.getRecommendation())).toList(),
+							items.stream().filter(RecommendationItem::hasNextCursor).map(RecommendationItem::getNextCursor).findFirst().orElse(null)));
+		}, "recommendations-page", productId, limit, cursor);
+	}
+
+	private static ListRequest listRequest(Long productId, int limit, String cursor) {
+		ListRequest.Builder builder = ListRequest.newBuilder()
+				.setProductId(productId)
+				.setLimit(limit);
+		if (cursor != null) {
+			builder.setCursor(cursor);
+		}
+		return builder.build();
+	}
+
+}
@@ -0,0 +1,135 @@
+package co.istad.composite.product;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hedges reads against one downstream service to cut tail latency.
+ * <p>
+ * If the first attempt hasn't answered within a percentile of the recent latency of the
+ * service, a second attempt is sent and the first reply wins, the other attempt is cancelled.
+ * A failing first attempt is returned as is, a failing hedge is ignored.
+ * <p>
+ * Hedges are paid for from a budget: every call deposits {@code budget} of a token and a
+ * hedge withdraws a whole one, so hedges stay below that share of the calls, with bursts of
+ * at most {@value #MAX_TOKENS} hedges. The budget starts out empty.
+ * <p>
+ * Metrics, all tagged with the name of the service:
+ * <ul>
+ *     <li>{@code composite.hedging.latency}, latency of the first attempts that completed,</li>
+ *     <li>{@code composite.hedging.hedges}, hedges sent, and</li>
+ *     <li>{@code composite.hedging.wins}, hedges that answered before the first attempt.</li>
+ * </ul>
+ */
+class Hedging {
+
+	private static final long MAX_TOKENS = 10;
+	private static final long MILLI_TOKENS = 1000;
+	private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private final long minDelayNanos;
+	private final long depositMilliTokens;
+	private final AtomicLong milliTokens = new AtomicLong();
+
+	private final Timer latency;
+	private final Counter hedges;
+	private final Counter wins;
+
+	private volatile long delayNanos;
+	private volatile long delayRefreshedAt;
+
+	/**
+	 * @param percentile percentile of the recent latency to wait for before hedging, e.g. 0.95
+	 * @param minDelay lower bound of the delay before hedging
+	 * @param budget maximum share of hedged calls, e.g. 0.05
+	 */
+	Hedging(String service, MeterRegistry meterRegistry, double percentile, Duration minDelay, double budget) {
+		this.minDelayNanos = minDelay.toNanos();
+		this.depositMilliTokens = Math.round(budget * MILLI_TOKENS);
+		this.delayNanos = minDelayNanos;
+		this.delayRefreshedAt = System.nanoTime();
+
+		latency = Timer.builder("composite.hedging.latency")
+				.description("Latency of the first attempt of hedged calls")
+				.tag("service", service)
+				.publishPercentiles(percentile)
+				.distributionStatisticExpiry(Duration.ofMinutes(1))
+				.register(meterRegistry);
+		hedges = Counter.builder("composite.hedging.hedges")
+				.description("Hedged calls sent")
+				.tag("service", service)
+				.register(meterRegistry);
+		wins = Counter.builder("composite.hedging.wins")
+				.description("Hedged calls that answered before the first attempt")
+				.tag("service", service)
+				.register(meterRegistry);
+	}
+
+	<T> Mono<T> execute(Supplier<Mono<T>> call) {
+		return Mono.defer(() -> {
+			deposit();
+
+			// Tell the load balancer that the loser was cancelled for being slower, not for failing
+			AtomicBoolean firstSuperseded = new AtomicBoolean();
+			AtomicBoolean hedgeSuperseded = new AtomicBoolean();
+
+			long start = System.nanoTime();
+			// Only completed attempts, a first attempt cancelled by a winning hedge would record a truncated latency
+			Mono<T> first = Mono.defer(call)
+					.doOnSuccess(value -> latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+					.doOnEach(signal -> hedgeSuperseded.set(true))
+					.contextWrite(context -> context.put(LoadBalancer.SUPERSEDED, firstSuperseded));
+
+			Mono<T> hedge = Mono.delay(Duration.ofNanos(delay()))
+					.flatMap(tick -> {
+						if (!tryWithdraw()) {
+							return Mono.never();
+						}
+						hedges.increment();
+						return Mono.defer(call)
+								.doOnNext(value -> wins.increment())
+								.doOnSuccess(value -> firstSuperseded.set(true))
+								.contextWrite(context -> context.put(LoadBalancer.SUPERSEDED, hedgeSuperseded))
+								.onErrorResume(e -> Mono.never());
+					});
+
+			return Mono.firstWithSignal(first, hedge);
+		});
+	}
+
+	private long delay() {
+		long now = System.nanoTime();
+		if (now - delayRefreshedAt > DELAY_REFRESH_NANOS) {
+			ValueAtPercentile[] percentiles = latency.takeSnapshot().percentileValues();
+			long recent = percentiles.length == 0 ? 0 : (long) percentiles[0].value(TimeUnit.NANOSECONDS);
+			delayNanos = Math.max(minDelayNanos, recent);
+			delayRefreshedAt = now;
+		}
+		return delayNanos;
+	}
+
+	private void deposit() {
+		milliTokens.getAndUpdate(tokens -> Math.min(MAX_TOKENS * MILLI_TOKENS, tokens + depositMilliTokens));
+	}
+
+	private boolean tryWithdraw() {
+		long tokens;
+		do {
+			tokens = milliTokens.get();
+			if (tokens < MILLI_TOKENS) {
+				return false;
+			}
+		} while (!milliTokens.compareAndSet(tokens, tokens - MILLI_TOKENS));
+		return true;
+	}
+
+}
@@ -0,0 +1,206 @@
+package co.istad.composite.product;
+
+import co.istad.util.bloom.LongBloomFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static co.istad.composite.product.ProductCompositeIntegration.PRODUCT_SERVICE;
+
+/**
+ * Tells productIds that are known not to exist, so requests for them, e.g. from scrapers or
+ * stale links, get a 404 without calling the core services.
+ * <p>
+ * A productId is known to be missing if
+ * <ul>
+ *     <li>it was not found within the last {@code negative-ttl}, or</li>
+ *     <li>the Bloom filter of productIds of every product-service instance rules it out.</li>
+ * </ul>
+ * The filters are polled from {@code GET /product-id-filter} of each instance every
+ * {@code refresh-interval}, with {@code If-None-Match}, so unchanged filters cost a 304. An
+ * instance only adds the products created through it to its filter until it is rebuilt, so
+ * a product counts as missing only if no instance knows it. Until the filters of all
+ * instances are fetched, none is used. Products created through this composite are never
+ * reported missing for twice the refresh interval, when the polled filters hold them. A
+ * product created through another composite instance may be reported missing until the
+ * next poll.
+ * <p>
+ * ProductIds reported missing are counted by {@code composite.known-products.rejected},
+ * tagged with {@code reason=filter|negative-cache}.
+ */
+@Component
+public class KnownProducts {
+
+	private static final Logger LOG = LoggerFactory.getLogger(KnownProducts.class);
+
+	private static final String FILTER_PATH = "/product-id-filter";
+
+	/**
+	 * A filter of 50 million products at a false positive probability of 1%.
+	 */
+	private static final int MAX_FILTER_BYTES = 64 * 1024 * 1024;
+
+	private final WebClient webClient;
+	private final List<URI> instances;
+	private final Duration refreshInterval;
+
+	private final Map<URI, Fetched> filters = new ConcurrentHashMap<>();
+	private final Cache<Long, Boolean> missing;
+	private final Cache<Long, Boolean> created;
+
+	private final Counter filterRejections;
+	private final Counter negativeCacheRejections;
+
+	private Disposable refreshes;
+
+	public KnownProducts(
+			WebClient.Builder webClientBuilder,
+			ServiceClientFactory clientFactory,
+			MeterRegistry meterRegistry,
+			@Value("${app.composite.known-products.refresh-interval:5s}") Duration refreshInterval,
+			@Value("${app.composite.known-products.negative-ttl:10s}") Duration negativeTtl,
+			@Value("${app.composite.known-products.negative-max-size:10000}") long negativeMaxSize) {
+		this.webClient = webClientBuilder.clone()
+				.codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(MAX_FILTER_BYTES))
+				.build();
+		this.instances = clientFactory.properties(PRODUCT_SERVICE).instanceUris();
+		this.refreshInterval = refreshInterval;
+
+		missing = Caffeine.newBuilder()
+				.maximumSize(negativeMaxSize)
+				.expireAfterWrite(negativeTtl)
+				.build();
+		created = Caffeine.newBuilder()
+				.expireAfterWrite(refreshInterval.multipliedBy(2))
+				.build();
+
+		filterRejections = Counter.builder("composite.known-products.rejected")
+				.tag("reason", "filter")
+				.register(meterRegistry);
+		negativeCacheRejections = Counter.builder("composite.known-products.rejected")
+				.tag("reason", "negative-cache")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * @return true if the product is known not to exist, invalid productIds are left to the core services
+	 */
+	public boolean isMissing(long productId) {
+		if (productId < 1 || created.getIfPresent(productId) != null) {
+			return false;
+		}
+		if (missing.getIfPresent(productId) != null) {
+			negativeCacheRejections.increment();
+			return true;
+		}
+		if (filters.size() < instances.size()) {
+			return false;
+		}
+		for (Fetched fetched : filters.values()) {
+			if (fetched.filter().mightContain(productId)) {
+				return false;
+			}
+		}
+		filterRejections.increment();
+		return true;
+	}
+
+	/**
+	 * Records a product that the product service did not find.
+	 */
+	public void missing(long productId) {
+		if (created.getIfPresent(productId) == null) {
+			missing.put(productId, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Records a product created, or attempted, through this composite.
+	 */
+	public void created(long productId) {
+		created.put(productId, Boolean.TRUE);
+		missing.invalidate(productId);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (refreshInterval.isZero()) {
+			LOG.info("Polling the product id filters is disabled");
+			return;
+		}
+		refreshes = Flux.interval(Duration.ZERO, refreshInterval)
+				.onBackpressureDrop()
+				.concatMap(tick -> refresh(), 1)
+				.subscribe();
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (refreshes != null) {
+			refreshes.dispose();
+		}
+	}
+
+	/**
+	 * Polls the filters of all instances once, an instance that fails keeps its previous filter.
+	 */
+	Mono<Void> refresh() {
+		return Flux.fromIterable(instances).flatMap(this::fetch).then();
+	}
+
+	private Mono<Fetched> fetch(URI instance) {
+		Fetched previous = filters.get(instance);
+		return webClient.get()
+				.uri(instance.resolve(FILTER_PATH))
+				.headers(headers -> {
+					if (previous != null && previous.etag() != null) {
+						headers.setIfNoneMatch(previous.etag());
+					}
+				})
+				.exchangeToMono(response -> {
+					if (previous != null && response.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+						return response.releaseBody().thenReturn(previous);
+					}
+					if (!response.statusCode().is2xxSuccessful()) {
+						return response.createError();
+					}
+					String etag = response.headers().asHttpHeaders().getETag();
+					return response.bodyToMono(byte[].class)
+							.map(bytes -> new Fetched(etag, LongBloomFilter.fromBytes(bytes)));
+				})
+				.timeout(refreshInterval)
+				.doOnNext(fetched -> {
+					if (fetched != previous) {
+						LOG.debug("Fetched the product id filter of {}", instance);
+					}
+					filters.put(instance, fetched);
+				})
+				.onErrorResume(ex -> {
+					LOG.debug("Keeping the previous product id filter of {}: {}", instance, ex.getMessage());
+					return Mono.empty();
+				});
+	}
+
+	private record Fetched(String etag, LongBloomFilter filter) {
+	}
+
+}
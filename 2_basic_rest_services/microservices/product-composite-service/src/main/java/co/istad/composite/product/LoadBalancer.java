@@ -0,0 +1,165 @@
+package co.istad.composite.product;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WebClient filter spreading the calls to one service over its instances.
+ * <p>
+ * Each call goes to the better of two randomly picked instances (power of two choices),
+ * scored by their peak EWMA latency times the calls they have in flight. The latency
+ * estimate jumps up to slow responses at once and decays towards faster ones, and an idle
+ * instance's estimate decays over time, so it gets tried again.
+ * <p>
+ * Instances failing {@code consecutiveFailures} calls in a row, on connection errors, 5xx
+ * responses or cancellations, are ejected for {@code ejectionTime}. If all instances are
+ * ejected, all are used. A call cancelled before its response, e.g. by a timeout or an expired
+ * deadline, counts as a failure with the time it took so far as its latency, so a hung
+ * instance isn't preferred for never answering. A call cancelled because another attempt
+ * answered first, see {@link #SUPERSEDED}, only counts its latency.
+ */
+class LoadBalancer implements ExchangeFilterFunction {
+
+	private static final Logger LOG = LoggerFactory.getLogger(LoadBalancer.class);
+
+	/**
+	 * Context key of an {@code AtomicBoolean} that a caller sets once it cancels the call because
+	 * another attempt answered first, see {@link Hedging}.
+	 */
+	static final String SUPERSEDED = LoadBalancer.class.getName() + ".superseded";
+
+	private static final double DECAY_NANOS = Duration.ofSeconds(10).toNanos();
+
+	private final String service;
+	private final List<Instance> instances;
+	private final int consecutiveFailures;
+	private final long ejectionNanos;
+
+	LoadBalancer(String service, List<URI> instances, int consecutiveFailures, Duration ejectionTime) {
+		this.service = service;
+		this.instances = instances.stream().map(Instance::new).toList();
+		this.consecutiveFailures = consecutiveFailures;
+		this.ejectionNanos = ejectionTime.toNanos();
+	}
+
+	@Override
+	public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		return Mono.deferContextual(context -> {
+			AtomicBoolean superseded = context.getOrDefault(SUPERSEDED, new AtomicBoolean());
+			Instance instance = choose();
+			URI url = UriComponentsBuilder.fromUri(request.url())
+					.scheme(instance.uri.getScheme())
+					.host(instance.uri.getHost())
+					.port(instance.uri.getPort())
+					.build(true)
+					.toUri();
+
+			instance.inFlight.incrementAndGet();
+			long start = System.nanoTime();
+			AtomicBoolean done = new AtomicBoolean();
+
+			return next.exchange(ClientRequest.from(request).url(url).build())
+					.doOnNext(response -> {
+						if (done.compareAndSet(false, true)) {
+							instance.completed(System.nanoTime() - start, response.statusCode().is5xxServerError());
+						}
+					})
+					.doOnError(ex -> {
+						if (done.compareAndSet(false, true)) {
+							instance.completed(System.nanoTime() - start, true);
+						}
+					})
+					.doOnCancel(() -> {
+						if (done.compareAndSet(false, true)) {
+							instance.completed(System.nanoTime() - start, !superseded.get());
+						}
+					});
+		});
+	}
+
+	private Instance choose() {
+		int size = instances.size();
+		if (size == 1) {
+			return instances.get(0);
+		}
+
+		long now = System.nanoTime();
+		List<Instance> candidates = instances.stream()
+				.filter(instance -> !instance.isEjected(now))
+				.toList();
+		if (candidates.isEmpty()) {
+			candidates = instances;
+		}
+		if (candidates.size() == 1) {
+			return candidates.get(0);
+		}
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(candidates.size());
+		int second = random.nextInt(candidates.size() - 1);
+		if (second >= first) {
+			second++;
+		}
+
+		Instance a = candidates.get(first);
+		Instance b = candidates.get(second);
+		return a.cost(now) <= b.cost(now) ? a : b;
+	}
+
+	private class Instance {
+
+		private final URI uri;
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		private double ewmaNanos;
+		private long updatedAt = System.nanoTime();
+		private int failures;
+		private volatile long ejectedUntil = System.nanoTime();
+
+		Instance(URI uri) {
+			this.uri = uri;
+		}
+
+		boolean isEjected(long now) {
+			return now - ejectedUntil < 0;
+		}
+
+		synchronized double cost(long now) {
+			double decayed = ewmaNanos * Math.exp(-(now - updatedAt) / DECAY_NANOS);
+			return decayed * (inFlight.get() + 1);
+		}
+
+		synchronized void completed(long rttNanos, boolean failed) {
+			inFlight.decrementAndGet();
+
+			long now = System.nanoTime();
+			double weight = Math.exp(-(now - updatedAt) / DECAY_NANOS);
+			ewmaNanos = rttNanos > ewmaNanos ? rttNanos : ewmaNanos * weight + rttNanos * (1 - weight);
+			updatedAt = now;
+
+			if (!failed) {
+				failures = 0;
+			} else if (++failures >= consecutiveFailures) {
+				failures = 0;
+				ejectedUntil = now + ejectionNanos;
+				LOG.warn("Ejected instance {} of {} for {} ms after {} consecutive failures",
+						uri, service, Duration.ofNanos(ejectionNanos).toMillis(), consecutiveFailures);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,96 @@
+package co.istad.composite.product;
+
+import co.istad.api.composite.product.ProductAggregate;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-process near-cache of assembled {@link ProductAggregate}s.
+ * <p>
+ * Two Caffeine caches (bounded, W-TinyLFU admission) are kept:
+ * <ul>
+ *     <li>a fresh cache with a short TTL, answering reads without any remote calls, and</li>
+ *     <li>a last-known cache with a longer TTL, used as fallback when a downstream call fails.</li>
+ * </ul>
+ * Both are invalidated on writes. Hit, miss, size and eviction metrics are published
+ * as {@code cache.*} metrics tagged with {@code cache=product-aggregate} and
+ * {@code cache=product-aggregate-last-known}.
+ */
+@Component
+public class ProductAggregateCache {
+
+	private final Cache<Long, ProductAggregate> aggregates;
+	private final Cache<Long, ProductAggregate> lastKnown;
+
+	/**
+	 * Epochs of products, bumped on every invalidation of one of them. A load that started
+	 * before an invalidation must not populate the fresh cache, since it may carry pre-write
+	 * data. Products share {@value #EPOCHS} epochs by their ids, so the memory is bounded, and a
+	 * write to another product only rarely, when their ids collide, keeps a load out of the cache.
+	 */
+	private static final int EPOCHS = 4096;
+	private final AtomicLongArray epochs = new AtomicLongArray(EPOCHS);
+
+	public ProductAggregateCache(
+			@Value("${app.composite.cache.max-size:10000}") long maxSize,
+			@Value("${app.composite.cache.ttl:5s}") Duration ttl,
+			@Value("${app.composite.cache.last-known-ttl:10m}") Duration lastKnownTtl,
+			MeterRegistry meterRegistry) {
+
+		aggregates = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+
+		lastKnown = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(lastKnownTtl)
+				.recordStats()
+				.build();
+
+		CaffeineCacheMetrics.monitor(meterRegistry, aggregates, "product-aggregate");
+		CaffeineCacheMetrics.monitor(meterRegistry, lastKnown, "product-aggregate-last-known");
+	}
+
+	public ProductAggregate getIfFresh(Long productId) {
+		return aggregates.getIfPresent(productId);
+	}
+
+	public ProductAggregate getLastKnown(Long productId) {
+		return lastKnown.getIfPresent(productId);
+	}
+
+	/**
+	 * @return a token to hand back to {@link #put(Long, ProductAggregate, long)} once the load of the product completes
+	 */
+	public long startLoad(Long productId) {
+		return epochs.get(epochOf(productId));
+	}
+
+	public void put(Long productId, ProductAggregate aggregate, long loadToken) {
+		if (epochs.get(epochOf(productId)) != loadToken) {
+			return;
+		}
+		aggregates.put(productId, aggregate);
+		lastKnown.put(productId, aggregate);
+	}
+
+	public void invalidate(Long productId) {
+		epochs.incrementAndGet(epochOf(productId));
+		aggregates.invalidate(productId);
+		lastKnown.invalidate(productId);
+	}
+
+	private static int epochOf(Long productId) {
+		return Long.hashCode(productId) & (EPOCHS - 1);
+	}
+
+}
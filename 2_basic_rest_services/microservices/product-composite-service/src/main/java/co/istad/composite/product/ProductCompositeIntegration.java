@@ -1,213 +1,366 @@
 package co.istad.composite.product;
 
+import co.istad.api.core.BatchResult;
+import co.istad.api.core.CursorPage;
 import co.istad.api.core.product.ProductDto;
-import co.istad.api.core.product.ProductService;
+import co.istad.api.core.product.ReactiveProductService;
+import co.istad.api.core.recommendation.ReactiveRecommendationService;
 import co.istad.api.core.recommendation.RecommendationDto;
-import co.istad.api.core.recommendation.RecommendationService;
+import co.istad.api.core.review.ReactiveReviewService;
 import co.istad.api.core.review.ReviewDto;
-import co.istad.api.core.review.ReviewService;
+import co.istad.api.exception.DeadlineExceededException;
 import co.istad.api.exception.InvalidInputException;
 import co.istad.api.exception.NotFoundException;
 import co.istad.util.http.HttpErrorInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.timelimiter.TimeLimiterOperator;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.List;
-import java.util.Objects;
-
-import static org.springframework.http.HttpMethod.GET;
-
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Calls the core services over their REST APIs, see {@link GrpcProductCompositeIntegration}
+ * for reads over the internal gRPC API, selected with {@code app.composite.transport=grpc}.
+ */
 @Component
-public class ProductCompositeIntegration implements ProductService, RecommendationService, ReviewService {
+@ConditionalOnProperty(name = "app.composite.transport", havingValue = "http", matchIfMissing = true)
+public class ProductCompositeIntegration implements ReactiveProductService, ReactiveRecommendationService, ReactiveReviewService {
 
 	private static final Logger LOG = LoggerFactory.getLogger(ProductCompositeIntegration.class);
 
-	private final RestTemplate restTemplate;
+	static final String PRODUCT_SERVICE = "product-service";
+	static final String RECOMMENDATION_SERVICE = "recommendation-service";
+	static final String REVIEW_SERVICE = "review-service";
+
+	private final WebClient productClient;
+	private final WebClient recommendationClient;
+	private final WebClient reviewClient;
 	private final ObjectMapper mapper;
+	private final SingleFlight singleFlight;
+	private final Map<String, Hedging> hedgings;
+	private final Map<String, Bulkhead> bulkheads;
+	private final Map<String, CircuitBreaker> circuitBreakers;
+	private final Map<String, TimeLimiter> timeLimiters;
 
 	private final String productServiceUrl;
 	private final String recommendationServiceUrl;
 	private final String reviewServiceUrl;
 
 	public ProductCompositeIntegration(
-			RestTemplate restTemplate,
+			ServiceClientFactory clientFactory,
 			ObjectMapper mapper,
-			@Value("${app.product-service.host}") String productServiceHost,
-			@Value("${app.product-service.port}") int productServicePort,
-			@Value("${app.recommendation-service.host}") String recommendationServiceHost,
-			@Value("${app.recommendation-service.port}") int recommendationServicePort,
-			@Value("${app.review-service.host}") String reviewServiceHost,
-			@Value("${app.review-service.port}") int reviewServicePort) {
-
-		this.restTemplate = restTemplate;
+			MeterRegistry meterRegistry,
+			@Value("${app.composite.hedging.percentile:0.95}") double hedgingPercentile,
+			@Value("${app.composite.hedging.min-delay:10ms}") Duration hedgingMinDelay,
+			@Value("${app.composite.hedging.budget:0.05}") double hedgingBudget,
+			CircuitBreakerRegistry circuitBreakerRegistry,
+			TimeLimiterRegistry timeLimiterRegistry) {
 		this.mapper = mapper;
-
-		productServiceUrl = "http://" + productServiceHost + ":" + productServicePort + "/products";
-		recommendationServiceUrl = "http://" + recommendationServiceHost + ":" + recommendationServicePort + "/recommendations";
-		reviewServiceUrl = "http://" + reviewServiceHost + ":" + reviewServicePort + "/reviews";
+		this.singleFlight = new SingleFlight(meterRegistry);
+
+		hedgings = Map.of(
+				PRODUCT_SERVICE, new Hedging(PRODUCT_SERVICE, meterRegistry, hedgingPercentile, hedgingMinDelay, hedgingBudget),
+				RECOMMENDATION_SERVICE, new Hedging(RECOMMENDATION_SERVICE, meterRegistry, hedgingPercentile, hedgingMinDelay, hedgingBudget),
+				REVIEW_SERVICE, new Hedging(REVIEW_SERVICE, meterRegistry, hedgingPercentile, hedgingMinDelay, hedgingBudget));
+		bulkheads = Map.of(
+				PRODUCT_SERVICE, bulkhead(PRODUCT_SERVICE, clientFactory, meterRegistry),
+				RECOMMENDATION_SERVICE, bulkhead(RECOMMENDATION_SERVICE, clientFactory, meterRegistry),
+				REVIEW_SERVICE, bulkhead(REVIEW_SERVICE, clientFactory, meterRegistry));
+		circuitBreakers = Map.of(
+				PRODUCT_SERVICE, circuitBreakerRegistry.circuitBreaker(PRODUCT_SERVICE),
+				RECOMMENDATION_SERVICE, circuitBreakerRegistry.circuitBreaker(RECOMMENDATION_SERVICE),
+				REVIEW_SERVICE, circuitBreakerRegistry.circuitBreaker(REVIEW_SERVICE));
+		timeLimiters = Map.of(
+				PRODUCT_SERVICE, timeLimiterRegistry.timeLimiter(PRODUCT_SERVICE),
+				RECOMMENDATION_SERVICE, timeLimiterRegistry.timeLimiter(RECOMMENDATION_SERVICE),
+				REVIEW_SERVICE, timeLimiterRegistry.timeLimiter(REVIEW_SERVICE));
+
+		productClient = clientFactory.webClient(PRODUCT_SERVICE);
+		recommendationClient = clientFactory.webClient(RECOMMENDATION_SERVICE);
+		reviewClient = clientFactory.webClient(REVIEW_SERVICE);
+
+		productServiceUrl = clientFactory.baseUrl(PRODUCT_SERVICE) + "/products";
+		recommendationServiceUrl = clientFactory.baseUrl(RECOMMENDATION_SERVICE) + "/recommendations";
+		reviewServiceUrl = clientFactory.baseUrl(REVIEW_SERVICE) + "/reviews";
 	}
 
 	@Override
-	public ProductDto createProduct(ProductDto body) {
-		try {
-			String url = productServiceUrl;
-			LOG.debug("Will post a new product to URL: {}", url);
-
-			ProductDto product = restTemplate.postForObject(url, body, ProductDto.class);
-			LOG.debug("Created a product with id: {}", product.productId());
-
-			return product;
-		} catch (HttpClientErrorException ex) {
-			throw handleHttpClientException(ex);
-		}
+	public Mono<ProductDto> createProduct(ProductDto body) {
+		String url = productServiceUrl;
+		LOG.debug("Will post a new product to URL: {}", url);
+
+		return write(PRODUCT_SERVICE, () -> productClient.post().uri(url)
+				.bodyValue(body)
+				.retrieve()
+				.bodyToMono(ProductDto.class)
+				.doOnNext(product -> LOG.debug("Created a product with id: {}", product.productId()))
+				.onErrorMap(WebClientResponseException.class, this::handleException));
 	}
 
 	@Override
-	public ProductDto findProductById(Long productId) {
-
-		try {
-			String url = productServiceUrl + "/" + productId;
-			LOG.debug("Will call getProduct API on URL: {}", url);
-
-			ProductDto productDto = restTemplate.getForObject(url, ProductDto.class);
-			LOG.debug("Found a product with id: {}", productDto.productId());
-
-			return productDto;
-		} catch (HttpClientErrorException ex) {
-			switch (HttpStatus.resolve(ex.getStatusCode().value())) {
-				case NOT_FOUND -> throw new NotFoundException(getErrorMessage(ex));
-				case UNPROCESSABLE_ENTITY -> throw new InvalidInputException(getErrorMessage(ex));
-				default -> {
-					LOG.warn("Got an unexpected HTTP error: {}, will rethrow it", ex.getStatusCode());
-					LOG.warn("Error body: {}", ex.getResponseBodyAsString());
-					throw ex;
-				}
-			}
-		}
-
+	public Mono<ProductDto> findProductById(Long productId) {
+		String url = productServiceUrl + "/" + productId;
+		LOG.debug("Will call getProduct API on URL: {}", url);
+
+		return read(PRODUCT_SERVICE, () -> productClient.get().uri(url)
+				.retrieve()
+				.bodyToMono(ProductDto.class)
+				.doOnNext(productDto -> LOG.debug("Found a product with id: {}", productDto.productId()))
+				.onErrorMap(WebClientResponseException.class, this::handleException), "product", productId);
 	}
 
 	@Override
-	public void deleteProduct(Long productId) {
-		try {
-			String url = productServiceUrl + "/" + productId;
-			LOG.debug("Will call the deleteProduct API on URL: {}", url);
-
-			restTemplate.delete(url);
-
-		} catch (HttpClientErrorException ex) {
-			throw handleHttpClientException(ex);
-		}
+	public Flux<ProductDto> findProductsByIds(List<Long> ids) {
+		String url = productServiceUrl + "?ids=" + joinIds(ids);
+		LOG.debug("Will call findProductsByIds API on URL: {}", url);
+
+		return call(PRODUCT_SERVICE, () -> productClient.get().uri(url)
+				.retrieve()
+				.bodyToFlux(ProductDto.class)
+				.collectList()
+				.onErrorMap(WebClientResponseException.class, this::handleException))
+				.flatMapIterable(list -> list);
 	}
 
 	@Override
-	public ReviewDto createReview(ReviewDto body) {
-		try {
-			String url = reviewServiceUrl;
-			LOG.debug("Will post a new review to URL: {}", url);
-
-			ReviewDto review = restTemplate.postForObject(url, body, ReviewDto.class);
-			LOG.debug("Created a review with id: {}", review.productId());
-
-			return review;
-
-		} catch (HttpClientErrorException ex) {
-			throw handleHttpClientException(ex);
-		}
+	public Mono<Void> deleteProduct(Long productId) {
+		String url = productServiceUrl + "/" + productId;
+		LOG.debug("Will call the deleteProduct API on URL: {}", url);
+
+		return write(PRODUCT_SERVICE, () -> productClient.delete().uri(url)
+				.retrieve()
+				.bodyToMono(Void.class)
+				.onErrorMap(WebClientResponseException.class, this::handleException));
 	}
 
 	@Override
-	public List<ReviewDto> getReviews(Long productId) {
-
-		try {
-			String url = reviewServiceUrl + "?productId=" + productId;
+	public Mono<ReviewDto> createReview(ReviewDto body) {
+		String url = reviewServiceUrl;
+		LOG.debug("Will post a new review to URL: {}", url);
+
+		return write(REVIEW_SERVICE, () -> reviewClient.post().uri(url)
+				.bodyValue(body)
+				.retrieve()
+				.bodyToMono(ReviewDto.class)
+				.doOnNext(review -> LOG.debug("Created a review with id: {}", review.productId()))
+				.onErrorMap(WebClientResponseException.class, this::handleException));
+	}
 
-			LOG.debug("Will call getReviews API on URL: {}", url);
-			List<ReviewDto> reviewDtoList = restTemplate
-					.exchange(url, GET, null, new ParameterizedTypeReference<List<ReviewDto>>() {})
-					.getBody();
+	@Override
+	public Mono<BatchResult> createReviews(List<ReviewDto> body) {
+		String url = reviewServiceUrl + "/batch";
+		LOG.debug("Will post {} new reviews to URL: {}", body.size(), url);
+
+		return write(REVIEW_SERVICE, () -> reviewClient.post().uri(url)
+				.bodyValue(body)
+				.retrieve()
+				.bodyToMono(BatchResult.class)
+				.doOnNext(result -> LOG.debug("Created {} of {} reviews", result.created(), body.size()))
+				.onErrorMap(WebClientResponseException.class, this::handleException));
+	}
 
-			LOG.debug("Found {} reviews for a product with id: {}", reviewDtoList.size(), productId);
-			return reviewDtoList;
+	@Override
+	public Flux<ReviewDto> getReviews(Long productId) {
+		String url = reviewServiceUrl + "?productId=" + productId;
+		LOG.debug("Will call getReviews API on URL: {}", url);
+
+		// Errors are propagated, the composite service decides between a
+		// cached and an empty result to be able to return partial responses
+		return read(REVIEW_SERVICE, () -> reviewClient.get().uri(url)
+				.retrieve()
+				.bodyToFlux(ReviewDto.class)
+				.collectList(), "reviews", productId)
+				.flatMapIterable(list -> list);
+	}
 
-		} catch (Exception ex) {
-			LOG.warn("Got an exception while requesting reviews, return zero reviews: {}", ex.getMessage());
-			return new ArrayList<>();
-		}
+	@Override
+	public Mono<CursorPage<ReviewDto>> getReviewsPage(Long productId, int limit, String cursor) {
+		String url = reviewServiceUrl + "?productId=" + productId + "&limit=" + limit + (cursor == null ? "" : "&cursor=" + cursor);
+		LOG.debug("Will call getReviewsPage API on URL: {}", url);
+
+		return read(REVIEW_SERVICE, () -> reviewClient.get().uri(url)
+				.retrieve()
+				.bodyToMono(new ParameterizedTypeReference<CursorPage<ReviewDto>>() {})
+				.onErrorMap(WebClientResponseException.class, this::handleException), "reviews-page", productId, limit, cursor);
 	}
 
 	@Override
-	public void deleteReviews(Long productId) {
-		try {
-			String url = reviewServiceUrl + "?productId=" + productId;
-			LOG.debug("Will call the deleteReviews API on URL: {}", url);
+	public Flux<ReviewDto> getReviewsByProductIds(List<Long> productIds, Integer limitPerProduct) {
+		String url = reviewServiceUrl + "?productIds=" + joinIds(productIds) + (limitPerProduct == null ? "" : "&limitPerProduct=" + limitPerProduct);
+		LOG.debug("Will call getReviewsByProductIds API on URL: {}", url);
+
+		return call(REVIEW_SERVICE, () -> reviewClient.get().uri(url)
+				.retrieve()
+				.bodyToFlux(ReviewDto.class)
+				.collectList())
+				.flatMapIterable(list -> list);
+	}
 
-			restTemplate.delete(url);
+	@Override
+	public Mono<Void> deleteReviews(Long productId) {
+		String url = reviewServiceUrl + "?productId=" + productId;
+		LOG.debug("Will call the deleteReviews API on URL: {}", url);
+
+		return write(REVIEW_SERVICE, () -> reviewClient.delete().uri(url)
+				.retrieve()
+				.bodyToMono(Void.class)
+				.onErrorMap(WebClientResponseException.class, this::handleException));
+	}
 
-		} catch (HttpClientErrorException ex) {
-			throw handleHttpClientException(ex);
-		}
+	@Override
+	public Mono<RecommendationDto> createRecommendation(RecommendationDto body) {
+		String url = recommendationServiceUrl;
+		LOG.debug("Will post a new recommendation to URL: {}", url);
+
+		return write(RECOMMENDATION_SERVICE, () -> recommendationClient.post().uri(url)
+				.bodyValue(body)
+				.retrieve()
+				.bodyToMono(RecommendationDto.class)
+				.doOnNext(recommendation -> LOG.debug("Created a recommendation with id: {}", recommendation.productId()))
+				.onErrorMap(WebClientResponseException.class, this::handleException));
 	}
 
 	@Override
-	public RecommendationDto createRecommendation(RecommendationDto body) {
-		try {
-			String url = recommendationServiceUrl;
-			LOG.debug("Will post a new recommendation to URL: {}", url);
+	public Mono<BatchResult> createRecommendations(List<RecommendationDto> body) {
+		String url = recommendationServiceUrl + "/batch";
+		LOG.debug("Will post {} new recommendations to URL: {}", body.size(), url);
+
+		return write(RECOMMENDATION_SERVICE, () -> recommendationClient.post().uri(url)
+				.bodyValue(body)
+				.retrieve()
+				.bodyToMono(BatchResult.class)
+				.doOnNext(result -> LOG.debug("Created {} of {} recommendations", result.created(), body.size()))
+				.onErrorMap(WebClientResponseException.class, this::handleException));
+	}
 
-			RecommendationDto recommendation = restTemplate.postForObject(url, body, RecommendationDto.class);
-			LOG.debug("Created a recommendation with id: {}", recommendation.productId());
+	@Override
+	public Flux<RecommendationDto> getRecommendations(Long productId) {
+		String url = recommendationServiceUrl + "?productId=" + productId;
+		LOG.debug("Will call getRecommendations API on URL: {}", url);
+
+		// Errors are propagated, the composite service decides between a
+		// cached and an empty result to be able to return partial responses
+		return read(RECOMMENDATION_SERVICE, () -> recommendationClient.get().uri(url)
+				.retrieve()
+				.bodyToFlux(RecommendationDto.class)
+				.collectList(), "recommendations", productId)
+				.flatMapIterable(list -> list);
+	}
 
-			return recommendation;
+	@Override
+	public Mono<CursorPage<RecommendationDto>> getRecommendationsPage(Long productId, int limit, String cursor) {
+		String url = recommendationServiceUrl + "?productId=" + productId + "&limit=" + limit + (cursor == null ? "" : "&cursor=" + cursor);
+		LOG.debug("Will call getRecommendationsPage API on URL: {}", url);
+
+		return read(RECOMMENDATION_SERVICE, () -> recommendationClient.get().uri(url)
+				.retrieve()
+				.bodyToMono(new ParameterizedTypeReference<CursorPage<RecommendationDto>>() {})
+				.onErrorMap(WebClientResponseException.class, this::handleException), "recommendations-page", productId, limit, cursor);
+	}
 
-		} catch (HttpClientErrorException ex) {
-			throw handleHttpClientException(ex);
-		}
+	@Override
+	public Flux<RecommendationDto> getRecommendationsByProductIds(List<Long> productIds, Integer limitPerProduct) {
+		String url = recommendationServiceUrl + "?productIds=" + joinIds(productIds) + (limitPerProduct == null ? "" : "&limitPerProduct=" + limitPerProduct);
+		LOG.debug("Will call getRecommendationsByProductIds API on URL: {}", url);
+
+		return call(RECOMMENDATION_SERVICE, () -> recommendationClient.get().uri(url)
+				.retrieve()
+				.bodyToFlux(RecommendationDto.class)
+				.collectList())
+				.flatMapIterable(list -> list);
 	}
 
 	@Override
-	public List<RecommendationDto> getRecommendations(Long productId) {
+	public Mono<Void> deleteRecommendations(Long productId) {
+		String url = recommendationServiceUrl + "?productId=" + productId;
+		LOG.debug("Will call the deleteRecommendations API on URL: {}", url);
+
+		return write(RECOMMENDATION_SERVICE, () -> recommendationClient.delete().uri(url)
+				.retrieve()
+				.bodyToMono(Void.class)
+				.onErrorMap(WebClientResponseException.class, this::handleException));
+	}
 
-		try {
-			String url = recommendationServiceUrl + "?productId=" + productId;
+	/**
+	 * Guarded call, see {@link #protect(String, Mono)}, coalesced with identical calls in flight
+	 * and hedged, each attempt passing the bulkhead of the service.
+	 */
+	<T> Mono<T> read(String service, Supplier<Mono<T>> call, Object... key) {
+		return singleFlight.execute(service, () -> protect(service, hedgings.get(service).execute(() -> bulkheads.get(service).execute(call))), key);
+	}
 
-			LOG.debug("Will call getRecommendations API on URL: {}", url);
-			List<RecommendationDto> recommendationDtos = restTemplate
-					.exchange(url, GET, null, new ParameterizedTypeReference<List<RecommendationDto>>() {})
-					.getBody();
+	/**
+	 * Guarded read, see {@link #protect(String, Mono)}, passing the bulkhead of the service.
+	 */
+	private <T> Mono<T> call(String service, Supplier<Mono<T>> call) {
+		return protect(service, bulkheads.get(service).execute(call));
+	}
 
-			LOG.debug("Found {} recommendations for a product with id: {}", recommendationDtos.size(), productId);
-			return recommendationDtos;
+	/**
+	 * Write passing the bulkhead and circuit breaker of the service, but not its time limiter.
+	 * A write cancelled in flight may still be committed by the core service, and reported as
+	 * failed, so writes are only bounded by the deadline of the request, see
+	 * {@link co.istad.util.deadline.DeadlinePropagation}.
+	 */
+	private <T> Mono<T> write(String service, Supplier<Mono<T>> call) {
+		return breaker(service, bulkheads.get(service).execute(call));
+	}
 
-		} catch (Exception ex) {
-			LOG.warn("Got an exception while requesting recommendations, return zero recommendations: {}", ex.getMessage());
-			return new ArrayList<>();
-		}
+	/**
+	 * Applies the time limiter and circuit breaker of the service to a read, a timeout fails
+	 * it with a {@link DeadlineExceededException}.
+	 */
+	private <T> Mono<T> protect(String service, Mono<T> call) {
+		TimeLimiter timeLimiter = timeLimiters.get(service);
+		return breaker(service, call
+				.transformDeferred(TimeLimiterOperator.of(timeLimiter))
+				.onErrorMap(TimeoutException.class, ex -> new DeadlineExceededException(
+						service + " did not answer within " + timeLimiter.getTimeLimiterConfig().getTimeoutDuration().toMillis() + " ms")));
 	}
 
-	@Override
-	public void deleteRecommendations(Long productId) {
-		try {
-			String url = recommendationServiceUrl + "?productId=" + productId;
-			LOG.debug("Will call the deleteRecommendations API on URL: {}", url);
+	/**
+	 * An open circuit fails calls at once with a {@link RejectedExecutionException}.
+	 */
+	private <T> Mono<T> breaker(String service, Mono<T> call) {
+		return call
+				.transformDeferred(CircuitBreakerOperator.of(circuitBreakers.get(service)))
+				.onErrorMap(CallNotPermittedException.class, ex -> new RejectedExecutionException(ex.getMessage()));
+	}
 
-			restTemplate.delete(url);
+	private static Bulkhead bulkhead(String service, ServiceClientFactory clientFactory, MeterRegistry meterRegistry) {
+		ServiceClientProperties.Bulkhead properties = clientFactory.properties(service).getBulkhead();
+		return new Bulkhead(service, properties.getMaxInFlight(), properties.getMaxQueued(), meterRegistry);
+	}
 
-		} catch (HttpClientErrorException ex) {
-			throw handleHttpClientException(ex);
-		}
+	private String joinIds(List<Long> ids) {
+		return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
 	}
 
-	private String getErrorMessage(HttpClientErrorException ex) {
+	private String getErrorMessage(WebClientResponseException ex) {
 		try {
 			return mapper.readValue(ex.getResponseBodyAsString(), HttpErrorInfo.class).getMessage();
 		} catch (IOException ioex) {
@@ -215,14 +368,23 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
 		}
 	}
 
-	private RuntimeException handleHttpClientException(HttpClientErrorException ex) {
-		switch (Objects.requireNonNull(HttpStatus.resolve(ex.getStatusCode().value()))) {
+	private Throwable handleException(WebClientResponseException ex) {
+		HttpStatus status = HttpStatus.resolve(ex.getStatusCode().value());
+		if (status == null) {
+			LOG.warn("Got an unexpected HTTP error: {}, will rethrow it", ex.getStatusCode());
+			return ex;
+		}
+
+		switch (status) {
 			case NOT_FOUND -> {
 				return new NotFoundException(getErrorMessage(ex));
 			}
 			case UNPROCESSABLE_ENTITY -> {
 				return new InvalidInputException(getErrorMessage(ex));
 			}
+			case GATEWAY_TIMEOUT -> {
+				return new DeadlineExceededException(getErrorMessage(ex));
+			}
 			default -> {
 				LOG.warn("Got an unexpected HTTP error: {}, will rethrow it", ex.getStatusCode());
 				LOG.warn("Error body: {}", ex.getResponseBodyAsString());
@@ -2,9 +2,7 @@ package co.istad.composite.product;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
-import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
 @ComponentScan("co.istad")
@@ -14,9 +12,4 @@ public class ProductCompositeServiceApplication {
 		SpringApplication.run(ProductCompositeServiceApplication.class, args);
 	}
 
-	@Bean
-	RestTemplate restTemplate() {
-		return new RestTemplate();
-	}
-
 }
@@ -1,78 +1,347 @@
 package co.istad.composite.product;
 
 import co.istad.api.composite.product.*;
+import co.istad.api.core.BatchResult;
+import co.istad.api.core.CursorPage;
 import co.istad.api.core.product.ProductDto;
 import co.istad.api.core.recommendation.RecommendationDto;
 import co.istad.api.core.review.ReviewDto;
+import co.istad.api.exception.InvalidInputException;
+import co.istad.api.exception.NotFoundException;
+import co.istad.util.etag.EntityTag;
 import co.istad.util.http.ServiceUtil;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static co.istad.composite.product.ServerTiming.timed;
+
 @RestController
 @Slf4j
 public class ProductCompositeServiceImpl implements ProductCompositeService {
 
+	private static final int MAX_BATCH_SIZE = 100;
+
 	private final ServiceUtil serviceUtil;
 	private final ProductCompositeIntegration integration;
+	private final ProductAggregateCache cache;
+	private final KnownProducts knownProducts;
+	private final int writeConcurrency;
+	private final int writeBatchSize;
+	private final int pageSize;
 
-	public ProductCompositeServiceImpl(ServiceUtil serviceUtil, ProductCompositeIntegration integration) {
+	public ProductCompositeServiceImpl(
+			ServiceUtil serviceUtil,
+			ProductCompositeIntegration integration,
+			ProductAggregateCache cache,
+			KnownProducts knownProducts,
+			@Value("${app.composite.write-concurrency:2}") int writeConcurrency,
+			@Value("${app.composite.write-batch-size:100}") int writeBatchSize,
+			@Value("${app.composite.page-size:20}") int pageSize) {
 		this.serviceUtil = serviceUtil;
 		this.integration = integration;
+		this.cache = cache;
+		this.knownProducts = knownProducts;
+		if (writeBatchSize < 1 || writeBatchSize > BatchResult.MAX_ITEMS) {
+			throw new IllegalArgumentException("app.composite.write-batch-size must be between 1 and " + BatchResult.MAX_ITEMS + ", got: " + writeBatchSize);
+		}
+		// The core services reject larger pages, every child leg would fail
+		if (pageSize < 1 || pageSize > CursorPage.MAX_LIMIT) {
+			throw new IllegalArgumentException("app.composite.page-size must be between 1 and " + CursorPage.MAX_LIMIT + ", got: " + pageSize);
+		}
+		this.writeConcurrency = writeConcurrency;
+		this.writeBatchSize = writeBatchSize;
+		this.pageSize = pageSize;
 	}
 
 	@Override
-	public void createProduct(ProductAggregate body) {
-		try {
-			log.debug("createCompositeProduct: create new composite entity for productId: {}", body.getProductId());
+	public Mono<Void> createProduct(ProductAggregate body) {
+		log.debug("createCompositeProduct: create new composite entity for productId: {}", body.getProductId());
 
-			ProductDto product = new ProductDto(body.getProductId(), body.getName(), body.getWeight(), null);
-			integration.createProduct(product);
+		ProductDto product = new ProductDto(body.getProductId(), body.getName(), body.getWeight(), null);
 
-			if (body.getRecommendations() != null) {
-				body.getRecommendations().forEach(r -> {
-					RecommendationDto recommendation = new RecommendationDto(body.getProductId(), r.recommendationId(), r.author(), r.rate(), r.content(), null);
-					integration.createRecommendation(recommendation);
-				});
-			}
+		List<RecommendationDto> recommendations = body.getRecommendations() == null ? List.of() :
+				body.getRecommendations().stream()
+						.map(r -> new RecommendationDto(body.getProductId(), r.recommendationId(), r.author(), r.rate(), r.content(), null))
+						.toList();
+
+		List<ReviewDto> reviews = body.getReviews() == null ? List.of() :
+				body.getReviews().stream()
+						.map(r -> new ReviewDto(body.getProductId(), r.reviewId(), r.author(), r.subject(), r.content(), null))
+						.toList();
 
-			if (body.getReviews() != null) {
-				body.getReviews().forEach(r -> {
-					ReviewDto review = new ReviewDto(body.getProductId(), r.reviewId(), r.author(), r.subject(), r.content(), null);
-					integration.createReview(review);
+		// A batch request per writeBatchSize children of a type, each of them timed
+		Flux<Mono<Void>> createRecommendations = Flux.fromIterable(recommendations)
+				.buffer(writeBatchSize)
+				.map(batch -> timed("recommendations", integration.createRecommendations(batch))
+						.flatMap(result -> verifyBatch("recommendations", result)));
+		Flux<Mono<Void>> createReviews = Flux.fromIterable(reviews)
+				.buffer(writeBatchSize)
+				.map(batch -> timed("reviews", integration.createReviews(batch))
+						.flatMap(result -> verifyBatch("reviews", result)));
+
+		// The product is written first, the batches of children are then written concurrently,
+		// at most writeConcurrency at a time. The first failing batch fails the request and
+		// cancels the others.
+		return timed("product", integration.createProduct(product))
+				.thenMany(Flux.concat(createRecommendations, createReviews)
+						.flatMap(Function.identity(), writeConcurrency))
+				.then()
+				.doOnSuccess(v -> log.debug("createCompositeProduct: composite entities created for productId: {}", body.getProductId()))
+				.doOnError(e -> log.warn("createCompositeProduct failed", e))
+				.doFinally(signal -> {
+					cache.invalidate(body.getProductId());
+					knownProducts.created(body.getProductId());
 				});
+	}
+
+	@Override
+	public Mono<ProductAggregate> getProduct(Long productId, List<String> include) {
+
+		return EntityTag.record(Mono.defer(() -> {
+			Set<AggregatePart> parts = AggregatePart.parse(include);
+
+			ProductAggregate cached = cache.getIfFresh(productId);
+			if (cached != null) {
+				log.debug("getCompositeProduct: found a cached aggregate for productId: {}", productId);
+				return Mono.just(select(cached, parts));
+			}
+			if (knownProducts.isMissing(productId)) {
+				log.debug("getCompositeProduct: productId: {} is known not to exist", productId);
+				return Mono.error(new NotFoundException("No product found for productId: " + productId));
 			}
 
-			log.debug("createCompositeProduct: composite entities created for productId: {}", body.getProductId());
-		} catch (RuntimeException e) {
-			log.warn("createCompositeProduct failed", e);
-			throw e;
-		}
+			long loadToken = cache.startLoad(productId);
+			ProductAggregate lastKnown = cache.getLastKnown(productId);
+
+			// The three legs are independent, subscribe to them concurrently, legs of parts
+			// that aren't included are skipped. Only the first page of the children is
+			// included, along with the cursors to the next ones.
+			return Mono.zip(
+							timed("product", integration.findProductById(productId)
+									.doOnError(NotFoundException.class, ex -> knownProducts.missing(productId))),
+							!parts.contains(AggregatePart.RECOMMENDATIONS) ? Mono.just(Optional.<CursorPage<RecommendationDto>>empty()) :
+									timed("recommendations", integration.getRecommendationsPage(productId, pageSize, null))
+											.map(Optional::of)
+											.onErrorResume(ex -> legFailed("recommendations", productId, ex)),
+							!parts.contains(AggregatePart.REVIEWS) ? Mono.just(Optional.<CursorPage<ReviewDto>>empty()) :
+									timed("reviews", integration.getReviewsPage(productId, pageSize, null))
+											.map(Optional::of)
+											.onErrorResume(ex -> legFailed("reviews", productId, ex)))
+					.map(tuple -> assembleAggregate(tuple.getT1(), tuple.getT2(), tuple.getT3(), parts, loadToken))
+					.onErrorResume(ex -> lastKnown != null && isUnavailable(ex), ex -> {
+						log.warn("Got an exception while requesting product: {}, serving last known aggregate for productId: {}", ex.getMessage(), productId);
+						return Mono.just(select(lastKnown, parts));
+					});
+		}), ProductAggregate::getProductId, ProductCompositeServiceImpl::legsOf);
 	}
 
 	@Override
-	public ProductAggregate getProduct(Long productId) {
+	public Flux<ProductAggregate> getProducts(List<Long> ids, List<String> include) {
+
+		if (ids.isEmpty() || ids.size() > MAX_BATCH_SIZE) {
+			return Flux.error(new InvalidInputException("Between 1 and " + MAX_BATCH_SIZE + " ids must be given, got: " + ids.size()));
+		}
+
+		return EntityTag.record(Flux.defer(() -> {
+			Set<AggregatePart> parts = AggregatePart.parse(include);
+			List<Long> productIds = ids.stream().distinct().toList();
 
-		ProductDto productDto = integration.findProductById(productId);
-		List<RecommendationDto> recommendationDtos = integration.getRecommendations(productId);
-		List<ReviewDto> reviewDtos = integration.getReviews(productId);
+			Map<Long, ProductAggregate> aggregates = new HashMap<>();
+			List<Long> misses = new ArrayList<>();
+			productIds.forEach(productId -> {
+				ProductAggregate cached = cache.getIfFresh(productId);
+				if (cached != null) {
+					aggregates.put(productId, select(cached, parts));
+				} else {
+					misses.add(productId);
+				}
+			});
+			log.debug("getCompositeProducts: {} of {} aggregates found in the cache", aggregates.size(), productIds.size());
+			// Unknown products are left out of the response anyway
+			misses.removeIf(knownProducts::isMissing);
 
-		return createProductAggregate(productDto, recommendationDtos, reviewDtos, serviceUtil.getServiceAddress());
+			if (misses.isEmpty()) {
+				return Flux.fromIterable(inRequestedOrder(productIds, aggregates));
+			}
+
+			Map<Long, Long> loadTokens = new HashMap<>();
+			misses.forEach(productId -> loadTokens.put(productId, cache.startLoad(productId)));
+
+			// One batch call per core service, regardless of the number of products,
+			// services of parts that aren't included aren't called. Only the first page
+			// of the children of each product is read.
+			return Mono.zip(
+							timed("product", integration.findProductsByIds(misses).collectList()),
+							!parts.contains(AggregatePart.RECOMMENDATIONS) ? Mono.just(Optional.<Map<Long, List<RecommendationDto>>>empty()) :
+									timed("recommendations", integration.getRecommendationsByProductIds(misses, pageSize).collectList())
+											.map(list -> Optional.of(groupByProductId(list, RecommendationDto::productId)))
+											.onErrorResume(ex -> legFailed("recommendations", misses, ex)),
+							!parts.contains(AggregatePart.REVIEWS) ? Mono.just(Optional.<Map<Long, List<ReviewDto>>>empty()) :
+									timed("reviews", integration.getReviewsByProductIds(misses, pageSize).collectList())
+											.map(list -> Optional.of(groupByProductId(list, ReviewDto::productId)))
+											.onErrorResume(ex -> legFailed("reviews", misses, ex)))
+					.map(tuple -> {
+						tuple.getT1().forEach(productDto -> aggregates.put(productDto.productId(), assembleAggregate(
+								productDto,
+								tuple.getT2().map(byProductId -> firstPage(byProductId, productDto.productId(), RecommendationDto::recommendationId)),
+								tuple.getT3().map(byProductId -> firstPage(byProductId, productDto.productId(), ReviewDto::reviewId)),
+								parts,
+								loadTokens.get(productDto.productId()))));
+						misses.stream()
+								.filter(productId -> !aggregates.containsKey(productId))
+								.forEach(knownProducts::missing);
+						return inRequestedOrder(productIds, aggregates);
+					})
+					.onErrorResume(ex -> isUnavailable(ex) && misses.stream().anyMatch(id -> cache.getLastKnown(id) != null), ex -> {
+						log.warn("Got an exception while requesting products: {}, serving last known aggregates", ex.getMessage());
+						misses.forEach(productId -> {
+							ProductAggregate lastKnown = cache.getLastKnown(productId);
+							if (lastKnown != null) {
+								aggregates.put(productId, select(lastKnown, parts));
+							}
+						});
+						return Mono.just(inRequestedOrder(productIds, aggregates));
+					})
+					.flatMapIterable(list -> list);
+		}), ProductAggregate::getProductId, ProductCompositeServiceImpl::legsOf);
 	}
 
 	@Override
-	public void deleteProduct(Long productId) {
+	public Mono<Void> deleteProduct(Long productId) {
 		log.debug("deleteCompositeProduct: Deletes a product aggregate for productId: {}", productId);
 
-		integration.deleteProduct(productId);
+		// The three deletes are independent, the first failing one fails the request
+		return Mono.when(
+						timed("product", integration.deleteProduct(productId)),
+						timed("recommendations", integration.deleteRecommendations(productId)),
+						timed("reviews", integration.deleteReviews(productId)))
+				.doOnSuccess(v -> log.debug("deleteCompositeProduct: aggregate entities deleted for productId: {}", productId))
+				.doFinally(signal -> cache.invalidate(productId));
+	}
+
+	private Mono<Void> verifyBatch(String children, BatchResult result) {
+		if (result.errors().isEmpty()) {
+			return Mono.empty();
+		}
+		String messages = result.errors().stream()
+				.map(BatchResult.ItemError::message)
+				.collect(Collectors.joining(", "));
+		return Mono.error(new InvalidInputException("Failed to create " + result.errors().size() + " " + children + ": " + messages));
+	}
+
+	/**
+	 * Creates the aggregate and caches it if all parts are included and all legs succeeded,
+	 * otherwise the parts of the failed legs are taken from the last known aggregate, if any.
+	 */
+	private ProductAggregate assembleAggregate(
+			ProductDto productDto,
+			Optional<CursorPage<RecommendationDto>> recommendationPage,
+			Optional<CursorPage<ReviewDto>> reviewPage,
+			Set<AggregatePart> parts,
+			long loadToken) {
+
+		boolean withRecommendations = parts.contains(AggregatePart.RECOMMENDATIONS);
+		boolean withReviews = parts.contains(AggregatePart.REVIEWS);
 
-		integration.deleteRecommendations(productId);
+		ProductAggregate aggregate = createProductAggregate(
+				productDto,
+				!withRecommendations ? null : recommendationPage.map(CursorPage::items).orElseGet(ArrayList::new),
+				!withReviews ? null : reviewPage.map(CursorPage::items).orElseGet(ArrayList::new),
+				serviceUtil.getServiceAddress());
+		aggregate.setRecommendationsNext(recommendationPage.map(CursorPage::next).orElse(null));
+		aggregate.setReviewsNext(reviewPage.map(CursorPage::next).orElse(null));
 
-		integration.deleteReviews(productId);
+		if (withRecommendations && withReviews && recommendationPage.isPresent() && reviewPage.isPresent()) {
+			cache.put(productDto.productId(), aggregate, loadToken);
+			return aggregate;
+		}
+
+		// Serve the last known parts instead of empty lists for the failed legs
+		ProductAggregate lastKnown = cache.getLastKnown(productDto.productId());
+		if (lastKnown != null) {
+			if (withRecommendations && recommendationPage.isEmpty()) {
+				aggregate.setRecommendations(lastKnown.getRecommendations());
+				aggregate.setRecommendationsNext(lastKnown.getRecommendationsNext());
+			}
+			if (withReviews && reviewPage.isEmpty()) {
+				aggregate.setReviews(lastKnown.getReviews());
+				aggregate.setReviewsNext(lastKnown.getReviewsNext());
+			}
+		}
+		return aggregate;
+	}
+
+	/**
+	 * @return a copy of a complete, e.g. cached, aggregate without the parts that aren't included
+	 */
+	private ProductAggregate select(ProductAggregate aggregate, Set<AggregatePart> parts) {
+		if (parts.size() == AggregatePart.values().length) {
+			return aggregate;
+		}
+		ProductAggregate.ProductAggregateBuilder selected = aggregate.toBuilder();
+		if (!parts.contains(AggregatePart.RECOMMENDATIONS)) {
+			selected.recommendations(null).recommendationsNext(null);
+		}
+		if (!parts.contains(AggregatePart.REVIEWS)) {
+			selected.reviews(null).reviewsNext(null);
+		}
+		return selected.build();
+	}
+
+	/**
+	 * The version of an aggregate in its {@link EntityTag}: the data of its legs, but not the
+	 * addresses of the instances serving them. Cached and freshly assembled aggregates of
+	 * the same data get the same tag.
+	 */
+	private static String legsOf(ProductAggregate aggregate) {
+		return String.join("|",
+				aggregate.getName(),
+				String.valueOf(aggregate.getWeight()),
+				String.valueOf(aggregate.getRecommendations()),
+				aggregate.getRecommendationsNext(),
+				String.valueOf(aggregate.getReviews()),
+				aggregate.getReviewsNext());
+	}
+
+	private <T> Map<Long, List<T>> groupByProductId(List<T> dtos, Function<T, Long> productId) {
+		return dtos.stream().collect(Collectors.groupingBy(productId));
+	}
+
+	/**
+	 * The batch endpoints read up to pageSize + 1 children of each product in id order,
+	 * the same rows as the first page of the single product read.
+	 */
+	private <T> CursorPage<T> firstPage(Map<Long, List<T>> byProductId, Long productId, Function<T, Long> id) {
+		return CursorPage.fromRows(byProductId.getOrDefault(productId, List.of()), pageSize, productId, id);
+	}
+
+	private List<ProductAggregate> inRequestedOrder(List<Long> productIds, Map<Long, ProductAggregate> aggregates) {
+		return productIds.stream()
+				.map(aggregates::get)
+				.filter(Objects::nonNull)
+				.toList();
+	}
+
+	private <T> Mono<Optional<T>> legFailed(String leg, Object productId, Throwable ex) {
+		log.warn("Got an exception while requesting {} for productId: {}, will use the last known or an empty result: {}", leg, productId, ex.getMessage());
+		return Mono.just(Optional.empty());
+	}
 
-		log.debug("deleteCompositeProduct: aggregate entities deleted for productId: {}", productId);
+	private boolean isUnavailable(Throwable ex) {
+		return !(ex instanceof NotFoundException) && !(ex instanceof InvalidInputException);
 	}
 
 	private ProductAggregate createProductAggregate(
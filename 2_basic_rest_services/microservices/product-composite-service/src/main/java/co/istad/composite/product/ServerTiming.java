@@ -0,0 +1,47 @@
+package co.istad.composite.product;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Per-request collector of the durations of the calls to the core services.
+ * <p>
+ * {@link ServerTimingFilter} puts an instance in the Reactor context of every request and
+ * reports the collected durations in a {@code Server-Timing} response header, e.g.
+ * {@code Server-Timing: product;dur=12.3, recommendations;dur=4.0, reviews;dur=7.9}.
+ */
+public class ServerTiming {
+
+	static final String HEADER = "Server-Timing";
+
+	private record Metric(String name, long nanos) {
+	}
+
+	private final Queue<Metric> metrics = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Records the time from subscription to termination of the given leg, if
+	 * the request is timed.
+	 */
+	public static <T> Mono<T> timed(String name, Mono<T> leg) {
+		return Mono.deferContextual(context -> context.<ServerTiming>getOrEmpty(ServerTiming.class)
+				.map(timing -> {
+					long start = System.nanoTime();
+					Runnable record = () -> timing.metrics.add(new Metric(name, System.nanoTime() - start));
+					// Not doFinally, it runs after the downstream has seen the signal and may already have committed the response
+					return leg.doOnTerminate(record).doOnCancel(record);
+				})
+				.orElse(leg));
+	}
+
+	String headerValue() {
+		return metrics.stream()
+				.map(metric -> String.format(Locale.ROOT, "%s;dur=%.1f", metric.name(), metric.nanos() / 1_000_000.0))
+				.collect(Collectors.joining(", "));
+	}
+
+}
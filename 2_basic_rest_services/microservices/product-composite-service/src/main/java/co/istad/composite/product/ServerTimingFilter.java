@@ -0,0 +1,33 @@
+package co.istad.composite.product;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Adds the durations collected by {@link ServerTiming} to the response headers
+ * just before the response is committed.
+ */
+@Component
+public class ServerTimingFilter implements WebFilter {
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		ServerTiming timing = new ServerTiming();
+
+		exchange.getResponse().beforeCommit(() -> {
+			String value = timing.headerValue();
+			if (!value.isEmpty()) {
+				exchange.getResponse().getHeaders().add(ServerTiming.HEADER, value);
+			}
+			return Mono.empty();
+		});
+
+		return chain.filter(exchange)
+				.contextWrite(Context.of(ServerTiming.class, timing));
+	}
+
+}
@@ -0,0 +1,183 @@
+package co.istad.composite.product;
+
+import co.istad.util.deadline.DeadlinePropagation;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates one pooled, keep-alive {@link WebClient} per downstream core service.
+ * <p>
+ * Each service gets its own Reactor Netty {@link ConnectionProvider}, so a slow
+ * service can't exhaust the connections of the others. Pool gauges are published
+ * as {@code reactor.netty.connection.provider.*} metrics, tagged with the service
+ * name, and are visible on {@code /actuator/metrics}. Calls are spread over the
+ * instances of the service by a {@link LoadBalancer}. Requests carry the remaining
+ * deadline of the incoming request, see {@link DeadlinePropagation}, and GET
+ * responses are revalidated rather than read again, see {@link ConditionalRequests}.
+ * Channels to the internal gRPC APIs of the services are created on first use.
+ */
+@Component
+public class ServiceClientFactory {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ServiceClientFactory.class);
+
+	private static final String PREWARM_PATH = "/actuator/health";
+
+	private final WebClient.Builder webClientBuilder;
+	private final Binder binder;
+
+	private final Map<String, ServiceClient> clients = new ConcurrentHashMap<>();
+	private final Map<String, ManagedChannel> channels = new ConcurrentHashMap<>();
+
+	public ServiceClientFactory(WebClient.Builder webClientBuilder, Environment environment) {
+		this.webClientBuilder = webClientBuilder;
+		this.binder = Binder.get(environment);
+	}
+
+	public WebClient webClient(String serviceName) {
+		return client(serviceName).webClient();
+	}
+
+	public ServiceClientProperties properties(String serviceName) {
+		return client(serviceName).properties();
+	}
+
+	/**
+	 * @return the base URL of the service, the instance is picked per call by its {@link LoadBalancer}
+	 */
+	public String baseUrl(String serviceName) {
+		return "http://" + serviceName;
+	}
+
+	/**
+	 * @return the channel to the internal gRPC API of the service, created on first use
+	 */
+	public ManagedChannel grpcChannel(String serviceName) {
+		return channels.computeIfAbsent(serviceName, this::createChannel);
+	}
+
+	private ServiceClient client(String serviceName) {
+		return clients.computeIfAbsent(serviceName, this::createClient);
+	}
+
+	private ServiceClient createClient(String serviceName) {
+		ServiceClientProperties properties = binder.bindOrCreate("app." + serviceName, ServiceClientProperties.class);
+		ServiceClientProperties.Pool pool = properties.getPool();
+
+		ConnectionProvider connectionProvider = ConnectionProvider.builder(serviceName)
+				.maxConnections(pool.getMaxConnections())
+				.pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+				.pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+				.maxIdleTime(pool.getMaxIdleTime())
+				.maxLifeTime(pool.getMaxLifeTime())
+				.evictInBackground(pool.getEvictionInterval())
+				.metrics(true)
+				.build();
+
+		HttpClient httpClient = HttpClient.create(connectionProvider)
+				.keepAlive(true)
+				.protocol(properties.isH2c() ? HttpProtocol.H2C : HttpProtocol.HTTP11);
+
+		List<URI> instances = properties.instanceUris();
+		ServiceClientProperties.LoadBalancer loadBalancer = properties.getLoadBalancer();
+
+		WebClient.Builder builder = webClientBuilder.clone()
+				.clientConnector(new ReactorClientHttpConnector(httpClient))
+				.filter(new DeadlinePropagation());
+		if (properties.getConditionalCacheSize().toBytes() > 0) {
+			builder.filter(new ConditionalRequests(serviceName, properties.getConditionalCacheSize()));
+		}
+		WebClient webClient = builder
+				.filter(new LoadBalancer(serviceName, instances, loadBalancer.getConsecutiveFailures(), loadBalancer.getEjectionTime()))
+				.build();
+
+		LOG.info("Created HTTP client for {} at {}, max connections: {}, h2c: {}",
+				serviceName, instances, pool.getMaxConnections(), properties.isH2c());
+
+		return new ServiceClient(properties, connectionProvider, httpClient, webClient);
+	}
+
+	private ManagedChannel createChannel(String serviceName) {
+		ServiceClientProperties properties = properties(serviceName);
+		String target = "dns:///" + properties.getHost() + ":" + properties.getGrpcPort();
+
+		ManagedChannel channel = ManagedChannelBuilder.forTarget(target)
+				.defaultLoadBalancingPolicy("round_robin")
+				.usePlaintext()
+				.build();
+
+		LOG.info("Created gRPC channel for {} at {}", serviceName, target);
+		return channel;
+	}
+
+	/**
+	 * Opens the configured number of connections to each downstream service, by
+	 * sending concurrent requests to its health endpoint, so the first real
+	 * requests don't pay for the TCP handshakes.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void prewarm() {
+		clients.forEach((serviceName, client) -> {
+			int connections = client.properties().getPool().getPrewarmConnections();
+			if (connections <= 0) {
+				return;
+			}
+
+			client.httpClient().warmup().block();
+
+			String url = baseUrl(serviceName) + PREWARM_PATH;
+			// Emits the error of each failed request
+			Flux.range(0, connections)
+					.flatMap(i -> client.webClient().get().uri(url)
+							.retrieve()
+							.toBodilessEntity()
+							.then(Mono.<Throwable>empty())
+							.onErrorResume(ex -> {
+								LOG.debug("Pre-warm request to {} failed: {}", url, ex.getMessage());
+								return Mono.just(ex);
+							}), connections)
+					.collectList()
+					.subscribe(failures -> {
+						LOG.info("Pre-warmed {} of {} connections to {}", connections - failures.size(), connections, serviceName);
+						if (!failures.isEmpty()) {
+							LOG.warn("{} of {} pre-warm requests to {} failed, first error: {}",
+									failures.size(), connections, url, failures.get(0).getMessage());
+						}
+					});
+		});
+	}
+
+	@PreDestroy
+	public void dispose() {
+		clients.values().forEach(client -> client.connectionProvider().dispose());
+		channels.values().forEach(ManagedChannel::shutdown);
+	}
+
+	private record ServiceClient(
+			ServiceClientProperties properties,
+			ConnectionProvider connectionProvider,
+			HttpClient httpClient,
+			WebClient webClient) {
+	}
+
+}
@@ -0,0 +1,117 @@
+package co.istad.composite.product;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.util.unit.DataSize;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Connection settings for one downstream core service, bound from
+ * {@code app.<service-name>}, e.g. {@code app.review-service.pool.max-connections}.
+ */
+@Getter
+@Setter
+public class ServiceClientProperties {
+
+	private String host = "localhost";
+	private int port = 8080;
+
+	/**
+	 * Instances of the service as {@code host:port}, calls are spread over them by
+	 * {@link co.istad.composite.product.LoadBalancer}. When empty, {@code host} and
+	 * {@code port} are the only instance.
+	 */
+	private List<String> instances = new ArrayList<>();
+
+	/**
+	 * Use HTTP/2 over cleartext with prior knowledge, multiplexing all
+	 * requests over a few connections. The core service must run with
+	 * {@code server.http2.enabled=true}.
+	 */
+	private boolean h2c = false;
+
+	/**
+	 * Port of the internal gRPC API of the service, used with {@code app.composite.transport=grpc}.
+	 * Calls are spread over the addresses {@code host} resolves to, {@code instances} don't apply.
+	 */
+	private int grpcPort = 9090;
+
+	/**
+	 * Bodies of GET responses kept with their ETag, to revalidate them with conditional
+	 * requests, see {@link co.istad.composite.product.ConditionalRequests}. Zero disables it.
+	 */
+	private DataSize conditionalCacheSize = DataSize.ofMegabytes(16);
+
+	private Pool pool = new Pool();
+
+	private Bulkhead bulkhead = new Bulkhead();
+
+	private LoadBalancer loadBalancer = new LoadBalancer();
+
+	public List<URI> instanceUris() {
+		List<String> hostsAndPorts = instances.isEmpty() ? List.of(host + ":" + port) : instances;
+		return hostsAndPorts.stream()
+				.map(hostAndPort -> URI.create("http://" + hostAndPort))
+				.toList();
+	}
+
+	@Getter
+	@Setter
+	public static class Pool {
+
+		private int maxConnections = 50;
+
+		private int pendingAcquireMaxCount = 500;
+
+		private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+		/**
+		 * Connections idle for longer than this are closed by the eviction task.
+		 */
+		private Duration maxIdleTime = Duration.ofSeconds(30);
+
+		private Duration maxLifeTime = Duration.ofMinutes(10);
+
+		private Duration evictionInterval = Duration.ofSeconds(15);
+
+		/**
+		 * Number of connections to open when the application is ready, zero disables pre-warming.
+		 */
+		private int prewarmConnections = 0;
+
+	}
+
+	@Getter
+	@Setter
+	public static class Bulkhead {
+
+		/**
+		 * Calls in flight to the service, keep it below the connection pool size.
+		 */
+		private int maxInFlight = 40;
+
+		/**
+		 * Calls waiting for one in flight to complete, calls beyond this are rejected at once.
+		 */
+		private int maxQueued = 20;
+
+	}
+
+	@Getter
+	@Setter
+	public static class LoadBalancer {
+
+		/**
+		 * Failed calls in a row, connection errors or 5xx responses, that eject an instance.
+		 */
+		private int consecutiveFailures = 5;
+
+		private Duration ejectionTime = Duration.ofSeconds(30);
+
+	}
+
+}
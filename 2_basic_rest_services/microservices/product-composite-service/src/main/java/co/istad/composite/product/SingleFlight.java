@@ -0,0 +1,77 @@
+package co.istad.composite.product;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical downstream lookups.
+ * <p>
+ * While a call for a given service and key is in flight, other callers attach to it
+ * instead of issuing their own, and get the same result or error. The call is
+ * forgotten as soon as it terminates, so nothing is cached beyond its duration, and
+ * it is only cancelled once all attached callers have cancelled.
+ * <p>
+ * The call runs in the Reactor context of the caller that started it, so the deadline of
+ * that caller is the one propagated and enforced. Callers attaching later wait for the call
+ * under that deadline, whether theirs is earlier or later.
+ * <p>
+ * Collapsed calls are counted by the {@code composite.calls.collapsed} metric, tagged
+ * with the name of the service.
+ */
+class SingleFlight {
+
+	private record Key(String service, List<Object> args) {
+	}
+
+	private final Map<Key, Mono<?>> inFlight = new ConcurrentHashMap<>();
+	private final Map<String, Counter> collapsed = new ConcurrentHashMap<>();
+	private final MeterRegistry meterRegistry;
+
+	SingleFlight(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * @param service the downstream service, used as metric tag
+	 * @param call creates the call, only invoked when no identical call is in flight
+	 * @param args identifies the call within the service
+	 */
+	@SuppressWarnings("unchecked")
+	<T> Mono<T> execute(String service, Supplier<Mono<T>> call, Object... args) {
+		return Mono.defer(() -> {
+			Key key = new Key(service, Arrays.asList(args));
+			AtomicReference<Mono<T>> self = new AtomicReference<>();
+			Mono<T> candidate = Mono.defer(call)
+					.doFinally(signal -> inFlight.remove(key, self.get()))
+					// Unlike Mono.share(), cancels the call once the last caller cancels
+					.flux()
+					.publish()
+					.refCount(1)
+					.singleOrEmpty();
+			self.set(candidate);
+
+			Mono<T> existing = (Mono<T>) inFlight.putIfAbsent(key, candidate);
+			if (existing != null) {
+				collapsedCounter(service).increment();
+				return existing;
+			}
+			return candidate;
+		});
+	}
+
+	private Counter collapsedCounter(String service) {
+		return collapsed.computeIfAbsent(service, name -> Counter.builder("composite.calls.collapsed")
+				.description("Downstream calls answered by an identical call already in flight")
+				.tag("service", name)
+				.register(meterRegistry));
+	}
+
+}
@@ -0,0 +1,71 @@
+package co.istad.composite.product;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTests {
+
+	private static final long MILLIS = 1_000_000L;
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100, meterRegistry);
+
+	@Test
+	void requestsBeyondTheLimitAreRejected() {
+		for (int i = 0; i < 10; i++) {
+			assertEquals(i + 1, limiter.tryAcquire());
+		}
+
+		assertEquals(-1, limiter.tryAcquire());
+		assertEquals(1.0, meterRegistry.get("composite.concurrency.rejected").counter().count());
+		assertEquals(10.0, meterRegistry.get("composite.concurrency.inflight").gauge().value());
+
+		limiter.release();
+		assertEquals(10, limiter.tryAcquire());
+	}
+
+	@Test
+	void limitGrowsWhileLatencyIsStable() {
+		for (int i = 0; i < 50; i++) {
+			limiter.release(10 * MILLIS, limiter.getLimit(), false);
+		}
+
+		assertTrue(limiter.getLimit() > 10);
+	}
+
+	@Test
+	void limitShrinksWhenLatencyGrows() {
+		for (int i = 0; i < 50; i++) {
+			limiter.release(10 * MILLIS, limiter.getLimit(), false);
+		}
+		int grown = limiter.getLimit();
+
+		for (int i = 0; i < 20; i++) {
+			limiter.release(100 * MILLIS, limiter.getLimit(), false);
+		}
+
+		assertTrue(limiter.getLimit() < grown);
+		assertEquals(limiter.getLimit(), (int) meterRegistry.get("composite.concurrency.limit").gauge().value());
+	}
+
+	@Test
+	void limitShrinksOnFailures() {
+		limiter.release(10 * MILLIS, 10, true);
+
+		assertEquals(9, limiter.getLimit());
+	}
+
+	@Test
+	void samplesAtLowUtilizationAreIgnored() {
+		for (int i = 0; i < 50; i++) {
+			limiter.release(10 * MILLIS, 1, false);
+		}
+
+		assertEquals(10, limiter.getLimit());
+	}
+
+}
@@ -0,0 +1,74 @@
+package co.istad.composite.product;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BulkheadTests {
+
+	private static final String SERVICE = "review-service";
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final Bulkhead bulkhead = new Bulkhead(SERVICE, 1, 1, meterRegistry);
+
+	@Test
+	void callsBeyondTheLimitAreQueuedThenRejected() {
+		Sinks.One<String> first = Sinks.one();
+
+		StepVerifier.create(Mono.zip(
+						bulkhead.execute(first::asMono),
+						bulkhead.execute(() -> Mono.just("queued")),
+						bulkhead.execute(() -> Mono.just("rejected")).onErrorReturn(RejectedExecutionException.class, "fallback")))
+				.then(() -> {
+					assertEquals(1.0, gauge("composite.bulkhead.inflight"));
+					assertEquals(1.0, gauge("composite.bulkhead.queued"));
+					first.tryEmitValue("first");
+				})
+				.assertNext(result -> {
+					assertEquals("first", result.getT1());
+					assertEquals("queued", result.getT2());
+					assertEquals("fallback", result.getT3());
+				})
+				.verifyComplete();
+
+		assertEquals(0.0, gauge("composite.bulkhead.inflight"));
+		assertEquals(0.0, gauge("composite.bulkhead.queued"));
+		assertEquals(1.0, meterRegistry.get("composite.bulkhead.rejected").tag("service", SERVICE).counter().count());
+	}
+
+	@Test
+	void cancelledWaitersGiveUpTheirPlace() {
+		Sinks.One<String> first = Sinks.one();
+
+		StepVerifier.create(bulkhead.execute(first::asMono))
+				.then(() -> StepVerifier.create(bulkhead.execute(() -> Mono.just("queued")))
+						.expectSubscription()
+						.expectNoEvent(Duration.ofMillis(10))
+						.thenCancel()
+						.verify())
+				.then(() -> {
+					assertEquals(0.0, gauge("composite.bulkhead.queued"));
+					first.tryEmitValue("first");
+				})
+				.expectNext("first")
+				.verifyComplete();
+
+		StepVerifier.create(bulkhead.execute(() -> Mono.just("next")))
+				.expectNext("next")
+				.verifyComplete();
+		assertEquals(0.0, gauge("composite.bulkhead.inflight"));
+	}
+
+	private double gauge(String name) {
+		return meterRegistry.get(name).tag("service", SERVICE).gauge().value();
+	}
+
+}
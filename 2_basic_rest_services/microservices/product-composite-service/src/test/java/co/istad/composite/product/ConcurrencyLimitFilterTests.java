@@ -0,0 +1,99 @@
+package co.istad.composite.product;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class ConcurrencyLimitFilterTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, meterRegistry);
+	private final Sinks.One<String> response = Sinks.one();
+
+	private DisposableServer server;
+	private WebTestClient client;
+
+	@BeforeEach
+	void setUp() {
+		server = HttpServer.create()
+				.port(0)
+				.handle(new ReactorHttpHandlerAdapter(WebHttpHandlerBuilder
+						.webHandler(RouterFunctions.toWebHandler(RouterFunctions.route()
+								.GET("/product-composite/1", request -> ServerResponse.ok().body(response.asMono(), String.class))
+								.GET("/actuator/health", request -> ServerResponse.ok().bodyValue("UP"))
+								.build()))
+						.filter(new ConcurrencyLimitFilter(limiter, Jackson2ObjectMapperBuilder.json().build(), Duration.ofSeconds(2)))
+						.build()))
+				.bindNow();
+		client = WebTestClient.bindToServer().baseUrl("http://localhost:" + server.port()).build();
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.disposeNow();
+	}
+
+	@Test
+	void requestsOverTheLimitAreShed() {
+		// Holds the only permit until the response is emitted
+		Mono<String> inFlight = WebClient.create("http://localhost:" + server.port())
+				.get()
+				.uri("/product-composite/1")
+				.retrieve()
+				.bodyToMono(String.class)
+				.cache();
+		inFlight.subscribe();
+		assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+			while (meterRegistry.get("composite.concurrency.inflight").gauge().value() < 1) {
+				Thread.sleep(1);
+			}
+		});
+
+		client.get()
+				.uri("/product-composite/1")
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isEqualTo(503)
+				.expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "2")
+				.expectHeader().contentType(MediaType.APPLICATION_JSON)
+				.expectBody()
+				.jsonPath("$.path").isEqualTo("/product-composite/1")
+				.jsonPath("$.message").isEqualTo("Too many concurrent requests, limit: 1");
+
+		// Other paths are not limited
+		client.get()
+				.uri("/actuator/health")
+				.exchange()
+				.expectStatus().isOk();
+
+		response.tryEmitValue("product-1");
+		assertEquals("product-1", inFlight.block(Duration.ofSeconds(5)));
+		assertEquals(1.0, meterRegistry.get("composite.concurrency.rejected").counter().count());
+
+		client.get()
+				.uri("/product-composite/1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class).isEqualTo("product-1");
+	}
+
+}
@@ -0,0 +1,82 @@
+package co.istad.composite.product;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConditionalRequestsTests {
+
+	private static final String SERVICE = "review-service";
+
+	private final AtomicReference<String> version = new AtomicReference<>("1");
+	private final AtomicInteger notModified = new AtomicInteger();
+
+	private DisposableServer server;
+	private WebClient client;
+	private String url;
+
+	@BeforeEach
+	void setUp() {
+		// Tags the body with its version, and answers a matching If-None-Match with a 304
+		server = HttpServer.create()
+				.port(0)
+				.route(routes -> routes.get("/reviews", (request, response) -> {
+					String etag = "W/\"" + version.get() + "\"";
+					if (etag.equals(request.requestHeaders().get(HttpHeaders.IF_NONE_MATCH))) {
+						notModified.incrementAndGet();
+						return response.status(304).header(HttpHeaders.ETAG, etag).send();
+					}
+					return response.header(HttpHeaders.ETAG, etag)
+							.header(HttpHeaders.CONTENT_TYPE, "text/plain")
+							.sendString(Mono.just("version " + version.get()));
+				}))
+				.bindNow();
+
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("app." + SERVICE + ".port", String.valueOf(server.port()));
+		ServiceClientFactory clientFactory = new ServiceClientFactory(WebClient.builder(), environment);
+		client = clientFactory.webClient(SERVICE);
+		url = clientFactory.baseUrl(SERVICE) + "/reviews?productId=1";
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.disposeNow();
+	}
+
+	@Test
+	void notModifiedResponseIsServedFromTheKeptBody() {
+		assertEquals("version 1", get());
+		assertEquals("version 1", get());
+		assertEquals(1, notModified.get());
+	}
+
+	@Test
+	void modifiedResponseReplacesTheKeptBody() {
+		assertEquals("version 1", get());
+		version.set("2");
+		assertEquals("version 2", get());
+		assertEquals("version 2", get());
+		assertEquals(1, notModified.get());
+	}
+
+	private String get() {
+		return client.get().uri(url)
+				.retrieve()
+				.bodyToMono(String.class)
+				.block(Duration.ofSeconds(10));
+	}
+
+}
@@ -0,0 +1,135 @@
+package co.istad.composite.product;
+
+import co.istad.api.core.CursorPage;
+import co.istad.api.core.grpc.GetProductRequest;
+import co.istad.api.core.grpc.ListRequest;
+import co.istad.api.core.grpc.Product;
+import co.istad.api.core.grpc.ProductsGrpc;
+import co.istad.api.core.grpc.ProtoMapper;
+import co.istad.api.core.grpc.ReviewItem;
+import co.istad.api.core.grpc.ReviewsGrpc;
+import co.istad.api.core.review.ReviewDto;
+import co.istad.api.exception.InvalidInputException;
+import co.istad.api.exception.NotFoundException;
+import co.istad.util.deadline.Deadline;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.grpc.BindableService;
+import io.grpc.Context;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GrpcProductCompositeIntegrationTests {
+
+	private final List<Server> servers = new ArrayList<>();
+	private final MockEnvironment environment = new MockEnvironment();
+
+	@AfterEach
+	void tearDown() {
+		servers.forEach(Server::shutdownNow);
+	}
+
+	@Test
+	void pageIsAssembledFromStreamedItems() throws IOException {
+		serve(ProductCompositeIntegration.REVIEW_SERVICE, new ReviewsGrpc.ReviewsImplBase() {
+			@Override
+			public void listReviews(ListRequest request, StreamObserver<ReviewItem> responseObserver) {
+				for (long reviewId = 1; reviewId <= request.getLimit(); reviewId++) {
+					ReviewDto review = new ReviewDto(request.getProductId(), reviewId, "a", "s", null, "addr");
+					responseObserver.onNext(ReviewItem.newBuilder().setReview(ProtoMapper.toProto(review)).build());
+				}
+				responseObserver.onNext(ReviewItem.newBuilder().setNextCursor("next-of-" + request.getCursor()).build());
+				responseObserver.onCompleted();
+			}
+		});
+
+		StepVerifier.create(integration().getReviewsPage(1L, 2, "abc"))
+				.assertNext(page -> {
+					assertEquals(List.of(1L, 2L), page.items().stream().map(ReviewDto::reviewId).toList());
+					assertNull(page.items().get(0).content());
+					assertEquals("next-of-abc", page.next());
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void statusIsMappedToApiException() throws IOException {
+		serve(ProductCompositeIntegration.PRODUCT_SERVICE, new ProductsGrpc.ProductsImplBase() {
+			@Override
+			public void getProduct(GetProductRequest request, StreamObserver<Product> responseObserver) {
+				Status status = request.getProductId() < 1 ? Status.INVALID_ARGUMENT : Status.NOT_FOUND;
+				responseObserver.onError(status.withDescription("productId: " + request.getProductId()).asRuntimeException());
+			}
+		});
+		GrpcProductCompositeIntegration integration = integration();
+
+		StepVerifier.create(integration.findProductById(13L))
+				.expectErrorMatches(ex -> ex instanceof NotFoundException && ex.getMessage().equals("productId: 13"))
+				.verify();
+		StepVerifier.create(integration.findProductById(-1L))
+				.expectError(InvalidInputException.class)
+				.verify();
+		StepVerifier.create(integration.getReviewsPage(1L, CursorPage.MAX_LIMIT + 1, null))
+				.expectError(InvalidInputException.class)
+				.verify();
+	}
+
+	@Test
+	void deadlineIsPropagated() throws IOException {
+		AtomicLong remainingMillis = new AtomicLong(-1);
+		serve(ProductCompositeIntegration.PRODUCT_SERVICE, new ProductsGrpc.ProductsImplBase() {
+			@Override
+			public void getProduct(GetProductRequest request, StreamObserver<Product> responseObserver) {
+				remainingMillis.set(Context.current().getDeadline().timeRemaining(TimeUnit.MILLISECONDS));
+				responseObserver.onNext(Product.newBuilder().setProductId(request.getProductId()).build());
+				responseObserver.onCompleted();
+			}
+		});
+
+		StepVerifier.create(integration().findProductById(1L)
+						.contextWrite(context -> Deadline.after(Duration.ofSeconds(5)).putIn(context)))
+				.assertNext(product -> assertEquals(1L, product.productId()))
+				.verifyComplete();
+
+		assertTrue(remainingMillis.get() > 0 && remainingMillis.get() <= 5000, "remaining: " + remainingMillis.get());
+	}
+
+	private void serve(String service, BindableService implementation) throws IOException {
+		Server server = ServerBuilder.forPort(0).addService(implementation).build().start();
+		servers.add(server);
+		environment.setProperty("app." + service + ".grpc-port", String.valueOf(server.getPort()));
+	}
+
+	private GrpcProductCompositeIntegration integration() {
+		return new GrpcProductCompositeIntegration(
+				new ServiceClientFactory(WebClient.builder(), environment),
+				new ObjectMapper(),
+				new SimpleMeterRegistry(),
+				0.95, Duration.ofMillis(10), 0.05,
+				CircuitBreakerRegistry.ofDefaults(),
+				// The first call in the JVM sets up gRPC and may take longer than the default of 1s
+				TimeLimiterRegistry.of(TimeLimiterConfig.custom().timeoutDuration(Duration.ofSeconds(10)).build()));
+	}
+
+}
@@ -0,0 +1,84 @@
+package co.istad.composite.product;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HedgingTests {
+
+	private static final String SERVICE = "review-service";
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void slowFirstAttemptIsHedged() {
+		Hedging hedging = new Hedging(SERVICE, meterRegistry, 0.95, Duration.ofMillis(10), 1.0);
+		AtomicInteger attempts = new AtomicInteger();
+
+		StepVerifier.create(hedging.execute(() -> attempts.incrementAndGet() == 1
+						? Mono.just("slow").delayElement(Duration.ofSeconds(5))
+						: Mono.just("hedge")))
+				.expectNext("hedge")
+				.expectComplete()
+				.verify(Duration.ofSeconds(1));
+
+		assertEquals(2, attempts.get());
+		assertEquals(1.0, count("composite.hedging.hedges"));
+		assertEquals(1.0, count("composite.hedging.wins"));
+		// The first attempt was cancelled, its truncated latency must not lower the hedge delay
+		assertEquals(0, meterRegistry.get("composite.hedging.latency").tag("service", SERVICE).timer().count());
+	}
+
+	@Test
+	void fastFirstAttemptIsNotHedged() {
+		Hedging hedging = new Hedging(SERVICE, meterRegistry, 0.95, Duration.ofMillis(100), 1.0);
+		AtomicInteger attempts = new AtomicInteger();
+
+		StepVerifier.create(hedging.execute(() -> Mono.just(attempts.incrementAndGet())))
+				.expectNext(1)
+				.verifyComplete();
+
+		assertEquals(1, attempts.get());
+		assertEquals(0.0, count("composite.hedging.hedges"));
+	}
+
+	@Test
+	void hedgesAreCappedByTheBudget() {
+		Hedging hedging = new Hedging(SERVICE, meterRegistry, 0.95, Duration.ofMillis(10), 0.5);
+
+		for (int i = 0; i < 4; i++) {
+			AtomicInteger attempts = new AtomicInteger();
+			Mono<String> call = hedging.execute(() -> attempts.incrementAndGet() == 1
+					? Mono.never()
+					: Mono.just("hedge"));
+
+			if (i % 2 == 0) {
+				StepVerifier.create(call)
+						.expectSubscription()
+						.expectNoEvent(Duration.ofMillis(50))
+						.thenCancel()
+						.verify();
+			} else {
+				StepVerifier.create(call)
+						.expectNext("hedge")
+						.expectComplete()
+						.verify(Duration.ofSeconds(5));
+			}
+		}
+
+		assertEquals(2.0, count("composite.hedging.hedges"));
+		assertEquals(2.0, count("composite.hedging.wins"));
+	}
+
+	private double count(String name) {
+		return meterRegistry.get(name).tag("service", SERVICE).counter().count();
+	}
+
+}
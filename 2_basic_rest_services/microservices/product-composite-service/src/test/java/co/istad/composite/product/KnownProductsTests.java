@@ -0,0 +1,101 @@
+package co.istad.composite.product;
+
+import co.istad.util.bloom.LongBloomFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KnownProductsTests {
+
+	private final LongBloomFilter first = LongBloomFilter.create(100, 0.001);
+	private final LongBloomFilter second = LongBloomFilter.create(100, 0.001);
+	private final AtomicInteger notModified = new AtomicInteger();
+
+	private DisposableServer firstInstance;
+	private DisposableServer secondInstance;
+	private KnownProducts knownProducts;
+
+	@BeforeEach
+	void setUp() {
+		first.add(1);
+		second.add(2);
+		firstInstance = serve(first);
+		secondInstance = serve(second);
+
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("app.product-service.instances",
+						"localhost:" + firstInstance.port() + ",localhost:" + secondInstance.port());
+		knownProducts = new KnownProducts(
+				WebClient.builder(),
+				new ServiceClientFactory(WebClient.builder(), environment),
+				new SimpleMeterRegistry(),
+				Duration.ofSeconds(5),
+				Duration.ofSeconds(10),
+				100);
+	}
+
+	@AfterEach
+	void tearDown() {
+		firstInstance.disposeNow();
+		secondInstance.disposeNow();
+	}
+
+	@Test
+	void productsAreMissingOnlyIfNoInstanceKnowsThem() {
+		assertFalse(knownProducts.isMissing(3), "No filter is used before all are fetched");
+
+		refresh();
+		assertFalse(knownProducts.isMissing(1));
+		assertFalse(knownProducts.isMissing(2));
+		assertTrue(knownProducts.isMissing(3));
+
+		refresh();
+		assertEquals(2, notModified.get());
+		assertTrue(knownProducts.isMissing(3));
+	}
+
+	@Test
+	void createdProductsAreNotMissing() {
+		refresh();
+		knownProducts.missing(4);
+		assertTrue(knownProducts.isMissing(4));
+
+		knownProducts.created(4);
+		assertFalse(knownProducts.isMissing(4));
+	}
+
+	private void refresh() {
+		knownProducts.refresh().block(Duration.ofSeconds(10));
+	}
+
+	private DisposableServer serve(LongBloomFilter filter) {
+		String etag = "W/\"" + System.identityHashCode(filter) + "\"";
+		return HttpServer.create()
+				.port(0)
+				.route(routes -> routes.get("/product-id-filter", (request, response) -> {
+					if (etag.equals(request.requestHeaders().get(HttpHeaders.IF_NONE_MATCH))) {
+						notModified.incrementAndGet();
+						return response.status(304).header(HttpHeaders.ETAG, etag).send();
+					}
+					return response.header(HttpHeaders.ETAG, etag)
+							.header(HttpHeaders.CONTENT_TYPE, "application/octet-stream")
+							.sendByteArray(Mono.just(filter.toBytes()));
+				}))
+				.bindNow();
+	}
+
+}
@@ -0,0 +1,145 @@
+package co.istad.composite.product;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadBalancerTests {
+
+	private static final String SERVICE = "review-service";
+
+	private final List<DisposableServer> servers = new ArrayList<>();
+	private final MockEnvironment environment = new MockEnvironment()
+			.withProperty("app." + SERVICE + ".load-balancer.consecutive-failures", "3")
+			.withProperty("app." + SERVICE + ".pool.prewarm-connections", "0");
+
+	/**
+	 * The first call in the JVM is slow enough to distort the latency estimate of any instance it hits.
+	 */
+	@BeforeEach
+	void warmUp() {
+		call(clientFor(stub(200, Duration.ZERO)), 1, 1);
+	}
+
+	@AfterEach
+	void tearDown() {
+		servers.forEach(DisposableServer::disposeNow);
+	}
+
+	@Test
+	void failingInstanceIsEjected() {
+		// Failing fast, the failing instance is preferred until it is ejected
+		Stub healthy = stub(200, Duration.ofMillis(200));
+		Stub failing = stub(500, Duration.ZERO);
+
+		call(clientFor(healthy, failing), 10, 1);
+
+		assertEquals(3, failing.hits.get());
+		assertEquals(7, healthy.hits.get());
+	}
+
+	@Test
+	void slowInstanceGetsFewerCalls() {
+		Stub fast = stub(200, Duration.ZERO);
+		Stub slow = stub(200, Duration.ofMillis(200));
+
+		call(clientFor(fast, slow), 20, 1);
+
+		assertTrue(slow.hits.get() <= 2, "slow instance got " + slow.hits.get() + " calls");
+		assertTrue(fast.hits.get() >= 18);
+	}
+
+	@Test
+	void hungInstanceIsAvoided() {
+		// Cancelled by the timeout, the calls to the hung instance count with the time they took
+		Stub healthy = stub(200, Duration.ofMillis(50));
+		Stub hung = hungStub();
+		ServiceClientFactory clientFactory = clientFor(healthy, hung);
+		WebClient client = clientFactory.webClient(SERVICE);
+		String url = clientFactory.baseUrl(SERVICE) + "/reviews?productId=1";
+
+		Flux.range(0, 10)
+				.concatMap(i -> client.get().uri(url)
+						.exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode().value()))
+						.timeout(Duration.ofMillis(300))
+						.onErrorResume(ex -> Mono.just(0)))
+				.blockLast(Duration.ofSeconds(10));
+
+		assertTrue(hung.hits.get() <= 1, "hung instance got " + hung.hits.get() + " calls");
+		assertEquals(10, healthy.hits.get() + hung.hits.get());
+	}
+
+	@Test
+	void concurrentCallsAreSpreadOverInstances() {
+		Stub first = stub(200, Duration.ofMillis(50));
+		Stub second = stub(200, Duration.ofMillis(50));
+
+		call(clientFor(first, second), 20, 20);
+
+		assertEquals(20, first.hits.get() + second.hits.get());
+		assertTrue(first.hits.get() >= 3, "first instance got " + first.hits.get() + " calls");
+		assertTrue(second.hits.get() >= 3, "second instance got " + second.hits.get() + " calls");
+	}
+
+	private void call(ServiceClientFactory clientFactory, int calls, int concurrency) {
+		WebClient client = clientFactory.webClient(SERVICE);
+		String url = clientFactory.baseUrl(SERVICE) + "/reviews?productId=1";
+
+		Flux.range(0, calls)
+				.flatMap(i -> client.get().uri(url)
+						.exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode().value())), concurrency)
+				.blockLast(Duration.ofSeconds(10));
+	}
+
+	private ServiceClientFactory clientFor(Stub... stubs) {
+		for (int i = 0; i < stubs.length; i++) {
+			environment.setProperty("app." + SERVICE + ".instances[" + i + "]", "localhost:" + stubs[i].server.port());
+		}
+		return new ServiceClientFactory(WebClient.builder(), environment);
+	}
+
+	private Stub stub(int status, Duration delay) {
+		AtomicInteger hits = new AtomicInteger();
+		DisposableServer server = HttpServer.create()
+				.port(0)
+				.route(routes -> routes.get("/reviews", (request, response) -> {
+					hits.incrementAndGet();
+					return response.status(status)
+							.sendString(Mono.just("[]").delayElement(delay));
+				}))
+				.bindNow();
+		servers.add(server);
+		return new Stub(server, hits);
+	}
+
+	private Stub hungStub() {
+		AtomicInteger hits = new AtomicInteger();
+		DisposableServer server = HttpServer.create()
+				.port(0)
+				.route(routes -> routes.get("/reviews", (request, response) -> {
+					hits.incrementAndGet();
+					return Mono.never();
+				}))
+				.bindNow();
+		servers.add(server);
+		return new Stub(server, hits);
+	}
+
+	private record Stub(DisposableServer server, AtomicInteger hits) {
+	}
+
+}
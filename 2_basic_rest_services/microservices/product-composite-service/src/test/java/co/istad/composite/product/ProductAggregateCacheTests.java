@@ -0,0 +1,40 @@
+package co.istad.composite.product;
+
+import co.istad.api.composite.product.ProductAggregate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ProductAggregateCacheTests {
+
+	private final ProductAggregateCache cache = new ProductAggregateCache(100, Duration.ofMinutes(1), Duration.ofMinutes(10), new SimpleMeterRegistry());
+
+	@Test
+	void loadRacingAWriteOfItsProductIsNotCached() {
+		long loadToken = cache.startLoad(1L);
+		cache.invalidate(1L);
+
+		cache.put(1L, aggregate(1L), loadToken);
+		assertNull(cache.getIfFresh(1L));
+	}
+
+	@Test
+	void loadRacingAWriteOfAnotherProductIsCached() {
+		long loadToken = cache.startLoad(1L);
+		cache.invalidate(2L);
+
+		cache.put(1L, aggregate(1L), loadToken);
+		assertNotNull(cache.getIfFresh(1L));
+	}
+
+	private static ProductAggregate aggregate(Long productId) {
+		ProductAggregate aggregate = new ProductAggregate();
+		aggregate.setProductId(productId);
+		return aggregate;
+	}
+
+}
@@ -0,0 +1,117 @@
+package co.istad.composite.product;
+
+import co.istad.api.core.product.ProductDto;
+import co.istad.api.exception.DeadlineExceededException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static co.istad.composite.product.ProductCompositeIntegration.PRODUCT_SERVICE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductCompositeIntegrationTests {
+
+	private static final Duration TIMEOUT = Duration.ofMillis(500);
+
+	private final AtomicInteger hits = new AtomicInteger();
+	private final CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+			.slidingWindowSize(4)
+			.minimumNumberOfCalls(4)
+			.failureRateThreshold(50)
+			.waitDurationInOpenState(Duration.ofMinutes(1))
+			.build());
+
+	private DisposableServer server;
+	private ProductCompositeIntegration integration;
+
+	@BeforeEach
+	void setUp() {
+		// Products 1 fail, reads and writes of others answer after twice the timeout
+		server = HttpServer.create()
+				.port(0)
+				.route(routes -> routes
+						.get("/warm-up", (request, response) -> response.send())
+						.get("/products/1", (request, response) -> {
+							hits.incrementAndGet();
+							return response.status(500).sendString(Mono.just("{}"));
+						})
+						.get("/products/2", (request, response) -> response
+								.header("Content-Type", "application/json")
+								.sendString(Mono.just(product(2)).delayElement(TIMEOUT.multipliedBy(2))))
+						.post("/products", (request, response) -> response
+								.header("Content-Type", "application/json")
+								.sendString(Mono.just(product(3)).delayElement(TIMEOUT.multipliedBy(2)))))
+				.bindNow();
+
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("app." + PRODUCT_SERVICE + ".instances[0]", "localhost:" + server.port());
+		ServiceClientFactory clientFactory = new ServiceClientFactory(WebClient.builder(), environment);
+		// The first call in the JVM is slower than the time limit
+		clientFactory.webClient(PRODUCT_SERVICE).get().uri(clientFactory.baseUrl(PRODUCT_SERVICE) + "/warm-up")
+				.retrieve()
+				.toBodilessEntity()
+				.block(Duration.ofSeconds(10));
+
+		integration = new ProductCompositeIntegration(
+				clientFactory,
+				new ObjectMapper(),
+				new SimpleMeterRegistry(),
+				0.95, Duration.ofSeconds(10), 0.05,
+				circuitBreakerRegistry,
+				TimeLimiterRegistry.of(TimeLimiterConfig.custom().timeoutDuration(TIMEOUT).build()));
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.disposeNow();
+	}
+
+	@Test
+	void openCircuitFailsFast() {
+		for (int i = 0; i < 4; i++) {
+			StepVerifier.create(integration.findProductById(1L))
+					.expectError()
+					.verify(Duration.ofSeconds(5));
+		}
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreakerRegistry.circuitBreaker(PRODUCT_SERVICE).getState());
+
+		StepVerifier.create(integration.findProductById(1L))
+				.expectError(RejectedExecutionException.class)
+				.verify(Duration.ofMillis(100));
+		assertEquals(4, hits.get());
+	}
+
+	@Test
+	void onlyReadsAreTimeLimited() {
+		StepVerifier.create(integration.findProductById(2L))
+				.expectError(DeadlineExceededException.class)
+				.verify(Duration.ofSeconds(5));
+
+		// Cut short, a create could be committed and reported as failed
+		StepVerifier.create(integration.createProduct(new ProductDto(3L, "name", 1, null)))
+				.expectNextMatches(product -> product.productId() == 3)
+				.verifyComplete();
+	}
+
+	private static String product(long productId) {
+		return "{\"productId\":" + productId + ",\"name\":\"name\",\"weight\":1}";
+	}
+
+}
@@ -1,5 +1,10 @@
 package co.istad.composite.product;
 
+import co.istad.api.composite.product.ProductAggregate;
+import co.istad.api.composite.product.RecommendationSummary;
+import co.istad.api.composite.product.ReviewSummary;
+import co.istad.api.core.BatchResult;
+import co.istad.api.core.CursorPage;
 import co.istad.api.core.product.ProductDto;
 import co.istad.api.core.recommendation.RecommendationDto;
 import co.istad.api.core.review.ReviewDto;
@@ -10,19 +15,44 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static java.util.Collections.singletonList;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "app.composite.write-batch-size=2")
 class ProductDtoCompositeServiceApplicationTests {
 
 	private static final Long PRODUCT_ID_OK = 1L;
 	private static final Long PRODUCT_ID_NOT_FOUND = 2L;
 	private static final Long PRODUCT_ID_INVALID = 3L;
+	private static final Long PRODUCT_ID_CACHED = 4L;
+	private static final Long PRODUCT_ID_BATCH = 5L;
+	private static final Long PRODUCT_ID_BATCH_NOT_FOUND = 6L;
+	private static final Long PRODUCT_ID_CREATED = 7L;
+	private static final Long PRODUCT_ID_PARTIAL = 8L;
+	private static final Long PRODUCT_ID_MANY_CHILDREN = 9L;
 
 	@Autowired
 	private WebTestClient client;
@@ -33,18 +63,31 @@ class ProductDtoCompositeServiceApplicationTests {
 	@BeforeEach
 	void setUp() {
 
+		when(compositeIntegration.getRecommendationsPage(anyLong(), anyInt(), any())).thenReturn(Mono.just(new CursorPage<>(List.of(), null)));
+		when(compositeIntegration.getReviewsPage(anyLong(), anyInt(), any())).thenReturn(Mono.just(new CursorPage<>(List.of(), null)));
+
 		when(compositeIntegration.findProductById(PRODUCT_ID_OK))
-				.thenReturn(new ProductDto(PRODUCT_ID_OK, "name", 1, "mock-address"));
-		when(compositeIntegration.getRecommendations(PRODUCT_ID_OK))
-				.thenReturn(singletonList(new RecommendationDto(PRODUCT_ID_OK, 1L, "author", 1, "content", "mock address")));
-		when(compositeIntegration.getReviews(PRODUCT_ID_OK))
-				.thenReturn(singletonList(new ReviewDto(PRODUCT_ID_OK, 1L, "author", "subject", "content", "mock address")));
+				.thenReturn(Mono.just(new ProductDto(PRODUCT_ID_OK, "name", 1, "mock-address")));
+		when(compositeIntegration.getRecommendationsPage(eq(PRODUCT_ID_OK), anyInt(), any()))
+				.thenReturn(Mono.just(new CursorPage<>(singletonList(new RecommendationDto(PRODUCT_ID_OK, 1L, "author", 1, "content", "mock address")), "next-recommendations")));
+		when(compositeIntegration.getReviewsPage(eq(PRODUCT_ID_OK), anyInt(), any()))
+				.thenReturn(Mono.just(new CursorPage<>(singletonList(new ReviewDto(PRODUCT_ID_OK, 1L, "author", "subject", "content", "mock address")), null)));
+
+		when(compositeIntegration.findProductById(PRODUCT_ID_CACHED))
+				.thenReturn(Mono.just(new ProductDto(PRODUCT_ID_CACHED, "name", 1, "mock-address")));
+
+		when(compositeIntegration.findProductsByIds(List.of(PRODUCT_ID_BATCH, PRODUCT_ID_BATCH_NOT_FOUND)))
+				.thenReturn(Flux.just(new ProductDto(PRODUCT_ID_BATCH, "name", 1, "mock-address")));
+		when(compositeIntegration.getRecommendationsByProductIds(anyList(), eq(20)))
+				.thenReturn(Flux.just(new RecommendationDto(PRODUCT_ID_BATCH, 1L, "author", 1, "content", "mock address")));
+		when(compositeIntegration.getReviewsByProductIds(anyList(), eq(20)))
+				.thenReturn(Flux.error(new RuntimeException("review-service unavailable")));
 
 		when(compositeIntegration.findProductById(PRODUCT_ID_NOT_FOUND))
-				.thenThrow(new NotFoundException("NOT FOUND: " + PRODUCT_ID_NOT_FOUND));
+				.thenReturn(Mono.error(new NotFoundException("NOT FOUND: " + PRODUCT_ID_NOT_FOUND)));
 
 		when(compositeIntegration.findProductById(PRODUCT_ID_INVALID))
-				.thenThrow(new InvalidInputException("INVALID: " + PRODUCT_ID_INVALID));
+				.thenReturn(Mono.error(new InvalidInputException("INVALID: " + PRODUCT_ID_INVALID)));
 	}
 
 	@Test
@@ -58,7 +101,226 @@ class ProductDtoCompositeServiceApplicationTests {
 				.expectBody()
 				.jsonPath("$.productId").isEqualTo(PRODUCT_ID_OK)
 				.jsonPath("$.recommendations.length()").isEqualTo(1)
-				.jsonPath("$.reviews.length()").isEqualTo(1);
+				.jsonPath("$.recommendationsNext").isEqualTo("next-recommendations")
+				.jsonPath("$.reviews.length()").isEqualTo(1)
+				.jsonPath("$.reviewsNext").isEmpty();
+	}
+
+	@Test
+	void getProductWithSelectedParts() {
+		when(compositeIntegration.findProductById(PRODUCT_ID_PARTIAL))
+				.thenReturn(Mono.just(new ProductDto(PRODUCT_ID_PARTIAL, "name", 1, "mock-address")));
+
+		client.get()
+				.uri("/product-composite/" + PRODUCT_ID_PARTIAL + "?include=reviews")
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.productId").isEqualTo(PRODUCT_ID_PARTIAL)
+				.jsonPath("$.reviews.length()").isEqualTo(0)
+				.jsonPath("$.recommendations").doesNotExist()
+				.jsonPath("$.recommendationsNext").isEmpty();
+
+		client.get()
+				.uri("/product-composite/" + PRODUCT_ID_PARTIAL + "?include=product")
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.name").isEqualTo("name")
+				.jsonPath("$.reviews").doesNotExist()
+				.jsonPath("$.recommendations").doesNotExist();
+
+		verify(compositeIntegration, never()).getRecommendationsPage(anyLong(), anyInt(), any());
+		verify(compositeIntegration, times(1)).getReviewsPage(eq(PRODUCT_ID_PARTIAL), anyInt(), any());
+	}
+
+	@Test
+	void getProductWithUnknownPart() {
+		client.get()
+				.uri("/product-composite/" + PRODUCT_ID_OK + "?include=reviews,ratings")
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY)
+				.expectBody()
+				.jsonPath("$.message").isEqualTo("Invalid include: ratings, must be one of product, recommendations, reviews");
+
+		verify(compositeIntegration, never()).findProductById(anyLong());
+	}
+
+	@Test
+	void getProductFromCache() {
+		getAndVerifyProductOk(PRODUCT_ID_CACHED);
+		getAndVerifyProductOk(PRODUCT_ID_CACHED);
+
+		verify(compositeIntegration, times(1)).findProductById(PRODUCT_ID_CACHED);
+		verify(compositeIntegration, times(1)).getReviewsPage(eq(PRODUCT_ID_CACHED), anyInt(), any());
+	}
+
+	@Test
+	void getProductNotModified() {
+		String etag = client.get()
+				.uri("/product-composite/" + PRODUCT_ID_OK)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.returnResult(String.class)
+				.getResponseHeaders()
+				.getETag();
+		assertNotNull(etag);
+
+		client.get()
+				.uri("/product-composite/" + PRODUCT_ID_OK)
+				.accept(MediaType.APPLICATION_JSON)
+				.ifNoneMatch(etag)
+				.exchange()
+				.expectStatus().isNotModified()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+				.expectBody().isEmpty();
+
+		// The selected parts are another representation, with another tag
+		client.get()
+				.uri("/product-composite/" + PRODUCT_ID_OK + "?include=product")
+				.accept(MediaType.APPLICATION_JSON)
+				.ifNoneMatch(etag)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.productId").isEqualTo(PRODUCT_ID_OK);
+	}
+
+	@Test
+	void getProductsByIds() {
+		client.get()
+				.uri("/product-composite?ids=" + PRODUCT_ID_BATCH + "," + PRODUCT_ID_BATCH_NOT_FOUND)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.length()").isEqualTo(1)
+				.jsonPath("$[0].productId").isEqualTo(PRODUCT_ID_BATCH)
+				.jsonPath("$[0].recommendations.length()").isEqualTo(1)
+				.jsonPath("$[0].reviews.length()").isEqualTo(0);
+	}
+
+	@Test
+	void createProductInBatches() {
+		when(compositeIntegration.createProduct(any()))
+				.thenReturn(Mono.just(new ProductDto(PRODUCT_ID_CREATED, "name", 1, "mock-address")));
+		when(compositeIntegration.createRecommendations(anyList()))
+				.thenReturn(Mono.just(new BatchResult(2, List.of())));
+		when(compositeIntegration.createReviews(anyList()))
+				.thenReturn(Mono.just(new BatchResult(1, List.of(new BatchResult.ItemError(1, "Duplicate key, Product Id: 7, Review Id:1")))));
+
+		ProductAggregate aggregate = ProductAggregate.builder()
+				.productId(PRODUCT_ID_CREATED)
+				.name("name")
+				.weight(1)
+				.recommendations(List.of(
+						new RecommendationSummary(1L, "author", 1, "content"),
+						new RecommendationSummary(2L, "author", 2, "content")))
+				.reviews(List.of(
+						new ReviewSummary(1L, "author", "subject", "content"),
+						new ReviewSummary(1L, "author", "subject", "content")))
+				.build();
+
+		client.post()
+				.uri("/product-composite")
+				.bodyValue(aggregate)
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY)
+				.expectBody()
+				.jsonPath("$.message").isEqualTo("Failed to create 1 reviews: Duplicate key, Product Id: 7, Review Id:1");
+
+		verify(compositeIntegration, times(1)).createRecommendations(anyList());
+		verify(compositeIntegration, times(1)).createReviews(anyList());
+		verify(compositeIntegration, never()).createReview(any());
+	}
+
+	@Test
+	void createProductWithBoundedConcurrency() {
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		Mono<BatchResult> write = Mono.defer(() -> {
+					maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+					return Mono.delay(Duration.ofMillis(20));
+				})
+				// Not doFinally, it runs after the next write was subscribed to
+				.doOnTerminate(inFlight::decrementAndGet)
+				.thenReturn(new BatchResult(2, List.of()));
+		when(compositeIntegration.createProduct(any()))
+				.thenReturn(Mono.just(new ProductDto(PRODUCT_ID_MANY_CHILDREN, "name", 1, "mock-address")));
+		when(compositeIntegration.createRecommendations(anyList())).thenReturn(write);
+		when(compositeIntegration.createReviews(anyList())).thenReturn(write);
+
+		ProductAggregate aggregate = ProductAggregate.builder()
+				.productId(PRODUCT_ID_MANY_CHILDREN)
+				.name("name")
+				.weight(1)
+				.recommendations(LongStream.rangeClosed(1, 10)
+						.mapToObj(id -> new RecommendationSummary(id, "author", 1, "content"))
+						.toList())
+				.reviews(LongStream.rangeClosed(1, 10)
+						.mapToObj(id -> new ReviewSummary(id, "author", "subject", "content"))
+						.toList())
+				.build();
+
+		client.post()
+				.uri("/product-composite")
+				.bodyValue(aggregate)
+				.exchange()
+				.expectStatus().isOk();
+
+		// Ten batch requests of two children, two of them in flight at a time
+		verify(compositeIntegration, times(5)).createRecommendations(anyList());
+		verify(compositeIntegration, times(5)).createReviews(anyList());
+		assertEquals(2, maxInFlight.get());
+	}
+
+	@Test
+	void deleteProductConcurrently() {
+		when(compositeIntegration.deleteProduct(PRODUCT_ID_OK)).thenReturn(Mono.empty());
+		when(compositeIntegration.deleteRecommendations(PRODUCT_ID_OK)).thenReturn(Mono.empty());
+		when(compositeIntegration.deleteReviews(PRODUCT_ID_OK)).thenReturn(Mono.empty());
+
+		client.delete()
+				.uri("/product-composite/" + PRODUCT_ID_OK)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().value(ServerTiming.HEADER, value -> {
+					assertTrue(value.contains("product;dur="));
+					assertTrue(value.contains("recommendations;dur="));
+					assertTrue(value.contains("reviews;dur="));
+				});
+
+		verify(compositeIntegration, times(1)).deleteProduct(PRODUCT_ID_OK);
+		verify(compositeIntegration, times(1)).deleteRecommendations(PRODUCT_ID_OK);
+		verify(compositeIntegration, times(1)).deleteReviews(PRODUCT_ID_OK);
+	}
+
+	@Test
+	void getProductRecordsConcurrency() {
+		getAndVerifyProductOk(PRODUCT_ID_OK);
+
+		client.get()
+				.uri("/actuator/metrics/composite.concurrency.inflight")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.measurements[0].value").isEqualTo(0.0);
+	}
+
+	@Test
+	void circuitBreakersAreVisibleThroughActuator() {
+		client.get()
+				.uri("/actuator/circuitbreakers")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.circuitBreakers['product-service'].state").isEqualTo("CLOSED")
+				.jsonPath("$.circuitBreakers['recommendation-service'].state").isEqualTo("CLOSED")
+				.jsonPath("$.circuitBreakers['review-service'].state").isEqualTo("CLOSED");
 	}
 
 	@Test
@@ -72,6 +334,17 @@ class ProductDtoCompositeServiceApplicationTests {
 				.expectBody()
 				.jsonPath("$.path").isEqualTo("/product-composite/" + PRODUCT_ID_NOT_FOUND)
 				.jsonPath("$.message").isEqualTo("NOT FOUND: " + PRODUCT_ID_NOT_FOUND);
+
+		// Known to be missing now, so answered without calling the product service
+		client.get()
+				.uri("/product-composite/" + PRODUCT_ID_NOT_FOUND)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isNotFound()
+				.expectBody()
+				.jsonPath("$.message").isEqualTo("No product found for productId: " + PRODUCT_ID_NOT_FOUND);
+
+		verify(compositeIntegration, times(1)).findProductById(PRODUCT_ID_NOT_FOUND);
 	}
 
 	@Test
@@ -88,4 +361,14 @@ class ProductDtoCompositeServiceApplicationTests {
 				.jsonPath("$.message").isEqualTo("INVALID: " + PRODUCT_ID_INVALID);
 	}
 
+	private void getAndVerifyProductOk(Long productId) {
+		client.get()
+				.uri("/product-composite/" + productId)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.productId").isEqualTo(productId);
+	}
+
 }
@@ -0,0 +1,118 @@
+package co.istad.composite.product;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTests {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final SingleFlight singleFlight = new SingleFlight(meterRegistry);
+
+	@Test
+	void identicalCallsInFlightAreCollapsed() {
+		Sinks.One<String> response = Sinks.one();
+		AtomicInteger calls = new AtomicInteger();
+
+		Mono<String> first = singleFlight.execute("product-service", () -> {
+			calls.incrementAndGet();
+			return response.asMono();
+		}, "product", 1L);
+		Mono<String> second = singleFlight.execute("product-service", () -> {
+			calls.incrementAndGet();
+			return response.asMono();
+		}, "product", 1L);
+
+		StepVerifier.create(Mono.zip(first, second))
+				.then(() -> response.tryEmitValue("product-1"))
+				.assertNext(result -> {
+					assertEquals("product-1", result.getT1());
+					assertEquals("product-1", result.getT2());
+				})
+				.verifyComplete();
+
+		assertEquals(1, calls.get());
+		assertEquals(1.0, collapsed("product-service"));
+	}
+
+	@Test
+	void callIsCancelledOnceAllCallersCancel() {
+		AtomicInteger calls = new AtomicInteger();
+		AtomicBoolean cancelled = new AtomicBoolean();
+
+		Disposable first = singleFlight.execute("product-service", () -> {
+			calls.incrementAndGet();
+			return Mono.<String>never().doOnCancel(() -> cancelled.set(true));
+		}, "product", 1L).subscribe();
+		Disposable second = singleFlight.execute("product-service", () -> {
+			calls.incrementAndGet();
+			return Mono.<String>never();
+		}, "product", 1L).subscribe();
+
+		first.dispose();
+		assertFalse(cancelled.get());
+		second.dispose();
+		assertTrue(cancelled.get());
+
+		// The cancelled call is forgotten, the next caller starts a new one
+		singleFlight.execute("product-service", () -> {
+			calls.incrementAndGet();
+			return Mono.<String>never();
+		}, "product", 1L).subscribe().dispose();
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	void completedCallsAreNotReused() {
+		AtomicInteger calls = new AtomicInteger();
+
+		for (int i = 0; i < 2; i++) {
+			StepVerifier.create(singleFlight.execute("review-service", () -> Mono.just(calls.incrementAndGet()), "reviews", 1L))
+					.expectNext(i + 1)
+					.verifyComplete();
+		}
+
+		assertEquals(2, calls.get());
+		assertEquals(0.0, collapsed("review-service"));
+	}
+
+	@Test
+	void differentArgumentsAreNotCollapsed() {
+		Sinks.One<String> response = Sinks.one();
+		AtomicInteger calls = new AtomicInteger();
+
+		Mono<String> firstPage = singleFlight.execute("review-service", () -> {
+			calls.incrementAndGet();
+			return response.asMono();
+		}, "reviews-page", 1L, 20, null);
+		Mono<String> secondPage = singleFlight.execute("review-service", () -> {
+			calls.incrementAndGet();
+			return response.asMono();
+		}, "reviews-page", 1L, 20, "cursor");
+
+		StepVerifier.create(Mono.zip(firstPage, secondPage))
+				.then(() -> response.tryEmitValue("page"))
+				.expectNextCount(1)
+				.verifyComplete();
+
+		assertEquals(2, calls.get());
+		assertEquals(0.0, collapsed("review-service"));
+	}
+
+	private double collapsed(String service) {
+		var counter = meterRegistry.find("composite.calls.collapsed").tag("service", service).counter();
+		return counter == null ? 0.0 : counter.count();
+	}
+
+}
@@ -0,0 +1,77 @@
+package co.istad.core.product.service;
+
+import co.istad.api.core.product.ProductDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares lookups in the {@link ProductCache} with lookups in a {@link ConcurrentHashMap}
+ * keyed by boxed productIds, both holding {@code size} products, from four threads, as
+ * blocking handlers would. Version checks are disabled, so only the lookups are measured.
+ * Run with {@code -prof gc} to also compare the allocations per lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class ProductCacheBenchmark {
+
+	private static final int KEYS = 1 << 16;
+
+	@Param({"1000", "100000"})
+	private int size;
+
+	private ProductCache productCache;
+	private Map<Long, ProductCache.Cached> concurrentHashMap;
+	private long[] keys;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		productCache = new ProductCache(size, false, new SimpleMeterRegistry());
+		concurrentHashMap = new ConcurrentHashMap<>();
+		for (long productId = 1; productId <= size; productId++) {
+			ProductCache.Cached cached = new ProductCache.Cached("id-" + productId, 0, new ProductDto(productId, "name-" + productId, 123, null));
+			productCache.put(productId, cached, productCache.startLoad());
+			concurrentHashMap.put(productId, cached);
+		}
+
+		keys = ThreadLocalRandom.current().longs(KEYS, 1, size + 1).toArray();
+	}
+
+	@State(Scope.Thread)
+	public static class Cursor {
+
+		private int next;
+
+		long nextKey(long[] keys) {
+			next = (next + 1) & (KEYS - 1);
+			return keys[next];
+		}
+
+	}
+
+	@Benchmark
+	public ProductCache.Cached productCache(Cursor cursor) {
+		return productCache.get(cursor.nextKey(keys), version -> true);
+	}
+
+	@Benchmark
+	public ProductCache.Cached concurrentHashMap(Cursor cursor) {
+		return concurrentHashMap.get(cursor.nextKey(keys));
+	}
+
+}
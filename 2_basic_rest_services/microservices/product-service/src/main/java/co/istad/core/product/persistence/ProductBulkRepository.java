@@ -0,0 +1,15 @@
+package co.istad.core.product.persistence;
+
+import java.util.List;
+
+public interface ProductBulkRepository {
+
+    /**
+     * Inserts all products in one unordered bulk write, a duplicate productId
+     * does not stop the remaining inserts.
+     *
+     * @return the indexes of the products that were rejected as duplicates
+     */
+    List<Integer> insertIgnoringDuplicates(List<Product> products);
+
+}
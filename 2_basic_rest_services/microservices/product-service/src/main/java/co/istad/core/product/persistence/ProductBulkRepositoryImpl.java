@@ -0,0 +1,45 @@
+package co.istad.core.product.persistence;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ProductBulkRepositoryImpl implements ProductBulkRepository {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Integer> insertIgnoringDuplicates(List<Product> products) {
+        if (products.isEmpty()) {
+            return List.of();
+        }
+
+        // Unlike MongoTemplate.insert, bulk inserts leave the @Version property uninitialized
+        products.forEach(product -> product.setVersion(0));
+
+        try {
+            mongoTemplate.bulkOps(BulkMode.UNORDERED, Product.class)
+                    .insert(products)
+                    .execute();
+            return List.of();
+
+        } catch (BulkOperationException e) {
+            boolean onlyDuplicates = e.getErrors().stream()
+                    .allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY);
+            if (!onlyDuplicates) {
+                throw e;
+            }
+            return e.getErrors().stream()
+                    .map(BulkWriteError::getIndex)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+}
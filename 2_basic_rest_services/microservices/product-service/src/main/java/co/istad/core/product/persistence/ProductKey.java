@@ -0,0 +1,10 @@
+package co.istad.core.product.persistence;
+
+/**
+ * Projection reading the productId of a product only.
+ */
+public interface ProductKey {
+
+    Long getProductId();
+
+}
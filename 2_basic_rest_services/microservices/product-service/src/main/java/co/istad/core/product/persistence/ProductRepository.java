@@ -1,13 +1,29 @@
 package co.istad.core.product.persistence;
 
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ProductRepository extends PagingAndSortingRepository<Product, String>,
-        CrudRepository<Product, String> {
+        CrudRepository<Product, String>, ProductBulkRepository {
 
     Optional<Product> findByProductId(Long productId);
 
+    Optional<ProductVersion> findVersionByProductId(Long productId);
+
+    List<Product> findByProductIdIn(Collection<Long> productIds);
+
+    Stream<ProductKey> streamAllBy();
+
+    /**
+     * Reads all products through a cursor, in batches of 1000, ordered by the productId index.
+     */
+    @Meta(cursorBatchSize = 1000)
+    Stream<Product> streamAllByOrderByProductIdAsc();
+
 }
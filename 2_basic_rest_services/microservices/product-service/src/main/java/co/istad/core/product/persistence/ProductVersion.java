@@ -0,0 +1,10 @@
+package co.istad.core.product.persistence;
+
+/**
+ * Projection reading the {@code @Version} of a product only.
+ */
+public interface ProductVersion {
+
+    Integer getVersion();
+
+}
@@ -0,0 +1,17 @@
+package co.istad.core.product.persistence;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.data.repository.reactive.ReactiveSortingRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface ReactiveProductRepository extends ReactiveSortingRepository<Product, String>,
+        ReactiveCrudRepository<Product, String> {
+
+    Mono<Product> findByProductId(Long productId);
+
+    Flux<Product> findByProductIdIn(Collection<Long> productIds);
+
+}
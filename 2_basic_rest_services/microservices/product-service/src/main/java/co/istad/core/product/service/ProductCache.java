@@ -0,0 +1,265 @@
+package co.istad.core.product.service;
+
+import co.istad.api.core.product.ProductDto;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntPredicate;
+
+/**
+ * In-process read cache of products, by productId, for {@link ProductServiceImpl#findProductById(Long)}.
+ * <p>
+ * Entries live in an open-addressing table with linear probing over a {@code long[]} of keys,
+ * so lookups don't box the productId or allocate map entries. As productIds are positive, a
+ * key of 0 marks a free slot. The table is sized to twice {@code maxSize}, zero disables the
+ * cache. Once full, an entry is evicted by the CLOCK algorithm: entries read since the hand
+ * last passed them get a second chance. Reads are lock-free under an optimistic
+ * {@link StampedLock} stamp, writes are exclusive.
+ * <p>
+ * With several instances, another one may update or delete a cached product. Unless
+ * {@code verifyVersion} is disabled, a hit is only served if its {@code @Version} is still
+ * the one in the database, which is checked with a query returning the version only.
+ * Lookups are published as {@code cache.gets} metrics tagged with {@code cache=product} and
+ * {@code result=hit|miss}, along with {@code cache.size} and {@code cache.evictions}.
+ */
+@Component
+@Profile("!reactive")
+public class ProductCache {
+
+	private final int maxSize;
+	private final boolean verifyVersion;
+	private final int mask;
+
+	private final long[] keys;
+	private final Cached[] values;
+	private final boolean[] referenced;
+	private int size;
+	private int hand;
+
+	private final StampedLock lock = new StampedLock();
+
+	/**
+	 * Bumped on every invalidation. A load that started before an invalidation
+	 * must not populate the cache, since it may carry pre-write data.
+	 */
+	private final AtomicLong epoch = new AtomicLong();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public ProductCache(
+			@Value("${app.cache.max-size:10000}") int maxSize,
+			@Value("${app.cache.verify-version:true}") boolean verifyVersion,
+			MeterRegistry meterRegistry) {
+		this.maxSize = maxSize;
+		this.verifyVersion = verifyVersion;
+
+		int capacity = Integer.highestOneBit(Math.max(2, maxSize * 2 - 1)) << 1;
+		this.mask = capacity - 1;
+		this.keys = new long[capacity];
+		this.values = new Cached[capacity];
+		this.referenced = new boolean[capacity];
+
+		FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+				.tags("cache", "product", "result", "hit")
+				.register(meterRegistry);
+		FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+				.tags("cache", "product", "result", "miss")
+				.register(meterRegistry);
+		FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum)
+				.tags("cache", "product")
+				.register(meterRegistry);
+		Gauge.builder("cache.size", this, ProductCache::size)
+				.tags("cache", "product")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * A cached product, with the id and version of its entity.
+	 */
+	public record Cached(String id, int version, ProductDto product) {
+	}
+
+	/**
+	 * @param isCurrent tells if a version is still the one in the database, not called if
+	 *                  version checks are disabled
+	 * @return the cached product, or null if it isn't cached or its version is outdated
+	 */
+	public Cached get(long productId, IntPredicate isCurrent) {
+		Cached cached = lookup(productId);
+		if (cached != null && verifyVersion && !isCurrent.test(cached.version())) {
+			remove(productId);
+			cached = null;
+		}
+		(cached == null ? misses : hits).increment();
+		return cached;
+	}
+
+	/**
+	 * @return a token to hand back to {@link #put(long, Cached, long)} once the load completes
+	 */
+	public long startLoad() {
+		return epoch.get();
+	}
+
+	public void put(long productId, Cached cached, long loadToken) {
+		if (maxSize == 0) {
+			return;
+		}
+		long stamp = lock.writeLock();
+		try {
+			if (epoch.get() != loadToken) {
+				return;
+			}
+			int slot = slotOf(productId);
+			if (keys[slot] == productId) {
+				values[slot] = cached;
+				return;
+			}
+			if (size == maxSize) {
+				evict();
+				slot = slotOf(productId);
+			}
+			keys[slot] = productId;
+			values[slot] = cached;
+			referenced[slot] = false;
+			size++;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public void invalidate(long productId) {
+		epoch.incrementAndGet();
+		remove(productId);
+	}
+
+	public int size() {
+		long stamp = lock.readLock();
+		try {
+			return size;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private Cached lookup(long productId) {
+		long stamp = lock.tryOptimisticRead();
+		Cached cached = find(productId);
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				cached = find(productId);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return cached;
+	}
+
+	/**
+	 * Probes for the key, also under an optimistic stamp, where the table may change under
+	 * it, so the probe is bounded by the table size and the result is only used if the stamp
+	 * is still valid. Marking the entry as referenced is a benign race with the clock hand.
+	 */
+	private Cached find(long productId) {
+		int slot = hash(productId);
+		for (int probes = 0; probes <= mask; probes++) {
+			long key = keys[slot];
+			if (key == 0) {
+				return null;
+			}
+			if (key == productId) {
+				Cached cached = values[slot];
+				referenced[slot] = true;
+				return cached;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return null;
+	}
+
+	private void remove(long productId) {
+		long stamp = lock.writeLock();
+		try {
+			int slot = slotOf(productId);
+			if (keys[slot] == productId) {
+				delete(slot);
+			}
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * @return the slot holding the key, or the free slot ending its probe sequence
+	 */
+	private int slotOf(long productId) {
+		int slot = hash(productId);
+		while (keys[slot] != 0 && keys[slot] != productId) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void evict() {
+		while (true) {
+			hand = (hand + 1) & mask;
+			if (keys[hand] == 0) {
+				continue;
+			}
+			if (referenced[hand]) {
+				referenced[hand] = false;
+				continue;
+			}
+			delete(hand);
+			evictions.increment();
+			return;
+		}
+	}
+
+	/**
+	 * Frees the slot, and shifts the following entries of the probe sequence back into it,
+	 * so no tombstones are needed.
+	 */
+	private void delete(int slot) {
+		int free = slot;
+		int next = slot;
+		while (true) {
+			next = (next + 1) & mask;
+			long key = keys[next];
+			if (key == 0) {
+				break;
+			}
+			int home = hash(key);
+			// Move the entry unless its home slot lies cyclically within (free, next]
+			boolean reachable = free <= next
+					? free < home && home <= next
+					: free < home || home <= next;
+			if (!reachable) {
+				keys[free] = key;
+				values[free] = values[next];
+				referenced[free] = referenced[next];
+				free = next;
+			}
+		}
+		keys[free] = 0;
+		values[free] = null;
+		referenced[free] = false;
+		size--;
+	}
+
+	private int hash(long productId) {
+		// Fibonacci hashing spreads sequential productIds over the table
+		return (int) ((productId * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+	}
+
+}
@@ -0,0 +1,40 @@
+package co.istad.core.product.service;
+
+import co.istad.api.core.product.ProductDto;
+import co.istad.core.product.persistence.ProductRepository;
+import co.istad.util.bulk.NdjsonExport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Export of all products as NDJSON, in both profiles, in the format read by {@link ProductImport}.
+ * The products are read from a Mongo cursor as the response is written, see {@link NdjsonExport}.
+ */
+@RestController
+@RequiredArgsConstructor
+public class ProductExport {
+
+	private final ProductRepository productRepository;
+	private final ProductMapper productMapper;
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * Sample usage: "curl $HOST:$PORT/products/export > products.ndjson".
+	 */
+	@GetMapping(value = "/products/export", produces = "application/x-ndjson")
+	public Mono<Void> exportProducts(ServerHttpResponse response) {
+		// The cursor is iterated on demand, and closed once the export completes or the client goes away
+		Flux<ProductDto> products = Flux.fromStream(productRepository::streamAllByOrderByProductIdAsc)
+				.map(productMapper::toProductDto)
+				.subscribeOn(Schedulers.boundedElastic());
+
+		return NdjsonExport.write(response, products, objectMapper.writerFor(ProductDto.class));
+	}
+
+}
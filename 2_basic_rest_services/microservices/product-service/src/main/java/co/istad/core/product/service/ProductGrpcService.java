@@ -0,0 +1,47 @@
+package co.istad.core.product.service;
+
+import co.istad.api.core.grpc.GetProductRequest;
+import co.istad.api.core.grpc.Product;
+import co.istad.api.core.grpc.ProductsGrpc;
+import co.istad.api.core.grpc.ProtoMapper;
+import co.istad.api.core.product.ProductDto;
+import co.istad.api.core.product.ProductService;
+import co.istad.api.core.product.ReactiveProductService;
+import co.istad.util.grpc.GrpcStreams;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Serves the products over the internal gRPC API, see {@link co.istad.util.grpc.GrpcServer},
+ * delegating to the blocking or reactive implementation of the active profile.
+ */
+@Component
+@ConditionalOnProperty(name = "app.grpc.enabled", havingValue = "true")
+@Slf4j
+public class ProductGrpcService extends ProductsGrpc.ProductsImplBase {
+
+	private final ProductService blockingService;
+	private final ReactiveProductService reactiveService;
+
+	public ProductGrpcService(ObjectProvider<ProductService> blockingService, ObjectProvider<ReactiveProductService> reactiveService) {
+		this.blockingService = blockingService.getIfAvailable();
+		this.reactiveService = reactiveService.getIfAvailable();
+	}
+
+	@Override
+	public void getProduct(GetProductRequest request, StreamObserver<Product> responseObserver) {
+		log.debug("getProduct: productId: {}", request.getProductId());
+
+		Long productId = request.getProductId();
+		Mono<ProductDto> product = reactiveService != null
+				? reactiveService.findProductById(productId)
+				: GrpcStreams.fromBlocking(() -> blockingService.findProductById(productId));
+
+		GrpcStreams.serve(product.map(ProtoMapper::toProto).flux(), responseObserver);
+	}
+
+}
@@ -0,0 +1,143 @@
+package co.istad.core.product.service;
+
+import co.istad.core.product.persistence.ProductKey;
+import co.istad.core.product.persistence.ProductRepository;
+import co.istad.util.bloom.LongBloomFilter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter of the productIds in the database, published to the composite on
+ * {@code GET /product-id-filter}, so it can answer requests for unknown products without
+ * calling the core services.
+ * <p>
+ * The filter is built from the database when the application is ready, and gets the
+ * productIds of created products added. Deleted products can't be removed from a Bloom
+ * filter, they are dropped when it is rebuilt every {@code rebuild-interval}, until then
+ * they are false positives, which only cost the composite its regular calls. Products created
+ * during a rebuild are added to both the current and the new filter, so none is missed.
+ * <p>
+ * Responses are tagged with a random epoch drawn by every build, and the generation of the
+ * filter, bumped on every change, so polling an unchanged filter gets a
+ * {@code 304 Not Modified}. The tag is set here rather than by the
+ * {@link co.istad.util.etag.EntityTagFilter}, which would have to hold the body, a megabyte or
+ * more with the default sizing, and sends bodies above its limit untagged. The generation alone starts over with every process, a restarted
+ * instance, or a new one at the same address, would reuse tags of different filters, and a
+ * poller would keep a filter lacking products it now has. Until the first build completes the
+ * endpoint answers {@code 503 Service Unavailable}.
+ */
+@RestController
+@Slf4j
+public class ProductIdFilter {
+
+	private final ProductRepository productRepository;
+	private final long expectedProducts;
+	private final double falsePositiveProbability;
+	private final Duration rebuildInterval;
+
+	private volatile Built filter;
+	private volatile LongBloomFilter building;
+	private final AtomicLong generation = new AtomicLong();
+
+	private Disposable rebuilds;
+
+	public ProductIdFilter(
+			ProductRepository productRepository,
+			@Value("${app.product-id-filter.expected-products:1000000}") long expectedProducts,
+			@Value("${app.product-id-filter.false-positive-probability:0.01}") double falsePositiveProbability,
+			@Value("${app.product-id-filter.rebuild-interval:10m}") Duration rebuildInterval) {
+		this.productRepository = productRepository;
+		this.expectedProducts = expectedProducts;
+		this.falsePositiveProbability = falsePositiveProbability;
+		this.rebuildInterval = rebuildInterval;
+	}
+
+	@GetMapping(value = "/product-id-filter", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+	public Mono<byte[]> getProductIdFilter(ServerWebExchange exchange) {
+		return Mono.fromCallable(() -> {
+			// Read before the bits, a change while they are copied gets a new tag
+			long currentGeneration = generation.get();
+			Built current = filter;
+			if (current == null) {
+				throw new RejectedExecutionException("The product id filter is not built yet");
+			}
+			// Sets the tag, and answers a matching If-None-Match without copying the bits
+			if (exchange.checkNotModified("W/\"" + current.epoch() + "-" + currentGeneration + "\"")) {
+				return null;
+			}
+			return current.filter().toBytes();
+		});
+	}
+
+	/**
+	 * Adds the productId of a created product, call once it is saved.
+	 */
+	public void add(long productId) {
+		LongBloomFilter next = building;
+		if (next != null) {
+			next.add(productId);
+		}
+		Built current = filter;
+		if (current != null) {
+			current.filter().add(productId);
+		}
+		generation.incrementAndGet();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		rebuilds = Flux.interval(Duration.ZERO, rebuildInterval, Schedulers.boundedElastic())
+				.onBackpressureDrop()
+				.concatMap(tick -> Mono.fromRunnable(this::rebuild)
+						.onErrorResume(ex -> {
+							log.warn("Failed to rebuild the product id filter: {}", ex.getMessage());
+							return Mono.empty();
+						}), 1)
+				.subscribe();
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (rebuilds != null) {
+			rebuilds.dispose();
+		}
+	}
+
+	void rebuild() {
+		LongBloomFilter next = LongBloomFilter.create(expectedProducts, falsePositiveProbability);
+		building = next;
+		long products = 0;
+		try (Stream<ProductKey> keys = productRepository.streamAllBy()) {
+			for (ProductKey key : (Iterable<ProductKey>) keys::iterator) {
+				next.add(key.getProductId());
+				products++;
+			}
+			filter = new Built(next, UUID.randomUUID());
+			generation.incrementAndGet();
+		} finally {
+			building = null;
+		}
+		log.info("Rebuilt the product id filter with {} products", products);
+	}
+
+	private record Built(LongBloomFilter filter, UUID epoch) {
+	}
+
+}
@@ -0,0 +1,88 @@
+package co.istad.core.product.service;
+
+import co.istad.api.core.product.ProductDto;
+import co.istad.api.exception.InvalidInputException;
+import co.istad.core.product.persistence.Product;
+import co.istad.core.product.persistence.ProductRepository;
+import co.istad.util.bulk.NdjsonFileImport.Progress;
+import co.istad.util.bulk.NdjsonImportRunner;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk import of products from an NDJSON file of {@link ProductDto}s in {@code app.import.directory},
+ * e.g. to load the catalog, in both profiles. Products are inserted by unordered bulk writes of
+ * {@code batch-size}, see {@link co.istad.util.bulk.NdjsonFileImport}, a productId that already
+ * exists is reported as a duplicate. A product without a valid productId fails the import before
+ * its batch is written. Imported products are added to the {@link ProductIdFilter}.
+ */
+@RestController
+public class ProductImport {
+
+	private final NdjsonImportRunner<ProductDto> runner;
+
+	public ProductImport(
+			ProductRepository productRepository,
+			ProductMapper productMapper,
+			ProductIdFilter productIdFilter,
+			ObjectMapper objectMapper,
+			@Value("${app.import.directory:import}") Path directory,
+			@Value("${app.import.parallelism:0}") int parallelism,
+			@Value("${app.import.batch-size:1000}") int batchSize) {
+
+		this.runner = new NdjsonImportRunner<>(directory, parallelism, batchSize,
+				objectMapper.readerFor(ProductDto.class),
+				product -> String.valueOf(product.productId()),
+				batch -> {
+					List<Product> entities = batch.stream()
+							.map(ProductImport::validate)
+							.map(productMapper::fromProductDto)
+							.toList();
+					List<Integer> duplicates = productRepository.insertIgnoringDuplicates(entities);
+					Set<Integer> rejected = new HashSet<>(duplicates);
+					for (int i = 0; i < batch.size(); i++) {
+						if (!rejected.contains(i)) {
+							productIdFilter.add(batch.get(i).productId());
+						}
+					}
+					return duplicates;
+				});
+	}
+
+	/**
+	 * Sample usage: "curl -X POST $HOST:$PORT/products/import?file=products.ndjson", then poll
+	 * "curl $HOST:$PORT/products/import" for its progress.
+	 *
+	 * @param file name of the file in the import directory
+	 * @return the progress of the started import
+	 */
+	@PostMapping(value = "/products/import", produces = "application/json")
+	@ResponseStatus(HttpStatus.ACCEPTED)
+	public Progress importProducts(@RequestParam(value = "file") String file) {
+		return runner.start(file);
+	}
+
+	@GetMapping(value = "/products/import", produces = "application/json")
+	public Progress getImportProgress() {
+		return runner.progress();
+	}
+
+	private static ProductDto validate(ProductDto product) {
+		if (product.productId() == null || product.productId() < 1) {
+			throw new InvalidInputException("Invalid productId: " + product.productId());
+		}
+		return product;
+	}
+
+}
@@ -6,13 +6,19 @@ import co.istad.api.exception.InvalidInputException;
 import co.istad.api.exception.NotFoundException;
 import co.istad.core.product.persistence.Product;
 import co.istad.core.product.persistence.ProductRepository;
+import co.istad.util.deadline.Deadline;
+import co.istad.util.etag.EntityTag;
 import co.istad.util.http.ServiceUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
+@Profile("!reactive")
 @RequiredArgsConstructor
 @Slf4j
 public class ProductServiceImpl implements ProductService {
@@ -20,12 +26,17 @@ public class ProductServiceImpl implements ProductService {
 	private final ServiceUtil serviceUtil;
 	private final ProductRepository productRepository;
 	private final ProductMapper productMapper;
+	private final ProductCache productCache;
+	private final ProductIdFilter productIdFilter;
 
 	@Override
 	public ProductDto createProduct(ProductDto body) {
+		Deadline.checkCurrent();
 		try {
 			Product product = productMapper.fromProductDto(body);
 			Product newProduct = productRepository.save(product);
+			productCache.invalidate(body.productId());
+			productIdFilter.add(body.productId());
 
 			log.debug("createProduct: entity created for productId: {}", body.productId());
 			return productMapper.toProductDto(newProduct);
@@ -36,22 +47,66 @@ public class ProductServiceImpl implements ProductService {
 
 	@Override
 	public ProductDto findProductById(Long productId) {
+		Deadline.checkCurrent();
 
 		if (productId < 1) {
 			throw new InvalidInputException("Invalid productId: " + productId);
 		}
 
-		if (productId == 13) {
-			throw new NotFoundException("No product found for productId: " + productId);
-		}
+		ProductCache.Cached cached = productCache.get(productId, version -> isCurrent(productId, version));
+		ProductCache.Cached product = cached != null ? cached : load(productId);
+
+		EntityTag.current().ifPresent(tag -> tag.add(product.id(), product.version()));
+		return new ProductDto(productId, product.product().name(), product.product().weight(), serviceUtil.getServiceAddress());
+	}
+
+	@Override
+	public List<ProductDto> findProductsByIds(List<Long> ids) {
+		Deadline.checkCurrent();
+
+		ids.stream()
+				.filter(productId -> productId < 1)
+				.findFirst()
+				.ifPresent(productId -> {
+					throw new InvalidInputException("Invalid productId: " + productId);
+				});
+
+		List<ProductDto> list = EntityTag.recordAll(productRepository.findByProductIdIn(ids), Product::getId, Product::getVersion).stream()
+				.map(productMapper::toProductDto)
+				.map(p -> new ProductDto(p.productId(), p.name(), p.weight(), serviceUtil.getServiceAddress()))
+				.toList();
 
-		return new ProductDto(productId, "name-" + productId, 123, serviceUtil.getServiceAddress());
+		log.debug("/products response size: {} for {} productIds", list.size(), ids.size());
+
+		return list;
 	}
 
 	@Override
 	public void deleteProduct(Long productId) {
+		Deadline.checkCurrent();
 		log.debug("deleteProduct: tries to delete an entity with productId: {}", productId);
 		productRepository.findByProductId(productId)
 				.ifPresent(productRepository::delete);
+		productCache.invalidate(productId);
+	}
+
+	private ProductCache.Cached load(Long productId) {
+		long loadToken = productCache.startLoad();
+		Product entity = productRepository.findByProductId(productId)
+				.orElseThrow(() -> new NotFoundException("No product found for productId: " + productId));
+
+		ProductCache.Cached cached = new ProductCache.Cached(entity.getId(), versionOf(entity.getVersion()), productMapper.toProductDto(entity));
+		productCache.put(productId, cached, loadToken);
+		return cached;
+	}
+
+	private boolean isCurrent(Long productId, int version) {
+		return productRepository.findVersionByProductId(productId)
+				.map(current -> versionOf(current.getVersion()) == version)
+				.orElse(false);
+	}
+
+	private static int versionOf(Integer version) {
+		return version == null ? 0 : version;
 	}
 }
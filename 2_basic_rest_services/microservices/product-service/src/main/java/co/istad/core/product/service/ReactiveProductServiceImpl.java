@@ -0,0 +1,86 @@
+package co.istad.core.product.service;
+
+import co.istad.api.core.product.ProductDto;
+import co.istad.api.core.product.ReactiveProductService;
+import co.istad.api.exception.InvalidInputException;
+import co.istad.api.exception.NotFoundException;
+import co.istad.core.product.persistence.Product;
+import co.istad.core.product.persistence.ReactiveProductRepository;
+import co.istad.util.deadline.Deadline;
+import co.istad.util.etag.EntityTag;
+import co.istad.util.http.ServiceUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Non-blocking implementation on the reactive MongoDB driver, enabled by the
+ * {@code reactive} profile.
+ */
+@RestController
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveProductServiceImpl implements ReactiveProductService {
+
+	private final ServiceUtil serviceUtil;
+	private final ReactiveProductRepository productRepository;
+	private final ProductMapper productMapper;
+	private final ProductIdFilter productIdFilter;
+
+	@Override
+	public Mono<ProductDto> createProduct(ProductDto body) {
+		return Deadline.enforce(productRepository.save(productMapper.fromProductDto(body))
+				.map(productMapper::toProductDto)
+				.doOnNext(product -> productIdFilter.add(product.productId()))
+				.doOnNext(product -> log.debug("createProduct: entity created for productId: {}", body.productId()))
+				.onErrorMap(DuplicateKeyException.class, ex -> new InvalidInputException("Duplicate key, Product ID: " + body.productId())));
+	}
+
+	@Override
+	public Mono<ProductDto> findProductById(Long productId) {
+
+		if (productId < 1) {
+			return Mono.error(new InvalidInputException("Invalid productId: " + productId));
+		}
+
+		return Deadline.enforce(EntityTag.record(productRepository.findByProductId(productId), Product::getId, Product::getVersion)
+				.switchIfEmpty(Mono.error(new NotFoundException("No product found for productId: " + productId)))
+				.map(productMapper::toProductDto)
+				.map(this::withServiceAddress));
+	}
+
+	@Override
+	public Flux<ProductDto> findProductsByIds(List<Long> ids) {
+
+		Optional<Long> invalidProductId = ids.stream()
+				.filter(productId -> productId < 1)
+				.findFirst();
+		if (invalidProductId.isPresent()) {
+			return Flux.error(new InvalidInputException("Invalid productId: " + invalidProductId.get()));
+		}
+
+		return Deadline.enforce(EntityTag.record(productRepository.findByProductIdIn(ids), Product::getId, Product::getVersion)
+				.map(productMapper::toProductDto)
+				.map(this::withServiceAddress));
+	}
+
+	@Override
+	public Mono<Void> deleteProduct(Long productId) {
+		log.debug("deleteProduct: tries to delete an entity with productId: {}", productId);
+		return Deadline.enforce(productRepository.findByProductId(productId)
+				.flatMap(productRepository::delete));
+	}
+
+	private ProductDto withServiceAddress(ProductDto p) {
+		return new ProductDto(p.productId(), p.name(), p.weight(), serviceUtil.getServiceAddress());
+	}
+
+}
@@ -23,13 +23,91 @@ import org.springframework.data.domain.Pageable;
 @DataMongoTest
 public class PersistenceTests extends MongoDbTestBase {
 
+	/**
+	 * The repository operations of the cases, implemented by the blocking repository here, and by
+	 * the reactive one in {@link ReactivePersistenceTests}.
+	 */
+	interface Products {
+
+		void deleteAll();
+
+		Product save(Product entity);
+
+		void saveAll(List<Product> entities);
+
+		Optional<Product> findById(String id);
+
+		Optional<Product> findByProductId(Long productId);
+
+		Page<Product> findAll(Pageable pageable);
+
+		long count();
+
+		boolean existsById(String id);
+
+		void delete(Product entity);
+
+	}
+
 	@Autowired
-	private ProductRepository repository;
+	private ProductRepository productRepository;
+
+	private Products repository;
 
 	private Product savedEntity;
 
+	Products products() {
+		return new Products() {
+			@Override
+			public void deleteAll() {
+				productRepository.deleteAll();
+			}
+
+			@Override
+			public Product save(Product entity) {
+				return productRepository.save(entity);
+			}
+
+			@Override
+			public void saveAll(List<Product> entities) {
+				productRepository.saveAll(entities);
+			}
+
+			@Override
+			public Optional<Product> findById(String id) {
+				return productRepository.findById(id);
+			}
+
+			@Override
+			public Optional<Product> findByProductId(Long productId) {
+				return productRepository.findByProductId(productId);
+			}
+
+			@Override
+			public Page<Product> findAll(Pageable pageable) {
+				return productRepository.findAll(pageable);
+			}
+
+			@Override
+			public long count() {
+				return productRepository.count();
+			}
+
+			@Override
+			public boolean existsById(String id) {
+				return productRepository.existsById(id);
+			}
+
+			@Override
+			public void delete(Product entity) {
+				productRepository.delete(entity);
+			}
+		};
+	}
+
 	@BeforeEach
 	void setupDb() {
+		repository = products();
 		repository.deleteAll();
 
 		Product entity = Product.builder()
@@ -0,0 +1,88 @@
+package co.istad.core.product;
+
+import co.istad.api.core.product.ProductDto;
+import co.istad.core.product.service.ProductCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ProductCacheTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void entriesSurviveRemovalsOfCollidingKeys() {
+		ProductCache cache = new ProductCache(1000, false, meterRegistry);
+		LongStream.rangeClosed(1, 1000).forEach(productId -> put(cache, productId, 0));
+
+		// Removing every other entry shifts the remaining ones back along their probe sequences
+		LongStream.rangeClosed(1, 1000).filter(productId -> productId % 2 == 0).forEach(cache::invalidate);
+
+		assertEquals(500, cache.size());
+		LongStream.rangeClosed(1, 1000).forEach(productId -> {
+			ProductCache.Cached cached = cache.get(productId, version -> true);
+			if (productId % 2 == 0) {
+				assertNull(cached, "productId: " + productId);
+			} else {
+				assertEquals(productId, cached.product().productId());
+			}
+		});
+	}
+
+	@Test
+	void recentlyReadEntriesAreNotEvicted() {
+		ProductCache cache = new ProductCache(3, false, meterRegistry);
+		put(cache, 1, 0);
+		put(cache, 2, 0);
+		put(cache, 3, 0);
+		cache.get(1, version -> true);
+		cache.get(3, version -> true);
+
+		put(cache, 4, 0);
+
+		assertEquals(3, cache.size());
+		assertNull(cache.get(2, version -> true));
+		assertNotNull(cache.get(1, version -> true));
+		assertNotNull(cache.get(3, version -> true));
+		assertNotNull(cache.get(4, version -> true));
+		assertEquals(1.0, meterRegistry.get("cache.evictions").functionCounter().count());
+	}
+
+	@Test
+	void outdatedVersionIsAMiss() {
+		ProductCache cache = new ProductCache(10, true, meterRegistry);
+		put(cache, 1, 3);
+
+		assertNotNull(cache.get(1, version -> version == 3));
+		assertNull(cache.get(1, version -> version == 4));
+		assertEquals(0, cache.size());
+
+		assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+		assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+	}
+
+	@Test
+	void loadStartedBeforeAnInvalidationIsNotCached() {
+		ProductCache cache = new ProductCache(10, false, meterRegistry);
+		long loadToken = cache.startLoad();
+		cache.invalidate(1);
+
+		cache.put(1, cached(1, 0), loadToken);
+
+		assertNull(cache.get(1, version -> true));
+	}
+
+	private void put(ProductCache cache, long productId, int version) {
+		cache.put(productId, cached(productId, version), cache.startLoad());
+	}
+
+	private ProductCache.Cached cached(long productId, int version) {
+		return new ProductCache.Cached("id-" + productId, version, new ProductDto(productId, "name-" + productId, 1, null));
+	}
+
+}
@@ -1,6 +1,7 @@
 package co.istad.core.product;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 import static org.springframework.http.HttpStatus.*;
@@ -13,6 +14,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
@@ -40,6 +42,63 @@ class ProductServiceApplicationTests extends MongoDbTestBase {
 		getAndVerifyProduct(productId, OK).jsonPath("$.productId").isEqualTo(productId);
 	}
 
+	@Test
+	void getProductNotModified() {
+
+		Long productId = 1L;
+
+		postAndVerifyProduct(productId, OK);
+
+		String etag = client.get()
+				.uri("/products/" + productId)
+				.accept(APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.returnResult(String.class)
+				.getResponseHeaders()
+				.getETag();
+		assertNotNull(etag);
+
+		client.get()
+				.uri("/products/" + productId)
+				.accept(APPLICATION_JSON)
+				.ifNoneMatch(etag)
+				.exchange()
+				.expectStatus().isNotModified()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+				.expectBody().isEmpty();
+
+		// Created again, the product has another id, and so another tag
+		deleteAndVerifyProduct(productId, OK);
+		postAndVerifyProduct(productId, OK);
+
+		client.get()
+				.uri("/products/" + productId)
+				.accept(APPLICATION_JSON)
+				.ifNoneMatch(etag)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.productId").isEqualTo(productId);
+	}
+
+	@Test
+	void getProductsByIds() {
+
+		postAndVerifyProduct(1L, OK);
+		postAndVerifyProduct(2L, OK);
+		postAndVerifyProduct(3L, OK);
+
+		client.get()
+				.uri("/products?ids=1,3,4")
+				.accept(APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentType(APPLICATION_JSON)
+				.expectBody()
+				.jsonPath("$.length()").isEqualTo(2);
+	}
+
 	//@Test
 	void duplicateError() {
 
@@ -0,0 +1,79 @@
+package co.istad.core.product;
+
+import java.util.List;
+import java.util.Optional;
+
+import co.istad.core.product.persistence.Product;
+import co.istad.core.product.persistence.ReactiveProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the {@link PersistenceTests} against {@link ReactiveProductRepository}. It has no
+ * {@code Page} support, so a page is read as a slice of the sorted products.
+ */
+@ActiveProfiles("reactive")
+public class ReactivePersistenceTests extends PersistenceTests {
+
+	@Autowired
+	private ReactiveProductRepository reactiveRepository;
+
+	@Override
+	Products products() {
+		return new Products() {
+			@Override
+			public void deleteAll() {
+				reactiveRepository.deleteAll().block();
+			}
+
+			@Override
+			public Product save(Product entity) {
+				return reactiveRepository.save(entity).block();
+			}
+
+			@Override
+			public void saveAll(List<Product> entities) {
+				reactiveRepository.saveAll(entities).then().block();
+			}
+
+			@Override
+			public Optional<Product> findById(String id) {
+				return reactiveRepository.findById(id).blockOptional();
+			}
+
+			@Override
+			public Optional<Product> findByProductId(Long productId) {
+				return reactiveRepository.findByProductId(productId).blockOptional();
+			}
+
+			@Override
+			public Page<Product> findAll(Pageable pageable) {
+				List<Product> content = reactiveRepository.findAll(pageable.getSort())
+						.skip(pageable.getOffset())
+						.take(pageable.getPageSize())
+						.collectList()
+						.block();
+				return new PageImpl<>(content, pageable, count());
+			}
+
+			@Override
+			public long count() {
+				return reactiveRepository.count().block();
+			}
+
+			@Override
+			public boolean existsById(String id) {
+				return reactiveRepository.existsById(id).block();
+			}
+
+			@Override
+			public void delete(Product entity) {
+				reactiveRepository.delete(entity).block();
+			}
+		};
+	}
+
+}
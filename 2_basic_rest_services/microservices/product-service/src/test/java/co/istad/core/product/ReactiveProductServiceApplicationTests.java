@@ -0,0 +1,10 @@
+package co.istad.core.product;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the API tests against {@link co.istad.core.product.service.ReactiveProductServiceImpl}.
+ */
+@ActiveProfiles("reactive")
+class ReactiveProductServiceApplicationTests extends ProductServiceApplicationTests {
+}
@@ -0,0 +1,47 @@
+package co.istad.core.product.service;
+
+import co.istad.core.product.persistence.Product;
+import co.istad.core.product.persistence.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductExportTests {
+
+	private final ProductRepository productRepository = mock(ProductRepository.class);
+
+	@Test
+	void exportProducts() {
+		AtomicBoolean closed = new AtomicBoolean();
+		when(productRepository.streamAllByOrderByProductIdAsc()).thenAnswer(invocation -> LongStream.rangeClosed(1, 600)
+				.mapToObj(productId -> Product.builder().productId(productId).name("n" + productId).weight(1).build())
+				.onClose(() -> closed.set(true)));
+		WebTestClient client = WebTestClient.bindToController(
+				new ProductExport(productRepository, Mappers.getMapper(ProductMapper.class), Jackson2ObjectMapperBuilder.json().build())).build();
+
+		String body = client.get()
+				.uri("/products/export")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+				.expectBody(String.class)
+				.returnResult().getResponseBody();
+
+		String[] lines = body.split("\n");
+		assertEquals(600, lines.length);
+		assertEquals("{\"productId\":1,\"name\":\"n1\",\"weight\":1,\"serviceAddress\":null}", lines[0]);
+		assertEquals("{\"productId\":600,\"name\":\"n600\",\"weight\":1,\"serviceAddress\":null}", lines[599]);
+		assertTrue(closed.get());
+	}
+
+}
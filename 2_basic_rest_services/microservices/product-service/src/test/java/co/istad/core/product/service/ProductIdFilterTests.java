@@ -0,0 +1,120 @@
+package co.istad.core.product.service;
+
+import co.istad.core.product.persistence.ProductKey;
+import co.istad.core.product.persistence.ProductRepository;
+import co.istad.util.bloom.LongBloomFilter;
+import co.istad.util.etag.EntityTagFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductIdFilterTests {
+
+	private final ProductRepository productRepository = mock(ProductRepository.class);
+
+	@Test
+	void unchangedFilterIsNotModified() {
+		when(productRepository.streamAllBy()).thenAnswer(invocation -> keys(1, 2));
+		ProductIdFilter filter = filter();
+		WebTestClient client = client(filter);
+
+		String etag = get(client, null, 200);
+		get(client, etag, 304);
+
+		filter.add(3);
+		String changed = get(client, etag, 200);
+		assertNotEquals(etag, changed);
+		assertTrue(fetch(client).mightContain(3));
+	}
+
+	@Test
+	void restartedInstanceDoesNotReuseTags() {
+		when(productRepository.streamAllBy()).thenAnswer(invocation -> keys(1));
+		String etag = get(client(filter()), null, 200);
+
+		// Same number of changes, as after a restart, but with a product created meanwhile
+		when(productRepository.streamAllBy()).thenAnswer(invocation -> keys(1, 2));
+		WebTestClient restarted = client(filter());
+
+		get(restarted, etag, 200);
+		LongBloomFilter fetched = fetch(restarted);
+		assertTrue(fetched.mightContain(2));
+		assertFalse(fetched.mightContain(4));
+	}
+
+	@Test
+	void filterOfTheDefaultSizeIsTagged() {
+		when(productRepository.streamAllBy()).thenAnswer(invocation -> keys(1));
+		// The application.yml defaults, above the 1MB the EntityTagFilter holds to tag a body
+		ProductIdFilter filter = filter(1_000_000, 0.01);
+		WebTestClient client = client(filter);
+
+		String etag = get(client, null, 200);
+		LongBloomFilter fetched = fetch(client);
+		assertEquals(LongBloomFilter.create(1_000_000, 0.01).toBytes().length, fetched.toBytes().length);
+		assertTrue(fetched.toBytes().length > DataSize.ofMegabytes(1).toBytes());
+		assertTrue(fetched.mightContain(1));
+
+		get(client, etag, 304);
+	}
+
+	private ProductIdFilter filter() {
+		return filter(1000, 0.001);
+	}
+
+	private ProductIdFilter filter(long expectedProducts, double falsePositiveProbability) {
+		ProductIdFilter filter = new ProductIdFilter(productRepository, expectedProducts, falsePositiveProbability, Duration.ofMinutes(10));
+		filter.rebuild();
+		return filter;
+	}
+
+	private static WebTestClient client(ProductIdFilter filter) {
+		return WebTestClient.bindToController(filter).webFilter(new EntityTagFilter(DataSize.ofMegabytes(1))).build();
+	}
+
+	private static String get(WebTestClient client, String ifNoneMatch, int status) {
+		String etag = client.get()
+				.uri("/product-id-filter")
+				.headers(headers -> {
+					if (ifNoneMatch != null) {
+						headers.setIfNoneMatch(ifNoneMatch);
+					}
+				})
+				.exchange()
+				.expectStatus().isEqualTo(status)
+				.returnResult(byte[].class)
+				.getResponseHeaders().getETag();
+		assertNotNull(etag);
+		return etag;
+	}
+
+	private static LongBloomFilter fetch(WebTestClient client) {
+		byte[] bytes = client.mutate()
+				.codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(-1))
+				.build()
+				.get()
+				.uri("/product-id-filter")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(byte[].class)
+				.returnResult().getResponseBody();
+		return LongBloomFilter.fromBytes(bytes);
+	}
+
+	private static Stream<ProductKey> keys(long... productIds) {
+		return Arrays.stream(productIds).mapToObj(productId -> (ProductKey) () -> productId);
+	}
+
+}
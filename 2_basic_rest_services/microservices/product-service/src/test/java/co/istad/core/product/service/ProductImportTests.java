@@ -0,0 +1,147 @@
+package co.istad.core.product.service;
+
+import co.istad.core.product.persistence.ProductRepository;
+import co.istad.util.bloom.LongBloomFilter;
+import co.istad.util.bulk.NdjsonFileImport.Progress;
+import co.istad.util.bulk.NdjsonFileImport.State;
+import co.istad.util.http.GlobalControllerExceptionHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mapstruct.factory.Mappers;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductImportTests {
+
+	private final ProductRepository productRepository = mock(ProductRepository.class);
+	private final ProductIdFilter productIdFilter = new ProductIdFilter(productRepository, 1000, 0.001, Duration.ofMinutes(10));
+
+	@TempDir
+	private Path directory;
+
+	private WebTestClient client;
+
+	@BeforeEach
+	void setUp() {
+		when(productRepository.streamAllBy()).thenAnswer(invocation -> Stream.empty());
+		productIdFilter.rebuild();
+		ProductImport productImport = new ProductImport(productRepository, Mappers.getMapper(ProductMapper.class), productIdFilter,
+				Jackson2ObjectMapperBuilder.json().build(), directory, 1, 2);
+		client = WebTestClient.bindToController(productImport)
+				.controllerAdvice(new GlobalControllerExceptionHandler())
+				.build();
+	}
+
+	@Test
+	void importProducts() throws IOException {
+		when(productRepository.insertIgnoringDuplicates(anyList())).thenReturn(List.of());
+		write("products.ndjson",
+				"{\"productId\":1,\"name\":\"n1\",\"weight\":1}",
+				"{\"productId\":2,\"name\":\"n2\",\"weight\":2}",
+				"{\"productId\":3,\"name\":\"n3\",\"weight\":3}");
+
+		client.get()
+				.uri("/products/import")
+				.exchange()
+				.expectStatus().isNotFound()
+				.expectBody()
+				.jsonPath("$.message").isEqualTo("No import has been started");
+
+		startImport("products.ndjson", HttpStatus.ACCEPTED)
+				.expectBody()
+				.jsonPath("$.file").isEqualTo("products.ndjson");
+
+		Progress progress = awaitImport();
+		assertEquals(State.COMPLETED, progress.state());
+		assertEquals(3, progress.written());
+		verify(productRepository, times(2)).insertIgnoringDuplicates(anyList());
+		assertTrue(LongBloomFilter.fromBytes(productIdFilter.getProductIdFilter(MockServerWebExchange.from(MockServerHttpRequest.get("/product-id-filter"))).block()).mightContain(3));
+	}
+
+	@Test
+	void fileOutsideTheImportDirectoryIsRejected() throws IOException {
+		Files.writeString(directory.resolveSibling("secret.ndjson"), "{\"productId\":1}\n");
+
+		startImport("../secret.ndjson", HttpStatus.UNPROCESSABLE_ENTITY)
+				.expectBody()
+				.jsonPath("$.message").isEqualTo("Invalid file name: ../secret.ndjson");
+		startImport("missing.ndjson", HttpStatus.NOT_FOUND);
+	}
+
+	@Test
+	void importIsRejectedWhileAnotherIsRunning() throws IOException {
+		CompletableFuture<List<Integer>> release = new CompletableFuture<>();
+		when(productRepository.insertIgnoringDuplicates(anyList())).thenAnswer(invocation -> release.join());
+		write("products.ndjson", "{\"productId\":1,\"name\":\"n1\",\"weight\":1}");
+
+		startImport("products.ndjson", HttpStatus.ACCEPTED);
+		startImport("products.ndjson", HttpStatus.SERVICE_UNAVAILABLE)
+				.expectBody()
+				.jsonPath("$.message").isEqualTo("An import is already running: products.ndjson");
+
+		release.complete(List.of());
+		assertEquals(State.COMPLETED, awaitImport().state());
+		startImport("products.ndjson", HttpStatus.ACCEPTED);
+	}
+
+	@Test
+	void productWithoutProductIdFailsTheImport() throws IOException {
+		write("products.ndjson", "{}");
+
+		startImport("products.ndjson", HttpStatus.ACCEPTED);
+
+		Progress progress = awaitImport();
+		assertEquals(State.FAILED, progress.state());
+		assertEquals("Invalid productId: null", progress.error());
+		verify(productRepository, never()).insertIgnoringDuplicates(anyList());
+	}
+
+	private void write(String fileName, String... lines) throws IOException {
+		Files.write(directory.resolve(fileName), List.of(lines));
+	}
+
+	private WebTestClient.ResponseSpec startImport(String fileName, HttpStatus status) {
+		return client.post()
+				.uri(uri -> uri.path("/products/import").queryParam("file", fileName).build())
+				.exchange()
+				.expectStatus().isEqualTo(status);
+	}
+
+	private Progress awaitImport() {
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (true) {
+			Progress progress = client.get()
+					.uri("/products/import")
+					.exchange()
+					.expectStatus().isOk()
+					.expectBody(Progress.class)
+					.returnResult().getResponseBody();
+			if (progress.state() != State.RUNNING || System.nanoTime() > deadline) {
+				return progress;
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+}
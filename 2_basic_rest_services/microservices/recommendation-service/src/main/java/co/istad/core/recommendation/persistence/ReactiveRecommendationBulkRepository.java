@@ -0,0 +1,23 @@
+package co.istad.core.recommendation.persistence;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ReactiveRecommendationBulkRepository {
+
+    /**
+     * Reactive variant of {@link RecommendationBulkRepository#insertIgnoringDuplicates(List)}.
+     *
+     * @return the indexes of the recommendations that were rejected as duplicates
+     */
+    Mono<List<Integer>> insertIgnoringDuplicates(List<Recommendation> recommendations);
+
+    /**
+     * Reactive variant of {@link RecommendationBulkRepository#findFirstByProductIdIn(Collection, int)}.
+     */
+    Flux<Recommendation> findFirstByProductIdIn(Collection<Long> productIds, int limitPerProduct);
+
+}
@@ -0,0 +1,58 @@
+package co.istad.core.recommendation.persistence;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ReactiveRecommendationBulkRepositoryImpl implements ReactiveRecommendationBulkRepository {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<List<Integer>> insertIgnoringDuplicates(List<Recommendation> recommendations) {
+        if (recommendations.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        // Unlike ReactiveMongoTemplate.insert, bulk inserts leave the @Version property uninitialized
+        recommendations.forEach(recommendation -> recommendation.setVersion(0));
+
+        // The template translates a bulk write error into a DuplicateKeyException, the
+        // indexes of the failed inserts are only available on the root cause
+        return mongoTemplate.bulkOps(BulkMode.UNORDERED, Recommendation.class)
+                .insert(recommendations)
+                .execute()
+                .<List<Integer>>map(result -> List.of())
+                .onErrorResume(this::onlyDuplicates, e -> Mono.just(
+                        ((MongoBulkWriteException) NestedExceptionUtils.getMostSpecificCause(e)).getWriteErrors().stream()
+                                .map(BulkWriteError::getIndex)
+                                .sorted()
+                                .toList()));
+    }
+
+    @Override
+    public Flux<Recommendation> findFirstByProductIdIn(Collection<Long> productIds, int limitPerProduct) {
+        if (productIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return mongoTemplate.aggregate(RecommendationBulkRepositoryImpl.firstByProductIdIn(productIds, limitPerProduct), Recommendation.class, Recommendation.class);
+    }
+
+    private boolean onlyDuplicates(Throwable e) {
+        return NestedExceptionUtils.getMostSpecificCause(e) instanceof MongoBulkWriteException bulkWriteException
+                && bulkWriteException.getWriteConcernError() == null
+                && bulkWriteException.getWriteErrors().stream()
+                        .allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY);
+    }
+
+}
@@ -0,0 +1,21 @@
+package co.istad.core.recommendation.persistence;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+public interface ReactiveRecommendationRepository extends ReactiveCrudRepository<Recommendation, String>,
+        ReactiveRecommendationBulkRepository {
+
+    Flux<Recommendation> findByProductId(Long productId);
+
+    /**
+     * Keyset read, seeks on the prod-rec-id index (productId, recommendationId).
+     */
+    Flux<Recommendation> findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(Long productId, Long recommendationId, Limit limit);
+
+    Flux<Recommendation> findByProductIdIn(Collection<Long> productIds);
+
+}
@@ -0,0 +1,22 @@
+package co.istad.core.recommendation.persistence;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface RecommendationBulkRepository {
+
+    /**
+     * Inserts all recommendations in one unordered bulk write, a duplicate
+     * productId/recommendationId does not stop the remaining inserts.
+     *
+     * @return the indexes of the recommendations that were rejected as duplicates
+     */
+    List<Integer> insertIgnoringDuplicates(List<Recommendation> recommendations);
+
+    /**
+     * Reads the first {@code limitPerProduct} recommendations by recommendationId of each product,
+     * ordered by productId and recommendationId. The rest are left out by the aggregation, not read.
+     */
+    List<Recommendation> findFirstByProductIdIn(Collection<Long> productIds, int limitPerProduct);
+
+}
@@ -0,0 +1,82 @@
+package co.istad.core.recommendation.persistence;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class RecommendationBulkRepositoryImpl implements RecommendationBulkRepository {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Integer> insertIgnoringDuplicates(List<Recommendation> recommendations) {
+        if (recommendations.isEmpty()) {
+            return List.of();
+        }
+
+        // Unlike MongoTemplate.insert, bulk inserts leave the @Version property uninitialized
+        recommendations.forEach(recommendation -> recommendation.setVersion(0));
+
+        try {
+            mongoTemplate.bulkOps(BulkMode.UNORDERED, Recommendation.class)
+                    .insert(recommendations)
+                    .execute();
+            return List.of();
+
+        } catch (BulkOperationException e) {
+            boolean onlyDuplicates = e.getErrors().stream()
+                    .allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY);
+            if (!onlyDuplicates) {
+                throw e;
+            }
+            return e.getErrors().stream()
+                    .map(BulkWriteError::getIndex)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    @Override
+    public List<Recommendation> findFirstByProductIdIn(Collection<Long> productIds, int limitPerProduct) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        return mongoTemplate.aggregate(firstByProductIdIn(productIds, limitPerProduct), Recommendation.class, Recommendation.class)
+                .getMappedResults();
+    }
+
+    /**
+     * Groups the recommendations of the products with $topN, which only keeps the first
+     * {@code limitPerProduct} of each group while accumulating, and unwinds them back into
+     * recommendations.
+     */
+    static Aggregation firstByProductIdIn(Collection<Long> productIds, int limitPerProduct) {
+        return Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("productId").in(productIds)),
+                // The stages past the $match are given as is, they reference the fields of the
+                // group and not of Recommendation
+                stage("$group", new Document("_id", "$productId")
+                        .append("first", new Document("$topN", new Document("n", limitPerProduct)
+                                .append("sortBy", new Document("recommendationId", 1))
+                                .append("output", "$$ROOT")))),
+                stage("$unwind", "$first"),
+                stage("$replaceRoot", new Document("newRoot", "$first")),
+                stage("$sort", new Document("productId", 1).append("recommendationId", 1)));
+    }
+
+    private static AggregationOperation stage(String operator, Object value) {
+        return context -> new Document(operator, value);
+    }
+
+}
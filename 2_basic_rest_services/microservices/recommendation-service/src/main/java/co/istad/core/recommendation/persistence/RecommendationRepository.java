@@ -1,11 +1,28 @@
 package co.istad.core.recommendation.persistence;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface RecommendationRepository extends CrudRepository<Recommendation, String> {
+public interface RecommendationRepository extends CrudRepository<Recommendation, String>, RecommendationBulkRepository {
 
     List<Recommendation> findByProductId(Long productId);
 
+    /**
+     * Keyset read, seeks on the prod-rec-id index (productId, recommendationId).
+     */
+    List<Recommendation> findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(Long productId, Long recommendationId, Limit limit);
+
+    List<Recommendation> findByProductIdIn(Collection<Long> productIds);
+
+    /**
+     * Reads all recommendations through a cursor, in batches of 1000, ordered by the prod-rec-id index.
+     */
+    @Meta(cursorBatchSize = 1000)
+    Stream<Recommendation> streamAllByOrderByProductIdAscRecommendationIdAsc();
+
 }
@@ -0,0 +1,137 @@
+package co.istad.core.recommendation.service;
+
+import co.istad.api.core.BatchResult;
+import co.istad.api.core.CursorPage;
+import co.istad.api.core.recommendation.ReactiveRecommendationService;
+import co.istad.api.core.recommendation.RecommendationDto;
+import co.istad.api.exception.InvalidInputException;
+import co.istad.core.recommendation.persistence.Recommendation;
+import co.istad.core.recommendation.persistence.ReactiveRecommendationRepository;
+import co.istad.util.batch.WriteBehindBuffer;
+import co.istad.util.deadline.Deadline;
+import co.istad.util.etag.EntityTag;
+import co.istad.util.http.ServiceUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Non-blocking implementation on the reactive MongoDB driver, enabled by the
+ * {@code reactive} profile.
+ */
+@RestController
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveRecommendationServiceImpl implements ReactiveRecommendationService {
+
+	private final ServiceUtil serviceUtil;
+	private final ReactiveRecommendationRepository recommendationRepository;
+	private final RecommendationMapper recommendationMapper;
+	private final Optional<WriteBehindBuffer<Recommendation>> writeBehind;
+
+	@Override
+	public Mono<RecommendationDto> createRecommendation(RecommendationDto body) {
+		return Deadline.enforce(save(recommendationMapper.fromRecommendationDto(body))
+				.map(recommendationMapper::toRecommendationDto)
+				.doOnNext(recommendation -> log.debug("createRecommendation: created a recommendation entity: {}/{}", body.productId(), body.recommendationId()))
+				.onErrorMap(DuplicateKeyException.class, ex -> new InvalidInputException("Duplicate key, Product Id: " + body.productId() + ", Recommendation Id:" + body.recommendationId())));
+	}
+
+	@Override
+	public Mono<BatchResult> createRecommendations(List<RecommendationDto> body) {
+		List<Recommendation> entities = body.stream()
+				.map(recommendationMapper::fromRecommendationDto)
+				.toList();
+
+		return Deadline.enforce(recommendationRepository.insertIgnoringDuplicates(entities)
+				.map(duplicates -> duplicates.stream()
+						.map(index -> new BatchResult.ItemError(index,
+								"Duplicate key, Product Id: " + body.get(index).productId() + ", Recommendation Id:" + body.get(index).recommendationId()))
+						.toList())
+				.map(errors -> new BatchResult(body.size() - errors.size(), errors))
+				.doOnNext(result -> log.debug("createRecommendations: created {} of {} recommendation entities", result.created(), body.size())));
+	}
+
+	@Override
+	public Flux<RecommendationDto> getRecommendations(Long productId) {
+
+		if (productId < 1) {
+			return Flux.error(new InvalidInputException("Invalid productId: " + productId));
+		}
+
+		return Deadline.enforce(EntityTag.record(recommendationRepository.findByProductId(productId), Recommendation::getId, Recommendation::getVersion)
+				.map(recommendationMapper::toRecommendationDto)
+				.map(this::withServiceAddress));
+	}
+
+	@Override
+	public Mono<CursorPage<RecommendationDto>> getRecommendationsPage(Long productId, int limit, String cursor) {
+		return Deadline.enforce(Mono.fromCallable(() -> {
+					if (productId < 1) {
+						throw new InvalidInputException("Invalid productId: " + productId);
+					}
+					CursorPage.validateLimit(limit);
+					return CursorPage.decodeCursor(cursor, productId);
+				})
+				// One extra row tells if there is a following page
+				.flatMap(afterRecommendationId -> EntityTag.record(recommendationRepository.findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(productId, afterRecommendationId, Limit.of(limit + 1)), Recommendation::getId, Recommendation::getVersion)
+						.map(recommendationMapper::toRecommendationDto)
+						.map(this::withServiceAddress)
+						.collectList())
+				.map(rows -> CursorPage.fromRows(rows, limit, productId, RecommendationDto::recommendationId)));
+	}
+
+	@Override
+	public Flux<RecommendationDto> getRecommendationsByProductIds(List<Long> productIds, Integer limitPerProduct) {
+
+		Optional<Long> invalidProductId = productIds.stream()
+				.filter(productId -> productId < 1)
+				.findFirst();
+		if (invalidProductId.isPresent()) {
+			return Flux.error(new InvalidInputException("Invalid productId: " + invalidProductId.get()));
+		}
+
+		// One extra recommendation per product tells if there is a following page
+		Flux<Recommendation> recommendations = limitPerProduct == null ? recommendationRepository.findByProductIdIn(productIds)
+				: Mono.fromRunnable(() -> CursorPage.validateLimit(limitPerProduct))
+						.thenMany(recommendationRepository.findFirstByProductIdIn(productIds, limitPerProduct + 1));
+		return Deadline.enforce(EntityTag.record(recommendations, Recommendation::getId, Recommendation::getVersion)
+				.map(recommendationMapper::toRecommendationDto)
+				.map(this::withServiceAddress));
+	}
+
+	@Override
+	public Mono<Void> deleteRecommendations(Long productId) {
+		log.debug("deleteRecommendations: tries to delete recommendations for the product with productId: {}", productId);
+		return Deadline.enforce(recommendationRepository.deleteAll(recommendationRepository.findByProductId(productId)));
+	}
+
+	private RecommendationDto withServiceAddress(RecommendationDto r) {
+		return new RecommendationDto(r.productId(), r.recommendationId(), r.author(), r.rate(), r.content(), serviceUtil.getServiceAddress());
+	}
+
+	/**
+	 * With write-behind enabled, completes once the bulk write holding the recommendation is acknowledged.
+	 */
+	private Mono<Recommendation> save(Recommendation recommendation) {
+		return writeBehind
+				.map(buffer -> Mono.fromFuture(() -> buffer.submit(recommendation))
+						// The future completes on the flusher thread, the response is written elsewhere
+						.publishOn(Schedulers.parallel())
+						.flatMap(written -> written
+								? Mono.just(recommendation)
+								: Mono.<Recommendation>error(new DuplicateKeyException("Duplicate recommendation: " + recommendation.getProductId() + "/" + recommendation.getRecommendationId()))))
+				.orElseGet(() -> recommendationRepository.save(recommendation));
+	}
+
+}
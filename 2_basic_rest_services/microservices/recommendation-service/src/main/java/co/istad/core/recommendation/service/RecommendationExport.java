@@ -0,0 +1,39 @@
+package co.istad.core.recommendation.service;
+
+import co.istad.api.core.recommendation.RecommendationDto;
+import co.istad.core.recommendation.persistence.RecommendationRepository;
+import co.istad.util.bulk.NdjsonExport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Export of all recommendations as NDJSON, in both profiles, in the format read by
+ * {@link RecommendationImport}, streamed from a Mongo cursor, see {@link NdjsonExport}.
+ */
+@RestController
+@RequiredArgsConstructor
+public class RecommendationExport {
+
+	private final RecommendationRepository recommendationRepository;
+	private final RecommendationMapper recommendationMapper;
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * Sample usage: "curl $HOST:$PORT/recommendations/export > recommendations.ndjson".
+	 */
+	@GetMapping(value = "/recommendations/export", produces = "application/x-ndjson")
+	public Mono<Void> exportRecommendations(ServerHttpResponse response) {
+		Flux<RecommendationDto> recommendations = Flux.fromStream(recommendationRepository::streamAllByOrderByProductIdAscRecommendationIdAsc)
+				.map(recommendationMapper::toRecommendationDto)
+				.subscribeOn(Schedulers.boundedElastic());
+
+		return NdjsonExport.write(response, recommendations, objectMapper.writerFor(RecommendationDto.class));
+	}
+
+}
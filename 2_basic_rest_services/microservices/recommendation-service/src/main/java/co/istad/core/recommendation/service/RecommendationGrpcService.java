@@ -0,0 +1,70 @@
+package co.istad.core.recommendation.service;
+
+import co.istad.api.core.CursorPage;
+import co.istad.api.core.grpc.ListRequest;
+import co.istad.api.core.grpc.ProtoMapper;
+import co.istad.api.core.grpc.RecommendationItem;
+import co.istad.api.core.grpc.RecommendationsGrpc;
+import co.istad.api.core.recommendation.ReactiveRecommendationService;
+import co.istad.api.core.recommendation.RecommendationDto;
+import co.istad.api.core.recommendation.RecommendationService;
+import co.istad.util.grpc.GrpcStreams;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Serves the recommendations over the internal gRPC API, see {@link co.istad.util.grpc.GrpcServer},
+ * delegating to the blocking or reactive implementation of the active profile.
+ */
+@Component
+@ConditionalOnProperty(name = "app.grpc.enabled", havingValue = "true")
+@Slf4j
+public class RecommendationGrpcService extends RecommendationsGrpc.RecommendationsImplBase {
+
+	private final RecommendationService blockingService;
+	private final ReactiveRecommendationService reactiveService;
+
+	public RecommendationGrpcService(ObjectProvider<RecommendationService> blockingService, ObjectProvider<ReactiveRecommendationService> reactiveService) {
+		this.blockingService = blockingService.getIfAvailable();
+		this.reactiveService = reactiveService.getIfAvailable();
+	}
+
+	@Override
+	public void listRecommendations(ListRequest request, StreamObserver<RecommendationItem> responseObserver) {
+		log.debug("listRecommendations: productId: {}, limit: {}", request.getProductId(), request.getLimit());
+		GrpcStreams.serve(list(request), responseObserver);
+	}
+
+	private Flux<RecommendationItem> list(ListRequest request) {
+		Long productId = request.getProductId();
+
+		if (request.getLimit() == 0) {
+			Flux<RecommendationDto> recommendations = reactiveService != null
+					? reactiveService.getRecommendations(productId)
+					: GrpcStreams.fromBlocking(() -> blockingService.getRecommendations(productId)).flatMapIterable(list -> list);
+			return recommendations.map(this::item);
+		}
+
+		int limit = request.getLimit();
+		String cursor = request.getCursor().isEmpty() ? null : request.getCursor();
+		Mono<CursorPage<RecommendationDto>> page = reactiveService != null
+				? reactiveService.getRecommendationsPage(productId, limit, cursor)
+				: GrpcStreams.fromBlocking(() -> blockingService.getRecommendationsPage(productId, limit, cursor));
+
+		return page.flatMapMany(p -> Flux.fromIterable(p.items())
+				.map(this::item)
+				.concatWith(p.next() == null
+						? Mono.empty()
+						: Mono.just(RecommendationItem.newBuilder().setNextCursor(p.next()).build())));
+	}
+
+	private RecommendationItem item(RecommendationDto recommendation) {
+		return RecommendationItem.newBuilder().setRecommendation(ProtoMapper.toProto(recommendation)).build();
+	}
+
+}
@@ -0,0 +1,79 @@
+package co.istad.core.recommendation.service;
+
+import co.istad.api.core.recommendation.RecommendationDto;
+import co.istad.api.exception.InvalidInputException;
+import co.istad.core.recommendation.persistence.Recommendation;
+import co.istad.core.recommendation.persistence.RecommendationRepository;
+import co.istad.util.bulk.NdjsonFileImport.Progress;
+import co.istad.util.bulk.NdjsonImportRunner;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Bulk import of recommendations from an NDJSON file of {@link RecommendationDto}s in
+ * {@code app.import.directory}, in both profiles. A productId/recommendationId that already
+ * exists is reported as a duplicate, see {@link co.istad.util.bulk.NdjsonFileImport}. A
+ * recommendation without a valid productId or recommendationId fails the import before its batch
+ * is written.
+ */
+@RestController
+public class RecommendationImport {
+
+	private final NdjsonImportRunner<RecommendationDto> runner;
+
+	public RecommendationImport(
+			RecommendationRepository recommendationRepository,
+			RecommendationMapper recommendationMapper,
+			ObjectMapper objectMapper,
+			@Value("${app.import.directory:import}") Path directory,
+			@Value("${app.import.parallelism:0}") int parallelism,
+			@Value("${app.import.batch-size:1000}") int batchSize) {
+
+		this.runner = new NdjsonImportRunner<>(directory, parallelism, batchSize,
+				objectMapper.readerFor(RecommendationDto.class),
+				recommendation -> recommendation.productId() + "/" + recommendation.recommendationId(),
+				batch -> {
+					List<Recommendation> entities = batch.stream()
+							.map(RecommendationImport::validate)
+							.map(recommendationMapper::fromRecommendationDto)
+							.toList();
+					return recommendationRepository.insertIgnoringDuplicates(entities);
+				});
+	}
+
+	/**
+	 * Sample usage: "curl -X POST $HOST:$PORT/recommendations/import?file=recommendations.ndjson",
+	 * then poll "curl $HOST:$PORT/recommendations/import" for its progress.
+	 *
+	 * @param file name of the file in the import directory
+	 * @return the progress of the started import
+	 */
+	@PostMapping(value = "/recommendations/import", produces = "application/json")
+	@ResponseStatus(HttpStatus.ACCEPTED)
+	public Progress importRecommendations(@RequestParam(value = "file") String file) {
+		return runner.start(file);
+	}
+
+	@GetMapping(value = "/recommendations/import", produces = "application/json")
+	public Progress getImportProgress() {
+		return runner.progress();
+	}
+
+	private static RecommendationDto validate(RecommendationDto recommendation) {
+		if (recommendation.productId() == null || recommendation.productId() < 1 || recommendation.recommendationId() == null) {
+			throw new InvalidInputException("Invalid productId or recommendationId: "
+					+ recommendation.productId() + "/" + recommendation.recommendationId());
+		}
+		return recommendation;
+	}
+
+}
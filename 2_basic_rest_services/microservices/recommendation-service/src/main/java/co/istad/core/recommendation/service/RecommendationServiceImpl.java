@@ -1,20 +1,28 @@
 package co.istad.core.recommendation.service;
 
+import co.istad.api.core.BatchResult;
+import co.istad.api.core.CursorPage;
 import co.istad.api.core.recommendation.RecommendationDto;
 import co.istad.api.core.recommendation.RecommendationService;
 import co.istad.api.exception.InvalidInputException;
 import co.istad.core.recommendation.persistence.Recommendation;
 import co.istad.core.recommendation.persistence.RecommendationRepository;
+import co.istad.util.batch.WriteBehindBuffer;
+import co.istad.util.deadline.Deadline;
+import co.istad.util.etag.EntityTag;
 import co.istad.util.http.ServiceUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
+@Profile("!reactive")
 @RequiredArgsConstructor
 @Slf4j
 public class RecommendationServiceImpl implements RecommendationService {
@@ -22,12 +30,14 @@ public class RecommendationServiceImpl implements RecommendationService {
 	private final ServiceUtil serviceUtil;
 	private final RecommendationRepository recommendationRepository;
 	private final RecommendationMapper recommendationMapper;
+	private final Optional<WriteBehindBuffer<Recommendation>> writeBehind;
 
 	@Override
 	public RecommendationDto createRecommendation(RecommendationDto body) {
+		Deadline.checkCurrent();
 		try {
 			Recommendation recommendation = recommendationMapper.fromRecommendationDto(body);
-			Recommendation newRecommendation = recommendationRepository.save(recommendation);
+			Recommendation newRecommendation = save(recommendation);
 
 			log.debug("createRecommendation: created a recommendation entity: {}/{}", body.productId(), body.recommendationId());
 			return recommendationMapper.toRecommendationDto(newRecommendation);
@@ -36,32 +46,106 @@ public class RecommendationServiceImpl implements RecommendationService {
 		}
 	}
 
+	@Override
+	public BatchResult createRecommendations(List<RecommendationDto> body) {
+		Deadline.checkCurrent();
+		List<Recommendation> entities = body.stream()
+				.map(recommendationMapper::fromRecommendationDto)
+				.toList();
+
+		List<BatchResult.ItemError> errors = recommendationRepository.insertIgnoringDuplicates(entities).stream()
+				.map(index -> new BatchResult.ItemError(index,
+						"Duplicate key, Product Id: " + body.get(index).productId() + ", Recommendation Id:" + body.get(index).recommendationId()))
+				.toList();
+
+		log.debug("createRecommendations: created {} of {} recommendation entities", body.size() - errors.size(), body.size());
+		return new BatchResult(body.size() - errors.size(), errors);
+	}
+
 	@Override
 	public List<RecommendationDto> getRecommendations(Long productId) {
+		Deadline.checkCurrent();
+
+		if (productId < 1) {
+			throw new InvalidInputException("Invalid productId: " + productId);
+		}
+
+		List<RecommendationDto> list = EntityTag.recordAll(recommendationRepository.findByProductId(productId), Recommendation::getId, Recommendation::getVersion).stream()
+				.map(recommendationMapper::toRecommendationDto)
+				.map(r -> new RecommendationDto(r.productId(), r.recommendationId(), r.author(), r.rate(), r.content(), serviceUtil.getServiceAddress()))
+				.toList();
+
+		log.debug("/recommendation response size: {}", list.size());
+
+		return list;
+	}
+
+	@Override
+	public CursorPage<RecommendationDto> getRecommendationsPage(Long productId, int limit, String cursor) {
+		Deadline.checkCurrent();
 
 		if (productId < 1) {
 			throw new InvalidInputException("Invalid productId: " + productId);
 		}
+		CursorPage.validateLimit(limit);
+		Long afterRecommendationId = CursorPage.decodeCursor(cursor, productId);
+
+		// One extra row tells if there is a following page
+		List<RecommendationDto> rows = EntityTag.recordAll(recommendationRepository.findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(productId, afterRecommendationId, Limit.of(limit + 1)), Recommendation::getId, Recommendation::getVersion).stream()
+				.map(recommendationMapper::toRecommendationDto)
+				.map(r -> new RecommendationDto(r.productId(), r.recommendationId(), r.author(), r.rate(), r.content(), serviceUtil.getServiceAddress()))
+				.toList();
+
+		log.debug("/recommendations page size: {} for productId: {}", Math.min(rows.size(), limit), productId);
+
+		return CursorPage.fromRows(rows, limit, productId, RecommendationDto::recommendationId);
+	}
 
-		if (productId == 113) {
-			log.debug("No recommendations found for productId: {}", productId);
-			return new ArrayList<>();
+	@Override
+	public List<RecommendationDto> getRecommendationsByProductIds(List<Long> productIds, Integer limitPerProduct) {
+		Deadline.checkCurrent();
+
+		productIds.stream()
+				.filter(productId -> productId < 1)
+				.findFirst()
+				.ifPresent(productId -> {
+					throw new InvalidInputException("Invalid productId: " + productId);
+				});
+		if (limitPerProduct != null) {
+			CursorPage.validateLimit(limitPerProduct);
 		}
 
-		List<RecommendationDto> list = new ArrayList<>();
-		list.add(new RecommendationDto(productId, 1L, "Author 1", 1, "Content 1", serviceUtil.getServiceAddress()));
-		list.add(new RecommendationDto(productId, 2L, "Author 2", 2, "Content 2", serviceUtil.getServiceAddress()));
-		list.add(new RecommendationDto(productId, 3L, "Author 3", 3, "Content 3", serviceUtil.getServiceAddress()));
+		// One extra recommendation per product tells if there is a following page
+		List<Recommendation> recommendations = limitPerProduct == null ? recommendationRepository.findByProductIdIn(productIds)
+				: recommendationRepository.findFirstByProductIdIn(productIds, limitPerProduct + 1);
+		List<RecommendationDto> list = EntityTag.recordAll(recommendations, Recommendation::getId, Recommendation::getVersion).stream()
+				.map(recommendationMapper::toRecommendationDto)
+				.map(r -> new RecommendationDto(r.productId(), r.recommendationId(), r.author(), r.rate(), r.content(), serviceUtil.getServiceAddress()))
+				.toList();
 
-		log.debug("/recommendation response size: {}", list.size());
+		log.debug("/recommendations response size: {} for {} productIds", list.size(), productIds.size());
 
 		return list;
 	}
 
 	@Override
 	public void deleteRecommendations(Long productId) {
+		Deadline.checkCurrent();
 		log.debug("deleteRecommendations: tries to delete recommendations for the product with productId: {}", productId);
 		recommendationRepository.deleteAll(recommendationRepository.findByProductId(productId));
 	}
 
+	/**
+	 * With write-behind enabled, waits for the bulk write holding the recommendation.
+	 */
+	private Recommendation save(Recommendation recommendation) {
+		if (writeBehind.isEmpty()) {
+			return recommendationRepository.save(recommendation);
+		}
+		if (!writeBehind.get().write(recommendation)) {
+			throw new DuplicateKeyException("Duplicate recommendation: " + recommendation.getProductId() + "/" + recommendation.getRecommendationId());
+		}
+		return recommendation;
+	}
+
 }
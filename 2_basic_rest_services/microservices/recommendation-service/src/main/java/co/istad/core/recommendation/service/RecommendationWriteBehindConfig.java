@@ -0,0 +1,55 @@
+package co.istad.core.recommendation.service;
+
+import co.istad.core.recommendation.persistence.ReactiveRecommendationRepository;
+import co.istad.core.recommendation.persistence.Recommendation;
+import co.istad.core.recommendation.persistence.RecommendationRepository;
+import co.istad.util.batch.WriteBehindBuffer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Duration;
+
+/**
+ * Opt-in write-behind of {@code createRecommendation}: creates are queued and written as one
+ * unordered bulk insert per batch, the one of {@code createRecommendations}. A create
+ * responds once the bulk write holding it is acknowledged.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.write-behind.enabled", havingValue = "true")
+public class RecommendationWriteBehindConfig {
+
+	private final int capacity;
+	private final int maxBatchSize;
+	private final Duration maxDelay;
+
+	public RecommendationWriteBehindConfig(
+			@Value("${app.write-behind.capacity:8192}") int capacity,
+			@Value("${app.write-behind.max-batch-size:500}") int maxBatchSize,
+			@Value("${app.write-behind.max-delay:5ms}") Duration maxDelay) {
+		this.capacity = capacity;
+		this.maxBatchSize = maxBatchSize;
+		this.maxDelay = maxDelay;
+	}
+
+	@Bean(destroyMethod = "close")
+	@Profile("!reactive")
+	public WriteBehindBuffer<Recommendation> recommendationWriteBehind(RecommendationRepository recommendationRepository, MeterRegistry meterRegistry) {
+		return new WriteBehindBuffer<>("recommendations", capacity, maxBatchSize, maxDelay,
+				recommendationRepository::insertIgnoringDuplicates, meterRegistry);
+	}
+
+	/**
+	 * Blocks the flusher thread, not an event loop, until the bulk write is acknowledged.
+	 */
+	@Bean(destroyMethod = "close")
+	@Profile("reactive")
+	public WriteBehindBuffer<Recommendation> reactiveRecommendationWriteBehind(ReactiveRecommendationRepository recommendationRepository, MeterRegistry meterRegistry) {
+		return new WriteBehindBuffer<>("recommendations", capacity, maxBatchSize, maxDelay,
+				batch -> recommendationRepository.insertIgnoringDuplicates(batch).block(), meterRegistry);
+	}
+
+}
@@ -0,0 +1,226 @@
+package co.istad.core.recommendation;
+
+import static java.util.stream.IntStream.rangeClosed;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import co.istad.core.recommendation.persistence.Recommendation;
+import co.istad.core.recommendation.persistence.RecommendationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+
+@DataMongoTest
+public class PersistenceTests extends MongoDbTestBase {
+
+	/**
+	 * The repository operations of the cases, implemented by the blocking repository here, and by
+	 * the reactive one in {@link ReactivePersistenceTests}.
+	 */
+	interface Recommendations {
+
+		void deleteAll();
+
+		Recommendation save(Recommendation entity);
+
+		void saveAll(List<Recommendation> entities);
+
+		Optional<Recommendation> findById(String id);
+
+		List<Recommendation> findByProductId(Long productId);
+
+		List<Recommendation> findPage(Long productId, Long afterRecommendationId, int limit);
+
+		long count();
+
+		boolean existsById(String id);
+
+		void delete(Recommendation entity);
+
+	}
+
+	@Autowired
+	private RecommendationRepository recommendationRepository;
+
+	private Recommendations repository;
+
+	private Recommendation savedEntity;
+
+	Recommendations recommendations() {
+		return new Recommendations() {
+			@Override
+			public void deleteAll() {
+				recommendationRepository.deleteAll();
+			}
+
+			@Override
+			public Recommendation save(Recommendation entity) {
+				return recommendationRepository.save(entity);
+			}
+
+			@Override
+			public void saveAll(List<Recommendation> entities) {
+				recommendationRepository.saveAll(entities);
+			}
+
+			@Override
+			public Optional<Recommendation> findById(String id) {
+				return recommendationRepository.findById(id);
+			}
+
+			@Override
+			public List<Recommendation> findByProductId(Long productId) {
+				return recommendationRepository.findByProductId(productId);
+			}
+
+			@Override
+			public List<Recommendation> findPage(Long productId, Long afterRecommendationId, int limit) {
+				return recommendationRepository.findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(productId, afterRecommendationId, Limit.of(limit));
+			}
+
+			@Override
+			public long count() {
+				return recommendationRepository.count();
+			}
+
+			@Override
+			public boolean existsById(String id) {
+				return recommendationRepository.existsById(id);
+			}
+
+			@Override
+			public void delete(Recommendation entity) {
+				recommendationRepository.delete(entity);
+			}
+		};
+	}
+
+	@BeforeEach
+	void setupDb() {
+		repository = recommendations();
+		repository.deleteAll();
+
+		Recommendation entity = Recommendation.builder()
+				.productId(1L)
+				.recommendationId(2L)
+				.author("a")
+				.rate(3)
+				.content("c")
+				.build();
+		savedEntity = repository.save(entity);
+
+		assertEqualsRecommendation(entity, savedEntity);
+	}
+
+	@Test
+	void create() {
+
+		Recommendation newEntity = Recommendation.builder()
+				.productId(1L)
+				.recommendationId(3L)
+				.author("a")
+				.rate(3)
+				.content("c")
+				.build();
+		repository.save(newEntity);
+
+		Recommendation foundEntity = repository.findById(newEntity.getId()).get();
+		assertEqualsRecommendation(newEntity, foundEntity);
+
+		assertEquals(2, repository.count());
+	}
+
+	@Test
+	void update() {
+		savedEntity.setAuthor("a2");
+		repository.save(savedEntity);
+
+		Recommendation foundEntity = repository.findById(savedEntity.getId()).get();
+		assertEquals(1, foundEntity.getVersion());
+		assertEquals("a2", foundEntity.getAuthor());
+	}
+
+	@Test
+	void delete() {
+		repository.delete(savedEntity);
+		assertFalse(repository.existsById(savedEntity.getId()));
+	}
+
+	@Test
+	void getByProductId() {
+		List<Recommendation> entityList = repository.findByProductId(savedEntity.getProductId());
+
+		assertEquals(1, entityList.size());
+		assertEqualsRecommendation(savedEntity, entityList.get(0));
+	}
+
+	@Test
+	void optimisticLockError() {
+
+		// Store the saved entity in two separate entity objects
+		Recommendation entity1 = repository.findById(savedEntity.getId()).get();
+		Recommendation entity2 = repository.findById(savedEntity.getId()).get();
+
+		// Update the entity using the first entity object
+		entity1.setAuthor("a1");
+		repository.save(entity1);
+
+		// Update the entity using the second entity object.
+		// This should fail since the second entity now holds an old version number, i.e. an Optimistic Lock Error
+		assertThrows(OptimisticLockingFailureException.class, () -> {
+			entity2.setAuthor("a2");
+			repository.save(entity2);
+		});
+
+		// Get the updated entity from the database and verify its new state
+		Recommendation updatedEntity = repository.findById(savedEntity.getId()).get();
+		assertEquals(1, updatedEntity.getVersion());
+		assertEquals("a1", updatedEntity.getAuthor());
+	}
+
+	@Test
+	void paging() {
+
+		repository.deleteAll();
+
+		List<Recommendation> newRecommendations = rangeClosed(1001, 1010)
+				.mapToObj(i -> Recommendation.builder()
+						.productId(1L)
+						.recommendationId((long) i)
+						.author("author " + i)
+						.rate(i % 5)
+						.content("content " + i)
+						.build())
+				.collect(Collectors.toList());
+		repository.saveAll(newRecommendations);
+
+		Long after = testNextPage(0L, "[1001, 1002, 1003, 1004]");
+		after = testNextPage(after, "[1005, 1006, 1007, 1008]");
+		after = testNextPage(after, "[1009, 1010]");
+		testNextPage(after, "[]");
+	}
+
+	private Long testNextPage(Long afterRecommendationId, String expectedRecommendationIds) {
+		List<Recommendation> page = repository.findPage(1L, afterRecommendationId, 4);
+		List<Long> recommendationIds = page.stream().map(Recommendation::getRecommendationId).collect(Collectors.toList());
+		assertEquals(expectedRecommendationIds, recommendationIds.toString());
+		return recommendationIds.isEmpty() ? afterRecommendationId : recommendationIds.get(recommendationIds.size() - 1);
+	}
+
+	private void assertEqualsRecommendation(Recommendation expectedEntity, Recommendation actualEntity) {
+		assertEquals(expectedEntity.getId(),               actualEntity.getId());
+		assertEquals(expectedEntity.getVersion(),          actualEntity.getVersion());
+		assertEquals(expectedEntity.getProductId(),        actualEntity.getProductId());
+		assertEquals(expectedEntity.getRecommendationId(), actualEntity.getRecommendationId());
+		assertEquals(expectedEntity.getAuthor(),           actualEntity.getAuthor());
+		assertEquals(expectedEntity.getRate(),             actualEntity.getRate());
+		assertEquals(expectedEntity.getContent(),          actualEntity.getContent());
+	}
+
+}
@@ -0,0 +1,73 @@
+package co.istad.core.recommendation;
+
+import java.util.List;
+import java.util.Optional;
+
+import co.istad.core.recommendation.persistence.ReactiveRecommendationRepository;
+import co.istad.core.recommendation.persistence.Recommendation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the {@link PersistenceTests} against {@link ReactiveRecommendationRepository}.
+ */
+@ActiveProfiles("reactive")
+public class ReactivePersistenceTests extends PersistenceTests {
+
+	@Autowired
+	private ReactiveRecommendationRepository reactiveRepository;
+
+	@Override
+	Recommendations recommendations() {
+		return new Recommendations() {
+			@Override
+			public void deleteAll() {
+				reactiveRepository.deleteAll().block();
+			}
+
+			@Override
+			public Recommendation save(Recommendation entity) {
+				return reactiveRepository.save(entity).block();
+			}
+
+			@Override
+			public void saveAll(List<Recommendation> entities) {
+				reactiveRepository.saveAll(entities).then().block();
+			}
+
+			@Override
+			public Optional<Recommendation> findById(String id) {
+				return reactiveRepository.findById(id).blockOptional();
+			}
+
+			@Override
+			public List<Recommendation> findByProductId(Long productId) {
+				return reactiveRepository.findByProductId(productId).collectList().block();
+			}
+
+			@Override
+			public List<Recommendation> findPage(Long productId, Long afterRecommendationId, int limit) {
+				return reactiveRepository.findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(productId, afterRecommendationId, Limit.of(limit))
+						.collectList()
+						.block();
+			}
+
+			@Override
+			public long count() {
+				return reactiveRepository.count().block();
+			}
+
+			@Override
+			public boolean existsById(String id) {
+				return reactiveRepository.existsById(id).block();
+			}
+
+			@Override
+			public void delete(Recommendation entity) {
+				reactiveRepository.delete(entity).block();
+			}
+		};
+	}
+
+}
@@ -0,0 +1,10 @@
+package co.istad.core.recommendation;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the API tests against {@link co.istad.core.recommendation.service.ReactiveRecommendationServiceImpl}.
+ */
+@ActiveProfiles("reactive")
+class ReactiveRecommendationServiceApplicationTests extends RecommendationServiceApplicationTests {
+}
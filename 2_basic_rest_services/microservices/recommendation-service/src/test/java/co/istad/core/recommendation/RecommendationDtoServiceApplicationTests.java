@@ -1,13 +1,134 @@
 package co.istad.core.recommendation;
 
+import co.istad.core.recommendation.persistence.Recommendation;
+import co.istad.core.recommendation.persistence.RecommendationRepository;
+import co.istad.util.deadline.Deadline;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
 
-@SpringBootTest
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 class RecommendationDtoServiceApplicationTests {
 
+	@Autowired
+	private WebTestClient client;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@MockBean
+	private RecommendationRepository repository;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void blockingHandlerRunsOnBlockingExecutor() {
+
+		when(repository.findByProductId(1L)).thenReturn(List.of(recommendation(0), recommendation(0), recommendation(0)));
+
+		double waitsBefore = meterRegistry.get("executor.wait").tag("name", "blocking-handlers").timer().count();
+
+		client.get()
+				.uri("/recommendations?productId=1")
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.length()").isEqualTo(3);
+
+		assertEquals(waitsBefore + 1, meterRegistry.get("executor.wait").tag("name", "blocking-handlers").timer().count());
+	}
+
+	@Test
+	void expiredDeadlineAbandonsBlockingHandler() {
+
+		client.get()
+				.uri("/recommendations?productId=1")
+				.header(Deadline.HEADER, "0")
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.GATEWAY_TIMEOUT)
+				.expectBody()
+				.jsonPath("$.path").isEqualTo("/recommendations")
+				.jsonPath("$.message").value(message -> assertTrue(((String) message).startsWith("Deadline exceeded by ")));
+	}
+
+	@Test
+	void remainingDeadlineLetsBlockingHandlerRun() {
+
+		client.get()
+				.uri("/recommendations?productId=1")
+				.header(Deadline.HEADER, "10000")
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk();
+	}
+
+	@Test
+	void overflowingDeadlineIsIgnored() {
+
+		client.get()
+				.uri("/recommendations?productId=1")
+				.header(Deadline.HEADER, String.valueOf(Long.MAX_VALUE))
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk();
+	}
+
+	@Test
+	void getRecommendationsNotModified() {
+
+		when(repository.findByProductIdIn(List.of(1L))).thenReturn(List.of(recommendation(0)));
+
+		String etag = client.get()
+				.uri("/recommendations?productIds=1")
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.returnResult(String.class)
+				.getResponseHeaders()
+				.getETag();
+		assertNotNull(etag);
+
+		client.get()
+				.uri("/recommendations?productIds=1")
+				.accept(MediaType.APPLICATION_JSON)
+				.ifNoneMatch(etag)
+				.exchange()
+				.expectStatus().isNotModified()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+				.expectBody().isEmpty();
+
+		// An update bumps the version, and so the tag
+		when(repository.findByProductIdIn(List.of(1L))).thenReturn(List.of(recommendation(1)));
+
+		client.get()
+				.uri("/recommendations?productIds=1")
+				.accept(MediaType.APPLICATION_JSON)
+				.ifNoneMatch(etag)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$[0].recommendationId").isEqualTo(1);
+	}
+
+	private Recommendation recommendation(int version) {
+		return new Recommendation("id-1", version, 1L, 1L, "Author 1", 1, "Content 1");
+	}
+
 }
@@ -0,0 +1,63 @@
+package co.istad.core.recommendation;
+
+import co.istad.api.core.grpc.ListRequest;
+import co.istad.api.core.grpc.RecommendationItem;
+import co.istad.api.core.grpc.RecommendationsGrpc;
+import co.istad.util.grpc.GrpcServer;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"app.grpc.enabled=true", "app.grpc.port=0"})
+class RecommendationGrpcServiceTests {
+
+	@Autowired
+	private GrpcServer grpcServer;
+
+	private ManagedChannel channel;
+	private RecommendationsGrpc.RecommendationsBlockingStub stub;
+
+	@BeforeEach
+	void setUp() {
+		channel = ManagedChannelBuilder.forAddress("localhost", grpcServer.getPort()).usePlaintext().build();
+		stub = RecommendationsGrpc.newBlockingStub(channel).withDeadlineAfter(10, TimeUnit.SECONDS);
+	}
+
+	@AfterEach
+	void tearDown() {
+		channel.shutdownNow();
+	}
+
+	@Test
+	void recommendationsAreStreamed() {
+		List<RecommendationItem> items = new ArrayList<>();
+		stub.listRecommendations(ListRequest.newBuilder().setProductId(1).build()).forEachRemaining(items::add);
+
+		assertEquals(3, items.size());
+		assertTrue(items.stream().allMatch(item -> item.hasRecommendation() && item.getRecommendation().getProductId() == 1));
+	}
+
+	@Test
+	void invalidInputIsInvalidArgument() {
+		StatusRuntimeException ex = assertThrows(StatusRuntimeException.class,
+				() -> stub.listRecommendations(ListRequest.newBuilder().setProductId(-1).build()).forEachRemaining(item -> {}));
+
+		assertEquals(Status.Code.INVALID_ARGUMENT, ex.getStatus().getCode());
+		assertEquals("Invalid productId: -1", ex.getStatus().getDescription());
+	}
+
+}
@@ -0,0 +1,193 @@
+package co.istad.core.recommendation;
+
+import co.istad.api.core.CursorPage;
+import co.istad.api.core.recommendation.RecommendationDto;
+import co.istad.core.recommendation.persistence.RecommendationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * API tests of the endpoints backed by MongoDB, run in the reactive mode by
+ * {@link ReactiveRecommendationServiceApplicationTests}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class RecommendationServiceApplicationTests extends MongoDbTestBase {
+
+	@Autowired
+	private WebTestClient client;
+
+	@Autowired
+	private RecommendationRepository repository;
+
+	@BeforeEach
+	void setupDb() {
+		repository.deleteAll();
+	}
+
+	@Test
+	void getRecommendationsByProductId() {
+
+		postAndVerifyRecommendation(1L, 1L, HttpStatus.OK);
+		postAndVerifyRecommendation(1L, 2L, HttpStatus.OK);
+		postAndVerifyRecommendation(2L, 3L, HttpStatus.OK);
+
+		// Read from the database in both modes
+		getAndVerifyRecommendations("?productId=1", HttpStatus.OK)
+				.jsonPath("$.length()").isEqualTo(2)
+				.jsonPath("$[1].productId").isEqualTo(1)
+				.jsonPath("$[1].recommendationId").isEqualTo(2)
+				.jsonPath("$[1].author").isEqualTo("Author 2");
+
+		getAndVerifyRecommendations("?productId=113", HttpStatus.OK)
+				.jsonPath("$.length()").isEqualTo(0);
+	}
+
+	@Test
+	void getRecommendationsByProductIds() {
+
+		postAndVerifyRecommendation(1L, 1L, HttpStatus.OK);
+		postAndVerifyRecommendation(1L, 2L, HttpStatus.OK);
+		postAndVerifyRecommendation(2L, 1L, HttpStatus.OK);
+		postAndVerifyRecommendation(3L, 1L, HttpStatus.OK);
+
+		assertEquals(2, repository.findByProductId(1L).size());
+
+		getAndVerifyRecommendations("?productIds=1,2", HttpStatus.OK)
+				.jsonPath("$.length()").isEqualTo(3);
+	}
+
+	@Test
+	void getRecommendationsByProductIdsFirstPage() {
+
+		postAndVerifyRecommendation(1L, 3L, HttpStatus.OK);
+		postAndVerifyRecommendation(1L, 1L, HttpStatus.OK);
+		postAndVerifyRecommendation(1L, 2L, HttpStatus.OK);
+		postAndVerifyRecommendation(2L, 1L, HttpStatus.OK);
+
+		// One page of one, plus one to tell there is a following page
+		getAndVerifyRecommendations("?productIds=2,1&limitPerProduct=1", HttpStatus.OK)
+				.jsonPath("$.length()").isEqualTo(3)
+				.jsonPath("$[0].productId").isEqualTo(1)
+				.jsonPath("$[0].recommendationId").isEqualTo(1)
+				.jsonPath("$[1].productId").isEqualTo(1)
+				.jsonPath("$[1].recommendationId").isEqualTo(2)
+				.jsonPath("$[2].productId").isEqualTo(2);
+
+		getAndVerifyRecommendations("?productIds=1&limitPerProduct=" + (CursorPage.MAX_LIMIT + 1), HttpStatus.UNPROCESSABLE_ENTITY)
+				.jsonPath("$.message").isEqualTo("Invalid limit: " + (CursorPage.MAX_LIMIT + 1) + ", must be between 1 and " + CursorPage.MAX_LIMIT);
+	}
+
+	@Test
+	void getRecommendationsPageByPage() {
+
+		postAndVerifyRecommendation(1L, 3L, HttpStatus.OK);
+		postAndVerifyRecommendation(1L, 1L, HttpStatus.OK);
+		postAndVerifyRecommendation(1L, 2L, HttpStatus.OK);
+		postAndVerifyRecommendation(2L, 4L, HttpStatus.OK);
+
+		CursorPage<RecommendationDto> firstPage = client.get()
+				.uri("/recommendations?productId=1&limit=2")
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(new ParameterizedTypeReference<CursorPage<RecommendationDto>>() {})
+				.returnResult().getResponseBody();
+
+		assertEquals(List.of(1L, 2L), firstPage.items().stream().map(RecommendationDto::recommendationId).toList());
+		String next = firstPage.next();
+
+		getAndVerifyRecommendations("?productId=1&limit=2&cursor=" + next, HttpStatus.OK)
+				.jsonPath("$.items.length()").isEqualTo(1)
+				.jsonPath("$.items[0].recommendationId").isEqualTo(3)
+				.jsonPath("$.next").isEmpty();
+
+		getAndVerifyRecommendations("?productId=2&limit=2&cursor=" + next, HttpStatus.UNPROCESSABLE_ENTITY)
+				.jsonPath("$.message").isEqualTo("Invalid cursor: " + next);
+	}
+
+	@Test
+	void createRecommendationsInBatch() {
+
+		List<RecommendationDto> recommendations = List.of(
+				new RecommendationDto(1L, 1L, "Author 1", 1, "Content 1", "SA"),
+				new RecommendationDto(1L, 2L, "Author 2", 2, "Content 2", "SA"),
+				new RecommendationDto(1L, 3L, "Author 3", 3, "Content 3", "SA"));
+
+		client.post()
+				.uri("/recommendations/batch")
+				.bodyValue(recommendations)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.created").isEqualTo(3)
+				.jsonPath("$.errors.length()").isEqualTo(0);
+
+		assertEquals(3, repository.findByProductId(1L).size());
+	}
+
+	@Test
+	void deleteRecommendations() {
+
+		Long productId = 1L;
+
+		postAndVerifyRecommendation(productId, 1L, HttpStatus.OK);
+		assertEquals(1, repository.findByProductId(productId).size());
+
+		deleteAndVerifyRecommendationsByProductId(productId, HttpStatus.OK);
+		assertEquals(0, repository.findByProductId(productId).size());
+
+		deleteAndVerifyRecommendationsByProductId(productId, HttpStatus.OK);
+	}
+
+	@Test
+	void getRecommendationsInvalidParameterNegativeValue() {
+
+		getAndVerifyRecommendations("?productIds=1,-1", HttpStatus.UNPROCESSABLE_ENTITY)
+				.jsonPath("$.path").isEqualTo("/recommendations")
+				.jsonPath("$.message").isEqualTo("Invalid productId: -1");
+	}
+
+	private WebTestClient.BodyContentSpec getAndVerifyRecommendations(String query, HttpStatus expectedStatus) {
+		return client.get()
+				.uri("/recommendations" + query)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isEqualTo(expectedStatus)
+				.expectHeader().contentType(MediaType.APPLICATION_JSON)
+				.expectBody();
+	}
+
+	private WebTestClient.BodyContentSpec postAndVerifyRecommendation(Long productId, Long recommendationId, HttpStatus expectedStatus) {
+		RecommendationDto recommendation = new RecommendationDto(productId, recommendationId, "Author " + recommendationId, recommendationId.intValue(), "Content " + recommendationId, "SA");
+		return client.post()
+				.uri("/recommendations")
+				.body(Mono.just(recommendation), RecommendationDto.class)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isEqualTo(expectedStatus)
+				.expectHeader().contentType(MediaType.APPLICATION_JSON)
+				.expectBody();
+	}
+
+	private WebTestClient.BodyContentSpec deleteAndVerifyRecommendationsByProductId(Long productId, HttpStatus expectedStatus) {
+		return client.delete()
+				.uri("/recommendations?productId=" + productId)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isEqualTo(expectedStatus)
+				.expectBody();
+	}
+
+}
@@ -0,0 +1,48 @@
+package co.istad.core.recommendation.service;
+
+import co.istad.core.recommendation.persistence.Recommendation;
+import co.istad.core.recommendation.persistence.RecommendationRepository;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RecommendationExportTests {
+
+	private final RecommendationRepository recommendationRepository = mock(RecommendationRepository.class);
+
+	@Test
+	void exportRecommendations() {
+		AtomicBoolean closed = new AtomicBoolean();
+		when(recommendationRepository.streamAllByOrderByProductIdAscRecommendationIdAsc()).thenAnswer(invocation -> LongStream.rangeClosed(1, 600)
+				.mapToObj(recommendationId -> Recommendation.builder()
+						.productId(1L).recommendationId(recommendationId).author("a").rate(1).content("c").build())
+				.onClose(() -> closed.set(true)));
+		WebTestClient client = WebTestClient.bindToController(new RecommendationExport(recommendationRepository,
+				Mappers.getMapper(RecommendationMapper.class), Jackson2ObjectMapperBuilder.json().build())).build();
+
+		String body = client.get()
+				.uri("/recommendations/export")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+				.expectBody(String.class)
+				.returnResult().getResponseBody();
+
+		String[] lines = body.split("\n");
+		assertEquals(600, lines.length);
+		assertEquals("{\"productId\":1,\"recommendationId\":1,\"author\":\"a\",\"rate\":1,\"content\":\"c\",\"serviceAddress\":null}", lines[0]);
+		assertEquals("{\"productId\":1,\"recommendationId\":600,\"author\":\"a\",\"rate\":1,\"content\":\"c\",\"serviceAddress\":null}", lines[599]);
+		assertTrue(closed.get());
+	}
+
+}
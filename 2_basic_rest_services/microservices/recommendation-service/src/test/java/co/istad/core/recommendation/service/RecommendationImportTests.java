@@ -0,0 +1,139 @@
+package co.istad.core.recommendation.service;
+
+import co.istad.core.recommendation.persistence.RecommendationRepository;
+import co.istad.util.bulk.NdjsonFileImport.Progress;
+import co.istad.util.bulk.NdjsonFileImport.State;
+import co.istad.util.http.GlobalControllerExceptionHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mapstruct.factory.Mappers;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecommendationImportTests {
+
+	private final RecommendationRepository recommendationRepository = mock(RecommendationRepository.class);
+
+	@TempDir
+	private Path directory;
+
+	private WebTestClient client;
+
+	@BeforeEach
+	void setUp() {
+		RecommendationImport recommendationImport = new RecommendationImport(recommendationRepository,
+				Mappers.getMapper(RecommendationMapper.class), Jackson2ObjectMapperBuilder.json().build(), directory, 1, 2);
+		client = WebTestClient.bindToController(recommendationImport)
+				.controllerAdvice(new GlobalControllerExceptionHandler())
+				.build();
+	}
+
+	@Test
+	void importRecommendations() throws IOException {
+		when(recommendationRepository.insertIgnoringDuplicates(anyList())).thenReturn(List.of()).thenReturn(List.of(0));
+		write("recommendations.ndjson",
+				"{\"productId\":1,\"recommendationId\":1,\"author\":\"a\",\"rate\":1,\"content\":\"c\"}",
+				"{\"productId\":1,\"recommendationId\":2,\"author\":\"a\",\"rate\":2,\"content\":\"c\"}",
+				"{\"productId\":1,\"recommendationId\":1,\"author\":\"a\",\"rate\":3,\"content\":\"c\"}");
+
+		client.get()
+				.uri("/recommendations/import")
+				.exchange()
+				.expectStatus().isNotFound()
+				.expectBody()
+				.jsonPath("$.message").isEqualTo("No import has been started");
+
+		startImport("recommendations.ndjson", HttpStatus.ACCEPTED)
+				.expectBody()
+				.jsonPath("$.file").isEqualTo("recommendations.ndjson");
+
+		Progress progress = awaitImport();
+		assertEquals(State.COMPLETED, progress.state());
+		assertEquals(2, progress.written());
+		assertEquals(List.of("1/1"), progress.duplicateKeys());
+		verify(recommendationRepository, times(2)).insertIgnoringDuplicates(anyList());
+	}
+
+	@Test
+	void fileOutsideTheImportDirectoryIsRejected() throws IOException {
+		Files.writeString(directory.resolveSibling("secret.ndjson"), "{\"productId\":1}\n");
+
+		startImport("../secret.ndjson", HttpStatus.UNPROCESSABLE_ENTITY)
+				.expectBody()
+				.jsonPath("$.message").isEqualTo("Invalid file name: ../secret.ndjson");
+		startImport("missing.ndjson", HttpStatus.NOT_FOUND);
+	}
+
+	@Test
+	void importIsRejectedWhileAnotherIsRunning() throws IOException {
+		CompletableFuture<List<Integer>> release = new CompletableFuture<>();
+		when(recommendationRepository.insertIgnoringDuplicates(anyList())).thenAnswer(invocation -> release.join());
+		write("recommendations.ndjson", "{\"productId\":1,\"recommendationId\":1,\"author\":\"a\",\"rate\":1,\"content\":\"c\"}");
+
+		startImport("recommendations.ndjson", HttpStatus.ACCEPTED);
+		startImport("recommendations.ndjson", HttpStatus.SERVICE_UNAVAILABLE)
+				.expectBody()
+				.jsonPath("$.message").isEqualTo("An import is already running: recommendations.ndjson");
+
+		release.complete(List.of());
+		assertEquals(State.COMPLETED, awaitImport().state());
+		startImport("recommendations.ndjson", HttpStatus.ACCEPTED);
+	}
+
+	@Test
+	void recommendationWithoutIdsFailsTheImport() throws IOException {
+		write("recommendations.ndjson", "{\"productId\":1}");
+
+		startImport("recommendations.ndjson", HttpStatus.ACCEPTED);
+
+		Progress progress = awaitImport();
+		assertEquals(State.FAILED, progress.state());
+		assertEquals("Invalid productId or recommendationId: 1/null", progress.error());
+		verify(recommendationRepository, never()).insertIgnoringDuplicates(anyList());
+	}
+
+	private void write(String fileName, String... lines) throws IOException {
+		Files.write(directory.resolve(fileName), List.of(lines));
+	}
+
+	private WebTestClient.ResponseSpec startImport(String fileName, HttpStatus status) {
+		return client.post()
+				.uri(uri -> uri.path("/recommendations/import").queryParam("file", fileName).build())
+				.exchange()
+				.expectStatus().isEqualTo(status);
+	}
+
+	private Progress awaitImport() {
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (true) {
+			Progress progress = client.get()
+					.uri("/recommendations/import")
+					.exchange()
+					.expectStatus().isOk()
+					.expectBody(Progress.class)
+					.returnResult().getResponseBody();
+			if (progress.state() != State.RUNNING || System.nanoTime() > deadline) {
+				return progress;
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+}
@@ -0,0 +1,27 @@
+package co.istad.core.review.persistence;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+
+@Configuration
+@Profile("reactive")
+public class PersistenceConfig {
+
+    /**
+     * Creates the reviews table and its unique (productId, reviewId) index if they don't exist yet,
+     * Hibernate's ddl-auto does not run in the reactive mode.
+     */
+    @Bean
+    public ConnectionFactoryInitializer reviewSchemaInitializer(ConnectionFactory connectionFactory) {
+        ConnectionFactoryInitializer initializer = new ConnectionFactoryInitializer();
+        initializer.setConnectionFactory(connectionFactory);
+        initializer.setDatabasePopulator(new ResourceDatabasePopulator(new ClassPathResource("schema-reactive.sql")));
+        return initializer;
+    }
+
+}
@@ -0,0 +1,16 @@
+package co.istad.core.review.persistence;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReactiveReviewBatchRepository {
+
+    /**
+     * Reactive variant of {@link ReviewBatchRepository#insertIgnoringDuplicates(List)}.
+     *
+     * @return the indexes of the reviews that were skipped as duplicates
+     */
+    Mono<List<Integer>> insertIgnoringDuplicates(List<ReviewRow> reviews);
+
+}
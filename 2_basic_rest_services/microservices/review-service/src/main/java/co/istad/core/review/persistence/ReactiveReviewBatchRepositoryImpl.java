@@ -0,0 +1,70 @@
+package co.istad.core.review.persistence;
+
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ReactiveReviewBatchRepositoryImpl implements ReactiveReviewBatchRepository {
+
+    // Relies on the reviews_unique_idx index, a conflicting row reports 0 rows updated
+    private static final String INSERT_IGNORING_DUPLICATES = """
+            INSERT INTO reviews (version, product_id, review_id, author, subject, content)
+            VALUES (0, $1, $2, $3, $4, $5)
+            ON CONFLICT (product_id, review_id) DO NOTHING""";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+
+    @Override
+    public Mono<List<Integer>> insertIgnoringDuplicates(List<ReviewRow> reviews) {
+        if (reviews.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        return databaseClient.inConnectionMany(connection -> {
+                    // One statement with a binding per review, executed as a single pipelined batch
+                    Statement statement = connection.createStatement(INSERT_IGNORING_DUPLICATES);
+                    for (int i = 0; i < reviews.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        ReviewRow review = reviews.get(i);
+                        statement.bind(0, review.getProductId());
+                        statement.bind(1, review.getReviewId());
+                        bindString(statement, 2, review.getAuthor());
+                        bindString(statement, 3, review.getSubject());
+                        bindString(statement, 4, review.getContent());
+                    }
+                    return Flux.from(statement.execute())
+                            .concatMap(Result::getRowsUpdated);
+                })
+                .collectList()
+                .map(rowsUpdated -> {
+                    List<Integer> duplicates = new ArrayList<>();
+                    for (int i = 0; i < rowsUpdated.size(); i++) {
+                        if (rowsUpdated.get(i) == 0) {
+                            duplicates.add(i);
+                        }
+                    }
+                    return duplicates;
+                })
+                .as(transactionalOperator::transactional);
+    }
+
+    private void bindString(Statement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index, String.class);
+        } else {
+            statement.bind(index, value);
+        }
+    }
+
+}
@@ -0,0 +1,13 @@
+package co.istad.core.review.persistence;
+
+import co.istad.core.review.persistence.ReviewCopyRepository.Copied;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveReviewCopyRepository {
+
+    /**
+     * Non-blocking counterpart of {@link ReviewCopyRepository#copyReviews(byte[], boolean)}.
+     */
+    Mono<Copied> copyReviews(byte[] csvRows, boolean replaceDuplicates);
+
+}
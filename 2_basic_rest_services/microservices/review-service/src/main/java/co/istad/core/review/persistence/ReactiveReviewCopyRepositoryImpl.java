@@ -0,0 +1,56 @@
+package co.istad.core.review.persistence;
+
+import co.istad.core.review.persistence.ReviewCopyRepository.Copied;
+import io.netty.buffer.Unpooled;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Wrapped;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static co.istad.core.review.persistence.ReviewCopySql.COPY_TO_STAGING;
+import static co.istad.core.review.persistence.ReviewCopySql.CREATE_STAGING;
+
+@RequiredArgsConstructor
+public class ReactiveReviewCopyRepositoryImpl implements ReactiveReviewCopyRepository {
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+
+    @Override
+    public Mono<Copied> copyReviews(byte[] csvRows, boolean replaceDuplicates) {
+        return databaseClient.inConnection(connection -> {
+                    PostgresqlConnection postgresql = unwrap(connection);
+                    return rowsUpdated(postgresql, CREATE_STAGING)
+                            .then(postgresql.copyIn(COPY_TO_STAGING, Mono.fromSupplier(() -> Unpooled.wrappedBuffer(csvRows))))
+                            .flatMap(rows -> rowsUpdated(postgresql, ReviewCopySql.insert(replaceDuplicates))
+                                    .map(written -> new Copied(rows, written)));
+                })
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<Long> rowsUpdated(Connection connection, String sql) {
+        return Flux.from(connection.createStatement(sql).execute())
+                .concatMap(Result::getRowsUpdated)
+                .reduce(0L, Long::sum);
+    }
+
+    /**
+     * The connection of the transaction is wrapped by the pool and by the {@link DatabaseClient}.
+     */
+    private PostgresqlConnection unwrap(Connection connection) {
+        Object unwrapped = connection;
+        while (!(unwrapped instanceof PostgresqlConnection) && unwrapped instanceof Wrapped<?> wrapped) {
+            unwrapped = wrapped.unwrap();
+        }
+        if (unwrapped instanceof PostgresqlConnection postgresql) {
+            return postgresql;
+        }
+        throw new IllegalStateException("COPY needs a PostgreSQL connection, got: " + connection.getClass().getName());
+    }
+
+}
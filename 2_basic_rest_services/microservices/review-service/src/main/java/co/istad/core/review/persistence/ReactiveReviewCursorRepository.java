@@ -0,0 +1,20 @@
+package co.istad.core.review.persistence;
+
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+public interface ReactiveReviewCursorRepository {
+
+    /**
+     * Non-blocking counterpart of {@link ReviewCursorRepository#streamAllReviews(int)}, rows are
+     * fetched as they are requested.
+     */
+    Flux<ReviewRow> streamAllReviews(int fetchSize);
+
+    /**
+     * Non-blocking counterpart of {@link ReviewCursorRepository#findFirstByProductIdIn(Collection, int)}.
+     */
+    Flux<ReviewRow> findFirstByProductIdIn(Collection<Long> productIds, int limitPerProduct);
+
+}
@@ -0,0 +1,64 @@
+package co.istad.core.review.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class ReactiveReviewCursorRepositoryImpl implements ReactiveReviewCursorRepository {
+
+    private static final String SELECT_ALL = """
+            SELECT id, version, product_id, review_id, author, subject, content
+            FROM reviews
+            ORDER BY product_id, review_id""";
+
+    // Same query as ReviewCursorRepositoryImpl, numbers the reviews of each product in reviews_unique_idx (product_id, review_id) order
+    private static final String SELECT_FIRST_BY_PRODUCT_IDS = """
+            SELECT id, version, product_id, review_id, author, subject, content
+            FROM (SELECT id, version, product_id, review_id, author, subject, content,
+                         ROW_NUMBER() OVER (PARTITION BY product_id ORDER BY review_id) AS position
+                  FROM reviews
+                  WHERE product_id IN (:productIds)) AS numbered
+            WHERE position <= :limitPerProduct
+            ORDER BY product_id, review_id""";
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Flux<ReviewRow> streamAllReviews(int fetchSize) {
+        return databaseClient.sql(SELECT_ALL)
+                // Executes the query as a portal, read fetchSize rows at a time
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(ReactiveReviewCursorRepositoryImpl::toReviewRow)
+                .all();
+    }
+
+    @Override
+    public Flux<ReviewRow> findFirstByProductIdIn(Collection<Long> productIds, int limitPerProduct) {
+        if (productIds.isEmpty()) {
+            return Flux.empty();
+        }
+        // The collection is expanded into one bind marker per productId
+        return databaseClient.sql(SELECT_FIRST_BY_PRODUCT_IDS)
+                .bind("productIds", productIds)
+                .bind("limitPerProduct", limitPerProduct)
+                .map(ReactiveReviewCursorRepositoryImpl::toReviewRow)
+                .all();
+    }
+
+    private static ReviewRow toReviewRow(Readable row) {
+        return ReviewRow.builder()
+                .id(row.get("id", Long.class))
+                .version(row.get("version", Integer.class))
+                .productId(row.get("product_id", Long.class))
+                .reviewId(row.get("review_id", Long.class))
+                .author(row.get("author", String.class))
+                .subject(row.get("subject", String.class))
+                .content(row.get("content", String.class))
+                .build();
+    }
+
+}
@@ -0,0 +1,21 @@
+package co.istad.core.review.persistence;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+public interface ReactiveReviewRepository extends ReactiveCrudRepository<ReviewRow, Long>, ReactiveReviewBatchRepository, ReactiveReviewCopyRepository,
+        ReactiveReviewCursorRepository {
+
+    Flux<ReviewRow> findByProductId(Long productId);
+
+    /**
+     * Keyset read, seeks on reviews_unique_idx (product_id, review_id).
+     */
+    Flux<ReviewRow> findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(Long productId, Long reviewId, Limit limit);
+
+    Flux<ReviewRow> findByProductIdIn(Collection<Long> productIds);
+
+}
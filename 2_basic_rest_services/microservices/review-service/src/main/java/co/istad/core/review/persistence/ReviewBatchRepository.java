@@ -0,0 +1,15 @@
+package co.istad.core.review.persistence;
+
+import java.util.List;
+
+public interface ReviewBatchRepository {
+
+    /**
+     * Inserts all reviews in one JDBC batch, skipping the ones whose productId/reviewId
+     * already exists.
+     *
+     * @return the indexes of the reviews that were skipped as duplicates
+     */
+    List<Integer> insertIgnoringDuplicates(List<Review> reviews);
+
+}
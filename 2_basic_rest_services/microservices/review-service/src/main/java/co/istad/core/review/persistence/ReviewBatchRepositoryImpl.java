@@ -0,0 +1,55 @@
+package co.istad.core.review.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ReviewBatchRepositoryImpl implements ReviewBatchRepository {
+
+    // Relies on the reviews_unique_idx index, a conflicting row reports an update count of 0
+    private static final String INSERT_IGNORING_DUPLICATES = """
+            INSERT INTO reviews (version, product_id, review_id, author, subject, content)
+            VALUES (0, ?, ?, ?, ?, ?)
+            ON CONFLICT (product_id, review_id) DO NOTHING""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public List<Integer> insertIgnoringDuplicates(List<Review> reviews) {
+
+        int[] updateCounts = jdbcTemplate.batchUpdate(INSERT_IGNORING_DUPLICATES, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Review review = reviews.get(i);
+                ps.setLong(1, review.getProductId());
+                ps.setLong(2, review.getReviewId());
+                ps.setString(3, review.getAuthor());
+                ps.setString(4, review.getSubject());
+                ps.setString(5, review.getContent());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return reviews.size();
+            }
+        });
+
+        List<Integer> duplicates = new ArrayList<>();
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == 0) {
+                duplicates.add(i);
+            }
+        }
+        return duplicates;
+    }
+
+}
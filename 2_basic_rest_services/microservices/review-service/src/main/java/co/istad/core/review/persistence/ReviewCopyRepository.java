@@ -0,0 +1,24 @@
+package co.istad.core.review.persistence;
+
+public interface ReviewCopyRepository {
+
+    /**
+     * Loads CSV rows of {@code productId,reviewId,author,subject,content} with {@code COPY FROM STDIN}
+     * into a staging table, and moves them to the reviews table in the same transaction.
+     *
+     * @param csvRows           rows in the CSV format of PostgreSQL, an unquoted empty field is null
+     * @param replaceDuplicates whether a row overwrites an existing review with its productId/reviewId,
+     *                          or is skipped
+     * @return the rows copied and the reviews inserted or replaced
+     */
+    Copied copyReviews(byte[] csvRows, boolean replaceDuplicates);
+
+    record Copied(long rows, long written) {
+
+        public Copied plus(Copied other) {
+            return new Copied(rows + other.rows, written + other.written);
+        }
+
+    }
+
+}
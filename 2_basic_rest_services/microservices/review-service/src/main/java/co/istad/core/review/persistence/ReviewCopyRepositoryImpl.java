@@ -0,0 +1,41 @@
+package co.istad.core.review.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static co.istad.core.review.persistence.ReviewCopySql.COPY_TO_STAGING;
+import static co.istad.core.review.persistence.ReviewCopySql.CREATE_STAGING;
+
+@RequiredArgsConstructor
+public class ReviewCopyRepositoryImpl implements ReviewCopyRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public Copied copyReviews(byte[] csvRows, boolean replaceDuplicates) {
+        jdbcTemplate.execute(CREATE_STAGING);
+
+        // The connection of the transaction, unwrapped from the pool's proxy
+        Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class)
+                        .getCopyAPI()
+                        .copyIn(COPY_TO_STAGING, new ByteArrayInputStream(csvRows));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+
+        int written = jdbcTemplate.update(ReviewCopySql.insert(replaceDuplicates));
+        return new Copied(rows, written);
+    }
+
+}
@@ -0,0 +1,55 @@
+package co.istad.core.review.persistence;
+
+/**
+ * Statements of the COPY based imports, shared by {@link ReviewCopyRepositoryImpl} and
+ * {@link ReactiveReviewCopyRepositoryImpl}.
+ */
+final class ReviewCopySql {
+
+    /**
+     * Session local, so concurrent imports don't see each other's rows, and emptied on commit,
+     * so the next chunk on a pooled connection starts from an empty table. The line keeps the
+     * order of the rows across COPY.
+     */
+    static final String CREATE_STAGING = """
+            CREATE TEMPORARY TABLE IF NOT EXISTS reviews_import (
+                line BIGINT GENERATED ALWAYS AS IDENTITY,
+                product_id BIGINT,
+                review_id BIGINT,
+                author VARCHAR(255),
+                subject VARCHAR(255),
+                content VARCHAR(255)
+            ) ON COMMIT DELETE ROWS""";
+
+    static final String COPY_TO_STAGING = """
+            COPY reviews_import (product_id, review_id, author, subject, content)
+            FROM STDIN (FORMAT csv)""";
+
+    // A statement can't insert the same key twice, so the first row of a key in the chunk is kept
+    static final String INSERT_IGNORING_DUPLICATES = """
+            INSERT INTO reviews (version, product_id, review_id, author, subject, content)
+            SELECT DISTINCT ON (product_id, review_id) 0, product_id, review_id, author, subject, content
+            FROM reviews_import
+            ORDER BY product_id, review_id, line
+            ON CONFLICT (product_id, review_id) DO NOTHING""";
+
+    // The last row of a key in the chunk wins, as if the rows were written one by one
+    static final String INSERT_REPLACING_DUPLICATES = """
+            INSERT INTO reviews (version, product_id, review_id, author, subject, content)
+            SELECT DISTINCT ON (product_id, review_id) 0, product_id, review_id, author, subject, content
+            FROM reviews_import
+            ORDER BY product_id, review_id, line DESC
+            ON CONFLICT (product_id, review_id) DO UPDATE
+            SET version = reviews.version + 1,
+                author = EXCLUDED.author,
+                subject = EXCLUDED.subject,
+                content = EXCLUDED.content""";
+
+    private ReviewCopySql() {
+    }
+
+    static String insert(boolean replaceDuplicates) {
+        return replaceDuplicates ? INSERT_REPLACING_DUPLICATES : INSERT_IGNORING_DUPLICATES;
+    }
+
+}
@@ -0,0 +1,21 @@
+package co.istad.core.review.persistence;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface ReviewCursorRepository {
+
+    /**
+     * Reads all reviews, ordered by productId and reviewId, through a forward-only cursor
+     * fetching {@code fetchSize} rows at a time. The stream holds a connection until it is closed.
+     */
+    Stream<Review> streamAllReviews(int fetchSize);
+
+    /**
+     * Reads the first {@code limitPerProduct} reviews by reviewId of each product, ordered by
+     * productId and reviewId. The rows past the limit are numbered out in the database, not read.
+     */
+    List<Review> findFirstByProductIdIn(Collection<Long> productIds, int limitPerProduct);
+
+}
@@ -0,0 +1,122 @@
+package co.istad.core.review.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+@RequiredArgsConstructor
+public class ReviewCursorRepositoryImpl implements ReviewCursorRepository {
+
+    // Seeks on reviews_unique_idx (product_id, review_id), so rows come in order without a sort
+    private static final String SELECT_ALL = """
+            SELECT id, version, product_id, review_id, author, subject, content
+            FROM reviews
+            ORDER BY product_id, review_id""";
+
+    // Numbers the reviews of each product in reviews_unique_idx (product_id, review_id) order
+    private static final String SELECT_FIRST_BY_PRODUCT_IDS = """
+            SELECT id, version, product_id, review_id, author, subject, content
+            FROM (SELECT id, version, product_id, review_id, author, subject, content,
+                         ROW_NUMBER() OVER (PARTITION BY product_id ORDER BY review_id) AS position
+                  FROM reviews
+                  WHERE product_id IN (:productIds)) AS numbered
+            WHERE position <= :limitPerProduct
+            ORDER BY product_id, review_id""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Stream<Review> streamAllReviews(int fetchSize) {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            // Not the connection of a transaction, the stream is read on other threads
+            connection = jdbcTemplate.getDataSource().getConnection();
+            // PostgreSQL only fetches a result fetchSize rows at a time within a transaction,
+            // with autocommit it reads all of it into memory
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            statement = connection.prepareStatement(SELECT_ALL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            resultSet = statement.executeQuery();
+        } catch (SQLException ex) {
+            close(resultSet, statement, connection);
+            throw jdbcTemplate.getExceptionTranslator().translate("streamAllReviews", SELECT_ALL, ex);
+        }
+
+        ResultSet rows = resultSet;
+        PreparedStatement openStatement = statement;
+        Connection openConnection = connection;
+        Spliterator<Review> reviews = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Review> action) {
+                try {
+                    if (!rows.next()) {
+                        return false;
+                    }
+                    action.accept(toReview(rows));
+                    return true;
+                } catch (SQLException ex) {
+                    throw jdbcTemplate.getExceptionTranslator().translate("streamAllReviews", SELECT_ALL, ex);
+                }
+            }
+        };
+        return StreamSupport.stream(reviews, false)
+                .onClose(() -> close(rows, openStatement, openConnection));
+    }
+
+    @Override
+    public List<Review> findFirstByProductIdIn(Collection<Long> productIds, int limitPerProduct) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        return new NamedParameterJdbcTemplate(jdbcTemplate).query(SELECT_FIRST_BY_PRODUCT_IDS,
+                new MapSqlParameterSource()
+                        .addValue("productIds", productIds)
+                        .addValue("limitPerProduct", limitPerProduct),
+                (rows, rowNum) -> toReview(rows));
+    }
+
+    private static Review toReview(ResultSet rows) throws SQLException {
+        return Review.builder()
+                .id(rows.getLong("id"))
+                .version(rows.getInt("version"))
+                .productId(rows.getObject("product_id", Long.class))
+                .reviewId(rows.getObject("review_id", Long.class))
+                .author(rows.getString("author"))
+                .subject(rows.getString("subject"))
+                .content(rows.getString("content"))
+                .build();
+    }
+
+    private void close(ResultSet resultSet, PreparedStatement statement, Connection connection) {
+        JdbcUtils.closeResultSet(resultSet);
+        JdbcUtils.closeStatement(statement);
+        if (connection != null) {
+            try {
+                // Ends the read-only transaction, the pool restores autocommit
+                connection.rollback();
+            } catch (SQLException ignored) {
+                // Closing the connection is all that's left to do
+            }
+            JdbcUtils.closeConnection(connection);
+        }
+    }
+
+}
@@ -1,13 +1,25 @@
 package co.istad.core.review.persistence;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface ReviewRepository extends CrudRepository<Review, Long> {
+public interface ReviewRepository extends CrudRepository<Review, Long>, ReviewBatchRepository, ReviewCopyRepository,
+        ReviewCursorRepository {
 
     @Transactional(readOnly = true)
     List<Review> findByProductId(Long productId);
 
+    /**
+     * Keyset read, seeks on reviews_unique_idx (product_id, review_id).
+     */
+    @Transactional(readOnly = true)
+    List<Review> findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(Long productId, Long reviewId, Limit limit);
+
+    @Transactional(readOnly = true)
+    List<Review> findByProductIdIn(Collection<Long> productIds);
+
 }
@@ -0,0 +1,29 @@
+package co.istad.core.review.persistence;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * R2DBC mapping of the {@code reviews} table, see {@link Review} for the JPA mapping.
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Table("reviews")
+public class ReviewRow {
+
+    @Id
+    private Long id;
+    @Version
+    private Integer version;
+    private Long productId;
+    private Long reviewId;
+    private String author;
+    private String subject;
+    private String content;
+
+}
@@ -0,0 +1,43 @@
+package co.istad.core.review.service;
+
+import co.istad.api.core.review.ReviewDto;
+import co.istad.core.review.persistence.ReactiveReviewRepository;
+import co.istad.util.bulk.NdjsonExport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking implementation on R2DBC, enabled by the {@code reactive} profile.
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveReviewExportServiceImpl implements ReviewExportService {
+
+	private final ReactiveReviewRepository reviewRepository;
+	private final ReviewMapper reviewMapper;
+	private final ObjectMapper objectMapper;
+	private final int fetchSize;
+
+	public ReactiveReviewExportServiceImpl(
+			ReactiveReviewRepository reviewRepository,
+			ReviewMapper reviewMapper,
+			ObjectMapper objectMapper,
+			@Value("${app.export.fetch-size:1000}") int fetchSize) {
+		this.reviewRepository = reviewRepository;
+		this.reviewMapper = reviewMapper;
+		this.objectMapper = objectMapper;
+		this.fetchSize = fetchSize;
+	}
+
+	@Override
+	public Mono<Void> exportReviews(ServerHttpResponse response) {
+		return NdjsonExport.write(response,
+				reviewRepository.streamAllReviews(fetchSize).map(reviewMapper::rowToApi),
+				objectMapper.writerFor(ReviewDto.class));
+	}
+
+}
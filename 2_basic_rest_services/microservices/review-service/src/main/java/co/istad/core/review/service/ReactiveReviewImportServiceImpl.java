@@ -0,0 +1,28 @@
+package co.istad.core.review.service;
+
+import co.istad.core.review.persistence.ReactiveReviewRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking implementation on the COPY support of R2DBC, enabled by the {@code reactive} profile.
+ */
+@RestController
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveReviewImportServiceImpl implements ReviewImportService {
+
+	private final ReactiveReviewRepository reviewRepository;
+	private final ReviewImporter reviewImporter;
+
+	@Override
+	public Mono<ReviewImportResult> importReviews(Flux<DataBuffer> body, MediaType contentType, String onConflict) {
+		return reviewImporter.importReviews(body, contentType, onConflict, reviewRepository::copyReviews);
+	}
+
+}
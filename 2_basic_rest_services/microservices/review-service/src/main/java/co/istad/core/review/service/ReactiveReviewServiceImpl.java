@@ -0,0 +1,134 @@
+package co.istad.core.review.service;
+
+import co.istad.api.core.BatchResult;
+import co.istad.api.core.CursorPage;
+import co.istad.api.core.review.ReactiveReviewService;
+import co.istad.api.core.review.ReviewDto;
+import co.istad.api.exception.InvalidInputException;
+import co.istad.core.review.persistence.ReactiveReviewRepository;
+import co.istad.core.review.persistence.ReviewRow;
+import co.istad.util.batch.WriteBehindBuffer;
+import co.istad.util.deadline.Deadline;
+import co.istad.util.etag.EntityTag;
+import co.istad.util.http.ServiceUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Non-blocking implementation on R2DBC, enabled by the {@code reactive} profile.
+ */
+@RestController
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveReviewServiceImpl implements ReactiveReviewService {
+
+	private final ServiceUtil serviceUtil;
+	private final ReactiveReviewRepository reviewRepository;
+	private final ReviewMapper reviewMapper;
+	private final Optional<WriteBehindBuffer<ReviewRow>> writeBehind;
+
+	@Override
+	public Mono<ReviewDto> createReview(ReviewDto body) {
+		return Deadline.enforce(Mono.fromCallable(() -> reviewMapper.apiToRow(ReviewValidation.validateIds(body)))
+				.flatMap(this::save)
+				.map(reviewMapper::rowToApi)
+				.doOnNext(review -> log.debug("createReview: created a review entity: {}/{}", body.productId(), body.reviewId()))
+				.onErrorMap(DataIntegrityViolationException.class, ex -> new InvalidInputException("Duplicate key, Product Id: " + body.productId() + ", Review Id:" + body.reviewId())));
+	}
+
+	@Override
+	public Mono<BatchResult> createReviews(List<ReviewDto> body) {
+		// Reviews without ids are reported on their own, they would fail the whole insert
+		return Deadline.enforce(Mono.fromCallable(() -> ReviewValidation.validateBatch(body))
+				.flatMap(batch -> reviewRepository.insertIgnoringDuplicates(batch.reviews().stream()
+								.map(reviewMapper::apiToRow)
+								.toList())
+						.map(batch::result))
+				.doOnNext(result -> log.debug("createReviews: created {} of {} review entities", result.created(), body.size())));
+	}
+
+	@Override
+	public Flux<ReviewDto> getReviews(Long productId) {
+
+		if (productId < 1) {
+			return Flux.error(new InvalidInputException("Invalid productId: " + productId));
+		}
+
+		return Deadline.enforce(EntityTag.record(reviewRepository.findByProductId(productId), ReviewRow::getId, ReviewRow::getVersion)
+				.map(reviewMapper::rowToApi)
+				.map(this::withServiceAddress));
+	}
+
+	@Override
+	public Mono<CursorPage<ReviewDto>> getReviewsPage(Long productId, int limit, String cursor) {
+		return Deadline.enforce(Mono.fromCallable(() -> {
+					if (productId < 1) {
+						throw new InvalidInputException("Invalid productId: " + productId);
+					}
+					CursorPage.validateLimit(limit);
+					return CursorPage.decodeCursor(cursor, productId);
+				})
+				// One extra row tells if there is a following page
+				.flatMap(afterReviewId -> EntityTag.record(reviewRepository.findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(productId, afterReviewId, Limit.of(limit + 1)), ReviewRow::getId, ReviewRow::getVersion)
+						.map(reviewMapper::rowToApi)
+						.map(this::withServiceAddress)
+						.collectList())
+				.map(rows -> CursorPage.fromRows(rows, limit, productId, ReviewDto::reviewId)));
+	}
+
+	@Override
+	public Flux<ReviewDto> getReviewsByProductIds(List<Long> productIds, Integer limitPerProduct) {
+
+		Optional<Long> invalidProductId = productIds.stream()
+				.filter(productId -> productId < 1)
+				.findFirst();
+		if (invalidProductId.isPresent()) {
+			return Flux.error(new InvalidInputException("Invalid productId: " + invalidProductId.get()));
+		}
+
+		// One extra row per product tells if there is a following page
+		Flux<ReviewRow> reviews = limitPerProduct == null ? reviewRepository.findByProductIdIn(productIds)
+				: Mono.fromRunnable(() -> CursorPage.validateLimit(limitPerProduct))
+						.thenMany(reviewRepository.findFirstByProductIdIn(productIds, limitPerProduct + 1));
+		return Deadline.enforce(EntityTag.record(reviews, ReviewRow::getId, ReviewRow::getVersion)
+				.map(reviewMapper::rowToApi)
+				.map(this::withServiceAddress));
+	}
+
+	@Override
+	public Mono<Void> deleteReviews(Long productId) {
+		log.debug("deleteReviews: tries to delete reviews for the product with productId: {}", productId);
+		return Deadline.enforce(reviewRepository.deleteAll(reviewRepository.findByProductId(productId)));
+	}
+
+	private ReviewDto withServiceAddress(ReviewDto r) {
+		return new ReviewDto(r.productId(), r.reviewId(), r.author(), r.subject(), r.content(), serviceUtil.getServiceAddress());
+	}
+
+	/**
+	 * With write-behind enabled, completes once the batch holding the review is committed.
+	 */
+	private Mono<ReviewRow> save(ReviewRow row) {
+		return writeBehind
+				.map(buffer -> Mono.fromFuture(() -> buffer.submit(row))
+						// Keeps the flusher thread free for the next batch
+						.publishOn(Schedulers.parallel())
+						.flatMap(written -> written
+								? Mono.just(row)
+								: Mono.<ReviewRow>error(new DuplicateKeyException("Duplicate review: " + row.getProductId() + "/" + row.getReviewId()))))
+				.orElseGet(() -> reviewRepository.save(row));
+	}
+
+}
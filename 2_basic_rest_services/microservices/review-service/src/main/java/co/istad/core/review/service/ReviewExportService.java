@@ -0,0 +1,24 @@
+package co.istad.core.review.service;
+
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import reactor.core.publisher.Mono;
+
+/**
+ * Export of all reviews, e.g. for the nightly catalog export, for operators rather than the
+ * composite, like {@link ReviewImportService}.
+ */
+public interface ReviewExportService {
+
+	/**
+	 * Sample usage: "curl $HOST:$PORT/reviews/export > reviews.ndjson".
+	 *
+	 * The reviews are streamed from a database cursor as the response is written, ordered by
+	 * productId and reviewId, as NDJSON that POST /reviews/import reads back.
+	 */
+	@GetMapping(
+			value    = "/reviews/export",
+			produces = "application/x-ndjson")
+	Mono<Void> exportReviews(ServerHttpResponse response);
+
+}
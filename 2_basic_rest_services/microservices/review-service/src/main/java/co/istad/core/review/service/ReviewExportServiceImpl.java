@@ -0,0 +1,45 @@
+package co.istad.core.review.service;
+
+import co.istad.api.core.review.ReviewDto;
+import co.istad.core.review.persistence.ReviewRepository;
+import co.istad.util.bulk.NdjsonExport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@RestController
+@Profile("!reactive")
+public class ReviewExportServiceImpl implements ReviewExportService {
+
+	private final ReviewRepository reviewRepository;
+	private final ReviewMapper reviewMapper;
+	private final ObjectMapper objectMapper;
+	private final int fetchSize;
+
+	public ReviewExportServiceImpl(
+			ReviewRepository reviewRepository,
+			ReviewMapper reviewMapper,
+			ObjectMapper objectMapper,
+			@Value("${app.export.fetch-size:1000}") int fetchSize) {
+		this.reviewRepository = reviewRepository;
+		this.reviewMapper = reviewMapper;
+		this.objectMapper = objectMapper;
+		this.fetchSize = fetchSize;
+	}
+
+	@Override
+	public Mono<Void> exportReviews(ServerHttpResponse response) {
+		// The cursor blocks on JDBC, it is closed once the export completes or the client goes away
+		Flux<ReviewDto> reviews = Flux.fromStream(() -> reviewRepository.streamAllReviews(fetchSize))
+				.map(reviewMapper::entityToApi)
+				.subscribeOn(Schedulers.boundedElastic());
+
+		return NdjsonExport.write(response, reviews, objectMapper.writerFor(ReviewDto.class));
+	}
+
+}
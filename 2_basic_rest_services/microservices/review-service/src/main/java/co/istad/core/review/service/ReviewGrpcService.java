@@ -0,0 +1,70 @@
+package co.istad.core.review.service;
+
+import co.istad.api.core.CursorPage;
+import co.istad.api.core.grpc.ListRequest;
+import co.istad.api.core.grpc.ProtoMapper;
+import co.istad.api.core.grpc.ReviewItem;
+import co.istad.api.core.grpc.ReviewsGrpc;
+import co.istad.api.core.review.ReactiveReviewService;
+import co.istad.api.core.review.ReviewDto;
+import co.istad.api.core.review.ReviewService;
+import co.istad.util.grpc.GrpcStreams;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Serves the reviews over the internal gRPC API, see {@link co.istad.util.grpc.GrpcServer},
+ * delegating to the blocking or reactive implementation of the active profile.
+ */
+@Component
+@ConditionalOnProperty(name = "app.grpc.enabled", havingValue = "true")
+@Slf4j
+public class ReviewGrpcService extends ReviewsGrpc.ReviewsImplBase {
+
+	private final ReviewService blockingService;
+	private final ReactiveReviewService reactiveService;
+
+	public ReviewGrpcService(ObjectProvider<ReviewService> blockingService, ObjectProvider<ReactiveReviewService> reactiveService) {
+		this.blockingService = blockingService.getIfAvailable();
+		this.reactiveService = reactiveService.getIfAvailable();
+	}
+
+	@Override
+	public void listReviews(ListRequest request, StreamObserver<ReviewItem> responseObserver) {
+		log.debug("listReviews: productId: {}, limit: {}", request.getProductId(), request.getLimit());
+		GrpcStreams.serve(list(request), responseObserver);
+	}
+
+	private Flux<ReviewItem> list(ListRequest request) {
+		Long productId = request.getProductId();
+
+		if (request.getLimit() == 0) {
+			Flux<ReviewDto> reviews = reactiveService != null
+					? reactiveService.getReviews(productId)
+					: GrpcStreams.fromBlocking(() -> blockingService.getReviews(productId)).flatMapIterable(list -> list);
+			return reviews.map(this::item);
+		}
+
+		int limit = request.getLimit();
+		String cursor = request.getCursor().isEmpty() ? null : request.getCursor();
+		Mono<CursorPage<ReviewDto>> page = reactiveService != null
+				? reactiveService.getReviewsPage(productId, limit, cursor)
+				: GrpcStreams.fromBlocking(() -> blockingService.getReviewsPage(productId, limit, cursor));
+
+		return page.flatMapMany(p -> Flux.fromIterable(p.items())
+				.map(this::item)
+				.concatWith(p.next() == null
+						? Mono.empty()
+						: Mono.just(ReviewItem.newBuilder().setNextCursor(p.next()).build())));
+	}
+
+	private ReviewItem item(ReviewDto review) {
+		return ReviewItem.newBuilder().setReview(ProtoMapper.toProto(review)).build();
+	}
+
+}
@@ -0,0 +1,211 @@
+package co.istad.core.review.service;
+
+import co.istad.api.core.review.ReviewDto;
+import co.istad.api.exception.InvalidInputException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits an uploaded file of reviews, as it arrives, into chunks of CSV rows for
+ * {@link co.istad.core.review.persistence.ReviewCopyRepository}. Only the current row and
+ * chunk are held, never the whole file.
+ * <p>
+ * CSV files need the header {@value #CSV_HEADER}, their rows are passed on as is, a newline
+ * within a quoted field doesn't end a row. NDJSON files have one {@link ReviewDto} per line,
+ * written as a CSV row. Blank lines are skipped. Not thread-safe, one instance per upload.
+ */
+class ReviewImportChunker {
+
+	static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+	static final String CSV_HEADER = "productId,reviewId,author,subject,content";
+
+	/**
+	 * Rows are capped, so a file without newlines can't fill the heap either.
+	 */
+	static final int MAX_ROW_BYTES = 64 * 1024;
+
+	/**
+	 * @param firstRow the number of the first row in the file, starting at 1
+	 * @param csv      the rows, each ending with a newline
+	 */
+	record Chunk(long firstRow, int rows, byte[] csv) {
+
+		long lastRow() {
+			return firstRow + rows - 1;
+		}
+
+	}
+
+	private final boolean csv;
+	private final int chunkRows;
+	private final ObjectMapper objectMapper;
+
+	private final ByteArrayOutputStream row = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+	private int rowsInChunk;
+	private long rows;
+	private boolean quoted;
+	private boolean headerRead;
+
+	ReviewImportChunker(MediaType contentType, int chunkRows, ObjectMapper objectMapper) {
+		if (TEXT_CSV.isCompatibleWith(contentType)) {
+			this.csv = true;
+		} else if (MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)) {
+			this.csv = false;
+		} else {
+			throw new InvalidInputException("Unsupported content type: " + contentType + ", expected text/csv or application/x-ndjson");
+		}
+		this.chunkRows = chunkRows;
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * Consumes and releases the buffer.
+	 *
+	 * @return the chunks completed by the buffer
+	 */
+	List<Chunk> add(DataBuffer buffer) {
+		try {
+			List<Chunk> chunks = new ArrayList<>(1);
+			byte[] bytes = new byte[buffer.readableByteCount()];
+			buffer.read(bytes);
+
+			int start = 0;
+			for (int i = 0; i < bytes.length; i++) {
+				byte b = bytes[i];
+				if (b == '"' && csv) {
+					// An escaped quote toggles twice
+					quoted = !quoted;
+				} else if (b == '\n' && !quoted) {
+					appendToRow(bytes, start, i - start);
+					endRow(chunks);
+					start = i + 1;
+				}
+			}
+			appendToRow(bytes, start, bytes.length - start);
+			return chunks;
+		} finally {
+			DataBufferUtils.release(buffer);
+		}
+	}
+
+	/**
+	 * @return the last, partial chunk, if any
+	 */
+	List<Chunk> finish() {
+		if (quoted) {
+			throw new InvalidInputException("Unterminated quoted field in row " + (rows + 1));
+		}
+		List<Chunk> chunks = new ArrayList<>(1);
+		endRow(chunks);
+		if (rowsInChunk > 0) {
+			chunks.add(takeChunk());
+		}
+		return chunks;
+	}
+
+	private void appendToRow(byte[] bytes, int offset, int length) {
+		if (row.size() + length > MAX_ROW_BYTES) {
+			throw new InvalidInputException("Row " + (rows + 1) + " is longer than " + MAX_ROW_BYTES + " bytes");
+		}
+		row.write(bytes, offset, length);
+	}
+
+	private void endRow(List<Chunk> chunks) {
+		byte[] bytes = row.toByteArray();
+		row.reset();
+		int length = bytes.length;
+		if (length > 0 && bytes[length - 1] == '\r') {
+			length--;
+		}
+		if (isBlank(bytes, length)) {
+			return;
+		}
+
+		if (csv && !headerRead) {
+			String header = new String(bytes, 0, length, StandardCharsets.UTF_8).replace(" ", "");
+			if (!header.equalsIgnoreCase(CSV_HEADER)) {
+				throw new InvalidInputException("Invalid CSV header: " + header + ", expected: " + CSV_HEADER);
+			}
+			headerRead = true;
+			return;
+		}
+
+		rows++;
+		if (csv) {
+			chunk.write(bytes, 0, length);
+		} else {
+			writeCsv(parseReview(bytes, length));
+		}
+		chunk.write('\n');
+		if (++rowsInChunk == chunkRows) {
+			chunks.add(takeChunk());
+		}
+	}
+
+	private static boolean isBlank(byte[] bytes, int length) {
+		for (int i = 0; i < length; i++) {
+			if (bytes[i] != ' ' && bytes[i] != '\t') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private ReviewDto parseReview(byte[] bytes, int length) {
+		ReviewDto review;
+		try {
+			review = objectMapper.readValue(bytes, 0, length, ReviewDto.class);
+		} catch (JsonProcessingException ex) {
+			throw new InvalidInputException("Invalid review in row " + rows + ": " + ex.getOriginalMessage());
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		if (review.productId() == null || review.productId() < 1 || review.reviewId() == null) {
+			throw new InvalidInputException("Invalid productId or reviewId in row " + rows);
+		}
+		return review;
+	}
+
+	private void writeCsv(ReviewDto review) {
+		writeCsvField(String.valueOf(review.productId()), false);
+		chunk.write(',');
+		writeCsvField(String.valueOf(review.reviewId()), false);
+		chunk.write(',');
+		writeCsvField(review.author(), true);
+		chunk.write(',');
+		writeCsvField(review.subject(), true);
+		chunk.write(',');
+		writeCsvField(review.content(), true);
+	}
+
+	/**
+	 * Nulls are left empty and unquoted, which COPY reads as null, strings are quoted.
+	 */
+	private void writeCsvField(String value, boolean quote) {
+		if (value == null) {
+			return;
+		}
+		String field = quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+		chunk.writeBytes(field.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private Chunk takeChunk() {
+		Chunk taken = new Chunk(rows - rowsInChunk + 1, rowsInChunk, chunk.toByteArray());
+		chunk.reset();
+		rowsInChunk = 0;
+		return taken;
+	}
+
+}
@@ -0,0 +1,20 @@
+package co.istad.core.review.service;
+
+/**
+ * Outcome of a bulk import of reviews.
+ *
+ * @param rows          rows read from the file
+ * @param written       reviews inserted, or replaced with {@code onConflict=replace}
+ * @param skipped       rows not written, as their productId/reviewId already existed or repeated
+ *                      in the same chunk
+ * @param elapsedMillis time from the first byte read to the last chunk committed
+ * @param rowsPerSecond rows imported per second over the elapsed time
+ */
+public record ReviewImportResult(
+		long rows,
+		long written,
+		long skipped,
+		long elapsedMillis,
+		long rowsPerSecond
+) {
+}
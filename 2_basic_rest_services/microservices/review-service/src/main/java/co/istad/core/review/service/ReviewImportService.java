@@ -0,0 +1,47 @@
+package co.istad.core.review.service;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Bulk import of reviews, e.g. to backfill their history, for operators rather than the
+ * composite, so it isn't part of {@link co.istad.api.core.review.ReviewService}.
+ */
+public interface ReviewImportService {
+
+	/**
+	 * Sample usage, see below.
+	 *
+	 * curl -X POST "$HOST:$PORT/reviews/import?onConflict=skip" \
+	 *   -H "Content-Type: application/x-ndjson" --data-binary @reviews.ndjson
+	 *
+	 * curl -X POST "$HOST:$PORT/reviews/import" \
+	 *   -H "Content-Type: text/csv" --data-binary @reviews.csv
+	 *
+	 * The file is streamed to the database in chunks, each committed on its own. If a chunk
+	 * fails, the import stops with the rows of the chunk in the error message, the earlier
+	 * chunks stay imported, so the file can be imported again with the same onConflict.
+	 *
+	 * @param body       NDJSON with a review per line, or CSV with the header
+	 *                   "productId,reviewId,author,subject,content"
+	 * @param onConflict skip, to keep an existing review with the same productId/reviewId,
+	 *                   or replace, to overwrite it
+	 * @return the rows imported and the rate they were imported at
+	 */
+	@PostMapping(
+			value    = "/reviews/import",
+			consumes = {"application/x-ndjson", "text/csv"},
+			produces = "application/json")
+	Mono<ReviewImportResult> importReviews(
+			@RequestBody Flux<DataBuffer> body,
+			@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+			@RequestParam(value = "onConflict", defaultValue = "skip") String onConflict);
+
+}
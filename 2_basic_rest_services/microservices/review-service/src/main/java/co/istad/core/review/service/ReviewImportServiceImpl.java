@@ -0,0 +1,29 @@
+package co.istad.core.review.service;
+
+import co.istad.core.review.persistence.ReviewRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@RestController
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class ReviewImportServiceImpl implements ReviewImportService {
+
+	private final ReviewRepository reviewRepository;
+	private final ReviewImporter reviewImporter;
+
+	@Override
+	public Mono<ReviewImportResult> importReviews(Flux<DataBuffer> body, MediaType contentType, String onConflict) {
+		// The upload is read on the event loop, the COPY of each chunk blocks on JDBC
+		return reviewImporter.importReviews(body, contentType, onConflict, (csvRows, replaceDuplicates) ->
+				Mono.fromCallable(() -> reviewRepository.copyReviews(csvRows, replaceDuplicates))
+						.subscribeOn(Schedulers.boundedElastic()));
+	}
+
+}
@@ -0,0 +1,103 @@
+package co.istad.core.review.service;
+
+import co.istad.api.exception.InvalidInputException;
+import co.istad.core.review.persistence.ReviewCopyRepository.Copied;
+import co.istad.core.review.service.ReviewImportChunker.Chunk;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.spi.R2dbcException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.sql.SQLException;
+import java.util.function.BiFunction;
+
+/**
+ * Streams an uploaded file of reviews through {@link ReviewImportChunker} to a COPY of
+ * {@code chunk-rows} rows at a time, shared by the blocking and the reactive import.
+ * <p>
+ * A chunk is only read once the previous one is copied, so the upload is paced by the
+ * database, and a slow database holds at most the chunk being copied, the one being read
+ * and the buffers in between, whatever the size of the file.
+ */
+@Component
+@Slf4j
+class ReviewImporter {
+
+	private final ObjectMapper objectMapper;
+	private final int chunkRows;
+
+	ReviewImporter(ObjectMapper objectMapper, @Value("${app.import.chunk-rows:10000}") int chunkRows) {
+		this.objectMapper = objectMapper;
+		this.chunkRows = chunkRows;
+	}
+
+	/**
+	 * @param copy copies the CSV rows of a chunk, replacing duplicates if told so
+	 */
+	Mono<ReviewImportResult> importReviews(
+			Flux<DataBuffer> body,
+			MediaType contentType,
+			String onConflict,
+			BiFunction<byte[], Boolean, Mono<Copied>> copy) {
+
+		boolean replaceDuplicates = replaceDuplicates(onConflict);
+		return Mono.defer(() -> {
+			ReviewImportChunker chunker = new ReviewImportChunker(contentType, chunkRows, objectMapper);
+			long start = System.nanoTime();
+
+			return body.concatMapIterable(chunker::add)
+					.concatWith(Flux.defer(() -> Flux.fromIterable(chunker.finish())))
+					.concatMap(chunk -> copy.apply(chunk.csv(), replaceDuplicates)
+							.doOnNext(copied -> log.debug("importReviews: copied rows {} to {}, {} written", chunk.firstRow(), chunk.lastRow(), copied.written()))
+							.onErrorMap(ReviewImporter::isInvalidData, ex -> invalidChunk(chunk, ex)), 1)
+					.reduce(new Copied(0, 0), Copied::plus)
+					.map(copied -> {
+						long elapsedNanos = Math.max(1, System.nanoTime() - start);
+						long rowsPerSecond = copied.rows() * 1_000_000_000L / elapsedNanos;
+						log.info("importReviews: imported {} rows, {} written, in {} ms, {} rows/s",
+								copied.rows(), copied.written(), elapsedNanos / 1_000_000, rowsPerSecond);
+						return new ReviewImportResult(copied.rows(), copied.written(), copied.rows() - copied.written(),
+								elapsedNanos / 1_000_000, rowsPerSecond);
+					});
+		});
+	}
+
+	private static boolean replaceDuplicates(String onConflict) {
+		return switch (onConflict) {
+			case "skip" -> false;
+			case "replace" -> true;
+			default -> throw new InvalidInputException("Invalid onConflict: " + onConflict + ", expected skip or replace");
+		};
+	}
+
+	/**
+	 * Rows COPY can't read, or that break a constraint, are reported as data exceptions or
+	 * integrity constraint violations, JDBC and R2DBC translate them to different exceptions.
+	 */
+	private static boolean isInvalidData(Throwable ex) {
+		for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+			String sqlState = cause instanceof SQLException sql ? sql.getSQLState()
+					: cause instanceof R2dbcException r2dbc ? r2dbc.getSqlState()
+					: null;
+			if (sqlState != null) {
+				return sqlState.startsWith("22") || sqlState.startsWith("23");
+			}
+		}
+		return false;
+	}
+
+	private static InvalidInputException invalidChunk(Chunk chunk, Throwable ex) {
+		Throwable cause = ex;
+		while (cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		return new InvalidInputException("Could not import rows " + chunk.firstRow() + " to " + chunk.lastRow()
+				+ ", the rows before them are imported: " + cause.getMessage());
+	}
+
+}
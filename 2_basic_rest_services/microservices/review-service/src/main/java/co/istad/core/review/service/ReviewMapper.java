@@ -2,6 +2,7 @@ package co.istad.core.review.service;
 
 import co.istad.api.core.review.ReviewDto;
 import co.istad.core.review.persistence.Review;
+import co.istad.core.review.persistence.ReviewRow;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Mappings;
@@ -22,6 +23,17 @@ public interface ReviewMapper {
 	})
 	Review apiToEntity(ReviewDto api);
 
+	@Mappings({
+			@Mapping(target = "serviceAddress", ignore = true)
+	})
+	ReviewDto rowToApi(ReviewRow row);
+
+	@Mappings({
+			@Mapping(target = "id", ignore = true),
+			@Mapping(target = "version", ignore = true)
+	})
+	ReviewRow apiToRow(ReviewDto api);
+
 	List<Review> entityListToApiList(List<Review> entity);
 
 	List<Review> apiListToEntityList(List<Review> api);
@@ -1,20 +1,29 @@
 package co.istad.core.review.service;
 
+import co.istad.api.core.BatchResult;
+import co.istad.api.core.CursorPage;
 import co.istad.api.core.review.ReviewDto;
 import co.istad.api.core.review.ReviewService;
 import co.istad.api.exception.InvalidInputException;
 import co.istad.core.review.persistence.Review;
 import co.istad.core.review.persistence.ReviewRepository;
+import co.istad.util.batch.WriteBehindBuffer;
+import co.istad.util.deadline.Deadline;
+import co.istad.util.etag.EntityTag;
 import co.istad.util.http.ServiceUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
+@Profile("!reactive")
 @RequiredArgsConstructor
 @Slf4j
 public class ReviewServiceImpl implements ReviewService {
@@ -22,12 +31,14 @@ public class ReviewServiceImpl implements ReviewService {
 	private final ServiceUtil serviceUtil;
 	private final ReviewRepository reviewRepository;
 	private final ReviewMapper reviewMapper;
+	private final Optional<WriteBehindBuffer<Review>> writeBehind;
 
 	@Override
 	public ReviewDto createReview(ReviewDto body) {
+		Deadline.checkCurrent();
 		try {
-			Review entity = reviewMapper.apiToEntity(body);
-			Review newEntity = reviewRepository.save(entity);
+			Review entity = reviewMapper.apiToEntity(ReviewValidation.validateIds(body));
+			Review newEntity = save(entity);
 
 			log.debug("createReview: created a review entity: {}/{}", body.productId(), body.reviewId());
 			return reviewMapper.entityToApi(newEntity);
@@ -37,31 +48,105 @@ public class ReviewServiceImpl implements ReviewService {
 		}
 	}
 
+	@Override
+	public BatchResult createReviews(List<ReviewDto> body) {
+		Deadline.checkCurrent();
+		// Reviews without ids are reported on their own, they would fail the whole insert
+		ReviewValidation.ValidBatch batch = ReviewValidation.validateBatch(body);
+		List<Review> entities = batch.reviews().stream()
+				.map(reviewMapper::apiToEntity)
+				.toList();
+
+		List<Integer> duplicates = entities.isEmpty() ? List.of() : reviewRepository.insertIgnoringDuplicates(entities);
+		BatchResult result = batch.result(duplicates);
+
+		log.debug("createReviews: created {} of {} review entities", result.created(), body.size());
+		return result;
+	}
+
 	@Override
 	public List<ReviewDto> getReviews(Long productId) {
+		Deadline.checkCurrent();
+		if (productId < 1) {
+			throw new InvalidInputException("Invalid productId: " + productId);
+		}
+
+		List<ReviewDto> list = EntityTag.recordAll(reviewRepository.findByProductId(productId), Review::getId, Review::getVersion).stream()
+				.map(reviewMapper::entityToApi)
+				.map(r -> new ReviewDto(r.productId(), r.reviewId(), r.author(), r.subject(), r.content(), serviceUtil.getServiceAddress()))
+				.toList();
+
+		log.debug("/reviews response size: {}", list.size());
+
+		return list;
+	}
+
+	@Override
+	public CursorPage<ReviewDto> getReviewsPage(Long productId, int limit, String cursor) {
+		Deadline.checkCurrent();
+
 		if (productId < 1) {
 			throw new InvalidInputException("Invalid productId: " + productId);
 		}
+		CursorPage.validateLimit(limit);
+		Long afterReviewId = CursorPage.decodeCursor(cursor, productId);
+
+		// One extra row tells if there is a following page
+		List<ReviewDto> rows = EntityTag.recordAll(reviewRepository.findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(productId, afterReviewId, Limit.of(limit + 1)), Review::getId, Review::getVersion).stream()
+				.map(reviewMapper::entityToApi)
+				.map(r -> new ReviewDto(r.productId(), r.reviewId(), r.author(), r.subject(), r.content(), serviceUtil.getServiceAddress()))
+				.toList();
+
+		log.debug("/reviews page size: {} for productId: {}", Math.min(rows.size(), limit), productId);
+
+		return CursorPage.fromRows(rows, limit, productId, ReviewDto::reviewId);
+	}
 
-		if (productId == 213) {
-			log.debug("No reviews found for productId: {}", productId);
-			return new ArrayList<>();
+	@Override
+	public List<ReviewDto> getReviewsByProductIds(List<Long> productIds, Integer limitPerProduct) {
+		Deadline.checkCurrent();
+
+		productIds.stream()
+				.filter(productId -> productId < 1)
+				.findFirst()
+				.ifPresent(productId -> {
+					throw new InvalidInputException("Invalid productId: " + productId);
+				});
+		if (limitPerProduct != null) {
+			CursorPage.validateLimit(limitPerProduct);
 		}
 
-		List<ReviewDto> list = new ArrayList<>();
-		list.add(new ReviewDto(productId, 1L, "Author 1", "Subject 1", "Content 1", serviceUtil.getServiceAddress()));
-		list.add(new ReviewDto(productId, 2L, "Author 2", "Subject 2", "Content 2", serviceUtil.getServiceAddress()));
-		list.add(new ReviewDto(productId, 3L, "Author 3", "Subject 3", "Content 3", serviceUtil.getServiceAddress()));
+		// One extra row per product tells if there is a following page
+		List<Review> reviews = limitPerProduct == null ? reviewRepository.findByProductIdIn(productIds)
+				: reviewRepository.findFirstByProductIdIn(productIds, limitPerProduct + 1);
+		List<ReviewDto> list = EntityTag.recordAll(reviews, Review::getId, Review::getVersion).stream()
+				.map(reviewMapper::entityToApi)
+				.map(r -> new ReviewDto(r.productId(), r.reviewId(), r.author(), r.subject(), r.content(), serviceUtil.getServiceAddress()))
+				.toList();
 
-		log.debug("/reviews response size: {}", list.size());
+		log.debug("/reviews response size: {} for {} productIds", list.size(), productIds.size());
 
 		return list;
 	}
 
 	@Override
 	public void deleteReviews(Long productId) {
+		Deadline.checkCurrent();
 		log.debug("deleteReviews: tries to delete reviews for the product with productId: {}", productId);
 		reviewRepository.deleteAll(reviewRepository.findByProductId(productId));
 	}
 
+	/**
+	 * With write-behind enabled, waits for the batch holding the review to be committed.
+	 */
+	private Review save(Review entity) {
+		if (writeBehind.isEmpty()) {
+			return reviewRepository.save(entity);
+		}
+		if (!writeBehind.get().write(entity)) {
+			throw new DuplicateKeyException("Duplicate review: " + entity.getProductId() + "/" + entity.getReviewId());
+		}
+		return entity;
+	}
+
 }
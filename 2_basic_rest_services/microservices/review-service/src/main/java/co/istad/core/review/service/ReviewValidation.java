@@ -0,0 +1,84 @@
+package co.istad.core.review.service;
+
+import co.istad.api.core.BatchResult;
+import co.istad.api.core.review.ReviewDto;
+import co.istad.api.exception.InvalidInputException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Checks of reviews to create, applied before they reach an insert. A review without ids
+ * would otherwise fail the whole batch it is written in, e.g. with write-behind enabled.
+ */
+final class ReviewValidation {
+
+	private ReviewValidation() {
+	}
+
+	/**
+	 * @return why the ids of the review are invalid, or {@code null} if they are valid
+	 */
+	static String invalidIds(ReviewDto review) {
+		if (review.productId() == null || review.productId() < 1 || review.reviewId() == null) {
+			return "Invalid productId or reviewId: " + review.productId() + "/" + review.reviewId();
+		}
+		return null;
+	}
+
+	/**
+	 * @throws InvalidInputException if the ids of the review are invalid
+	 */
+	static ReviewDto validateIds(ReviewDto review) {
+		String invalid = invalidIds(review);
+		if (invalid != null) {
+			throw new InvalidInputException(invalid);
+		}
+		return review;
+	}
+
+	/**
+	 * The reviews of a batch with valid ids, and the errors of the others.
+	 *
+	 * @param indexes the index in the batch of each valid review
+	 */
+	record ValidBatch(List<ReviewDto> reviews, List<Integer> indexes, List<BatchResult.ItemError> errors) {
+
+		/**
+		 * @param duplicates indexes of the valid reviews rejected as duplicates
+		 */
+		BatchResult result(List<Integer> duplicates) {
+			List<BatchResult.ItemError> all = new ArrayList<>(errors);
+			for (int index : duplicates) {
+				ReviewDto review = reviews.get(index);
+				all.add(new BatchResult.ItemError(indexes.get(index),
+						"Duplicate key, Product Id: " + review.productId() + ", Review Id:" + review.reviewId()));
+			}
+			all.sort(Comparator.comparingInt(BatchResult.ItemError::index));
+			return new BatchResult(reviews.size() - duplicates.size(), all);
+		}
+
+	}
+
+	/**
+	 * @throws InvalidInputException if the batch holds more than {@value BatchResult#MAX_ITEMS} reviews
+	 */
+	static ValidBatch validateBatch(List<ReviewDto> body) {
+		BatchResult.validateSize(body);
+		List<ReviewDto> reviews = new ArrayList<>(body.size());
+		List<Integer> indexes = new ArrayList<>(body.size());
+		List<BatchResult.ItemError> errors = new ArrayList<>();
+		for (int i = 0; i < body.size(); i++) {
+			String invalid = invalidIds(body.get(i));
+			if (invalid == null) {
+				reviews.add(body.get(i));
+				indexes.add(i);
+			} else {
+				errors.add(new BatchResult.ItemError(i, invalid));
+			}
+		}
+		return new ValidBatch(reviews, indexes, errors);
+	}
+
+}
@@ -0,0 +1,56 @@
+package co.istad.core.review.service;
+
+import co.istad.core.review.persistence.ReactiveReviewRepository;
+import co.istad.core.review.persistence.Review;
+import co.istad.core.review.persistence.ReviewRepository;
+import co.istad.core.review.persistence.ReviewRow;
+import co.istad.util.batch.WriteBehindBuffer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Duration;
+
+/**
+ * Opt-in write-behind of {@code createReview}: creates are queued and inserted in batches of
+ * up to {@code max-batch-size}, at most {@code max-delay} after the first of a batch, with the
+ * same insert as {@code createReviews}. A create responds once its batch is committed.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.write-behind.enabled", havingValue = "true")
+public class ReviewWriteBehindConfig {
+
+	private final int capacity;
+	private final int maxBatchSize;
+	private final Duration maxDelay;
+
+	public ReviewWriteBehindConfig(
+			@Value("${app.write-behind.capacity:8192}") int capacity,
+			@Value("${app.write-behind.max-batch-size:500}") int maxBatchSize,
+			@Value("${app.write-behind.max-delay:5ms}") Duration maxDelay) {
+		this.capacity = capacity;
+		this.maxBatchSize = maxBatchSize;
+		this.maxDelay = maxDelay;
+	}
+
+	@Bean(destroyMethod = "close")
+	@Profile("!reactive")
+	public WriteBehindBuffer<Review> reviewWriteBehind(ReviewRepository reviewRepository, MeterRegistry meterRegistry) {
+		return new WriteBehindBuffer<>("reviews", capacity, maxBatchSize, maxDelay,
+				reviewRepository::insertIgnoringDuplicates, meterRegistry);
+	}
+
+	/**
+	 * The flusher is a thread of its own, waiting for the insert there doesn't hold up an event loop.
+	 */
+	@Bean(destroyMethod = "close")
+	@Profile("reactive")
+	public WriteBehindBuffer<ReviewRow> reactiveReviewWriteBehind(ReactiveReviewRepository reviewRepository, MeterRegistry meterRegistry) {
+		return new WriteBehindBuffer<>("reviews", capacity, maxBatchSize, maxDelay,
+				batch -> reviewRepository.insertIgnoringDuplicates(batch).block(), meterRegistry);
+	}
+
+}
@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS reviews (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version INTEGER NOT NULL,
+    product_id BIGINT,
+    review_id BIGINT,
+    author VARCHAR(255),
+    subject VARCHAR(255),
+    content VARCHAR(255)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS reviews_unique_idx ON reviews (product_id, review_id);
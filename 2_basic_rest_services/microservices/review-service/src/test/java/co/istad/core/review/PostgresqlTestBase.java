@@ -19,6 +19,10 @@ public abstract class PostgresqlTestBase {
         registry.add("spring.datasource.url", database::getJdbcUrl);
         registry.add("spring.datasource.username", database::getUsername);
         registry.add("spring.datasource.password", database::getPassword);
+        registry.add("spring.r2dbc.url", () -> "r2dbc:postgresql://" + database.getHost() + ":"
+                + database.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + database.getDatabaseName());
+        registry.add("spring.r2dbc.username", database::getUsername);
+        registry.add("spring.r2dbc.password", database::getPassword);
     }
 
 }
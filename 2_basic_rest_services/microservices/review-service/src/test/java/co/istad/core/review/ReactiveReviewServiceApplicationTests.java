@@ -0,0 +1,61 @@
+package co.istad.core.review;
+
+import co.istad.api.core.review.ReviewDto;
+import co.istad.core.review.persistence.ReactiveReviewRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * API tests against {@link co.istad.core.review.service.ReactiveReviewServiceImpl}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+class ReactiveReviewServiceApplicationTests extends ReviewServiceApplicationTests {
+
+	@Override
+	Reviews reviews(ApplicationContext context) {
+		ReactiveReviewRepository reviewRepository = context.getBean(ReactiveReviewRepository.class);
+		return new Reviews() {
+
+			@Override
+			public void deleteAll() {
+				reviewRepository.deleteAll().block();
+			}
+
+			@Override
+			public long count() {
+				return reviewRepository.count().block();
+			}
+
+			@Override
+			public List<ReviewDto> findByProductId(Long productId) {
+				return reviewRepository.findByProductId(productId)
+						.map(review -> new ReviewDto(review.getProductId(), review.getReviewId(), review.getAuthor(), review.getSubject(), review.getContent(), null))
+						.collectList()
+						.block();
+			}
+		};
+	}
+
+	// Unlike the write-behind buffer of the blocking mode, the reactive mode writes the review before answering
+	@Test
+	@Override
+	void duplicateError() {
+
+		postAndVerifyReview(1L, 1L, HttpStatus.OK);
+
+		postAndVerifyReview(1L, 1L, HttpStatus.UNPROCESSABLE_ENTITY)
+				.jsonPath("$.path").isEqualTo("/reviews")
+				.jsonPath("$.message").isEqualTo("Duplicate key, Product Id: 1, Review Id:1");
+
+		assertEquals(1L, repository.count());
+	}
+
+}
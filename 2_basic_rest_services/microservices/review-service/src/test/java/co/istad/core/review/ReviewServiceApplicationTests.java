@@ -1,32 +1,86 @@
 package co.istad.core.review;
 
+import co.istad.api.core.BatchResult;
+import co.istad.api.core.CursorPage;
 import co.istad.api.core.review.ReviewDto;
+import co.istad.core.review.persistence.Review;
 import co.istad.core.review.persistence.ReviewRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.stream.LongStream;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+/**
+ * API tests against {@link co.istad.core.review.service.ReviewServiceImpl}, run against the
+ * reactive implementation by {@link ReactiveReviewServiceApplicationTests}.
+ */
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 class ReviewServiceApplicationTests extends PostgresqlTestBase {
 
+	/**
+	 * The stored reviews, read with the repository of the mode under test.
+	 */
+	interface Reviews {
+
+		void deleteAll();
+
+		long count();
+
+		List<ReviewDto> findByProductId(Long productId);
+
+	}
+
 	@Autowired
-	private WebTestClient client;
+	WebTestClient client;
 
 	@Autowired
-	private ReviewRepository repository;
+	private ApplicationContext context;
+
+	Reviews repository;
 
 	@BeforeEach
 	void setupDb() {
+		repository = reviews(context);
 		repository.deleteAll();
 	}
 
+	Reviews reviews(ApplicationContext context) {
+		ReviewRepository reviewRepository = context.getBean(ReviewRepository.class);
+		return new Reviews() {
+
+			@Override
+			public void deleteAll() {
+				reviewRepository.deleteAll();
+			}
+
+			@Override
+			public long count() {
+				return reviewRepository.count();
+			}
+
+			@Override
+			public List<ReviewDto> findByProductId(Long productId) {
+				return reviewRepository.findByProductId(productId).stream()
+						.map(ReviewServiceApplicationTests::toDto)
+						.toList();
+			}
+		};
+	}
+
 	@Test
 	void getReviewsByProductId() {
 
@@ -36,15 +90,267 @@ class ReviewServiceApplicationTests extends PostgresqlTestBase {
 
 		postAndVerifyReview(productId, 1L, HttpStatus.OK);
 		postAndVerifyReview(productId, 2L, HttpStatus.OK);
-		postAndVerifyReview(productId, 3L, HttpStatus.OK);
+		postAndVerifyReview(2L, 3L, HttpStatus.OK);
 
-		assertEquals(3L, repository.findByProductId(productId).size());
+		assertEquals(2, repository.findByProductId(productId).size());
 
+		// Read from the database in both modes
 		getAndVerifyReviewsByProductId(productId, HttpStatus.OK)
+				.jsonPath("$.length()").isEqualTo(2)
+				.jsonPath("$[1].productId").isEqualTo(productId)
+				.jsonPath("$[1].reviewId").isEqualTo(2)
+				.jsonPath("$[1].author").isEqualTo("Author 2");
+
+		getAndVerifyReviewsByProductId(3L, HttpStatus.OK)
+				.jsonPath("$.length()").isEqualTo(0);
+	}
+
+	@Test
+	void invalidIdsError() {
+
+		postAndVerifyReview(null, 1L, HttpStatus.UNPROCESSABLE_ENTITY)
+				.jsonPath("$.message").isEqualTo("Invalid productId or reviewId: null/1");
+
+		assertEquals(0, repository.count());
+	}
+
+	@Test
+	void getReviewsByProductIds() {
+
+		postAndVerifyReview(1L, 1L, HttpStatus.OK);
+		postAndVerifyReview(1L, 2L, HttpStatus.OK);
+		postAndVerifyReview(2L, 1L, HttpStatus.OK);
+		postAndVerifyReview(3L, 1L, HttpStatus.OK);
+
+		getAndVerifyReviewsByProductId("?productIds=1,2", HttpStatus.OK)
+				.jsonPath("$.length()").isEqualTo(3);
+	}
+
+	@Test
+	void getReviewsByProductIdsFirstPage() {
+
+		postAndVerifyReview(1L, 3L, HttpStatus.OK);
+		postAndVerifyReview(1L, 1L, HttpStatus.OK);
+		postAndVerifyReview(1L, 2L, HttpStatus.OK);
+		postAndVerifyReview(2L, 1L, HttpStatus.OK);
+
+		// One page of one, plus one to tell there is a following page
+		getAndVerifyReviewsByProductId("?productIds=2,1&limitPerProduct=1", HttpStatus.OK)
 				.jsonPath("$.length()").isEqualTo(3)
-				.jsonPath("$[2].productId").isEqualTo(productId)
-				.jsonPath("$[2].reviewId").isEqualTo(3);
+				.jsonPath("$[0].productId").isEqualTo(1)
+				.jsonPath("$[0].reviewId").isEqualTo(1)
+				.jsonPath("$[1].productId").isEqualTo(1)
+				.jsonPath("$[1].reviewId").isEqualTo(2)
+				.jsonPath("$[2].productId").isEqualTo(2);
+
+		getAndVerifyReviewsByProductId("?productIds=1&limitPerProduct=" + (CursorPage.MAX_LIMIT + 1), HttpStatus.UNPROCESSABLE_ENTITY)
+				.jsonPath("$.message").isEqualTo("Invalid limit: " + (CursorPage.MAX_LIMIT + 1) + ", must be between 1 and " + CursorPage.MAX_LIMIT);
+	}
+
+	@Test
+	void getReviewsNotModified() {
+
+		postAndVerifyReview(1L, 1L, HttpStatus.OK);
+		postAndVerifyReview(1L, 2L, HttpStatus.OK);
+
+		String etag = client.get()
+				.uri("/reviews?productId=1&limit=10")
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.returnResult(String.class)
+				.getResponseHeaders()
+				.getETag();
+		assertNotNull(etag);
+
+		client.get()
+				.uri("/reviews?productId=1&limit=10")
+				.accept(MediaType.APPLICATION_JSON)
+				.ifNoneMatch(etag)
+				.exchange()
+				.expectStatus().isNotModified()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+				.expectBody().isEmpty();
+
+		// Another review changes the page, and so its tag
+		postAndVerifyReview(1L, 3L, HttpStatus.OK);
+
+		client.get()
+				.uri("/reviews?productId=1&limit=10")
+				.accept(MediaType.APPLICATION_JSON)
+				.ifNoneMatch(etag)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.items.length()").isEqualTo(3);
+	}
+
+	@Test
+	void getReviewsPageByPage() {
+
+		postAndVerifyReview(1L, 3L, HttpStatus.OK);
+		postAndVerifyReview(1L, 1L, HttpStatus.OK);
+		postAndVerifyReview(1L, 2L, HttpStatus.OK);
+		postAndVerifyReview(2L, 4L, HttpStatus.OK);
+
+		CursorPage<ReviewDto> firstPage = client.get()
+				.uri("/reviews?productId=1&limit=2")
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(new ParameterizedTypeReference<CursorPage<ReviewDto>>() {})
+				.returnResult().getResponseBody();
+
+		assertEquals(List.of(1L, 2L), firstPage.items().stream().map(ReviewDto::reviewId).toList());
+		String next = firstPage.next();
+
+		getAndVerifyReviewsByProductId("?productId=1&limit=2&cursor=" + next, HttpStatus.OK)
+				.jsonPath("$.items.length()").isEqualTo(1)
+				.jsonPath("$.items[0].reviewId").isEqualTo(3)
+				.jsonPath("$.next").isEmpty();
+
+		getAndVerifyReviewsByProductId("?productId=2&limit=2&cursor=" + next, HttpStatus.UNPROCESSABLE_ENTITY)
+				.jsonPath("$.message").isEqualTo("Invalid cursor: " + next);
+	}
+
+	@Test
+	void createReviewsInBatchWithInvalidIds() {
+
+		List<ReviewDto> reviews = List.of(
+				new ReviewDto(1L, null, "Author 1", "Subject 1", "Content 1", "SA"),
+				new ReviewDto(1L, 2L, "Author 2", "Subject 2", "Content 2", "SA"),
+				new ReviewDto(null, 3L, "Author 3", "Subject 3", "Content 3", "SA"));
+
+		client.post()
+				.uri("/reviews/batch")
+				.bodyValue(reviews)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.created").isEqualTo(1)
+				.jsonPath("$.errors.length()").isEqualTo(2)
+				.jsonPath("$.errors[0].index").isEqualTo(0)
+				.jsonPath("$.errors[0].message").isEqualTo("Invalid productId or reviewId: 1/null")
+				.jsonPath("$.errors[1].index").isEqualTo(2);
+
+		assertEquals(1, repository.findByProductId(1L).size());
+	}
 
+	@Test
+	void createReviewsInTooLargeBatch() {
+
+		List<ReviewDto> reviews = LongStream.rangeClosed(1, BatchResult.MAX_ITEMS + 1)
+				.mapToObj(reviewId -> new ReviewDto(1L, reviewId, "Author", "Subject", "Content", "SA"))
+				.toList();
+
+		client.post()
+				.uri("/reviews/batch")
+				.bodyValue(reviews)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY)
+				.expectBody()
+				.jsonPath("$.message").isEqualTo("At most " + BatchResult.MAX_ITEMS + " items can be written per request, got: " + (BatchResult.MAX_ITEMS + 1));
+	}
+
+	@Test
+	void createReviewsInBatch() {
+
+		postAndVerifyReview(1L, 1L, HttpStatus.OK);
+
+		List<ReviewDto> reviews = List.of(
+				new ReviewDto(1L, 1L, "Author 1", "Subject 1", "Content 1", "SA"),
+				new ReviewDto(1L, 2L, "Author 2", "Subject 2", "Content 2", "SA"),
+				new ReviewDto(1L, 3L, "Author 3", "Subject 3", "Content 3", "SA"));
+
+		client.post()
+				.uri("/reviews/batch")
+				.bodyValue(reviews)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.created").isEqualTo(2)
+				.jsonPath("$.errors.length()").isEqualTo(1)
+				.jsonPath("$.errors[0].index").isEqualTo(0);
+
+		assertEquals(3, repository.findByProductId(1L).size());
+	}
+
+	@Test
+	void importReviews() {
+
+		postAndVerifyReview(1L, 1L, HttpStatus.OK);
+
+		String csv = """
+				productId,reviewId,author,subject,content
+				1,1,Author 1,Subject 1,Content 1
+				1,2,Author 2,"Subject, with a comma",Content 2
+				2,1,Author 3,Subject 3,\"\"\"Quoted\"\"\"
+				""";
+
+		client.post()
+				.uri("/reviews/import")
+				.contentType(MediaType.parseMediaType("text/csv"))
+				.bodyValue(csv)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.rows").isEqualTo(3)
+				.jsonPath("$.written").isEqualTo(2)
+				.jsonPath("$.skipped").isEqualTo(1);
+
+		assertEquals(2, repository.findByProductId(1L).size());
+		assertEquals("Subject, with a comma", repository.findByProductId(1L).get(1).subject());
+		assertEquals("\"Quoted\"", repository.findByProductId(2L).get(0).content());
+
+		client.post()
+				.uri("/reviews/import?onConflict=replace")
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.bodyValue("{\"productId\":1,\"reviewId\":1,\"author\":\"Author 4\",\"subject\":\"Subject 4\",\"content\":\"Content 4\"}\n")
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.written").isEqualTo(1);
+
+		assertEquals("Author 4", repository.findByProductId(1L).stream()
+				.filter(review -> review.reviewId() == 1L)
+				.findFirst().orElseThrow().author());
+
+		client.post()
+				.uri("/reviews/import")
+				.contentType(MediaType.parseMediaType("text/csv"))
+				.bodyValue("productId,reviewId,author,subject,content\nnot-a-number,1,a,b,c\n")
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY)
+				.expectBody()
+				.jsonPath("$.message").value(message -> assertTrue(((String) message).startsWith("Could not import rows 1 to 1")));
+	}
+
+	@Test
+	void exportReviews() {
+
+		postAndVerifyReview(2L, 1L, HttpStatus.OK);
+		postAndVerifyReview(1L, 2L, HttpStatus.OK);
+		postAndVerifyReview(1L, 1L, HttpStatus.OK);
+
+		List<ReviewDto> reviews = client.get()
+				.uri("/reviews/export")
+				.accept(MediaType.APPLICATION_NDJSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+				.returnResult(ReviewDto.class)
+				.getResponseBody()
+				.collectList()
+				.block();
+
+		assertEquals(List.of(1L, 1L, 2L), reviews.stream().map(ReviewDto::productId).toList());
+		assertEquals(List.of(1L, 2L, 1L), reviews.stream().map(ReviewDto::reviewId).toList());
 	}
 
 	//@Test
@@ -103,6 +409,8 @@ class ReviewServiceApplicationTests extends PostgresqlTestBase {
 	@Test
 	void getReviewsNotFound() {
 
+		postAndVerifyReview(1L, 1L, HttpStatus.OK);
+
 		getAndVerifyReviewsByProductId("?productId=213", HttpStatus.OK)
 				.jsonPath("$.length()").isEqualTo(0);
 	}
@@ -117,6 +425,10 @@ class ReviewServiceApplicationTests extends PostgresqlTestBase {
 				.jsonPath("$.message").isEqualTo("Invalid productId: " + productIdInvalid);
 	}
 
+	static ReviewDto toDto(Review review) {
+		return new ReviewDto(review.getProductId(), review.getReviewId(), review.getAuthor(), review.getSubject(), review.getContent(), null);
+	}
+
 	private WebTestClient.BodyContentSpec getAndVerifyReviewsByProductId(Long productId, HttpStatus expectedStatus) {
 		return getAndVerifyReviewsByProductId("?productId=" + productId, expectedStatus);
 	}
@@ -131,7 +443,7 @@ class ReviewServiceApplicationTests extends PostgresqlTestBase {
 				.expectBody();
 	}
 
-	private WebTestClient.BodyContentSpec postAndVerifyReview(Long productId, Long reviewId, HttpStatus expectedStatus) {
+	WebTestClient.BodyContentSpec postAndVerifyReview(Long productId, Long reviewId, HttpStatus expectedStatus) {
 		ReviewDto review = new ReviewDto(productId, reviewId, "Author " + reviewId, "Subject " + reviewId, "Content " + reviewId, "SA");
 		return client.post()
 				.uri("/reviews")
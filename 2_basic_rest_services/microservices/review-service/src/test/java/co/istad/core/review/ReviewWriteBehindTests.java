@@ -0,0 +1,91 @@
+package co.istad.core.review;
+
+import co.istad.api.core.review.ReviewDto;
+import co.istad.core.review.persistence.ReviewRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * API tests of single creates with {@code app.write-behind.enabled}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "app.write-behind.enabled=true")
+class ReviewWriteBehindTests extends PostgresqlTestBase {
+
+	@Autowired
+	private WebTestClient client;
+
+	@Autowired
+	private ReviewRepository repository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setupDb() {
+		repository.deleteAll();
+	}
+
+	@Test
+	void concurrentCreatesAreWrittenInBatches() {
+
+		Flux.range(1, 50)
+				.flatMap(reviewId -> Mono.fromRunnable(() -> postAndVerifyReview(1L, (long) reviewId, HttpStatus.OK))
+						.subscribeOn(Schedulers.boundedElastic()), 16)
+				.blockLast();
+
+		assertEquals(50, repository.findByProductId(1L).size());
+		long batches = meterRegistry.get("write-behind.flush.size").tag("name", "reviews").summary().count();
+		assertTrue(batches < 50, batches + " batches");
+	}
+
+	@Test
+	void duplicateError() {
+
+		postAndVerifyReview(1L, 1L, HttpStatus.OK);
+
+		postAndVerifyReview(1L, 1L, HttpStatus.UNPROCESSABLE_ENTITY)
+				.jsonPath("$.path").isEqualTo("/reviews")
+				.jsonPath("$.message").isEqualTo("Duplicate key, Product Id: 1, Review Id:1");
+
+		assertEquals(1, repository.count());
+	}
+
+	@Test
+	void invalidIdsAreRejectedBeforeTheBuffer() {
+
+		double batches = meterRegistry.get("write-behind.flush.size").tag("name", "reviews").summary().count();
+
+		postAndVerifyReview(null, 1L, HttpStatus.UNPROCESSABLE_ENTITY)
+				.jsonPath("$.message").isEqualTo("Invalid productId or reviewId: null/1");
+		postAndVerifyReview(1L, null, HttpStatus.UNPROCESSABLE_ENTITY)
+				.jsonPath("$.message").isEqualTo("Invalid productId or reviewId: 1/null");
+
+		assertEquals(batches, meterRegistry.get("write-behind.flush.size").tag("name", "reviews").summary().count());
+		postAndVerifyReview(1L, 1L, HttpStatus.OK);
+	}
+
+	private WebTestClient.BodyContentSpec postAndVerifyReview(Long productId, Long reviewId, HttpStatus expectedStatus) {
+		ReviewDto review = new ReviewDto(productId, reviewId, "Author " + reviewId, "Subject " + reviewId, "Content " + reviewId, "SA");
+		return client.post()
+				.uri("/reviews")
+				.body(Mono.just(review), ReviewDto.class)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isEqualTo(expectedStatus)
+				.expectHeader().contentType(MediaType.APPLICATION_JSON)
+				.expectBody();
+	}
+
+}
@@ -0,0 +1,78 @@
+package co.istad.core.review.service;
+
+import co.istad.api.exception.InvalidInputException;
+import co.istad.core.review.service.ReviewImportChunker.Chunk;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReviewImportChunkerTests {
+
+	private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void csvRowsAreSplitIntoChunksAcrossBuffers() {
+		ReviewImportChunker chunker = new ReviewImportChunker(TEXT_CSV, 2, objectMapper);
+
+		List<Chunk> chunks = chunk(chunker,
+				"productId,reviewId,author,subject,content\r\n1,1,a,\"multi",
+				"line\",c\r\n\n1,2,a,b,c\n1,",
+				"3,a,b,c");
+
+		assertEquals(2, chunks.size());
+		assertEquals("1,1,a,\"multiline\",c\n1,2,a,b,c\n", csv(chunks.get(0)));
+		assertEquals(1, chunks.get(0).firstRow());
+		assertEquals("1,3,a,b,c\n", csv(chunks.get(1)));
+		assertEquals(3, chunks.get(1).firstRow());
+	}
+
+	@Test
+	void ndjsonReviewsAreWrittenAsCsv() {
+		ReviewImportChunker chunker = new ReviewImportChunker(MediaType.APPLICATION_NDJSON, 10, objectMapper);
+
+		List<Chunk> chunks = chunk(chunker,
+				"{\"productId\":1,\"reviewId\":2,\"author\":\"a \\\"b\\\"\",\"subject\":\"s, t\"}\n");
+
+		assertEquals(1, chunks.size());
+		assertEquals("1,2,\"a \"\"b\"\"\",\"s, t\",\n", csv(chunks.get(0)));
+	}
+
+	@Test
+	void invalidInputIsRejected() {
+		assertThrows(InvalidInputException.class, () -> chunk(
+				new ReviewImportChunker(TEXT_CSV, 10, objectMapper), "reviewId,productId\n"));
+		assertThrows(InvalidInputException.class, () -> chunk(
+				new ReviewImportChunker(TEXT_CSV, 10, objectMapper), "productId,reviewId,author,subject,content\n1,1,\"a"));
+		assertThrows(InvalidInputException.class, () -> chunk(
+				new ReviewImportChunker(MediaType.APPLICATION_NDJSON, 10, objectMapper), "{\"reviewId\":1}\n"));
+		assertThrows(InvalidInputException.class, () -> chunk(
+				new ReviewImportChunker(MediaType.APPLICATION_NDJSON, 10, objectMapper),
+				"x".repeat(ReviewImportChunker.MAX_ROW_BYTES + 1)));
+		assertThrows(InvalidInputException.class, () ->
+				new ReviewImportChunker(MediaType.APPLICATION_JSON, 10, objectMapper));
+	}
+
+	private List<Chunk> chunk(ReviewImportChunker chunker, String... buffers) {
+		List<Chunk> chunks = new ArrayList<>();
+		for (String buffer : buffers) {
+			chunks.addAll(chunker.add(DefaultDataBufferFactory.sharedInstance.wrap(buffer.getBytes(StandardCharsets.UTF_8))));
+		}
+		chunks.addAll(chunker.finish());
+		return chunks;
+	}
+
+	private String csv(Chunk chunk) {
+		return new String(chunk.csv(), StandardCharsets.UTF_8);
+	}
+
+}
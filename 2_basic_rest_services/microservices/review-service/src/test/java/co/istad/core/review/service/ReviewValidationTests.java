@@ -0,0 +1,50 @@
+package co.istad.core.review.service;
+
+import co.istad.api.core.BatchResult;
+import co.istad.api.core.review.ReviewDto;
+import co.istad.api.exception.InvalidInputException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReviewValidationTests {
+
+	@Test
+	void invalidReviewsAreReportedByTheirIndexInTheBatch() {
+		ReviewValidation.ValidBatch batch = ReviewValidation.validateBatch(List.of(
+				review(1L, null),
+				review(1L, 2L),
+				review(0L, 3L),
+				review(1L, 4L)));
+
+		assertEquals(List.of(review(1L, 2L), review(1L, 4L)), batch.reviews());
+
+		// The second valid review, index 3 of the batch, is a duplicate
+		BatchResult result = batch.result(List.of(1));
+		assertEquals(1, result.created());
+		assertEquals(List.of(
+				new BatchResult.ItemError(0, "Invalid productId or reviewId: 1/null"),
+				new BatchResult.ItemError(2, "Invalid productId or reviewId: 0/3"),
+				new BatchResult.ItemError(3, "Duplicate key, Product Id: 1, Review Id:4")), result.errors());
+	}
+
+	@Test
+	void tooLargeBatchIsRejected() {
+		List<ReviewDto> reviews = new ArrayList<>();
+		for (long reviewId = 1; reviewId <= BatchResult.MAX_ITEMS + 1; reviewId++) {
+			reviews.add(review(1L, reviewId));
+		}
+
+		assertThrows(InvalidInputException.class, () -> ReviewValidation.validateBatch(reviews));
+		assertEquals(BatchResult.MAX_ITEMS, ReviewValidation.validateBatch(reviews.subList(0, BatchResult.MAX_ITEMS)).reviews().size());
+	}
+
+	private static ReviewDto review(Long productId, Long reviewId) {
+		return new ReviewDto(productId, reviewId, "a", "s", "c", null);
+	}
+
+}
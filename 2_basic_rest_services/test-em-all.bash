@@ -148,6 +148,21 @@ assertEqual $PROD_ID_REVS_RECS $(echo $RESPONSE | jq .productId)
 assertEqual 3 $(echo $RESPONSE | jq ".recommendations | length")
 assertEqual 3 $(echo $RESPONSE | jq ".reviews | length")
 
+# Verify that an unchanged product is answered with a 304 (Not Modified) for its ETag
+ETAG=$(curl -s -o /dev/null -D - http://$HOST:$PORT/product-composite/$PROD_ID_REVS_RECS | grep -i "^etag:" | cut -d' ' -f2 | tr -d '\r')
+assertCurl 304 "curl http://$HOST:$PORT/product-composite/$PROD_ID_REVS_RECS -H 'If-None-Match: $ETAG' -s"
+
+# Verify that a batch request returns all products, in the requested order
+assertCurl 200 "curl \"http://$HOST:$PORT/product-composite?ids=$PROD_ID_NO_REVS,$PROD_ID_REVS_RECS,$PROD_ID_NO_RECS\" -s"
+assertEqual 3 $(echo $RESPONSE | jq "length")
+assertEqual $PROD_ID_NO_REVS $(echo $RESPONSE | jq ".[0].productId")
+assertEqual 3 $(echo $RESPONSE | jq ".[1].reviews | length")
+
+# Verify that only the included parts are returned
+assertCurl 200 "curl \"http://$HOST:$PORT/product-composite/$PROD_ID_REVS_RECS?include=reviews\" -s"
+assertEqual 3 $(echo $RESPONSE | jq ".reviews | length")
+assertEqual false $(echo $RESPONSE | jq "has(\"recommendations\")")
+
 # Verify that a 404 (Not Found) error is returned for a non-existing productId ($PROD_ID_NOT_FOUND)
 assertCurl 404 "curl http://$HOST:$PORT/product-composite/$PROD_ID_NOT_FOUND -s"
 assertEqual "No product found for productId: $PROD_ID_NOT_FOUND" "$(echo $RESPONSE | jq -r .message)"
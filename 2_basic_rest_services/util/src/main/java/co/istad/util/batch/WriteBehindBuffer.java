@@ -0,0 +1,315 @@
+package co.istad.util.batch;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Collects single writes, e.g. creates of reviews, and writes them in batches, so a burst of
+ * creates costs a bulk insert and a commit per batch instead of one per create.
+ * <p>
+ * Writes are queued in a bounded ring buffer that callers add to without locks. A flusher
+ * thread takes them out and hands them to the {@link BatchWriter} once {@code maxBatchSize}
+ * are queued, or {@code maxDelay} after the oldest was queued, whichever is first. The future
+ * of a write completes once its batch is written, so a caller responds only for durable
+ * writes. Batches are written one at a time, a burst arriving during a write is taken by the
+ * next. When the buffer is full, writes are rejected rather than waiting.
+ * <p>
+ * Metrics tagged with {@code name}:
+ * <ul>
+ *     <li>{@code write-behind.flush.size}: writes per batch,</li>
+ *     <li>{@code write-behind.flush.latency}: time to write a batch,</li>
+ *     <li>{@code write-behind.wait}: time from queuing a write until its batch is written, and</li>
+ *     <li>{@code write-behind.pending}: writes queued.</li>
+ * </ul>
+ */
+public final class WriteBehindBuffer<T> implements AutoCloseable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+	/**
+	 * Writes a batch of items.
+	 */
+	@FunctionalInterface
+	public interface BatchWriter<T> {
+
+		/**
+		 * @return the indexes of the items in the batch rejected as duplicates
+		 */
+		List<Integer> write(List<T> batch);
+
+	}
+
+	private record Pending<T>(T item, long queuedAt, CompletableFuture<Boolean> written) {
+	}
+
+	private final String name;
+	private final int maxBatchSize;
+	private final long maxDelayNanos;
+	private final BatchWriter<T> writer;
+
+	// Bounded multi-producer queue after Dmitry Vyukov: a slot whose sequence equals the
+	// position of a producer is free for it, one whose sequence is one ahead holds an item
+	private final int mask;
+	private final AtomicReferenceArray<Pending<T>> slots;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong();
+	private volatile long head;
+
+	private final Thread flusher;
+	private volatile boolean idle;
+	private volatile boolean closed;
+
+	private final DistributionSummary flushSize;
+	private final Timer flushLatency;
+	private final Timer waitTimer;
+
+	/**
+	 * Starts the flusher thread, release it with {@link #close()}.
+	 *
+	 * @param name     names the flusher thread and tags the metrics, e.g. {@code reviews}
+	 * @param capacity writes queued at most, rounded up to a power of two
+	 */
+	public WriteBehindBuffer(
+			String name,
+			int capacity,
+			int maxBatchSize,
+			Duration maxDelay,
+			BatchWriter<T> writer,
+			MeterRegistry meterRegistry) {
+		if (capacity < 1 || maxBatchSize < 1) {
+			throw new IllegalArgumentException("The capacity and batch size must be positive");
+		}
+		this.name = name;
+		this.maxBatchSize = maxBatchSize;
+		this.maxDelayNanos = maxDelay.toNanos();
+		this.writer = writer;
+
+		int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+		mask = size - 1;
+		slots = new AtomicReferenceArray<>(size);
+		sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+
+		flushSize = DistributionSummary.builder("write-behind.flush.size")
+				.description("Writes per batch")
+				.tag("name", name)
+				.register(meterRegistry);
+		flushLatency = Timer.builder("write-behind.flush.latency")
+				.description("Time to write a batch")
+				.tag("name", name)
+				.register(meterRegistry);
+		waitTimer = Timer.builder("write-behind.wait")
+				.description("Time from queuing a write until its batch is written")
+				.tag("name", name)
+				.register(meterRegistry);
+		Gauge.builder("write-behind.pending", this, WriteBehindBuffer::pending)
+				.description("Writes queued")
+				.tag("name", name)
+				.register(meterRegistry);
+
+		flusher = new Thread(this::run, "write-behind-" + name);
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	/**
+	 * Queues a write, the future completes on the flusher thread, so move further work off it.
+	 *
+	 * @return completes with true once the item is written, or false if it was rejected as a
+	 * duplicate, or fails with the error of its batch
+	 * @throws RejectedExecutionException if the buffer is full or closed
+	 */
+	public CompletableFuture<Boolean> submit(T item) {
+		if (closed) {
+			throw new RejectedExecutionException("The " + name + " write-behind buffer is closed");
+		}
+		Pending<T> pending = new Pending<>(item, System.nanoTime(), new CompletableFuture<>());
+		if (!offer(pending)) {
+			throw new RejectedExecutionException("The " + name + " write-behind buffer is full");
+		}
+		if (closed) {
+			// Closed meanwhile, the flusher may have stopped without seeing the write
+			rejectStranded();
+		}
+		// Wake the flusher if it waits for a first write, or for a full batch that is now complete
+		if (idle || tail.get() - head >= maxBatchSize) {
+			LockSupport.unpark(flusher);
+		}
+		return pending.written();
+	}
+
+	/**
+	 * Queues a write and waits for its batch, for callers on blocking threads.
+	 *
+	 * @return true once the item is written, or false if it was rejected as a duplicate
+	 * @throws RejectedExecutionException if the buffer is full or closed
+	 */
+	public boolean write(T item) {
+		try {
+			return submit(item).join();
+		} catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw ex;
+		}
+	}
+
+	public long pending() {
+		return tail.get() - head;
+	}
+
+	/**
+	 * Stops accepting writes, and waits for the ones queued to be written. Writes queued while
+	 * closing that the flusher didn't take are rejected.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		LockSupport.unpark(flusher);
+		try {
+			flusher.join(TimeUnit.SECONDS.toMillis(30));
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		rejectStranded();
+	}
+
+	/**
+	 * Once the flusher has stopped, takes its place as the consumer, so under a lock.
+	 */
+	private synchronized void rejectStranded() {
+		if (flusher.isAlive()) {
+			// It takes the write, or close() rejects it once it has stopped
+			return;
+		}
+		Pending<T> pending;
+		while ((pending = poll()) != null) {
+			pending.written().completeExceptionally(new RejectedExecutionException("The " + name + " write-behind buffer is closed"));
+		}
+	}
+
+	private boolean offer(Pending<T> pending) {
+		long position = tail.get();
+		while (true) {
+			int index = (int) position & mask;
+			long lag = sequences.get(index) - position;
+			if (lag == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					slots.set(index, pending);
+					sequences.set(index, position + 1);
+					return true;
+				}
+				position = tail.get();
+			} else if (lag < 0) {
+				// The consumer hasn't taken the item a lap behind yet
+				return false;
+			} else {
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Only called by the flusher thread, or once it has stopped.
+	 */
+	private Pending<T> poll() {
+		long position = head;
+		int index = (int) position & mask;
+		if (sequences.get(index) != position + 1) {
+			return null;
+		}
+		Pending<T> pending = slots.get(index);
+		slots.set(index, null);
+		sequences.set(index, position + mask + 1);
+		head = position + 1;
+		return pending;
+	}
+
+	private void run() {
+		List<Pending<T>> batch = new ArrayList<>(maxBatchSize);
+		while (true) {
+			Pending<T> first = poll();
+			if (first == null) {
+				if (closed && pending() == 0) {
+					return;
+				}
+				// Set before checking again, so a producer queuing meanwhile sees it and unparks
+				idle = true;
+				if (pending() == 0 && !closed) {
+					LockSupport.park(this);
+				}
+				idle = false;
+				continue;
+			}
+
+			batch.add(first);
+			long flushAt = first.queuedAt() + maxDelayNanos;
+			while (batch.size() < maxBatchSize) {
+				Pending<T> next = poll();
+				if (next != null) {
+					batch.add(next);
+					continue;
+				}
+				long remaining = flushAt - System.nanoTime();
+				if (remaining <= 0 || closed) {
+					break;
+				}
+				LockSupport.parkNanos(this, remaining);
+			}
+			flush(batch);
+			batch.clear();
+		}
+	}
+
+	private void flush(List<Pending<T>> batch) {
+		List<T> items = new ArrayList<>(batch.size());
+		for (Pending<T> pending : batch) {
+			items.add(pending.item());
+		}
+
+		long start = System.nanoTime();
+		List<Integer> duplicates;
+		try {
+			duplicates = writer.write(items);
+		} catch (Throwable ex) {
+			LOG.warn("Failed to write a batch of {} {}: {}", items.size(), name, ex.getMessage());
+			for (Pending<T> pending : batch) {
+				pending.written().completeExceptionally(ex);
+			}
+			return;
+		}
+		long end = System.nanoTime();
+		flushSize.record(items.size());
+		flushLatency.record(end - start, TimeUnit.NANOSECONDS);
+
+		boolean[] duplicate = new boolean[batch.size()];
+		for (int index : duplicates) {
+			duplicate[index] = true;
+		}
+		for (int i = 0; i < batch.size(); i++) {
+			Pending<T> pending = batch.get(i);
+			waitTimer.record(end - pending.queuedAt(), TimeUnit.NANOSECONDS);
+			pending.written().complete(!duplicate[i]);
+		}
+	}
+
+}
@@ -0,0 +1,18 @@
+package co.istad.util.blocking;
+
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.integration.BlockHoundIntegration;
+
+/**
+ * Blocking calls tolerated on non-blocking threads, picked up by {@link BlockHound#install}
+ * through {@code META-INF/services}.
+ */
+public class BlockingCallAllowlist implements BlockHoundIntegration {
+
+	@Override
+	public void applyTo(BlockHound.Builder builder) {
+		// Console and file appenders write synchronously
+		builder.allowBlockingCallsInside("ch.qos.logback.core.OutputStreamAppender", "writeBytes");
+	}
+
+}
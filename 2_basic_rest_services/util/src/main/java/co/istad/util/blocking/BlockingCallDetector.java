@@ -0,0 +1,34 @@
+package co.istad.util.blocking;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.blockhound.BlockHound;
+
+/**
+ * Dev mode: installs BlockHound when {@code app.blocking.detection.enabled} is true.
+ * A blocking call on a non-blocking thread, e.g. a Netty event loop, then fails with
+ * a {@code BlockingOperationError} instead of silently stalling other requests.
+ * <p>
+ * BlockHound is only on the classpath of {@code bootRun} and the tests, not of packaged jars,
+ * see {@code gradle/blockhound.gradle}. Requires {@code -XX:+AllowRedefinitionToAddDeleteMethods}
+ * on Java 13+. Tests get the same detection from the {@code blockhound-junit-platform} test
+ * dependency.
+ */
+@Component
+@ConditionalOnProperty("app.blocking.detection.enabled")
+@ConditionalOnClass(name = "reactor.blockhound.BlockHound")
+public class BlockingCallDetector {
+
+	private static final Logger LOG = LoggerFactory.getLogger(BlockingCallDetector.class);
+
+	@PostConstruct
+	void install() {
+		BlockHound.install();
+		LOG.warn("BlockHound installed, blocking calls on non-blocking threads will fail");
+	}
+
+}
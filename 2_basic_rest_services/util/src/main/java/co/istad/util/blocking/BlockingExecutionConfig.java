@@ -0,0 +1,72 @@
+package co.istad.util.blocking;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.reactive.config.BlockingExecutionConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs controller methods with a blocking signature, i.e. not returning a reactive type,
+ * on a bounded thread pool instead of the Netty event loop.
+ * <p>
+ * When all threads are busy, requests wait in a bounded queue. Once the queue is full
+ * they are rejected with a 503, see {@link co.istad.util.http.GlobalControllerExceptionHandler}.
+ * Metrics tagged with {@code name=blocking-handlers}:
+ * <ul>
+ *     <li>{@code executor.queued}, {@code executor.active}, {@code executor.pool.size}, ...: queue depth and pool usage, and</li>
+ *     <li>{@code executor.wait}: time spent in the queue before a thread picks the request up.</li>
+ * </ul>
+ */
+@Configuration
+public class BlockingExecutionConfig implements WebFluxConfigurer {
+
+	static final String EXECUTOR_NAME = "blocking-handlers";
+
+	private final ThreadPoolTaskExecutor executor;
+
+	public BlockingExecutionConfig(
+			@Value("${app.blocking.pool-size:16}") int poolSize,
+			@Value("${app.blocking.queue-capacity:500}") int queueCapacity,
+			MeterRegistry meterRegistry) {
+
+		Timer waitTimer = Timer.builder("executor.wait")
+				.description("Time a blocking handler waits in the queue before it runs")
+				.tag("name", EXECUTOR_NAME)
+				.register(meterRegistry);
+
+		executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix(EXECUTOR_NAME + "-");
+		executor.setTaskDecorator(task -> {
+			long queuedAt = System.nanoTime();
+			return () -> {
+				waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+				task.run();
+			};
+		});
+		executor.initialize();
+
+		new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), EXECUTOR_NAME, Tags.empty()).bindTo(meterRegistry);
+	}
+
+	@Override
+	public void configureBlockingExecution(BlockingExecutionConfigurer configurer) {
+		configurer.setExecutor(executor);
+	}
+
+	@PreDestroy
+	void shutdown() {
+		executor.shutdown();
+	}
+
+}
@@ -0,0 +1,117 @@
+package co.istad.util.bloom;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of {@code long} keys, such as productIds.
+ * <p>
+ * {@link #mightContain(long)} is false only for keys that were never added, and true for
+ * other keys with the false positive probability the filter was sized for. Keys can't be
+ * removed, a filter tracking deletions is rebuilt instead. Adds are thread-safe and lock-free.
+ * <p>
+ * The {@code k} bit positions of a key are derived from two halves of a 64-bit mix of the key
+ * (Kirsch-Mitzenmacher double hashing). Filters travel between services as {@link #toBytes()},
+ * read back with {@link #fromBytes(byte[])}.
+ */
+public final class LongBloomFilter {
+
+	private final AtomicLongArray words;
+	private final long bits;
+	private final int hashes;
+
+	private LongBloomFilter(AtomicLongArray words, int hashes) {
+		this.words = words;
+		this.bits = (long) words.length() * Long.SIZE;
+		this.hashes = hashes;
+	}
+
+	/**
+	 * @param expectedKeys             keys the filter is sized for, the false positive probability
+	 *                                 grows beyond them
+	 * @param falsePositiveProbability e.g. 0.01
+	 */
+	public static LongBloomFilter create(long expectedKeys, double falsePositiveProbability) {
+		long keys = Math.max(1, expectedKeys);
+		long bits = (long) Math.ceil(-keys * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+		// Bit indexes are derived from int hashes, so at most 2^31 bits
+		int words = (int) Math.min(1 << 25, Math.max(1, (bits + Long.SIZE - 1) / Long.SIZE));
+		int hashes = (int) Math.max(1, Math.round((double) words * Long.SIZE / keys * Math.log(2)));
+		return new LongBloomFilter(new AtomicLongArray(words), hashes);
+	}
+
+	public void add(long key) {
+		long hash = mix(key);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashes; i++) {
+			long bit = index(h1 + i * h2);
+			long mask = 1L << bit;
+			int word = (int) (bit >>> 6);
+			long current = words.get(word);
+			while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+				current = words.get(word);
+			}
+		}
+	}
+
+	public boolean mightContain(long key) {
+		long hash = mix(key);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashes; i++) {
+			long bit = index(h1 + i * h2);
+			if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the number of hash functions, followed by the bits of the filter
+	 */
+	public byte[] toBytes() {
+		ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + words.length() * Long.BYTES);
+		buffer.putInt(hashes);
+		for (int i = 0; i < words.length(); i++) {
+			buffer.putLong(words.get(i));
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the bytes aren't a filter written by {@link #toBytes()}
+	 */
+	public static LongBloomFilter fromBytes(byte[] bytes) {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		if (bytes.length < Integer.BYTES + Long.BYTES || (bytes.length - Integer.BYTES) % Long.BYTES != 0) {
+			throw new IllegalArgumentException("Invalid Bloom filter of " + bytes.length + " bytes");
+		}
+		int hashes = buffer.getInt();
+		if (hashes < 1) {
+			throw new IllegalArgumentException("Invalid Bloom filter with " + hashes + " hash functions");
+		}
+		long[] words = new long[buffer.remaining() / Long.BYTES];
+		buffer.asLongBuffer().get(words);
+		return new LongBloomFilter(new AtomicLongArray(words), hashes);
+	}
+
+	private long index(int combinedHash) {
+		// Flip a negative hash to a positive one, as in Guava
+		return (combinedHash < 0 ? ~combinedHash : combinedHash) % bits;
+	}
+
+	/**
+	 * The finalizer of MurmurHash3, so sequential keys set unrelated bits.
+	 */
+	private static long mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return key;
+	}
+
+}
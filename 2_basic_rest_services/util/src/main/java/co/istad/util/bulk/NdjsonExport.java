@@ -0,0 +1,61 @@
+package co.istad.util.bulk;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Writes records to a response as NDJSON, a JSON record per line, as they are read, e.g. from a
+ * database cursor, so exports of any size are served with a flat heap.
+ * <p>
+ * Records are written and flushed {@value #RECORDS_PER_WRITE} at a time, so a slow client
+ * holds back the cursor instead of piling up buffers, and a fast one isn't slowed down by a
+ * flush per record. As the body is written with {@code writeAndFlushWith}, it passes the
+ * {@link co.istad.util.etag.EntityTagFilter} without being collected.
+ */
+public final class NdjsonExport {
+
+	static final int RECORDS_PER_WRITE = 256;
+
+	private NdjsonExport() {
+	}
+
+	/**
+	 * @param writer writes a record, e.g. {@code objectMapper.writerFor(ProductDto.class)}
+	 */
+	public static <T> Mono<Void> write(ServerHttpResponse response, Flux<T> records, ObjectWriter writer) {
+		response.getHeaders().setContentType(MediaType.APPLICATION_NDJSON);
+		ObjectWriter lineWriter = writer.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		DataBufferFactory bufferFactory = response.bufferFactory();
+
+		return response.writeAndFlushWith(records
+				.buffer(RECORDS_PER_WRITE)
+				.map(batch -> Mono.just(encode(batch, lineWriter, bufferFactory))));
+	}
+
+	private static <T> DataBuffer encode(List<T> batch, ObjectWriter writer, DataBufferFactory bufferFactory) {
+		DataBuffer buffer = bufferFactory.allocateBuffer(batch.size() * 128);
+		try (OutputStream out = buffer.asOutputStream()) {
+			for (T record : batch) {
+				writer.writeValue(out, record);
+				out.write('\n');
+			}
+			return buffer;
+		} catch (IOException | RuntimeException ex) {
+			DataBufferUtils.release(buffer);
+			throw ex instanceof IOException io ? new UncheckedIOException(io) : (RuntimeException) ex;
+		}
+	}
+
+}
@@ -0,0 +1,314 @@
+package co.istad.util.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Imports a file with a JSON record per line (NDJSON), using all cores, e.g. to load a
+ * catalog of millions of products.
+ * <p>
+ * The file is split at line boundaries into one range per thread, ranges of large files are
+ * split further to stay within what a single memory mapping can hold. Each range is mapped
+ * and decoded with Jackson's streaming parser, so records are read from the page cache without
+ * copying the file to the heap or building a string per line. Records are handed to the
+ * {@link BatchWriter} in batches, e.g. an unordered bulk insert. A thread waits for its batch
+ * to be written before it reads the next, so at most {@code parallelism} batches are in flight.
+ * <p>
+ * Records rejected by the writer as duplicates are counted, and the first
+ * {@value #MAX_DUPLICATE_KEYS} of their keys are kept, the import carries on. Any other failure,
+ * like a line that isn't valid JSON, stops the import. Batches written before stay written.
+ * Progress is available from {@link #progress()} and logged every {@code 10s}.
+ */
+public final class NdjsonFileImport<T> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(NdjsonFileImport.class);
+
+	static final int MAX_DUPLICATE_KEYS = 100;
+
+	/**
+	 * Mappings are addressed by int, so ranges stay well below 2GB.
+	 */
+	static final long MAX_RANGE_BYTES = 1L << 30;
+
+	private static final long LOG_INTERVAL_NANOS = Duration.ofSeconds(10).toNanos();
+
+	private static final AtomicInteger IMPORTS = new AtomicInteger();
+
+	/**
+	 * Writes a batch of records.
+	 */
+	@FunctionalInterface
+	public interface BatchWriter<T> {
+
+		/**
+		 * @return the indexes of the records in the batch rejected as duplicates
+		 */
+		List<Integer> write(List<T> batch);
+
+	}
+
+	public enum State { RUNNING, COMPLETED, FAILED }
+
+	/**
+	 * @param bytesRead        bytes of the file decoded, approximate while running
+	 * @param records          records read from the file
+	 * @param written          records written
+	 * @param duplicates       records rejected as duplicates
+	 * @param duplicateKeys    keys of the first duplicates
+	 * @param recordsPerSecond records read per second since the start
+	 * @param error            why the import failed
+	 */
+	public record Progress(
+			String file,
+			State state,
+			long bytes,
+			long bytesRead,
+			long records,
+			long written,
+			long duplicates,
+			List<String> duplicateKeys,
+			long elapsedMillis,
+			long recordsPerSecond,
+			String error
+	) {
+	}
+
+	private final Path file;
+	private final long bytes;
+	private final ObjectReader reader;
+	private final Function<T, String> key;
+	private final BatchWriter<T> writer;
+	private final int batchSize;
+
+	private final long startNanos = System.nanoTime();
+	private final AtomicLong endNanos = new AtomicLong();
+	private final AtomicLong lastLogNanos = new AtomicLong(startNanos);
+	private final AtomicLong bytesRead = new AtomicLong();
+	private final AtomicLong records = new AtomicLong();
+	private final AtomicLong written = new AtomicLong();
+	private final AtomicLong duplicates = new AtomicLong();
+	private final List<String> duplicateKeys = new ArrayList<>();
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+	private final CompletableFuture<Progress> completion = new CompletableFuture<>();
+
+	private NdjsonFileImport(Path file, long bytes, ObjectReader reader, Function<T, String> key, BatchWriter<T> writer, int batchSize) {
+		this.file = file;
+		this.bytes = bytes;
+		this.reader = reader;
+		this.key = key;
+		this.writer = writer;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Starts the import on {@code parallelism} new threads, released once it completes.
+	 *
+	 * @param reader reads the records, e.g. {@code objectMapper.readerFor(ProductDto.class)}
+	 * @param key    tells the key of a duplicate record
+	 * @throws IOException if the file can't be opened
+	 */
+	public static <T> NdjsonFileImport<T> start(
+			Path file,
+			ObjectReader reader,
+			Function<T, String> key,
+			BatchWriter<T> writer,
+			int parallelism,
+			int batchSize) throws IOException {
+
+		List<Range> ranges = new ArrayList<>();
+		long bytes;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			bytes = channel.size();
+			// Mappings stay valid once the channel is closed
+			for (long[] range : splitAtLines(channel, parallelism)) {
+				ranges.add(new Range(range[0], channel.map(FileChannel.MapMode.READ_ONLY, range[0], range[1] - range[0])));
+			}
+		}
+
+		NdjsonFileImport<T> fileImport = new NdjsonFileImport<>(file, bytes, reader, key, writer, batchSize);
+		LOG.info("Importing {} ({} bytes) in {} ranges on {} threads", file, bytes, ranges.size(), parallelism);
+
+		int id = IMPORTS.incrementAndGet();
+		AtomicInteger threads = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+				task -> new Thread(task, "ndjson-import-" + id + "-" + threads.incrementAndGet()));
+		CompletableFuture<?>[] tasks = ranges.stream()
+				.map(range -> CompletableFuture.runAsync(() -> fileImport.importRange(range), executor))
+				.toArray(CompletableFuture[]::new);
+		CompletableFuture.allOf(tasks).whenComplete((ignored, ex) -> {
+			executor.shutdown();
+			fileImport.complete();
+		});
+		return fileImport;
+	}
+
+	public Progress progress() {
+		long end = endNanos.get();
+		long elapsedNanos = Math.max(1, (end != 0 ? end : System.nanoTime()) - startNanos);
+		Throwable error = failure.get();
+		State state = end == 0 ? State.RUNNING : error != null ? State.FAILED : State.COMPLETED;
+		List<String> keys;
+		synchronized (duplicateKeys) {
+			keys = List.copyOf(duplicateKeys);
+		}
+		return new Progress(
+				file.getFileName().toString(),
+				state,
+				bytes,
+				state == State.COMPLETED ? bytes : Math.min(bytes, bytesRead.get()),
+				records.get(),
+				written.get(),
+				duplicates.get(),
+				keys,
+				elapsedNanos / 1_000_000,
+				records.get() * 1_000_000_000L / elapsedNanos,
+				error == null ? null : error.getMessage());
+	}
+
+	public boolean isRunning() {
+		return endNanos.get() == 0;
+	}
+
+	/**
+	 * @return the final progress, once the import completed or failed
+	 */
+	public CompletableFuture<Progress> completion() {
+		return completion;
+	}
+
+	/**
+	 * @return the start and end offsets of about {@code parts} ranges, each ending after a
+	 * newline, or at the end of the file
+	 */
+	static List<long[]> splitAtLines(FileChannel channel, int parts) throws IOException {
+		long size = channel.size();
+		long count = Math.max(parts, (size + MAX_RANGE_BYTES - 1) / MAX_RANGE_BYTES);
+		long target = Math.max(1, size / count);
+
+		List<long[]> ranges = new ArrayList<>();
+		long start = 0;
+		while (start < size) {
+			long end = start + target >= size ? size : nextLineStart(channel, start + target);
+			if (end - start > MAX_RANGE_BYTES) {
+				throw new IOException("A line of more than " + (MAX_RANGE_BYTES >> 20) + "MB at offset " + start);
+			}
+			ranges.add(new long[]{start, end});
+			start = end;
+		}
+		return ranges;
+	}
+
+	private static long nextLineStart(FileChannel channel, long position) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(8192);
+		long size = channel.size();
+		while (position < size) {
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+		return size;
+	}
+
+	private record Range(long offset, MappedByteBuffer buffer) {
+	}
+
+	private void importRange(Range range) {
+		ByteBuffer buffer = range.buffer();
+		int rangeBytes = buffer.remaining();
+		try (InputStream in = new ByteBufferBackedInputStream(buffer);
+			 MappingIterator<T> iterator = reader.readValues(in)) {
+
+			List<T> batch = new ArrayList<>(batchSize);
+			int reported = 0;
+			while (failure.get() == null && iterator.hasNextValue()) {
+				batch.add(iterator.nextValue());
+				if (batch.size() == batchSize) {
+					write(batch);
+					batch.clear();
+					// The parser reads ahead, so this runs ahead of the records by a buffer at most
+					int consumed = rangeBytes - buffer.remaining();
+					bytesRead.addAndGet(consumed - reported);
+					reported = consumed;
+					logProgress();
+				}
+			}
+			if (!batch.isEmpty() && failure.get() == null) {
+				write(batch);
+			}
+			bytesRead.addAndGet(rangeBytes - reported);
+
+		} catch (JsonProcessingException ex) {
+			long offset = range.offset() + Math.max(0, ex.getLocation() == null ? 0 : ex.getLocation().getByteOffset());
+			failure.compareAndSet(null, new IOException("Invalid record at byte " + offset + ": " + ex.getOriginalMessage(), ex));
+		} catch (RuntimeJsonMappingException ex) {
+			failure.compareAndSet(null, new IOException("Invalid record in the range from byte " + range.offset() + ": " + ex.getMessage(), ex));
+		} catch (Exception ex) {
+			failure.compareAndSet(null, ex);
+		}
+	}
+
+	private void write(List<T> batch) {
+		records.addAndGet(batch.size());
+		List<Integer> rejected = writer.write(batch);
+		written.addAndGet(batch.size() - rejected.size());
+		duplicates.addAndGet(rejected.size());
+		if (!rejected.isEmpty()) {
+			synchronized (duplicateKeys) {
+				for (int i = 0; i < rejected.size() && duplicateKeys.size() < MAX_DUPLICATE_KEYS; i++) {
+					duplicateKeys.add(key.apply(batch.get(rejected.get(i))));
+				}
+			}
+		}
+	}
+
+	private void logProgress() {
+		long now = System.nanoTime();
+		long last = lastLogNanos.get();
+		if (now - last >= LOG_INTERVAL_NANOS && lastLogNanos.compareAndSet(last, now)) {
+			Progress progress = progress();
+			LOG.info("Importing {}: {} of {} bytes, {} records, {} duplicates, {} records/s",
+					progress.file(), progress.bytesRead(), progress.bytes(), progress.records(), progress.duplicates(), progress.recordsPerSecond());
+		}
+	}
+
+	private void complete() {
+		endNanos.set(System.nanoTime());
+		Progress progress = progress();
+		if (progress.state() == State.FAILED) {
+			LOG.warn("Import of {} failed after {} records: {}", progress.file(), progress.records(), progress.error());
+		} else {
+			LOG.info("Imported {}: {} records, {} written, {} duplicates, in {} ms, {} records/s",
+					progress.file(), progress.records(), progress.written(), progress.duplicates(), progress.elapsedMillis(), progress.recordsPerSecond());
+		}
+		completion.complete(progress);
+	}
+
+}
@@ -0,0 +1,84 @@
+package co.istad.util.bulk;
+
+import co.istad.api.exception.InvalidInputException;
+import co.istad.api.exception.NotFoundException;
+import co.istad.util.bulk.NdjsonFileImport.BatchWriter;
+import co.istad.util.bulk.NdjsonFileImport.Progress;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * Runs the {@link NdjsonFileImport}s of a service, one at a time, from files in the import
+ * directory, so a request can't read other files of the host.
+ */
+public class NdjsonImportRunner<T> {
+
+	private final Path directory;
+	private final int parallelism;
+	private final int batchSize;
+	private final ObjectReader reader;
+	private final Function<T, String> key;
+	private final BatchWriter<T> writer;
+
+	private NdjsonFileImport<T> last;
+
+	/**
+	 * @param parallelism threads reading the file and writing batches, 0 for one per core
+	 */
+	public NdjsonImportRunner(
+			Path directory,
+			int parallelism,
+			int batchSize,
+			ObjectReader reader,
+			Function<T, String> key,
+			BatchWriter<T> writer) {
+		this.directory = directory.toAbsolutePath().normalize();
+		this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+		this.batchSize = batchSize;
+		this.reader = reader;
+		this.key = key;
+		this.writer = writer;
+	}
+
+	/**
+	 * @param fileName name of the file in the import directory
+	 * @throws RejectedExecutionException if an import is already running
+	 */
+	public synchronized Progress start(String fileName) {
+		if (last != null && last.isRunning()) {
+			throw new RejectedExecutionException("An import is already running: " + last.progress().file());
+		}
+
+		Path file = directory.resolve(fileName).normalize();
+		if (!file.getParent().equals(directory)) {
+			throw new InvalidInputException("Invalid file name: " + fileName);
+		}
+		if (!Files.isRegularFile(file)) {
+			throw new NotFoundException("No file found for name: " + fileName);
+		}
+
+		try {
+			last = NdjsonFileImport.start(file, reader, key, writer, parallelism, batchSize);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		return last.progress();
+	}
+
+	/**
+	 * @return the progress of the running or last import
+	 */
+	public synchronized Progress progress() {
+		if (last == null) {
+			throw new NotFoundException("No import has been started");
+		}
+		return last.progress();
+	}
+
+}
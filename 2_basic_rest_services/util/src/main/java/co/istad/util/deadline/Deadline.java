@@ -0,0 +1,110 @@
+package co.istad.util.deadline;
+
+import co.istad.api.exception.DeadlineExceededException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Point in time after which the result of a request is of no use to its caller.
+ * <p>
+ * Deadlines travel between services as the remaining budget in milliseconds in the
+ * {@value #HEADER} header, so clocks don't have to be in sync. Within a service the
+ * deadline of the current request is kept in the Reactor context, and, on threads running
+ * blocking handlers, in a thread local restored from that context, see
+ * {@link DeadlineThreadLocalAccessor}.
+ */
+public final class Deadline {
+
+	public static final String HEADER = "X-Deadline-Ms";
+
+	static final String CONTEXT_KEY = Deadline.class.getName();
+
+	static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+	private final long expiresAtNanos;
+
+	private Deadline(long expiresAtNanos) {
+		this.expiresAtNanos = expiresAtNanos;
+	}
+
+	public static Deadline after(Duration timeout) {
+		return new Deadline(System.nanoTime() + timeout.toNanos());
+	}
+
+	/**
+	 * @return the deadline of the current request, if any, on threads running blocking handlers
+	 */
+	public static Optional<Deadline> current() {
+		return Optional.ofNullable(CURRENT.get());
+	}
+
+	/**
+	 * @return the deadline of the current request, if any, in reactive pipelines
+	 */
+	public static Optional<Deadline> current(ContextView context) {
+		return context.getOrEmpty(CONTEXT_KEY);
+	}
+
+	public Context putIn(Context context) {
+		return context.put(CONTEXT_KEY, this);
+	}
+
+	/**
+	 * Abandons a blocking handler whose deadline has expired.
+	 *
+	 * @throws DeadlineExceededException if the current request has an expired deadline
+	 */
+	public static void checkCurrent() {
+		Deadline deadline = CURRENT.get();
+		if (deadline != null && deadline.isExpired()) {
+			throw deadline.exceeded();
+		}
+	}
+
+	/**
+	 * Fails the given publisher, and cancels the work behind it, once the deadline of the
+	 * current request expires. Without a deadline it is returned as is.
+	 */
+	public static <T> Mono<T> enforce(Mono<T> mono) {
+		return Mono.deferContextual(context -> current(context)
+				.map(deadline -> deadline.isExpired()
+						? Mono.<T>error(deadline.exceeded())
+						: mono.timeout(deadline.remaining(), Mono.error(deadline::exceeded)))
+				.orElse(mono));
+	}
+
+	/**
+	 * @see #enforce(Mono)
+	 */
+	public static <T> Flux<T> enforce(Flux<T> flux) {
+		return Flux.deferContextual(context -> current(context)
+				.map(deadline -> deadline.isExpired()
+						? Flux.<T>error(deadline.exceeded())
+						// take() completes the flux at the deadline, tell that apart from a regular completion
+						: flux.take(deadline.remaining())
+								.concatWith(Mono.defer(() -> deadline.isExpired() ? Mono.error(deadline.exceeded()) : Mono.empty())))
+				.orElse(flux));
+	}
+
+	public Deadline min(Deadline other) {
+		return other.expiresAtNanos - expiresAtNanos < 0 ? other : this;
+	}
+
+	public Duration remaining() {
+		return Duration.ofNanos(expiresAtNanos - System.nanoTime());
+	}
+
+	public boolean isExpired() {
+		return expiresAtNanos - System.nanoTime() <= 0;
+	}
+
+	public DeadlineExceededException exceeded() {
+		return new DeadlineExceededException("Deadline exceeded by " + remaining().negated().toMillis() + " ms");
+	}
+
+}
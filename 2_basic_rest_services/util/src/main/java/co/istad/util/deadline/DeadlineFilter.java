@@ -0,0 +1,61 @@
+package co.istad.util.deadline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Sets the {@link Deadline} of incoming requests.
+ * <p>
+ * The deadline is the remaining budget sent by the caller in the {@value Deadline#HEADER}
+ * header, capped by {@code app.deadline.default-timeout} if set. Requests without either
+ * have no deadline.
+ */
+@Component
+public class DeadlineFilter implements WebFilter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DeadlineFilter.class);
+
+	/**
+	 * Longer budgets are ignored, far below the roughly 292 years after which nanoseconds overflow.
+	 */
+	private static final Duration MAX_REMAINING = Duration.ofDays(365);
+
+	private final Duration defaultTimeout;
+
+	public DeadlineFilter(@Value("${app.deadline.default-timeout:0s}") Duration defaultTimeout) {
+		this.defaultTimeout = defaultTimeout;
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		Deadline deadline = defaultTimeout.isZero() ? null : Deadline.after(defaultTimeout);
+
+		String remaining = exchange.getRequest().getHeaders().getFirst(Deadline.HEADER);
+		if (remaining != null) {
+			try {
+				// Budgets beyond the range of System.nanoTime() are as good as none
+				long millis = Long.parseLong(remaining);
+				if (millis <= MAX_REMAINING.toMillis()) {
+					Deadline requested = Deadline.after(Duration.ofMillis(millis));
+					deadline = deadline == null ? requested : deadline.min(requested);
+				}
+			} catch (NumberFormatException ex) {
+				LOG.debug("Ignoring invalid {} header: {}", Deadline.HEADER, remaining);
+			}
+		}
+
+		if (deadline == null) {
+			return chain.filter(exchange);
+		}
+		return chain.filter(exchange).contextWrite(deadline::putIn);
+	}
+
+}
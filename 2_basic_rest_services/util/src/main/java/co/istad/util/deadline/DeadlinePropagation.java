@@ -0,0 +1,32 @@
+package co.istad.util.deadline;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebClient filter forwarding the remaining budget of the current request in the
+ * {@value Deadline#HEADER} header. Calls are not sent once the deadline has expired, and
+ * are abandoned when it expires before the response arrives.
+ */
+public class DeadlinePropagation implements ExchangeFilterFunction {
+
+	@Override
+	public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		return Mono.deferContextual(context -> Deadline.current(context)
+				.map(deadline -> {
+					if (deadline.isExpired()) {
+						return Mono.<ClientResponse>error(deadline.exceeded());
+					}
+					ClientRequest withDeadline = ClientRequest.from(request)
+							.header(Deadline.HEADER, String.valueOf(deadline.remaining().toMillis()))
+							.build();
+					return next.exchange(withDeadline)
+							.timeout(deadline.remaining(), Mono.error(deadline::exceeded));
+				})
+				.orElseGet(() -> next.exchange(request)));
+	}
+
+}
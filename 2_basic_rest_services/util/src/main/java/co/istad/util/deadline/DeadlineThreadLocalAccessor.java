@@ -0,0 +1,34 @@
+package co.istad.util.deadline;
+
+import io.micrometer.context.ThreadLocalAccessor;
+
+/**
+ * Restores the {@link Deadline} of the current request from the Reactor context on the
+ * threads running blocking handlers, so they can check it with {@link Deadline#checkCurrent()}.
+ * <p>
+ * Registered through {@code META-INF/services}, it takes effect with
+ * {@code spring.reactor.context-propagation: auto}.
+ */
+public class DeadlineThreadLocalAccessor implements ThreadLocalAccessor<Deadline> {
+
+	@Override
+	public Object key() {
+		return Deadline.CONTEXT_KEY;
+	}
+
+	@Override
+	public Deadline getValue() {
+		return Deadline.CURRENT.get();
+	}
+
+	@Override
+	public void setValue(Deadline value) {
+		Deadline.CURRENT.set(value);
+	}
+
+	@Override
+	public void setValue() {
+		Deadline.CURRENT.remove();
+	}
+
+}
@@ -0,0 +1,124 @@
+package co.istad.util.etag;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Entity tag of the response to the current GET request, built from the entities the
+ * request reads.
+ * <p>
+ * Handlers record the identity and {@code @Version} of every entity they read, the tag is a
+ * digest over them, in the order they were recorded. Identities are database ids rather
+ * than business keys, so an entity deleted and created again gets a new tag even if it
+ * starts over at version 0. Tags are weak, as responses of equal entities may still differ
+ * in details such as the address of the instance serving them.
+ * <p>
+ * Like the {@link co.istad.util.deadline.Deadline}, the tag of the current request is kept in
+ * the Reactor context, and, on threads running blocking handlers, in a thread local restored
+ * from that context, see {@link EntityTagThreadLocalAccessor}. Responses of handlers that
+ * record nothing get no tag.
+ */
+public final class EntityTag {
+
+	static final String CONTEXT_KEY = EntityTag.class.getName();
+
+	static final ThreadLocal<EntityTag> CURRENT = new ThreadLocal<>();
+
+	private final MessageDigest digest;
+	private boolean recorded;
+
+	EntityTag() {
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * @return the tag of the current request, if any, on threads running blocking handlers
+	 */
+	public static Optional<EntityTag> current() {
+		return Optional.ofNullable(CURRENT.get());
+	}
+
+	/**
+	 * @return the tag of the current request, if any, in reactive pipelines
+	 */
+	public static Optional<EntityTag> current(ContextView context) {
+		return context.getOrEmpty(CONTEXT_KEY);
+	}
+
+	Context putIn(Context context) {
+		return context.put(CONTEXT_KEY, this);
+	}
+
+	/**
+	 * Records a part of the response, such as an entity by its id and version.
+	 */
+	public synchronized void add(Object key, Object version) {
+		recorded = true;
+		digest.update((key + ":" + version + "\n").getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Records the entities read by a blocking handler. An empty collection is recorded too,
+	 * as it is a valid response to tag.
+	 */
+	public static <T, C extends Collection<T>> C recordAll(C entities, Function<T, ?> key, Function<T, ?> version) {
+		current().ifPresent(tag -> tag.addAll(entities, key, version));
+		return entities;
+	}
+
+	/**
+	 * Records the entities as they are read in a reactive pipeline.
+	 */
+	public static <T> Flux<T> record(Flux<T> entities, Function<T, ?> key, Function<T, ?> version) {
+		return Flux.deferContextual(context -> current(context)
+				.map(tag -> entities
+						.doOnSubscribe(subscription -> tag.markRecorded())
+						.doOnNext(entity -> tag.add(key.apply(entity), version.apply(entity))))
+				.orElse(entities));
+	}
+
+	/**
+	 * @see #record(Flux, Function, Function)
+	 */
+	public static <T> Mono<T> record(Mono<T> entity, Function<T, ?> key, Function<T, ?> version) {
+		return Mono.deferContextual(context -> current(context)
+				.map(tag -> entity.doOnNext(e -> tag.add(key.apply(e), version.apply(e))))
+				.orElse(entity));
+	}
+
+	private synchronized <T> void addAll(Collection<T> entities, Function<T, ?> key, Function<T, ?> version) {
+		markRecorded();
+		entities.forEach(entity -> add(key.apply(entity), version.apply(entity)));
+	}
+
+	private synchronized void markRecorded() {
+		recorded = true;
+	}
+
+	/**
+	 * @return the weak entity tag, or empty if nothing was recorded; completes the tag
+	 */
+	synchronized Optional<String> value() {
+		if (!recorded) {
+			return Optional.empty();
+		}
+		byte[] hash = digest.digest();
+		return Optional.of("W/\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16)) + "\"");
+	}
+
+}
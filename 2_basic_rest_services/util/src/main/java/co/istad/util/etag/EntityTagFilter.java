@@ -0,0 +1,120 @@
+package co.istad.util.etag;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Tags successful responses to GET requests with the {@link EntityTag} of the entities they
+ * were built from, and answers requests whose {@code If-None-Match} header holds that tag
+ * with a {@code 304 Not Modified} without a body.
+ * <p>
+ * The tag is only known once the handler has read its entities, so the body is still
+ * serialized, what a 304 saves is sending it, and, for callers caching responses, reading it.
+ * Until then the body is held in memory, so bodies larger than {@code app.etag.max-body-size}
+ * are sent as they come, without a tag, rather than holding that much per request.
+ * <p>
+ * Handlers that know the version of a large body up front, without reading it, set the
+ * {@code ETag} header themselves, e.g. with {@link ServerWebExchange#checkNotModified(String)},
+ * which also answers a matching {@code If-None-Match}. Their responses are sent as they come.
+ */
+@Component
+public class EntityTagFilter implements WebFilter {
+
+	private final long maxBodySize;
+
+	public EntityTagFilter(@Value("${app.etag.max-body-size:1MB}") DataSize maxBodySize) {
+		this.maxBodySize = maxBodySize.toBytes();
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		if (exchange.getRequest().getMethod() != HttpMethod.GET) {
+			return chain.filter(exchange);
+		}
+
+		EntityTag tag = new EntityTag();
+		List<String> ifNoneMatch = exchange.getRequest().getHeaders().getIfNoneMatch();
+		ServerWebExchange tagged = exchange.mutate().response(new TaggedResponse(exchange.getResponse(), tag, ifNoneMatch, maxBodySize)).build();
+		return chain.filter(tagged).contextWrite(tag::putIn);
+	}
+
+	/**
+	 * Weak comparison, as for {@code If-None-Match} in RFC 9110.
+	 */
+	static boolean matches(List<String> ifNoneMatch, String etag) {
+		String opaque = opaque(etag);
+		return ifNoneMatch.stream().anyMatch(candidate -> candidate.equals("*") || opaque(candidate).equals(opaque));
+	}
+
+	private static String opaque(String etag) {
+		return etag.startsWith("W/") ? etag.substring(2) : etag;
+	}
+
+	private static class TaggedResponse extends ServerHttpResponseDecorator {
+
+		private final EntityTag tag;
+		private final List<String> ifNoneMatch;
+		private final long maxBodySize;
+
+		TaggedResponse(ServerHttpResponse delegate, EntityTag tag, List<String> ifNoneMatch, long maxBodySize) {
+			super(delegate);
+			this.tag = tag;
+			this.ifNoneMatch = ifNoneMatch;
+			this.maxBodySize = maxBodySize;
+		}
+
+		@Override
+		public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+			HttpStatusCode status = getStatusCode();
+			if (status != null && status.value() != HttpStatus.OK.value() || getHeaders().getETag() != null) {
+				return super.writeWith(body);
+			}
+			// The handler has recorded its entities once the body is complete. The buffers are
+			// collected until then, or until they exceed the limit, and sent untagged from there
+			AtomicLong size = new AtomicLong();
+			return Flux.from(body)
+					.bufferUntil(buffer -> size.addAndGet(buffer.readableByteCount()) > maxBodySize)
+					// Not cancelled on completion of the write, the response subscribes to the rest itself
+					.switchOnFirst((first, buffers) -> first.hasValue() && size.get() <= maxBodySize
+							? write(bufferFactory().join(first.get()))
+							: super.writeWith(buffers.flatMapIterable(Function.identity())), false)
+					.then();
+		}
+
+		private Mono<Void> write(DataBuffer buffer) {
+			String etag = tag.value().orElse(null);
+			if (etag == null) {
+				return super.writeWith(Mono.just(buffer));
+			}
+			getHeaders().setETag(etag);
+			if (!matches(ifNoneMatch, etag)) {
+				return super.writeWith(Mono.just(buffer));
+			}
+			DataBufferUtils.release(buffer);
+			setStatusCode(HttpStatus.NOT_MODIFIED);
+			getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+			return setComplete();
+		}
+
+	}
+
+}
@@ -0,0 +1,34 @@
+package co.istad.util.etag;
+
+import io.micrometer.context.ThreadLocalAccessor;
+
+/**
+ * Restores the {@link EntityTag} of the current request from the Reactor context on the
+ * threads running blocking handlers, so they can record the entities they read.
+ * <p>
+ * Registered through {@code META-INF/services}, it takes effect with
+ * {@code spring.reactor.context-propagation: auto}.
+ */
+public class EntityTagThreadLocalAccessor implements ThreadLocalAccessor<EntityTag> {
+
+	@Override
+	public Object key() {
+		return EntityTag.CONTEXT_KEY;
+	}
+
+	@Override
+	public EntityTag getValue() {
+		return EntityTag.CURRENT.get();
+	}
+
+	@Override
+	public void setValue(EntityTag value) {
+		EntityTag.CURRENT.set(value);
+	}
+
+	@Override
+	public void setValue() {
+		EntityTag.CURRENT.remove();
+	}
+
+}
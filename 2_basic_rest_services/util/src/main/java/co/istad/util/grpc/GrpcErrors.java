@@ -0,0 +1,70 @@
+package co.istad.util.grpc;
+
+import co.istad.api.exception.DeadlineExceededException;
+import co.istad.api.exception.InvalidInputException;
+import co.istad.api.exception.NotFoundException;
+import io.grpc.Status;
+import io.grpc.StatusException;
+import io.grpc.StatusRuntimeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Maps the exceptions of the API to gRPC status codes and back, the gRPC counterpart of
+ * {@link co.istad.util.http.GlobalControllerExceptionHandler}.
+ */
+public final class GrpcErrors {
+
+	private static final Logger LOG = LoggerFactory.getLogger(GrpcErrors.class);
+
+	private GrpcErrors() {
+	}
+
+	/**
+	 * @return the status to close a call failing with the given exception with
+	 */
+	public static StatusRuntimeException toStatus(Throwable ex) {
+		Status status;
+		if (ex instanceof NotFoundException) {
+			status = Status.NOT_FOUND;
+		} else if (ex instanceof InvalidInputException) {
+			status = Status.INVALID_ARGUMENT;
+		} else if (ex instanceof DeadlineExceededException) {
+			status = Status.DEADLINE_EXCEEDED;
+		} else if (ex instanceof RejectedExecutionException) {
+			status = Status.RESOURCE_EXHAUSTED;
+		} else if (ex instanceof StatusRuntimeException || ex instanceof StatusException) {
+			return Status.fromThrowable(ex).asRuntimeException();
+		} else {
+			LOG.warn("Got an unexpected error, will return it as INTERNAL", ex);
+			status = Status.INTERNAL;
+		}
+
+		LOG.debug("Returning gRPC status: {}, message: {}", status.getCode(), ex.getMessage());
+		return status.withDescription(ex.getMessage()).asRuntimeException();
+	}
+
+	/**
+	 * @return the exception of the API matching the status a call failed with, other errors as is
+	 */
+	public static Throwable toException(Throwable ex) {
+		if (!(ex instanceof StatusRuntimeException || ex instanceof StatusException)) {
+			return ex;
+		}
+
+		Status status = Status.fromThrowable(ex);
+		return switch (status.getCode()) {
+			case NOT_FOUND -> new NotFoundException(status.getDescription());
+			case INVALID_ARGUMENT -> new InvalidInputException(status.getDescription());
+			case DEADLINE_EXCEEDED -> new DeadlineExceededException(status.getDescription());
+			case RESOURCE_EXHAUSTED -> new RejectedExecutionException(status.getDescription());
+			default -> {
+				LOG.warn("Got an unexpected gRPC status: {}, will rethrow it", status.getCode());
+				yield ex;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,94 @@
+package co.istad.util.grpc;
+
+import io.grpc.BindableService;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the gRPC services of the application, i.e. its {@link BindableService} beans, on
+ * {@code app.grpc.port} next to the REST API. Enabled by {@code app.grpc.enabled=true}.
+ * <p>
+ * Calls run on a fixed pool of {@code app.grpc.pool-size} threads, so services with a
+ * blocking persistence layer can serve them on the calling thread.
+ */
+@Component
+@ConditionalOnProperty(name = "app.grpc.enabled", havingValue = "true")
+public class GrpcServer implements SmartLifecycle {
+
+	private static final Logger LOG = LoggerFactory.getLogger(GrpcServer.class);
+
+	private final List<BindableService> services;
+	private final int port;
+	private final int poolSize;
+
+	private ExecutorService executor;
+	private Server server;
+
+	public GrpcServer(
+			List<BindableService> services,
+			@Value("${app.grpc.port:9090}") int port,
+			@Value("${app.grpc.pool-size:16}") int poolSize) {
+		this.services = services;
+		this.port = port;
+		this.poolSize = poolSize;
+	}
+
+	@Override
+	public synchronized void start() {
+		executor = Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("grpc-"));
+
+		ServerBuilder<?> builder = ServerBuilder.forPort(port).executor(executor);
+		services.forEach(builder::addService);
+		try {
+			server = builder.build().start();
+		} catch (IOException ex) {
+			executor.shutdown();
+			throw new UncheckedIOException("Failed to start the gRPC server on port " + port, ex);
+		}
+
+		LOG.info("gRPC server started on port {} with services {}", server.getPort(),
+				services.stream().map(service -> service.bindService().getServiceDescriptor().getName()).toList());
+	}
+
+	@Override
+	public synchronized void stop() {
+		server.shutdown();
+		try {
+			if (!server.awaitTermination(5, TimeUnit.SECONDS)) {
+				server.shutdownNow();
+			}
+		} catch (InterruptedException ex) {
+			server.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		executor.shutdown();
+		server = null;
+	}
+
+	@Override
+	public synchronized boolean isRunning() {
+		return server != null;
+	}
+
+	/**
+	 * @return the port the server listens on, e.g. when started on port 0
+	 */
+	public synchronized int getPort() {
+		return server.getPort();
+	}
+
+}
@@ -0,0 +1,165 @@
+package co.istad.util.grpc;
+
+import co.istad.util.deadline.Deadline;
+import io.grpc.Context;
+import io.grpc.stub.AbstractStub;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Bridges between Reactor and the stream observers of gRPC, on both sides of a call.
+ * <p>
+ * Deadlines cross the boundary both ways: a deadline of the caller, in the Reactor context,
+ * becomes the gRPC deadline of the call, and the gRPC deadline of a served call becomes the
+ * {@link Deadline} of the pipeline serving it.
+ */
+public final class GrpcStreams {
+
+	private static final ContextSnapshotFactory SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+	private GrpcStreams() {
+	}
+
+	/**
+	 * A method of an async stub, e.g. {@code ReviewsGrpc.ReviewsStub::listReviews}.
+	 */
+	@FunctionalInterface
+	public interface StubMethod<S, Q, T> {
+
+		void invoke(S stub, Q request, StreamObserver<T> responseObserver);
+
+	}
+
+	/**
+	 * Calls a method of an async stub when subscribed, with the deadline of the caller, and
+	 * cancels the call when the subscription is cancelled. Messages are requested from the
+	 * server as they are requested downstream, so a slow subscriber holds back the server
+	 * rather than filling a buffer. Errors are mapped by {@link GrpcErrors#toException(Throwable)}.
+	 */
+	public static <S extends AbstractStub<S>, Q, T> Flux<T> call(S stub, StubMethod<S, Q, T> method, Q request) {
+		return Flux.create(sink -> {
+			S withDeadline = Deadline.current(sink.contextView())
+					.map(deadline -> stub.withDeadlineAfter(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS))
+					.orElse(stub);
+
+			AtomicReference<ClientCallStreamObserver<Q>> call = new AtomicReference<>();
+			method.invoke(withDeadline, request, new ClientResponseObserver<Q, T>() {
+
+				@Override
+				public void beforeStart(ClientCallStreamObserver<Q> requestStream) {
+					// Requesting is only possible once the call is started
+					requestStream.disableAutoRequestWithInitial(0);
+					call.set(requestStream);
+					sink.onCancel(() -> requestStream.cancel("Cancelled by the caller", null));
+				}
+
+				@Override
+				public void onNext(T value) {
+					sink.next(value);
+				}
+
+				@Override
+				public void onError(Throwable ex) {
+					sink.error(GrpcErrors.toException(ex));
+				}
+
+				@Override
+				public void onCompleted() {
+					sink.complete();
+				}
+			});
+			// Called with the demand so far, then with every new request
+			sink.onRequest(n -> call.get().request((int) Math.min(n, Integer.MAX_VALUE)));
+		});
+	}
+
+	/**
+	 * Sends the items to the caller of a served call, and cancels the subscription when the
+	 * call is cancelled. Items are requested one at a time while the call is ready for more,
+	 * so a slow caller holds back the source rather than filling the outbound buffer. Errors
+	 * are mapped by {@link GrpcErrors#toStatus(Throwable)}.
+	 */
+	public static <T> void serve(Flux<T> items, StreamObserver<T> responseObserver) {
+		ServerCallStreamObserver<T> call = (ServerCallStreamObserver<T>) responseObserver;
+
+		io.grpc.Deadline grpcDeadline = Context.current().getDeadline();
+		Flux<T> withDeadline = grpcDeadline == null
+				? items
+				: items.contextWrite(context -> Deadline.after(Duration.ofNanos(grpcDeadline.timeRemaining(TimeUnit.NANOSECONDS))).putIn(context));
+
+		ReadySubscriber<T> subscriber = new ReadySubscriber<>(call);
+		call.setOnCancelHandler(subscriber::dispose);
+		call.setOnReadyHandler(subscriber::requestIfReady);
+		withDeadline.subscribe(subscriber);
+	}
+
+	/**
+	 * Runs a blocking service method when subscribed, with the deadline of the pipeline
+	 * restored on the calling thread, see {@link Deadline#checkCurrent()}.
+	 */
+	public static <T> Mono<T> fromBlocking(Supplier<T> call) {
+		return Mono.deferContextual(context -> {
+			try (ContextSnapshot.Scope scope = SNAPSHOTS.setThreadLocalsFrom(context)) {
+				return Mono.justOrEmpty(call.get());
+			}
+		});
+	}
+
+	/**
+	 * Requests the next item once the previous one is sent and the call is ready, either
+	 * right away or from the on-ready handler of the call.
+	 */
+	private static final class ReadySubscriber<T> extends BaseSubscriber<T> {
+
+		private final ServerCallStreamObserver<T> call;
+		private final AtomicBoolean requested = new AtomicBoolean();
+
+		ReadySubscriber(ServerCallStreamObserver<T> call) {
+			this.call = call;
+		}
+
+		void requestIfReady() {
+			if (!isDisposed() && call.isReady() && requested.compareAndSet(false, true)) {
+				request(1);
+			}
+		}
+
+		@Override
+		protected void hookOnSubscribe(Subscription subscription) {
+			requestIfReady();
+		}
+
+		@Override
+		protected void hookOnNext(T value) {
+			requested.set(false);
+			call.onNext(value);
+			requestIfReady();
+		}
+
+		@Override
+		protected void hookOnError(Throwable ex) {
+			call.onError(GrpcErrors.toStatus(ex));
+		}
+
+		@Override
+		protected void hookOnComplete() {
+			call.onCompleted();
+		}
+
+	}
+
+}
@@ -1,5 +1,6 @@
 package co.istad.util.http;
 
+import co.istad.api.exception.DeadlineExceededException;
 import co.istad.api.exception.InvalidInputException;
 import co.istad.api.exception.NotFoundException;
 import org.slf4j.Logger;
@@ -11,6 +12,8 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @RestControllerAdvice
 public class GlobalControllerExceptionHandler {
 
@@ -32,6 +35,22 @@ public class GlobalControllerExceptionHandler {
 		return createHttpErrorInfo(HttpStatus.UNPROCESSABLE_ENTITY, request, ex);
 	}
 
+	@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+	@ExceptionHandler(RejectedExecutionException.class)
+	public @ResponseBody HttpErrorInfo handleRejectedExecutionException(
+			ServerHttpRequest request, RejectedExecutionException ex) {
+
+		return createHttpErrorInfo(HttpStatus.SERVICE_UNAVAILABLE, request, ex);
+	}
+
+	@ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+	@ExceptionHandler(DeadlineExceededException.class)
+	public @ResponseBody HttpErrorInfo handleDeadlineExceededException(
+			ServerHttpRequest request, DeadlineExceededException ex) {
+
+		return createHttpErrorInfo(HttpStatus.GATEWAY_TIMEOUT, request, ex);
+	}
+
 	private HttpErrorInfo createHttpErrorInfo(
 			HttpStatus httpStatus, ServerHttpRequest request, Exception ex) {
 
@@ -0,0 +1,147 @@
+package co.istad.util.batch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteBehindBufferTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void concurrentWritesAreWrittenInBatchesOnce() throws Exception {
+		Set<Integer> written = ConcurrentHashMap.newKeySet();
+		List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+		ExecutorService producers = Executors.newFixedThreadPool(8);
+
+		try (WriteBehindBuffer<Integer> buffer = new WriteBehindBuffer<>("items", 1024, 50, Duration.ofMillis(5), batch -> {
+			batchSizes.add(batch.size());
+			written.addAll(batch);
+			return List.of();
+		}, meterRegistry)) {
+
+			List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+			for (int producer = 0; producer < 8; producer++) {
+				int first = producer * 500;
+				futures.add(CompletableFuture.supplyAsync(() -> {
+					for (int i = first; i < first + 500; i++) {
+						assertTrue(buffer.write(i));
+					}
+					return true;
+				}, producers));
+			}
+			CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+			assertEquals(4000, written.size());
+			assertEquals(4000, batchSizes.stream().mapToInt(Integer::intValue).sum());
+			assertTrue(batchSizes.stream().allMatch(size -> size <= 50));
+			assertEquals(batchSizes.size(), meterRegistry.get("write-behind.flush.size").tag("name", "items").summary().count());
+		} finally {
+			producers.shutdown();
+		}
+	}
+
+	@Test
+	void writesCompleteWithTheOutcomeOfTheirBatch() {
+		try (WriteBehindBuffer<String> buffer = new WriteBehindBuffer<>("items", 16, 3, Duration.ofSeconds(1), batch -> {
+			if (batch.contains("fail")) {
+				throw new IllegalStateException("Write failed");
+			}
+			return batch.indexOf("duplicate") < 0 ? List.of() : List.of(batch.indexOf("duplicate"));
+		}, meterRegistry)) {
+
+			CompletableFuture<Boolean> first = buffer.submit("a");
+			CompletableFuture<Boolean> duplicate = buffer.submit("duplicate");
+			// Fills the batch, so it is written before the delay
+			assertTrue(buffer.write("b"));
+			assertTrue(first.join());
+			assertFalse(duplicate.join());
+
+			IllegalStateException ex = assertThrows(IllegalStateException.class, () -> buffer.write("fail"));
+			assertEquals("Write failed", ex.getMessage());
+		}
+	}
+
+	@Test
+	void writesAreRejectedWhenTheBufferIsFull() throws Exception {
+		CompletableFuture<Void> release = new CompletableFuture<>();
+		try (WriteBehindBuffer<Integer> buffer = new WriteBehindBuffer<>("items", 4, 1, Duration.ZERO, batch -> {
+			release.join();
+			return List.of();
+		}, meterRegistry)) {
+
+			// The first is taken by the blocked flusher, the next four fill the buffer
+			List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+			futures.add(buffer.submit(0));
+			while (buffer.pending() > 0) {
+				Thread.sleep(1);
+			}
+			for (int i = 1; i <= 4; i++) {
+				futures.add(buffer.submit(i));
+			}
+			assertThrows(RejectedExecutionException.class, () -> buffer.submit(5));
+
+			release.complete(null);
+			CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	void writesRacingCloseAreWrittenOrRejected() throws Exception {
+		ExecutorService producers = Executors.newFixedThreadPool(4);
+		try {
+			for (int round = 0; round < 500; round++) {
+				WriteBehindBuffer<Integer> buffer = new WriteBehindBuffer<>("items", 1 << 16, 50, Duration.ZERO, batch -> List.of(), meterRegistry);
+				List<CompletableFuture<Boolean>> futures = new CopyOnWriteArrayList<>();
+				List<Future<?>> submitted = new ArrayList<>();
+				for (int producer = 0; producer < 4; producer++) {
+					submitted.add(producers.submit(() -> {
+						// Until the buffer is closed
+						for (int i = 0; ; i++) {
+							try {
+								futures.add(buffer.submit(i));
+							} catch (RejectedExecutionException ex) {
+								return;
+							}
+						}
+					}));
+				}
+				buffer.close();
+				for (Future<?> future : submitted) {
+					future.get(10, TimeUnit.SECONDS);
+				}
+
+				// None is left waiting, a write queued as the flusher stopped is rejected
+				for (CompletableFuture<Boolean> future : futures) {
+					try {
+						assertTrue(future.get(10, TimeUnit.SECONDS));
+					} catch (ExecutionException ex) {
+						assertInstanceOf(RejectedExecutionException.class, ex.getCause());
+					}
+				}
+			}
+		} finally {
+			producers.shutdown();
+		}
+	}
+
+}
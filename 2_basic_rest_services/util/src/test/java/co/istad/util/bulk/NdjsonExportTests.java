@@ -0,0 +1,68 @@
+package co.istad.util.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NdjsonExportTests {
+
+	record Item(long id, String name) {
+	}
+
+	@Test
+	void recordsAreWrittenAsLinesInBatches() {
+		MockServerHttpResponse response = new MockServerHttpResponse();
+		Flux<Item> items = Flux.range(1, 600)
+				.map(id -> new Item(id, "item \"" + id + "\""));
+
+		NdjsonExport.write(response, items, new ObjectMapper().writerFor(Item.class)).block(Duration.ofSeconds(10));
+
+		assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+		String[] lines = response.getBodyAsString().block(Duration.ofSeconds(10)).split("\n");
+		assertEquals(600, lines.length);
+		assertEquals("{\"id\":1,\"name\":\"item \\\"1\\\"\"}", lines[0]);
+		assertEquals("{\"id\":600,\"name\":\"item \\\"600\\\"\"}", lines[599]);
+	}
+
+	@Test
+	void recordsAreReadOnDemand() {
+		AtomicInteger read = new AtomicInteger();
+		AtomicBoolean cancelled = new AtomicBoolean();
+		Flux<Item> items = Flux.range(1, 100_000)
+				.doOnNext(id -> read.incrementAndGet())
+				.doOnCancel(() -> cancelled.set(true))
+				.map(id -> new Item(id, "item " + id));
+
+		// Hands the body to the test instead of collecting it
+		AtomicReference<Flux<DataBuffer>> body = new AtomicReference<>();
+		MockServerHttpResponse response = new MockServerHttpResponse();
+		response.setWriteHandler(buffers -> {
+			body.set(buffers);
+			return Mono.empty();
+		});
+		NdjsonExport.write(response, items, new ObjectMapper().writerFor(Item.class)).block(Duration.ofSeconds(10));
+
+		// Beyond the write taken, only what the response prefetches is read
+		StepVerifier.create(body.get(), 1)
+				.expectNextCount(1)
+				.then(() -> assertTrue(read.get() <= (Queues.XS_BUFFER_SIZE + 1) * NdjsonExport.RECORDS_PER_WRITE, "read " + read.get() + " records"))
+				.thenCancel()
+				.verify(Duration.ofSeconds(10));
+		assertTrue(cancelled.get());
+	}
+
+}
@@ -0,0 +1,97 @@
+package co.istad.util.bulk;
+
+import co.istad.util.bulk.NdjsonFileImport.Progress;
+import co.istad.util.bulk.NdjsonFileImport.State;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NdjsonFileImportTests {
+
+	record Item(long id, String name) {
+	}
+
+	private final ObjectReader reader = new ObjectMapper().readerFor(Item.class);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void rangesEndAtLineBoundaries() throws IOException {
+		Path file = write("a\nbb\nccc\ndddd\n");
+		try (FileChannel channel = FileChannel.open(file)) {
+			List<long[]> ranges = NdjsonFileImport.splitAtLines(channel, 3);
+
+			assertEquals(0, ranges.get(0)[0]);
+			assertEquals(channel.size(), ranges.get(ranges.size() - 1)[1]);
+			for (int i = 0; i < ranges.size(); i++) {
+				long end = ranges.get(i)[1];
+				assertTrue(end == channel.size() || Files.readAllBytes(file)[(int) end - 1] == '\n');
+				if (i > 0) {
+					assertEquals(ranges.get(i - 1)[1], ranges.get(i)[0]);
+				}
+			}
+		}
+	}
+
+	@Test
+	void everyRecordIsWrittenOnceAndDuplicatesAreCollected() throws Exception {
+		String lines = IntStream.rangeClosed(1, 10_000)
+				.mapToObj(id -> "{\"id\":" + id + ",\"name\":\"item " + id + "\"}")
+				.collect(Collectors.joining("\n"));
+		Path file = write(lines + "\n{\"id\":1,\"name\":\"again\"}");
+
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+		NdjsonFileImport<Item> fileImport = NdjsonFileImport.start(file, reader, item -> String.valueOf(item.id()),
+				batch -> {
+					List<Integer> duplicates = new ArrayList<>();
+					for (int i = 0; i < batch.size(); i++) {
+						if (!ids.add(batch.get(i).id())) {
+							duplicates.add(i);
+						}
+					}
+					return duplicates;
+				}, 4, 100);
+
+		Progress progress = fileImport.completion().get(30, TimeUnit.SECONDS);
+		assertEquals(State.COMPLETED, progress.state());
+		assertEquals(10_001, progress.records());
+		assertEquals(10_000, progress.written());
+		assertEquals(1, progress.duplicates());
+		assertEquals(List.of("1"), progress.duplicateKeys());
+		assertEquals(progress.bytes(), progress.bytesRead());
+		assertEquals(10_000, ids.size());
+	}
+
+	@Test
+	void invalidRecordFailsTheImport() throws Exception {
+		Path file = write("{\"id\":1,\"name\":\"one\"}\n{\"id\":2,\"name\":}\n");
+
+		Progress progress = NdjsonFileImport.<Item>start(file, reader, item -> String.valueOf(item.id()), batch -> List.of(), 1, 100)
+				.completion().get(30, TimeUnit.SECONDS);
+
+		assertEquals(State.FAILED, progress.state());
+		assertTrue(progress.error().startsWith("Invalid record at byte"), progress.error());
+	}
+
+	private Path write(String content) throws IOException {
+		return Files.writeString(directory.resolve("items.ndjson"), content);
+	}
+
+}
@@ -0,0 +1,83 @@
+package co.istad.util.etag;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class EntityTagFilterTests {
+
+	private static final String SMALL = "x".repeat(100);
+	private static final String LARGE = "x".repeat(10_000);
+
+	private final WebTestClient client = WebTestClient
+			.bindToRouterFunction(RouterFunctions.route()
+					.GET("/small", request -> body(SMALL))
+					.GET("/large", request -> body(LARGE))
+					.GET("/large-tagged", request -> ServerResponse.ok()
+							.eTag("W/\"1\"")
+							.contentType(MediaType.TEXT_PLAIN)
+							.bodyValue(LARGE))
+					.build())
+			.webFilter(new EntityTagFilter(DataSize.ofBytes(1024)))
+			.build();
+
+	@Test
+	void matchingTagIsNotModified() {
+		String etag = client.get()
+				.uri("/small")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class).isEqualTo(SMALL)
+				.returnResult()
+				.getResponseHeaders()
+				.getETag();
+		assertNotNull(etag);
+
+		client.get()
+				.uri("/small")
+				.ifNoneMatch(etag)
+				.exchange()
+				.expectStatus().isNotModified()
+				.expectBody().isEmpty();
+	}
+
+	@Test
+	void largeBodyIsSentUntagged() {
+		String body = client.get()
+				.uri("/large")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().doesNotExist("ETag")
+				.expectBody(String.class)
+				.returnResult()
+				.getResponseBody();
+		assertEquals(LARGE, body);
+	}
+
+	@Test
+	void largeBodyTaggedByTheHandlerKeepsItsTag() {
+		String body = client.get()
+				.uri("/large-tagged")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals("ETag", "W/\"1\"")
+				.expectBody(String.class)
+				.returnResult()
+				.getResponseBody();
+		assertEquals(LARGE, body);
+	}
+
+	private static Mono<ServerResponse> body(String body) {
+		return ServerResponse.ok()
+				.contentType(MediaType.TEXT_PLAIN)
+				.body(EntityTag.record(Mono.just(body), String::length, value -> 1), String.class);
+	}
+
+}
@@ -0,0 +1,77 @@
+package co.istad.util.grpc;
+
+import co.istad.api.core.grpc.ListRequest;
+import co.istad.api.core.grpc.Review;
+import co.istad.api.core.grpc.ReviewItem;
+import co.istad.api.core.grpc.ReviewsGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GrpcStreamsTests {
+
+	private static final int REVIEWS = 10_000;
+
+	// Items of 10KB, all of them are about 100MB
+	private static final String CONTENT = "x".repeat(10 * 1024);
+
+	private final AtomicInteger produced = new AtomicInteger();
+
+	private Server server;
+	private ManagedChannel channel;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = ServerBuilder.forPort(0)
+				.addService(new ReviewsGrpc.ReviewsImplBase() {
+					@Override
+					public void listReviews(ListRequest request, StreamObserver<ReviewItem> responseObserver) {
+						GrpcStreams.serve(Flux.range(1, REVIEWS)
+								.doOnNext(i -> produced.incrementAndGet())
+								.map(i -> ReviewItem.newBuilder()
+										.setReview(Review.newBuilder().setProductId(request.getProductId()).setReviewId(i).setContent(CONTENT))
+										.build()), responseObserver);
+					}
+				})
+				.build()
+				.start();
+		channel = ManagedChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext().build();
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		channel.shutdownNow();
+		server.shutdownNow().awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void slowSubscriberHoldsBackTheServer() {
+		Flux<ReviewItem> reviews = GrpcStreams.call(ReviewsGrpc.newStub(channel), ReviewsGrpc.ReviewsStub::listReviews,
+				ListRequest.newBuilder().setProductId(1).build());
+
+		// Beyond the first items, only what the flow control windows of the transport hold is produced
+		StepVerifier.create(reviews, 10)
+				.expectNextCount(10)
+				.thenAwait(Duration.ofSeconds(2))
+				.then(() -> assertTrue(produced.get() < 500, "produced " + produced.get() + " reviews"))
+				.thenRequest(Long.MAX_VALUE)
+				.expectNextCount(REVIEWS - 10)
+				.expectComplete()
+				.verify(Duration.ofSeconds(30));
+	}
+
+}